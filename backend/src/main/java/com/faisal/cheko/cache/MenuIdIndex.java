@@ -0,0 +1,288 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.MenuSnapshotProperties;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.repository.BranchRepository;
+import com.faisal.cheko.repository.MenuSectionRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import com.faisal.cheko.service.MetricsContributor;
+import com.faisal.cheko.util.LongLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Which branch and section ids exist, and the branch owning each section, so the read paths
+ * can check their path variables without a database round trip.
+ * <p>
+ * Ids live in primitive {@link LongLongHashMap}s that are replaced copy-on-write, so lookups
+ * take no lock. The maps are seeded from two id-only queries once the application is ready and
+ * the database is reachable, and reseeded after the configured maximum staleness, which bounds
+ * changes this node cannot see. In between, committed {@link MenuChangedEvent}s add and remove
+ * ids. Deleting a branch drops its sections too, since the database cascades without raising
+ * section events.
+ * <p>
+ * Only positive answers are kept. An id that is not in the index is looked up in the database,
+ * and learned if it exists, so a cold or partially invalidated index is never wrong, only
+ * slower. A lookup or seed that raced with a change is not kept.
+ */
+@Component
+public class MenuIdIndex implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(MenuIdIndex.class);
+
+    private static final long PRESENT = 1L;
+    private static final long MISSING = 0L;
+
+    private final BranchRepository branchRepository;
+    private final MenuSectionRepository menuSectionRepository;
+    private final DatabaseConnectionService databaseConnectionService;
+    private final TransactionTemplate readTransaction;
+    private final long maxStalenessNanos;
+
+    private final Object lock = new Object();
+    // Replaced under lock, read without it; branch id -> PRESENT, section id -> branch id
+    private volatile LongLongHashMap branches = new LongLongHashMap();
+    private volatile LongLongHashMap sections = new LongLongHashMap();
+    // Guarded by lock; bumped by every change, so a lookup or seed that raced with one is not kept
+    private long changes;
+    private volatile long seededAtNanos;
+    private volatile boolean seeded;
+
+    private final AtomicBoolean seedRequested = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder seeds = new LongAdder();
+    private volatile long lastSeedNanos;
+
+    @Autowired
+    public MenuIdIndex(BranchRepository branchRepository,
+                       MenuSectionRepository menuSectionRepository,
+                       DatabaseConnectionService databaseConnectionService,
+                       PlatformTransactionManager transactionManager,
+                       MenuSnapshotProperties properties) {
+        this.branchRepository = branchRepository;
+        this.menuSectionRepository = menuSectionRepository;
+        this.databaseConnectionService = databaseConnectionService;
+        this.maxStalenessNanos = properties.getMaxStaleness() == null ? 0 : properties.getMaxStaleness().toNanos();
+
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public boolean branchExists(Long branchId) {
+        if (branchId == null) {
+            return false;
+        }
+        if (branches.containsKey(branchId)) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        long changesBefore = changesSoFar();
+        if (!branchRepository.existsById(branchId)) {
+            return false;
+        }
+        synchronized (lock) {
+            if (changes == changesBefore) {
+                LongLongHashMap next = new LongLongHashMap(branches);
+                next.put(branchId, PRESENT);
+                branches = next;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The branch owning the section, or null when the section does not exist.
+     */
+    public Long sectionBranchId(Long sectionId) {
+        if (sectionId == null) {
+            return null;
+        }
+        long owner = sections.get(sectionId, MISSING);
+        if (owner != MISSING) {
+            hits.increment();
+            return owner;
+        }
+        misses.increment();
+        long changesBefore = changesSoFar();
+        Long branchId = menuSectionRepository.findBranchIdById(sectionId).orElse(null);
+        if (branchId == null) {
+            return null;
+        }
+        synchronized (lock) {
+            if (changes == changesBefore) {
+                LongLongHashMap next = new LongLongHashMap(sections);
+                next.put(sectionId, branchId);
+                sections = next;
+            }
+        }
+        return branchId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        seedRequested.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${cheko.menu-snapshot.id-index-seed-interval:PT1S}")
+    public void seedIfDue() {
+        if (!databaseConnectionService.isConnected()) {
+            return;
+        }
+        boolean stale = seeded && maxStalenessNanos > 0 && System.nanoTime() - seededAtNanos > maxStalenessNanos;
+        if (seedRequested.compareAndSet(true, false) || stale) {
+            seed();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        Long branchId = event.getBranchId();
+        Long sectionId = event.getSectionId();
+        synchronized (lock) {
+            switch (event.getType()) {
+                case ITEM_CREATED:
+                case ITEM_UPDATED:
+                case ITEM_DELETED:
+                    // Items are not indexed
+                    return;
+                case SECTION_CREATED:
+                case SECTION_UPDATED:
+                    if (sectionId != null) {
+                        LongLongHashMap next = new LongLongHashMap(sections);
+                        if (branchId != null) {
+                            next.put(sectionId, branchId);
+                        } else {
+                            next.remove(sectionId);
+                        }
+                        sections = next;
+                    }
+                    break;
+                case SECTION_DELETED:
+                    if (sectionId != null) {
+                        LongLongHashMap next = new LongLongHashMap(sections);
+                        next.remove(sectionId);
+                        sections = next;
+                    }
+                    break;
+                case BRANCH_CREATED:
+                case BRANCH_UPDATED:
+                    if (branchId != null) {
+                        LongLongHashMap next = new LongLongHashMap(branches);
+                        next.put(branchId, PRESENT);
+                        branches = next;
+                    }
+                    break;
+                case BRANCH_DELETED:
+                    if (branchId != null) {
+                        LongLongHashMap nextBranches = new LongLongHashMap(branches);
+                        nextBranches.remove(branchId);
+                        LongLongHashMap nextSections = new LongLongHashMap(sections);
+                        nextSections.removeValue(branchId);
+                        branches = nextBranches;
+                        sections = nextSections;
+                    }
+                    break;
+                default:
+                    if (branchId != null) {
+                        // Sections of the branch are looked up again as they are asked for
+                        LongLongHashMap next = new LongLongHashMap(sections);
+                        next.removeValue(branchId);
+                        sections = next;
+                    } else {
+                        branches = new LongLongHashMap();
+                        sections = new LongLongHashMap();
+                        seeded = false;
+                        seedRequested.set(true);
+                    }
+                    break;
+            }
+            changes++;
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "menuIdIndex";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        LongLongHashMap currentBranches = branches;
+        LongLongHashMap currentSections = sections;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("seeded", seeded);
+        metrics.put("branches", currentBranches.size());
+        metrics.put("sections", currentSections.size());
+        metrics.put("bytes", currentBranches.getAllocatedBytes() + currentSections.getAllocatedBytes());
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("seeds", seeds.sum());
+        metrics.put("lastSeedMs", TimeUnit.NANOSECONDS.toMillis(lastSeedNanos));
+        return metrics;
+    }
+
+    void seed() {
+        long changesBefore = changesSoFar();
+        long start = System.nanoTime();
+        Seed loaded = readTransaction.execute(status ->
+                new Seed(branchRepository.findAllIds(), menuSectionRepository.findAllIdsWithBranchId()));
+        lastSeedNanos = System.nanoTime() - start;
+        seeds.increment();
+
+        LongLongHashMap nextBranches = new LongLongHashMap(loaded.branchIds.size());
+        for (Long branchId : loaded.branchIds) {
+            nextBranches.put(branchId, PRESENT);
+        }
+        LongLongHashMap nextSections = new LongLongHashMap(loaded.sections.size());
+        for (Object[] row : loaded.sections) {
+            nextSections.put((Long) row[0], (Long) row[1]);
+        }
+        synchronized (lock) {
+            if (changes != changesBefore) {
+                log.debug("Discarded menu id index seed that raced with a menu change");
+                seedRequested.set(true);
+                return;
+            }
+            branches = nextBranches;
+            sections = nextSections;
+            seededAtNanos = start;
+            seeded = true;
+        }
+    }
+
+    private long changesSoFar() {
+        synchronized (lock) {
+            return changes;
+        }
+    }
+
+    private static final class Seed {
+        private final List<Long> branchIds;
+        private final List<Object[]> sections;
+
+        private Seed(List<Long> branchIds, List<Object[]> sections) {
+            this.branchIds = branchIds;
+            this.sections = sections;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.MenuSnapshotProperties;
+import com.faisal.cheko.repository.MenuItemRepository;
+import com.faisal.cheko.service.MetricsContributor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Item totals of branch listings, so paged reads do not run a {@code COUNT} with every page.
+ * <p>
+ * A total is kept per branch, section, availability filter and name search, tagged with the
+ * branch's content version from {@link MenuSnapshotCache}. A committed menu write changes the
+ * version, which retires every total of that branch; writes this node cannot see are bounded
+ * by the snapshot's maximum staleness.
+ */
+@Component
+public class MenuItemCountCache implements MetricsContributor {
+
+    private final MenuItemRepository menuItemRepository;
+    private final MenuSnapshotCache menuSnapshotCache;
+    private final int maxEntries;
+    private final long maxStalenessNanos;
+
+    private final ConcurrentHashMap<Key, Count> counts = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public MenuItemCountCache(MenuItemRepository menuItemRepository, MenuSnapshotCache menuSnapshotCache,
+                              MenuSnapshotProperties properties) {
+        this.menuItemRepository = menuItemRepository;
+        this.menuSnapshotCache = menuSnapshotCache;
+        this.maxEntries = properties.getMaxCachedCounts();
+        this.maxStalenessNanos = properties.getMaxStaleness() == null ? 0 : properties.getMaxStaleness().toNanos();
+    }
+
+    /**
+     * Number of items of a branch matching the filters.
+     *
+     * @param sectionId     only items of this section, or null for the whole branch
+     * @param availableOnly only items marked available
+     * @param nameQuery     case-insensitive substring of the item name, or null/empty for all
+     */
+    public long count(Long branchId, Long sectionId, boolean availableOnly, String nameQuery) {
+        String search = nameQuery == null || nameQuery.isEmpty() ? null : nameQuery.toLowerCase(Locale.ROOT);
+        Key key = new Key(branchId, sectionId, availableOnly, search);
+        // Read before counting, so a write committing meanwhile leaves this total outdated
+        String version = menuSnapshotCache.getContentVersion(branchId);
+
+        Count cached = counts.get(key);
+        if (cached != null && cached.version.equals(version) && isFresh(cached)) {
+            hits.increment();
+            return cached.total;
+        }
+
+        misses.increment();
+        long total = menuItemRepository.countByBranchId(branchId, sectionId, availableOnly, search);
+        if (counts.size() >= maxEntries) {
+            evictOutdated();
+        }
+        if (counts.size() < maxEntries) {
+            counts.put(key, new Count(version, total, System.nanoTime()));
+        }
+        return total;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "menuItemCounts";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cachedCounts", counts.size());
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("maxStalenessSeconds", TimeUnit.NANOSECONDS.toSeconds(maxStalenessNanos));
+        return metrics;
+    }
+
+    private void evictOutdated() {
+        Iterator<Map.Entry<Key, Count>> iterator = counts.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, Count> entry = iterator.next();
+            if (!isFresh(entry.getValue())
+                    || !entry.getValue().version.equals(menuSnapshotCache.getContentVersion(entry.getKey().branchId))) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean isFresh(Count count) {
+        return maxStalenessNanos <= 0 || System.nanoTime() - count.countedAtNanos <= maxStalenessNanos;
+    }
+
+    private static final class Key {
+        private final Long branchId;
+        private final Long sectionId;
+        private final boolean availableOnly;
+        private final String search;
+
+        private Key(Long branchId, Long sectionId, boolean availableOnly, String search) {
+            this.branchId = branchId;
+            this.sectionId = sectionId;
+            this.availableOnly = availableOnly;
+            this.search = search;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return availableOnly == other.availableOnly && Objects.equals(branchId, other.branchId)
+                    && Objects.equals(sectionId, other.sectionId) && Objects.equals(search, other.search);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(branchId, sectionId, availableOnly, search);
+        }
+    }
+
+    private static final class Count {
+        private final String version;
+        private final long total;
+        private final long countedAtNanos;
+
+        private Count(String version, long total, long countedAtNanos) {
+            this.version = version;
+            this.total = total;
+            this.countedAtNanos = countedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.dto.BranchMenuResponse;
+import com.faisal.cheko.dto.BranchMenuSectionResponse;
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.MenuSectionResponse;
+import com.faisal.cheko.search.TrigramIndex;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Immutable view of one branch's menu: its sections and every item in them.
+ * <p>
+ * A snapshot is built once from the database and never modified; when the menu changes a
+ * new snapshot replaces it. Queries filter, sort and page in memory. Item lists sorted by a
+ * given {@link Sort} are computed on first use and kept with the snapshot, so repeated
+ * requests only filter and slice. The {@link MenuItemResponse} objects are shared between
+ * requests and must be treated as read-only.
+ * <p>
+ * Sorting follows PostgreSQL defaults: nulls last when ascending and first when descending.
+ * Text is compared case-insensitively, then by exact value, and ties are broken by id so
+ * pages never overlap.
+ * <p>
+ * Name searches go through a {@link TrigramIndex} over item names and descriptions, built on
+ * the first search. Matching ignores case and diacritics and folds Arabic spelling variants;
+ * when nothing contains the query, names close to it are returned instead. Sorting by
+ * {@value #RELEVANCE} orders search results best match first.
+ */
+public final class MenuSnapshot {
+
+    public static final String RELEVANCE = "relevance";
+
+    private static final int MAX_SORTED_VIEWS = 32;
+
+    private static final Map<String, Function<MenuItemResponse, Comparable<?>>> SORTABLE = new HashMap<>();
+
+    static {
+        SORTABLE.put("id", MenuItemResponse::getId);
+        SORTABLE.put("name", MenuItemResponse::getName);
+        SORTABLE.put("description", MenuItemResponse::getDescription);
+        SORTABLE.put("price", MenuItemResponse::getPrice);
+        SORTABLE.put("calories", MenuItemResponse::getCalories);
+        SORTABLE.put("imageUrl", MenuItemResponse::getImageUrl);
+        SORTABLE.put("isAvailable", MenuItemResponse::getIsAvailable);
+        SORTABLE.put("section.id", MenuItemResponse::getSectionId);
+        SORTABLE.put("section.name", MenuItemResponse::getSectionName);
+    }
+
+    private final long branchId;
+    private final String branchName;
+    private final Map<Long, MenuSectionResponse> sections;
+    private final List<Entry> entries;
+    private final Set<Long> itemIds;
+    private final long builtAtNanos;
+    private final Map<String, List<Entry>> sortedViews = new ConcurrentHashMap<>();
+    private volatile TrigramIndex searchIndex;
+
+    /**
+     * @param sections sections of the branch, in display order
+     * @param items    items of those sections
+     */
+    public MenuSnapshot(long branchId, String branchName, List<MenuSectionResponse> sections,
+                        List<MenuItemResponse> items, long builtAtNanos) {
+        this.branchId = branchId;
+        this.branchName = branchName;
+        Map<Long, MenuSectionResponse> sectionsById = new LinkedHashMap<>();
+        for (MenuSectionResponse section : sections) {
+            sectionsById.put(section.getId(), section);
+        }
+        this.sections = Collections.unmodifiableMap(sectionsById);
+        List<Entry> built = new ArrayList<>(items.size());
+        Set<Long> ids = new HashSet<>();
+        for (MenuItemResponse item : items) {
+            built.add(new Entry(item, built.size()));
+            ids.add(item.getId());
+        }
+        this.entries = Collections.unmodifiableList(built);
+        this.itemIds = Collections.unmodifiableSet(ids);
+        this.builtAtNanos = builtAtNanos;
+    }
+
+    /**
+     * Whether every property in the sort can be evaluated in memory.
+     */
+    public static boolean supports(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORTABLE.containsKey(order.getProperty()) && !RELEVANCE.equals(order.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Page through the items matching the filters.
+     *
+     * @param sectionId     only items of this section, or null for the whole branch
+     * @param availableOnly only items marked available
+     * @param nameQuery     search text matched against item names and descriptions, or null/empty for all
+     * @param pageable      page, size and a sort that {@link #supports(Sort)} accepts
+     */
+    public Page<MenuItemResponse> query(Long sectionId, boolean availableOnly, String nameQuery, Pageable pageable) {
+        List<Entry> ordered = nameQuery == null || nameQuery.isEmpty()
+                ? sorted(pageable.getSort())
+                : searched(nameQuery, pageable.getSort());
+
+        List<MenuItemResponse> content = new ArrayList<>();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        long matched = 0;
+        for (Entry entry : ordered) {
+            MenuItemResponse item = entry.item;
+            if (sectionId != null && !sectionId.equals(item.getSectionId())) {
+                continue;
+            }
+            if (availableOnly && !Boolean.TRUE.equals(item.getIsAvailable())) {
+                continue;
+            }
+            if (matched >= offset && content.size() < limit) {
+                content.add(item);
+            }
+            matched++;
+        }
+        return new PageImpl<>(content, pageable, matched);
+    }
+
+    public boolean hasSection(Long sectionId) {
+        return sections.containsKey(sectionId);
+    }
+
+    public boolean containsItem(Long itemId) {
+        return itemIds.contains(itemId);
+    }
+
+    public long getBranchId() {
+        return branchId;
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    public List<MenuSectionResponse> getSections() {
+        return new ArrayList<>(sections.values());
+    }
+
+    public int getItemCount() {
+        return entries.size();
+    }
+
+    /**
+     * All items in load order.
+     */
+    public List<MenuItemResponse> getItems() {
+        List<MenuItemResponse> items = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            items.add(entry.item);
+        }
+        return items;
+    }
+
+    /**
+     * The whole menu as a tree: sections in display order, each with its items in load order.
+     * Sections left without items by the filter are kept, so the tree matches the section
+     * listing.
+     */
+    public BranchMenuResponse toMenu(boolean availableOnly) {
+        Map<Long, List<MenuItemResponse>> itemsBySection = new HashMap<>();
+        int itemCount = 0;
+        for (Entry entry : entries) {
+            if (availableOnly && !Boolean.TRUE.equals(entry.item.getIsAvailable())) {
+                continue;
+            }
+            itemsBySection.computeIfAbsent(entry.item.getSectionId(), id -> new ArrayList<>()).add(entry.item);
+            itemCount++;
+        }
+        List<BranchMenuSectionResponse> tree = new ArrayList<>(sections.size());
+        for (MenuSectionResponse section : sections.values()) {
+            tree.add(BranchMenuSectionResponse.builder()
+                    .id(section.getId())
+                    .name(section.getName())
+                    .description(section.getDescription())
+                    .items(itemsBySection.getOrDefault(section.getId(), Collections.emptyList()))
+                    .build());
+        }
+        return BranchMenuResponse.builder()
+                .branchId(branchId)
+                .branchName(branchName)
+                .itemCount(itemCount)
+                .sections(tree)
+                .build();
+    }
+
+    /**
+     * {@link System#nanoTime()} when the data was read from the database.
+     */
+    public long getBuiltAtNanos() {
+        return builtAtNanos;
+    }
+
+    /**
+     * Search hits in relevance order when the sort asks for it (or there is no sort), otherwise
+     * in the sort's order.
+     */
+    private List<Entry> searched(String query, Sort sort) {
+        List<TrigramIndex.Hit> hits = searchIndex().search(query);
+        Sort.Order first = sort.iterator().hasNext() ? sort.iterator().next() : null;
+        if (first == null || RELEVANCE.equals(first.getProperty())) {
+            List<Entry> ranked = new ArrayList<>(hits.size());
+            for (TrigramIndex.Hit hit : hits) {
+                ranked.add(entries.get(hit.getDocument()));
+            }
+            return ranked;
+        }
+        boolean[] matched = new boolean[entries.size()];
+        for (TrigramIndex.Hit hit : hits) {
+            matched[hit.getDocument()] = true;
+        }
+        List<Entry> ordered = new ArrayList<>(hits.size());
+        for (Entry entry : sorted(sort)) {
+            if (matched[entry.position]) {
+                ordered.add(entry);
+            }
+        }
+        return ordered;
+    }
+
+    private TrigramIndex searchIndex() {
+        TrigramIndex index = searchIndex;
+        if (index == null) {
+            // Building twice under a race is harmless, both results are identical
+            List<String> names = new ArrayList<>(entries.size());
+            List<String> descriptions = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                names.add(entry.item.getName());
+                descriptions.add(entry.item.getDescription());
+            }
+            index = new TrigramIndex(names, descriptions);
+            searchIndex = index;
+        }
+        return index;
+    }
+
+    private List<Entry> sorted(Sort sort) {
+        if (sort.isUnsorted()) {
+            return entries;
+        }
+        String key = sort.toString();
+        List<Entry> view = sortedViews.get(key);
+        if (view != null) {
+            return view;
+        }
+        List<Entry> copy = new ArrayList<>(entries);
+        copy.sort(comparator(sort));
+        view = Collections.unmodifiableList(copy);
+        if (sortedViews.size() < MAX_SORTED_VIEWS) {
+            sortedViews.putIfAbsent(key, view);
+        }
+        return view;
+    }
+
+    private static Comparator<Entry> comparator(Sort sort) {
+        Comparator<Entry> comparator = null;
+        for (Sort.Order order : sort) {
+            if (RELEVANCE.equals(order.getProperty())) {
+                // Only meaningful for searches, which rank on their own
+                continue;
+            }
+            Comparator<Entry> next = orderComparator(order);
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<Entry> byId = Comparator.comparing(entry -> entry.item.getId(),
+                Comparator.nullsLast(Comparator.<Long>naturalOrder()));
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Entry> orderComparator(Sort.Order order) {
+        Function<MenuItemResponse, Comparable<?>> getter = SORTABLE.get(order.getProperty());
+        Comparator<Comparable> values = (a, b) -> {
+            if (a instanceof String && b instanceof String) {
+                int folded = ((String) a).compareToIgnoreCase((String) b);
+                return folded != 0 ? folded : ((String) a).compareTo((String) b);
+            }
+            return a.compareTo(b);
+        };
+        boolean ascending = order.isAscending();
+        boolean nullsFirst = order.getNullHandling() == Sort.NullHandling.NULLS_FIRST
+                || (order.getNullHandling() == Sort.NullHandling.NATIVE && !ascending);
+        Comparator<Comparable> directed = ascending ? values : values.reversed();
+        Comparator<Comparable> withNulls = nullsFirst ? Comparator.nullsFirst(directed) : Comparator.nullsLast(directed);
+        return (a, b) -> withNulls.compare((Comparable) getter.apply(a.item), (Comparable) getter.apply(b.item));
+    }
+
+    private static final class Entry {
+        private final MenuItemResponse item;
+        // Position in load order, which is also the document id in the search index
+        private final int position;
+
+        private Entry(MenuItemResponse item, int position) {
+            this.item = item;
+            this.position = position;
+        }
+    }
+}
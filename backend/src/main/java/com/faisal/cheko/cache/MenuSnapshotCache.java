@@ -0,0 +1,258 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.MenuSnapshotProperties;
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.MenuSectionResponse;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.exception.ResourceNotFoundException;
+import com.faisal.cheko.model.Branch;
+import com.faisal.cheko.model.MenuSection;
+import com.faisal.cheko.repository.BranchRepository;
+import com.faisal.cheko.repository.MenuItemRepository;
+import com.faisal.cheko.repository.MenuSectionRepository;
+import com.faisal.cheko.service.MetricsContributor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds one {@link MenuSnapshot} per branch and replaces it when the branch's menu changes.
+ * <p>
+ * A snapshot is built on first use, under a per-branch lock so concurrent readers trigger a
+ * single load, and read inside one repeatable-read transaction so sections and items are
+ * consistent. Writes made through JPA raise {@link MenuChangedEvent}s; once they commit, the
+ * affected snapshots are dropped and rebuilt on the next read. A version check keeps a build
+ * that raced with a change from being cached. Changes this node cannot see (other replicas,
+ * SQL run directly) are picked up once a snapshot exceeds the configured maximum staleness.
+ * <p>
+ * The per-branch version is also exposed as a content version for caches of data derived
+ * from the menu, such as {@link RenderedResponseCache}.
+ */
+@Component
+public class MenuSnapshotCache implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(MenuSnapshotCache.class);
+
+    private final BranchRepository branchRepository;
+    private final MenuSectionRepository menuSectionRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final TransactionTemplate readTransaction;
+    private final MenuSnapshotProperties properties;
+    private final long maxStalenessNanos;
+
+    private final ConcurrentHashMap<Long, MenuSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Object> buildLocks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+    // Section to branch, for the branches currently cached
+    private final ConcurrentHashMap<Long, Long> sectionBranches = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder staleRebuilds = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private volatile long lastBuildNanos;
+
+    @Autowired
+    public MenuSnapshotCache(BranchRepository branchRepository,
+                             MenuSectionRepository menuSectionRepository,
+                             MenuItemRepository menuItemRepository,
+                             PlatformTransactionManager transactionManager,
+                             MenuSnapshotProperties properties) {
+        this.branchRepository = branchRepository;
+        this.menuSectionRepository = menuSectionRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.properties = properties;
+        this.maxStalenessNanos = properties.getMaxStaleness() == null ? 0 : properties.getMaxStaleness().toNanos();
+
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Get the current snapshot of a branch's menu, building it if needed.
+     *
+     * @throws ResourceNotFoundException if the branch does not exist
+     */
+    public MenuSnapshot getBranch(Long branchId) {
+        MenuSnapshot snapshot = snapshots.get(branchId);
+        if (snapshot != null && isFresh(snapshot)) {
+            hits.increment();
+            return snapshot;
+        }
+
+        synchronized (buildLocks.computeIfAbsent(branchId, id -> new Object())) {
+            snapshot = snapshots.get(branchId);
+            if (snapshot != null) {
+                if (isFresh(snapshot)) {
+                    hits.increment();
+                    return snapshot;
+                }
+                staleRebuilds.increment();
+            }
+            return build(branchId);
+        }
+    }
+
+    /**
+     * Read a branch's menu in one transaction without caching it, for when snapshots are
+     * disabled.
+     *
+     * @throws ResourceNotFoundException if the branch does not exist
+     */
+    public MenuSnapshot read(Long branchId) {
+        return readTransaction.execute(status -> load(branchId, System.nanoTime()));
+    }
+
+    /**
+     * Drop the cached snapshot of a branch; the next read rebuilds it.
+     */
+    public void invalidate(Long branchId) {
+        versions.computeIfAbsent(branchId, id -> new AtomicLong()).incrementAndGet();
+        snapshots.remove(branchId);
+        invalidations.increment();
+    }
+
+    /**
+     * Tag identifying the current content of a branch's menu. It changes whenever a committed
+     * write touches the branch, so anything derived from the menu can be keyed by it.
+     */
+    public String getContentVersion(Long branchId) {
+        AtomicLong version = versions.get(branchId);
+        return epoch.get() + "." + (version == null ? 0 : version.get());
+    }
+
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        snapshots.clear();
+        sectionBranches.clear();
+        invalidations.increment();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        if (event.getBranchId() == null && event.getSectionId() == null && event.getItemId() == null) {
+            invalidateAll();
+            return;
+        }
+
+        Set<Long> affected = new HashSet<>();
+        if (event.getBranchId() != null) {
+            affected.add(event.getBranchId());
+        }
+        if (event.getSectionId() != null) {
+            Long owner = sectionBranches.get(event.getSectionId());
+            if (owner == null && event.getBranchId() == null) {
+                // Not cached here, but derived data such as rendered responses may still depend on it
+                owner = menuSectionRepository.findById(event.getSectionId())
+                        .map(section -> section.getBranch().getId())
+                        .orElse(null);
+            }
+            if (owner != null) {
+                affected.add(owner);
+            }
+        }
+        if (event.getItemId() != null) {
+            // The item may have moved away from the branch that currently lists it
+            for (MenuSnapshot snapshot : snapshots.values()) {
+                if (snapshot.containsItem(event.getItemId())) {
+                    affected.add(snapshot.getBranchId());
+                }
+            }
+        }
+        for (Long branchId : affected) {
+            invalidate(branchId);
+        }
+        log.debug("{} invalidated menu snapshots of branches {}", event, affected);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "menuSnapshot";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        metrics.put("cachedBranches", snapshots.size());
+        metrics.put("cachedItems", snapshots.values().stream().mapToInt(MenuSnapshot::getItemCount).sum());
+        metrics.put("hits", hits.sum());
+        metrics.put("builds", builds.sum());
+        metrics.put("staleRebuilds", staleRebuilds.sum());
+        metrics.put("invalidations", invalidations.sum());
+        metrics.put("lastBuildMs", TimeUnit.NANOSECONDS.toMillis(lastBuildNanos));
+        metrics.put("maxStalenessSeconds", TimeUnit.NANOSECONDS.toSeconds(maxStalenessNanos));
+        return metrics;
+    }
+
+    private boolean isFresh(MenuSnapshot snapshot) {
+        return maxStalenessNanos <= 0 || System.nanoTime() - snapshot.getBuiltAtNanos() <= maxStalenessNanos;
+    }
+
+    private MenuSnapshot build(Long branchId) {
+        long epochBefore = epoch.get();
+        AtomicLong version = versions.computeIfAbsent(branchId, id -> new AtomicLong());
+        long versionBefore = version.get();
+
+        long start = System.nanoTime();
+        MenuSnapshot snapshot = readTransaction.execute(status -> load(branchId, start));
+        lastBuildNanos = System.nanoTime() - start;
+        builds.increment();
+
+        snapshots.put(branchId, snapshot);
+        // A change committed while loading may not be in this snapshot; serve it once but do not keep it
+        if (version.get() != versionBefore || epoch.get() != epochBefore) {
+            snapshots.remove(branchId, snapshot);
+        } else {
+            for (MenuSectionResponse section : snapshot.getSections()) {
+                sectionBranches.put(section.getId(), branchId);
+            }
+        }
+        return snapshot;
+    }
+
+    private MenuSnapshot load(Long branchId, long builtAtNanos) {
+        Branch branch = branchRepository.findById(branchId)
+                .orElseThrow(() -> ResourceNotFoundException.create("Branch", "id", branchId));
+
+        List<MenuSection> sections = new ArrayList<>(menuSectionRepository.findByBranchId(branchId));
+        sections.sort(Comparator.comparing(MenuSection::getId));
+        List<MenuSectionResponse> sectionResponses = new ArrayList<>(sections.size());
+        for (MenuSection section : sections) {
+            sectionResponses.add(MenuSectionResponse.builder()
+                    .id(section.getId())
+                    .branchId(branchId)
+                    .branchName(branch.getBranchName())
+                    .name(section.getName())
+                    .description(section.getDescription())
+                    .build());
+        }
+
+        List<MenuItemResponse> itemResponses = menuItemRepository.findAllResponsesByBranchId(branchId);
+        return new MenuSnapshot(branchId, branch.getBranchName(), sectionResponses, itemResponses, builtAtNanos);
+    }
+}
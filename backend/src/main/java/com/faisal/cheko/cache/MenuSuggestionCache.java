@@ -0,0 +1,223 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.MenuSnapshotProperties;
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.MenuItemSuggestionResponse;
+import com.faisal.cheko.repository.OrderItemRepository;
+import com.faisal.cheko.search.PrefixTrie;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import com.faisal.cheko.service.MetricsContributor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Name autocompletion per branch, answered from a {@link PrefixTrie} without touching the
+ * database.
+ * <p>
+ * A branch's trie is built from its current {@link MenuSnapshot} and belongs to that
+ * snapshot: once a menu write replaces the snapshot, the next request rebuilds the trie of
+ * that branch only, from memory. Completions are ranked by how often each item was ordered.
+ * Those counts are read once, by the first request for the branch; after that a scheduled
+ * task re-reads them at the configured refresh interval and swaps in a trie ranked by the
+ * new counts, while requests keep being answered by the previous one. Menu edits do not
+ * re-read them. With snapshots disabled every request reads the branch's menu afresh and
+ * builds a throwaway trie from it, so suggestions never outlive a menu write.
+ */
+@Component
+public class MenuSuggestionCache implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(MenuSuggestionCache.class);
+
+    private final MenuSnapshotCache menuSnapshotCache;
+    private final OrderItemRepository orderItemRepository;
+    private final DatabaseConnectionService databaseConnectionService;
+    private final int maxSuggestions;
+
+    private final ConcurrentHashMap<Long, Suggestions> suggestions = new ConcurrentHashMap<>();
+    // Order counts per item, per branch
+    private final ConcurrentHashMap<Long, Map<Long, Long>> popularity = new ConcurrentHashMap<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder popularityLoads = new LongAdder();
+    private final LongAdder popularityLoadFailures = new LongAdder();
+    private volatile long lastBuildNanos;
+
+    @Autowired
+    public MenuSuggestionCache(MenuSnapshotCache menuSnapshotCache, OrderItemRepository orderItemRepository,
+                               DatabaseConnectionService databaseConnectionService,
+                               MenuSnapshotProperties properties) {
+        this.menuSnapshotCache = menuSnapshotCache;
+        this.orderItemRepository = orderItemRepository;
+        this.databaseConnectionService = databaseConnectionService;
+        this.maxSuggestions = properties.getMaxSuggestions();
+    }
+
+    public int getMaxSuggestions() {
+        return maxSuggestions;
+    }
+
+    /**
+     * Items of a branch whose name, or a word of it, starts with the prefix, most ordered first.
+     *
+     * @param limit at most this many, capped at the configured maximum
+     * @throws com.faisal.cheko.exception.ResourceNotFoundException if the branch does not exist
+     */
+    public List<MenuItemSuggestionResponse> suggest(Long branchId, String prefix, int limit) {
+        lookups.increment();
+        Suggestions current = current(branchId);
+        int[] docs = current.trie.complete(prefix, Math.min(limit, maxSuggestions));
+        List<MenuItemSuggestionResponse> result = new ArrayList<>(docs.length);
+        for (int doc : docs) {
+            MenuItemResponse item = current.items.get(doc);
+            result.add(MenuItemSuggestionResponse.builder()
+                    .id(item.getId())
+                    .sectionId(item.getSectionId())
+                    .sectionName(item.getSectionName())
+                    .name(item.getName())
+                    .isAvailable(item.getIsAvailable())
+                    .orderCount(current.orderCounts.getOrDefault(item.getId(), 0L))
+                    .build());
+        }
+        return result;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "menuSuggestions";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long nodes = 0;
+        long keys = 0;
+        long bytes = 0;
+        for (Suggestions entry : suggestions.values()) {
+            nodes += entry.trie.getNodeCount();
+            keys += entry.trie.getKeyCount();
+            bytes += entry.trie.getEstimatedBytes();
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cachedBranches", suggestions.size());
+        metrics.put("trieNodes", nodes);
+        metrics.put("trieKeys", keys);
+        metrics.put("trieEstimatedBytes", bytes);
+        metrics.put("lookups", lookups.sum());
+        metrics.put("builds", builds.sum());
+        metrics.put("popularityLoads", popularityLoads.sum());
+        metrics.put("popularityLoadFailures", popularityLoadFailures.sum());
+        metrics.put("lastBuildMicros", TimeUnit.NANOSECONDS.toMicros(lastBuildNanos));
+        return metrics;
+    }
+
+    /**
+     * Re-read the order counts of every branch that has been asked for, and re-rank the
+     * cached tries with them. Requests keep using the old trie until its replacement is in
+     * place; a branch whose counts cannot be read keeps its old ranking.
+     */
+    @Scheduled(fixedDelayString = "${cheko.menu-snapshot.suggestion-popularity-refresh:PT10M}",
+            initialDelayString = "${cheko.menu-snapshot.suggestion-popularity-refresh:PT10M}")
+    public void refreshPopularity() {
+        if (popularity.isEmpty() || !databaseConnectionService.isConnected()) {
+            return;
+        }
+        for (Long branchId : popularity.keySet()) {
+            Map<Long, Long> orderCounts;
+            try {
+                orderCounts = loadOrderCounts(branchId);
+            } catch (DataAccessException e) {
+                popularityLoadFailures.increment();
+                log.warn("Could not refresh order counts of branch {}, keeping the previous ranking: {}", branchId, e.getMessage());
+                continue;
+            }
+            popularity.put(branchId, orderCounts);
+            Suggestions cached = suggestions.get(branchId);
+            if (cached != null) {
+                // Lost to a request that rebuilt for a new snapshot; that trie already has these counts
+                suggestions.replace(branchId, cached, build(cached.snapshot, orderCounts));
+            }
+        }
+    }
+
+    private Suggestions current(Long branchId) {
+        if (!menuSnapshotCache.isEnabled()) {
+            // Nothing would tell a cached trie that the menu changed
+            MenuSnapshot snapshot = menuSnapshotCache.read(branchId);
+            return build(snapshot, popularity(branchId));
+        }
+        MenuSnapshot snapshot = menuSnapshotCache.getBranch(branchId);
+        Suggestions cached = suggestions.get(branchId);
+        if (cached != null && cached.snapshot == snapshot) {
+            return cached;
+        }
+        // Building twice under a race is harmless, both results are identical
+        Suggestions built = build(snapshot, popularity(branchId));
+        suggestions.put(branchId, built);
+        return built;
+    }
+
+    private Suggestions build(MenuSnapshot snapshot, Map<Long, Long> orderCounts) {
+        long start = System.nanoTime();
+        Suggestions built = new Suggestions(snapshot, orderCounts, maxSuggestions);
+        lastBuildNanos = System.nanoTime() - start;
+        builds.increment();
+        return built;
+    }
+
+    private Map<Long, Long> popularity(Long branchId) {
+        Map<Long, Long> orderCounts = popularity.get(branchId);
+        if (orderCounts != null) {
+            return orderCounts;
+        }
+        // First request for the branch; refreshPopularity takes over from here
+        orderCounts = loadOrderCounts(branchId);
+        popularity.putIfAbsent(branchId, orderCounts);
+        return orderCounts;
+    }
+
+    private Map<Long, Long> loadOrderCounts(Long branchId) {
+        Map<Long, Long> orderCounts = new HashMap<>();
+        for (Object[] row : orderItemRepository.countOrdersPerItemByBranchId(branchId)) {
+            orderCounts.put((Long) row[0], (Long) row[1]);
+        }
+        popularityLoads.increment();
+        return Collections.unmodifiableMap(orderCounts);
+    }
+
+    private static final class Suggestions {
+        private final MenuSnapshot snapshot;
+        private final Map<Long, Long> orderCounts;
+        private final List<MenuItemResponse> items;
+        private final PrefixTrie trie;
+
+        private Suggestions(MenuSnapshot snapshot, Map<Long, Long> orderCounts, int maxSuggestions) {
+            this.snapshot = snapshot;
+            this.orderCounts = orderCounts;
+            this.items = snapshot.getItems();
+            List<String> names = new ArrayList<>(items.size());
+            for (MenuItemResponse item : items) {
+                names.add(item.getName());
+            }
+            Comparator<Integer> rank = Comparator
+                    .comparing((Integer doc) -> orderCounts.getOrDefault(items.get(doc).getId(), 0L), Comparator.reverseOrder())
+                    .thenComparing(doc -> items.get(doc).getName() == null ? "" : items.get(doc).getName(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(doc -> items.get(doc).getId());
+            this.trie = new PrefixTrie(names, rank, maxSuggestions);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.ResponseCacheProperties;
+import com.faisal.cheko.service.MetricsContributor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of menu responses rendered to JSON bytes.
+ * <p>
+ * Entries are keyed by request path and the query parameters the menu endpoints bind, and
+ * tagged with the branch's
+ * content version from {@link MenuSnapshotCache}. While the version is unchanged a request
+ * is answered with the stored bytes, gzip-compressed when the client accepts it, and a
+ * request whose {@code If-None-Match} matches gets {@code 304} without the body being
+ * produced at all. A committed menu write changes the version, so the next request renders
+ * afresh and replaces the entry.
+ * <p>
+ * Each representation carries a strong ETag derived from its bytes; the gzip variant gets
+ * its own tag, and either one satisfies a conditional request. Entries are kept in access
+ * order and the least recently used ones are dropped once either size limit is exceeded.
+ */
+@Component
+public class RenderedResponseCache implements MetricsContributor {
+
+    private static final String GZIP_SUFFIX = "-gzip";
+
+    // Every query parameter the cached endpoints bind, in key order; anything else a client
+    // appends must not split entries
+    private static final List<String> KEY_PARAMETERS = List.of(
+            "availableOnly", "cursor", "direction", "includeTotal", "page", "search", "size", "sort");
+
+    private final ObjectMapper objectMapper;
+    private final MenuSnapshotCache menuSnapshotCache;
+    private final ResponseCacheProperties properties;
+    private final long maxBytes;
+    private final int gzipMinBytes;
+    private final long ttlNanos;
+
+    // Access-ordered, so iteration starts at the least recently used entry; guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public RenderedResponseCache(ObjectMapper objectMapper, MenuSnapshotCache menuSnapshotCache,
+                                 ResponseCacheProperties properties) {
+        this.objectMapper = objectMapper;
+        this.menuSnapshotCache = menuSnapshotCache;
+        this.properties = properties;
+        this.maxBytes = properties.getMaxSize().toBytes();
+        this.gzipMinBytes = (int) Math.min(Integer.MAX_VALUE, properties.getGzipMinSize().toBytes());
+        this.ttlNanos = properties.getTtl() == null ? 0 : properties.getTtl().toNanos();
+    }
+
+    /**
+     * Answer a GET for menu data of a branch, rendering the body only when no current
+     * rendering of it is cached.
+     *
+     * @param request  the request; its path and query parameters identify the response
+     * @param branchId the branch whose menu the body is derived from
+     * @param body     produces the response body on a miss
+     */
+    public ResponseEntity<byte[]> serve(HttpServletRequest request, Long branchId, Supplier<?> body) {
+        boolean gzip = acceptsGzip(request);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (!properties.isEnabled()) {
+            return respond(render(body.get(), menuSnapshotCache.getContentVersion(branchId)), gzip, ifNoneMatch);
+        }
+
+        String key = key(request);
+        String version = menuSnapshotCache.getContentVersion(branchId);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.version.equals(version) && isFresh(entry)) {
+            hits.increment();
+            return respond(entry, gzip, ifNoneMatch);
+        }
+
+        misses.increment();
+        // Rendered against the version read before producing the body, so a write that
+        // commits meanwhile leaves this entry outdated rather than hiding the change
+        Entry rendered = render(body.get(), version);
+        store(key, entry, rendered);
+        return respond(rendered, gzip, ifNoneMatch);
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            cachedBytes = 0;
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "responseCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        synchronized (entries) {
+            metrics.put("entries", entries.size());
+            metrics.put("bytes", cachedBytes);
+        }
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("notModified", notModified.sum());
+        metrics.put("evictions", evictions.sum());
+        return metrics;
+    }
+
+    private ResponseEntity<byte[]> respond(Entry entry, boolean gzip, String ifNoneMatch) {
+        boolean compressed = gzip && entry.gzipBody != null;
+        if (ifNoneMatch != null && matches(ifNoneMatch, entry.etag)) {
+            notModified.increment();
+            return headers(ResponseEntity.status(HttpStatus.NOT_MODIFIED), compressed ? entry.gzipEtag : entry.etag)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = headers(ResponseEntity.ok(), compressed ? entry.gzipEtag : entry.etag)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (compressed) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(compressed ? entry.gzipBody : entry.body);
+    }
+
+    private static ResponseEntity.BodyBuilder headers(ResponseEntity.BodyBuilder builder, String etag) {
+        // no-cache: clients may keep the body but must revalidate it with the ETag
+        return builder.eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    private Entry render(Object body, String version) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not render response body", e);
+        }
+        String etag = etag(json);
+        byte[] gzipBody = json.length >= gzipMinBytes ? gzip(json) : null;
+        return new Entry(version, json, gzipBody, etag, etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + "\"",
+                System.nanoTime());
+    }
+
+    private void store(String key, Entry previous, Entry rendered) {
+        if (rendered.size() > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            Entry current = entries.get(key);
+            if (current != previous) {
+                // Another request stored this key meanwhile; keep whichever is there
+                return;
+            }
+            entries.put(key, rendered);
+            cachedBytes += rendered.size() - (previous != null ? previous.size() : 0);
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Drop entries from the least recently used end until back under both limits; the entry
+     * just stored is the most recently used, so it goes last. Caller holds the lock.
+     */
+    private void evictLeastRecentlyUsed() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > properties.getMaxEntries() || cachedBytes > maxBytes) && iterator.hasNext()) {
+            cachedBytes -= iterator.next().size();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private boolean isFresh(Entry entry) {
+        return ttlNanos <= 0 || System.nanoTime() - entry.renderedAtNanos <= ttlNanos;
+    }
+
+    /**
+     * Path plus the bound query parameters in a canonical order, so equivalent URLs share an
+     * entry and unknown parameters cannot multiply them.
+     */
+    static String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        char separator = '?';
+        for (String name : KEY_PARAMETERS) {
+            String[] values = request.getParameterValues(name);
+            if (values == null) {
+                continue;
+            }
+            for (String value : values) {
+                key.append(separator).append(name).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Weak comparison as RFC 9110 requires for If-None-Match; the gzip tag of the same
+     * content matches as well.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        String opaque = etag.substring(1, etag.length() - 1);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                tag = tag.substring(1, tag.length() - 1);
+                if (tag.equals(opaque) || tag.equals(opaque + GZIP_SUFFIX)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return Arrays.stream(parts).skip(1).map(String::trim).noneMatch(p -> p.matches("q=0(\\.0*)?"));
+            }
+        }
+        return false;
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Entry {
+        private final String version;
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String etag;
+        private final String gzipEtag;
+        private final long renderedAtNanos;
+
+        private Entry(String version, byte[] body, byte[] gzipBody, String etag, String gzipEtag, long renderedAtNanos) {
+            this.version = version;
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.etag = etag;
+            this.gzipEtag = gzipEtag;
+            this.renderedAtNanos = renderedAtNanos;
+        }
+
+        long size() {
+            return body.length + (gzipBody != null ? gzipBody.length : 0);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.MenuSnapshotProperties;
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.repository.MenuItemRepository;
+import com.faisal.cheko.service.MetricsContributor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves the second-highest calorie items per section from a {@link SecondHighestCalorieIndex}.
+ * <p>
+ * The index is not loaded at startup. The first read answers with the window-function query
+ * and asks for a load, which a scheduled task performs off the request path. From then on
+ * committed {@link MenuChangedEvent}s are applied one row at a time: an item change reloads
+ * that item, a section change reloads that section's items. Bulk changes, and changes that
+ * raced with a load, drop the index so the next read starts over. Like the menu snapshots,
+ * an index older than the configured maximum staleness is reloaded, which bounds changes
+ * this node cannot see.
+ */
+@Component
+public class SecondHighestCalorieCache implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(SecondHighestCalorieCache.class);
+
+    private final MenuItemRepository menuItemRepository;
+    private final long maxStalenessNanos;
+
+    private volatile SecondHighestCalorieIndex index;
+    private volatile long loadedAtNanos;
+    private final AtomicBoolean loadRequested = new AtomicBoolean();
+    // Bumped by every change, so a load that raced with one is discarded
+    private final AtomicLong changes = new AtomicLong();
+
+    private final LongAdder indexReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder incrementalUpdates = new LongAdder();
+    private volatile long lastLoadNanos;
+
+    @Autowired
+    public SecondHighestCalorieCache(MenuItemRepository menuItemRepository, MenuSnapshotProperties properties) {
+        this.menuItemRepository = menuItemRepository;
+        this.maxStalenessNanos = properties.getMaxStaleness() == null ? 0 : properties.getMaxStaleness().toNanos();
+    }
+
+    public List<MenuItemResponse> getSecondHighestCalorieMealPerCategory() {
+        SecondHighestCalorieIndex current = index;
+        if (current != null && (maxStalenessNanos <= 0 || System.nanoTime() - loadedAtNanos <= maxStalenessNanos)) {
+            indexReads.increment();
+            return current.secondHighest();
+        }
+        loadRequested.set(true);
+        fallbackReads.increment();
+        return menuItemRepository.findSecondHighestCalorieMealPerCategoryRanked();
+    }
+
+    @Scheduled(fixedDelayString = "${cheko.menu-snapshot.calorie-index-load-interval:PT1S}")
+    public void loadIfRequested() {
+        if (loadRequested.compareAndSet(true, false)) {
+            load();
+        }
+    }
+
+    void load() {
+        long changesBefore = changes.get();
+        long start = System.nanoTime();
+        SecondHighestCalorieIndex loaded = new SecondHighestCalorieIndex(menuItemRepository.findAllResponsesWithCalories());
+        lastLoadNanos = System.nanoTime() - start;
+        loads.increment();
+        synchronized (this) {
+            if (changes.get() != changesBefore) {
+                // Missed a change committed while loading; the next read asks again
+                log.debug("Discarded second-highest calorie index that raced with a menu change");
+                return;
+            }
+            loadedAtNanos = start;
+            index = loaded;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onMenuChanged(MenuChangedEvent event) {
+        if (event.getType() == MenuChangedEvent.Type.BRANCH_CREATED) {
+            // A new branch has no items yet
+            return;
+        }
+        changes.incrementAndGet();
+        SecondHighestCalorieIndex current = index;
+        if (current == null) {
+            return;
+        }
+        if (event.getItemId() != null) {
+            // Read inside the lock so concurrent changes to one item apply in commit order
+            MenuItemResponse item = menuItemRepository.findResponseById(event.getItemId()).orElse(null);
+            if (item == null) {
+                current.remove(event.getItemId());
+            } else {
+                current.put(item);
+            }
+            incrementalUpdates.increment();
+        } else if (event.getSectionId() != null) {
+            current.replaceSection(event.getSectionId(), menuItemRepository.findAllResponsesBySectionId(event.getSectionId()));
+            incrementalUpdates.increment();
+        } else {
+            index = null;
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "secondHighestCalorie";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        SecondHighestCalorieIndex current = index;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("loaded", current != null);
+        metrics.put("indexedItems", current == null ? 0 : current.size());
+        metrics.put("indexReads", indexReads.sum());
+        metrics.put("fallbackReads", fallbackReads.sum());
+        metrics.put("loads", loads.sum());
+        metrics.put("incrementalUpdates", incrementalUpdates.sum());
+        metrics.put("lastLoadMs", TimeUnit.NANOSECONDS.toMillis(lastLoadNanos));
+        return metrics;
+    }
+}
@@ -0,0 +1,120 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.dto.MenuItemResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Items ordered by calories within each section, kept up to date one item at a time, so the
+ * items with the second-highest calories per section can be read without a query.
+ * <p>
+ * The answer matches {@link com.faisal.cheko.repository.MenuItemRepository#findSecondHighestCalorieMealPerCategory}:
+ * per section, every item whose calories equal the largest value strictly below the section
+ * maximum, so ties on either value are handled the same way and a section with a single
+ * distinct value contributes nothing. Items without calories never match and are not kept.
+ * Every calorie value is kept, not just the top two, so deleting the maximum promotes the
+ * next value without a reload. Results come in section id, then item id order.
+ * <p>
+ * All methods are synchronized; the result is computed on first read after a change.
+ */
+public class SecondHighestCalorieIndex {
+
+    // Section id -> calories -> items with those calories, by id
+    private final Map<Long, TreeMap<Integer, TreeMap<Long, MenuItemResponse>>> sections = new HashMap<>();
+    private final Map<Long, MenuItemResponse> items = new HashMap<>();
+    private List<MenuItemResponse> result;
+
+    public SecondHighestCalorieIndex(Collection<MenuItemResponse> initial) {
+        for (MenuItemResponse item : initial) {
+            add(item);
+        }
+    }
+
+    /**
+     * Insert an item or replace its previous state, wherever it was.
+     */
+    public synchronized void put(MenuItemResponse item) {
+        remove(item.getId());
+        add(item);
+    }
+
+    public synchronized void remove(Long itemId) {
+        MenuItemResponse previous = items.remove(itemId);
+        if (previous == null) {
+            return;
+        }
+        TreeMap<Integer, TreeMap<Long, MenuItemResponse>> byCalories = sections.get(previous.getSectionId());
+        TreeMap<Long, MenuItemResponse> tied = byCalories.get(previous.getCalories());
+        tied.remove(itemId);
+        if (tied.isEmpty()) {
+            byCalories.remove(previous.getCalories());
+        }
+        if (byCalories.isEmpty()) {
+            sections.remove(previous.getSectionId());
+        }
+        result = null;
+    }
+
+    /**
+     * Replace everything known about a section, e.g. after it was renamed or deleted.
+     *
+     * @param current the section's items now, empty if it no longer exists
+     */
+    public synchronized void replaceSection(Long sectionId, Collection<MenuItemResponse> current) {
+        TreeMap<Integer, TreeMap<Long, MenuItemResponse>> byCalories = sections.get(sectionId);
+        if (byCalories != null) {
+            List<Long> ids = new ArrayList<>();
+            for (TreeMap<Long, MenuItemResponse> tied : byCalories.values()) {
+                ids.addAll(tied.keySet());
+            }
+            for (Long id : ids) {
+                remove(id);
+            }
+        }
+        for (MenuItemResponse item : current) {
+            put(item);
+        }
+        result = null;
+    }
+
+    public synchronized List<MenuItemResponse> secondHighest() {
+        if (result == null) {
+            List<Long> sectionIds = new ArrayList<>(sections.keySet());
+            Collections.sort(sectionIds);
+            List<MenuItemResponse> computed = new ArrayList<>();
+            for (Long sectionId : sectionIds) {
+                NavigableMap<Integer, TreeMap<Long, MenuItemResponse>> byCalories = sections.get(sectionId).descendingMap();
+                Entry<Integer, TreeMap<Long, MenuItemResponse>> highest = byCalories.firstEntry();
+                Entry<Integer, TreeMap<Long, MenuItemResponse>> second = byCalories.higherEntry(highest.getKey());
+                if (second != null) {
+                    computed.addAll(second.getValue().values());
+                }
+            }
+            result = Collections.unmodifiableList(computed);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    private void add(MenuItemResponse item) {
+        if (item.getCalories() == null) {
+            return;
+        }
+        items.put(item.getId(), item);
+        sections.computeIfAbsent(item.getSectionId(), id -> new TreeMap<>())
+                .computeIfAbsent(item.getCalories(), calories -> new TreeMap<>())
+                .put(item.getId(), item);
+        result = null;
+    }
+}
@@ -0,0 +1,344 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.dto.MenuSectionWithCountResponse;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.repository.MenuItemRepository;
+import com.faisal.cheko.repository.MenuSectionRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import com.faisal.cheko.service.MetricsContributor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Item counts per menu section, all items and available ones, kept in memory so the
+ * sections-with-counts listing is a map lookup.
+ * <p>
+ * The counters are seeded once the application is ready and the database is reachable, from
+ * the sections and the section and availability of every item, read in one transaction.
+ * After that each committed {@link MenuChangedEvent} adjusts them: an item created, deleted,
+ * moved or switching availability moves one unit between counters, without a query. A new or
+ * renamed section reloads that section's row; bulk changes, and changes that raced with
+ * seeding, discard the counters until the next seed. Until seeded, callers read from the
+ * database.
+ * <p>
+ * A periodic reconciliation recounts in the database and compares. Sections whose counters
+ * drifted, e.g. because of SQL run outside the application, are logged and reported under
+ * {@code sectionItemCounters} on {@code /api/metrics}, and the counters are reseeded.
+ */
+@Component
+public class SectionItemCounters implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(SectionItemCounters.class);
+
+    private final MenuSectionRepository menuSectionRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final DatabaseConnectionService databaseConnectionService;
+    private final TransactionTemplate readTransaction;
+
+    private final Object lock = new Object();
+    // Guarded by lock; null until seeded
+    private Map<Long, TreeMap<Long, SectionCounts>> branches;
+    private Map<Long, SectionCounts> sections;
+    private Map<Long, ItemState> items;
+    // Guarded by lock; bumped by every change, so a seed or recount that raced with one is discarded
+    private long changes;
+
+    private final AtomicBoolean seedRequested = new AtomicBoolean();
+    private final LongAdder seeds = new LongAdder();
+    private final LongAdder adjustments = new LongAdder();
+    private final LongAdder reconciliations = new LongAdder();
+    private final LongAdder driftedSections = new LongAdder();
+    private volatile int lastDriftedSections;
+    private volatile long lastSeedNanos;
+
+    @Autowired
+    public SectionItemCounters(MenuSectionRepository menuSectionRepository,
+                               MenuItemRepository menuItemRepository,
+                               DatabaseConnectionService databaseConnectionService,
+                               PlatformTransactionManager transactionManager) {
+        this.menuSectionRepository = menuSectionRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.databaseConnectionService = databaseConnectionService;
+
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Sections of a branch with their counts, in id order, or null when the counters are not
+     * seeded and the caller should count in the database.
+     */
+    public List<MenuSectionWithCountResponse> getBranch(Long branchId) {
+        synchronized (lock) {
+            if (branches == null) {
+                seedRequested.set(true);
+                return null;
+            }
+            TreeMap<Long, SectionCounts> branch = branches.get(branchId);
+            List<MenuSectionWithCountResponse> result = new ArrayList<>(branch == null ? 0 : branch.size());
+            if (branch != null) {
+                for (SectionCounts counts : branch.values()) {
+                    result.add(counts.toResponse());
+                }
+            }
+            return result;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        seedRequested.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${cheko.menu-snapshot.counter-seed-interval:PT1S}")
+    public void seedIfRequested() {
+        if (databaseConnectionService.isConnected() && seedRequested.compareAndSet(true, false)) {
+            seed();
+        }
+    }
+
+    /**
+     * Recount every section in the database and compare with the counters.
+     */
+    @Scheduled(fixedDelayString = "${cheko.menu-snapshot.counter-reconcile-interval:PT10M}")
+    public void reconcile() {
+        long changesBefore;
+        synchronized (lock) {
+            if (sections == null || !databaseConnectionService.isConnected()) {
+                return;
+            }
+            changesBefore = changes;
+        }
+        List<MenuSectionWithCountResponse> actual = menuSectionRepository.findAllWithItemCounts();
+
+        List<Long> drifted = new ArrayList<>();
+        synchronized (lock) {
+            if (sections == null || changes != changesBefore) {
+                // Menu changed while counting; the comparison would report that change as drift
+                return;
+            }
+            reconciliations.increment();
+            Map<Long, SectionCounts> expected = new HashMap<>(sections);
+            for (MenuSectionWithCountResponse row : actual) {
+                SectionCounts counts = expected.remove(row.getId());
+                if (counts == null || counts.total != row.getItemCount() || counts.available != availableOf(row)) {
+                    drifted.add(row.getId());
+                }
+            }
+            drifted.addAll(expected.keySet());
+            lastDriftedSections = drifted.size();
+        }
+        if (!drifted.isEmpty()) {
+            driftedSections.add(drifted.size());
+            log.warn("Section item counters drifted from the database for sections {}, reseeding", drifted);
+            seed();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        synchronized (lock) {
+            changes++;
+            if (sections == null) {
+                return;
+            }
+            switch (event.getType()) {
+                case ITEM_CREATED:
+                case ITEM_UPDATED:
+                    if (event.getItemId() == null || event.getSectionId() == null) {
+                        discard();
+                        return;
+                    }
+                    move(event.getItemId(), new ItemState(event.getSectionId(), Boolean.TRUE.equals(event.getItemAvailable())));
+                    break;
+                case ITEM_DELETED:
+                    move(event.getItemId(), null);
+                    break;
+                case SECTION_CREATED:
+                case SECTION_UPDATED:
+                    // Name, description or branch changed; the row carries all of them
+                    menuSectionRepository.findByIdWithItemCounts(event.getSectionId())
+                            .ifPresent(row -> putSection(new SectionCounts(row)));
+                    break;
+                case SECTION_DELETED:
+                    removeSection(event.getSectionId());
+                    break;
+                case BRANCH_CREATED:
+                    // No sections yet
+                    break;
+                default:
+                    discard();
+                    return;
+            }
+            adjustments.increment();
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "sectionItemCounters";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (lock) {
+            metrics.put("seeded", sections != null);
+            metrics.put("sections", sections == null ? 0 : sections.size());
+            metrics.put("items", items == null ? 0 : items.size());
+        }
+        metrics.put("seeds", seeds.sum());
+        metrics.put("adjustments", adjustments.sum());
+        metrics.put("reconciliations", reconciliations.sum());
+        metrics.put("lastDriftedSections", lastDriftedSections);
+        metrics.put("driftedSections", driftedSections.sum());
+        metrics.put("lastSeedMs", TimeUnit.NANOSECONDS.toMillis(lastSeedNanos));
+        return metrics;
+    }
+
+    void seed() {
+        long changesBefore;
+        synchronized (lock) {
+            changesBefore = changes;
+        }
+        long start = System.nanoTime();
+        Seed loaded = readTransaction.execute(status ->
+                new Seed(menuSectionRepository.findAllWithItemCounts(), menuItemRepository.findAllItemStates()));
+        lastSeedNanos = System.nanoTime() - start;
+        seeds.increment();
+
+        synchronized (lock) {
+            if (changes != changesBefore) {
+                log.debug("Discarded section item counters that raced with a menu change");
+                seedRequested.set(true);
+                return;
+            }
+            branches = new HashMap<>();
+            sections = new HashMap<>();
+            items = new HashMap<>();
+            for (MenuSectionWithCountResponse row : loaded.sections) {
+                SectionCounts counts = new SectionCounts(row);
+                // Counted from the item states below, so sections and items agree
+                counts.total = 0;
+                counts.available = 0;
+                putSection(counts);
+            }
+            for (Object[] row : loaded.items) {
+                move((Long) row[0], new ItemState((Long) row[1], Boolean.TRUE.equals(row[2])));
+            }
+        }
+    }
+
+    private void discard() {
+        branches = null;
+        sections = null;
+        items = null;
+        seedRequested.set(true);
+    }
+
+    /**
+     * Move an item's contribution from its previous state to the new one (null when deleted).
+     */
+    private void move(Long itemId, ItemState next) {
+        ItemState previous = next == null ? items.remove(itemId) : items.put(itemId, next);
+        if (previous != null) {
+            SectionCounts from = sections.get(previous.sectionId);
+            if (from != null) {
+                from.total--;
+                from.available -= previous.available ? 1 : 0;
+            }
+        }
+        if (next != null) {
+            SectionCounts to = sections.get(next.sectionId);
+            if (to != null) {
+                to.total++;
+                to.available += next.available ? 1 : 0;
+            }
+        }
+    }
+
+    private void putSection(SectionCounts counts) {
+        SectionCounts previous = sections.put(counts.id, counts);
+        if (previous != null && !Objects.equals(previous.branchId, counts.branchId)) {
+            branches.get(previous.branchId).remove(counts.id);
+        }
+        branches.computeIfAbsent(counts.branchId, id -> new TreeMap<>()).put(counts.id, counts);
+    }
+
+    private void removeSection(Long sectionId) {
+        SectionCounts removed = sections.remove(sectionId);
+        if (removed != null) {
+            branches.get(removed.branchId).remove(sectionId);
+        }
+    }
+
+    private static long availableOf(MenuSectionWithCountResponse row) {
+        return row.getAvailableItemCount() == null ? 0 : row.getAvailableItemCount();
+    }
+
+    private static final class SectionCounts {
+        private final Long id;
+        private final Long branchId;
+        private final String branchName;
+        private final String name;
+        private final String description;
+        private long total;
+        private long available;
+
+        private SectionCounts(MenuSectionWithCountResponse row) {
+            this.id = row.getId();
+            this.branchId = row.getBranchId();
+            this.branchName = row.getBranchName();
+            this.name = row.getName();
+            this.description = row.getDescription();
+            this.total = row.getItemCount() == null ? 0 : row.getItemCount();
+            this.available = availableOf(row);
+        }
+
+        private MenuSectionWithCountResponse toResponse() {
+            return new MenuSectionWithCountResponse(id, branchId, branchName, name, description, total, available);
+        }
+    }
+
+    private static final class ItemState {
+        private final Long sectionId;
+        private final boolean available;
+
+        private ItemState(Long sectionId, boolean available) {
+            this.sectionId = sectionId;
+            this.available = available;
+        }
+    }
+
+    private static final class Seed {
+        private final List<MenuSectionWithCountResponse> sections;
+        private final List<Object[]> items;
+
+        private Seed(List<MenuSectionWithCountResponse> sections, List<Object[]> items) {
+            this.sections = sections;
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.faisal.cheko.concurrency;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Additive increase, multiplicative decrease. Each sample moves the limit by a share of
+ * {@code 1 / limit}, so a full window of {@code limit} successful requests on a busy service
+ * adds one slot, and a full window of requests that fail with an overload error or take
+ * longer than {@code timeout} multiplies the limit by {@code backoffRatio} once. Scaling per
+ * window keeps a burst of slow completions from collapsing the limit in one go.
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    private final double backoffRatio;
+    private final long timeoutNanos;
+
+    public AimdLimit(double backoffRatio, Duration timeout) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("AIMD backoff ratio must be between 0 and 1");
+        }
+        this.backoffRatio = backoffRatio;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    @Override
+    public double update(double limit, long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || rttNanos > timeoutNanos) {
+            return limit * Math.pow(backoffRatio, 1 / limit);
+        }
+        // Only grow while the limit is actually in use; an idle service proves nothing
+        if (inFlight * 2 >= limit) {
+            return limit + 1 / limit;
+        }
+        return limit;
+    }
+
+    @Override
+    public String getName() {
+        return "aimd";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("backoffRatio", backoffRatio);
+        metrics.put("timeoutMs", timeoutNanos / 1_000_000);
+        return metrics;
+    }
+}
@@ -0,0 +1,144 @@
+package com.faisal.cheko.concurrency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the number of requests in flight at a limit that a {@link LimitAlgorithm} adjusts
+ * from observed latency.
+ * <p>
+ * Admission is a single CAS on the in-flight counter, so a request over the limit is refused
+ * immediately instead of queuing for a worker thread or a database connection. Each admitted
+ * request holds a {@link Permit} and reports its latency when it finishes, which is the only
+ * place the limit changes.
+ */
+public class ConcurrencyLimiter {
+
+    private final LimitAlgorithm algorithm;
+    private final int minLimit;
+    private final int maxLimit;
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private double estimatedLimit;
+    private volatile int limit;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public ConcurrencyLimiter(LimitAlgorithm algorithm, int initialLimit, int minLimit, int maxLimit) {
+        this(algorithm, initialLimit, minLimit, maxLimit, System::nanoTime);
+    }
+
+    ConcurrencyLimiter(LimitAlgorithm algorithm, int initialLimit, int minLimit, int maxLimit, LongSupplier clock) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limit bounds must satisfy 0 < min <= max");
+        }
+        this.algorithm = algorithm;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.clock = clock;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Try to admit a request.
+     *
+     * @return a permit that must be released when the request finishes, or empty if the limit is reached
+     */
+    public Optional<Permit> tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return Optional.of(new Permit(clock.getAsLong()));
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("algorithm", algorithm.getName());
+        metrics.put("limit", limit);
+        metrics.put("minLimit", minLimit);
+        metrics.put("maxLimit", maxLimit);
+        metrics.put("inFlight", inFlight.get());
+        metrics.put("peakInFlight", peakInFlight.getAndSet(inFlight.get()));
+        metrics.put("accepted", accepted.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("dropped", dropped.sum());
+        synchronized (this) {
+            metrics.putAll(algorithm.getMetrics());
+        }
+        return metrics;
+    }
+
+    private void onComplete(long startNanos, boolean overloaded) {
+        long rtt = clock.getAsLong() - startNanos;
+        int current = inFlight.getAndDecrement();
+        if (overloaded) {
+            dropped.increment();
+        }
+        synchronized (this) {
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                    algorithm.update(estimatedLimit, rtt, current, overloaded)));
+            limit = (int) estimatedLimit;
+        }
+    }
+
+    /**
+     * A slot held by one admitted request.
+     */
+    public final class Permit {
+
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Give the slot back and feed the request's latency to the limit algorithm.
+         *
+         * @param overloaded whether the request failed in a way that signals overload, such as
+         *                   a database timeout; the limit then backs off regardless of latency
+         */
+        public void release(boolean overloaded) {
+            if (released.compareAndSet(false, true)) {
+                onComplete(startNanos, overloaded);
+            }
+        }
+
+        /**
+         * Give the slot back without a latency sample, for requests whose duration says
+         * nothing about load, such as a response streamed for minutes.
+         */
+        public void releaseUnmeasured() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.faisal.cheko.concurrency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Gradient limit: compares a short-term latency average with a long-term baseline.
+ * <p>
+ * While recent requests are about as fast as the baseline the limit grows by a queue
+ * allowance of {@code sqrt(limit)}. When they slow down, for example because the database
+ * is struggling, the ratio {@code tolerance * longRtt / shortRtt} drops below one and the
+ * limit shrinks in proportion, so fewer requests pile up waiting for connections. The
+ * gradient is floored at 0.5 so a single slow sample cannot collapse the limit. When the
+ * baseline drifts far above current latency (after a recovery) it is pulled back down,
+ * so an old slowdown does not keep the limit inflated.
+ */
+public class GradientLimit implements LimitAlgorithm {
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final double tolerance;
+    private final double smoothing;
+    private final double shortFactor;
+    private final double longFactor;
+
+    private double shortRtt;
+    private double longRtt;
+
+    /**
+     * @param tolerance   how much slower than the baseline requests may get before the limit shrinks
+     * @param smoothing   weight of each new limit estimate, between 0 and 1
+     * @param shortWindow samples averaged into the short-term latency
+     * @param longWindow  samples averaged into the baseline latency
+     */
+    public GradientLimit(double tolerance, double smoothing, int shortWindow, int longWindow) {
+        if (tolerance < 1 || smoothing <= 0 || smoothing > 1 || shortWindow <= 0 || longWindow < shortWindow) {
+            throw new IllegalArgumentException("Invalid gradient limit settings");
+        }
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.shortFactor = 2.0 / (shortWindow + 1);
+        this.longFactor = 2.0 / (longWindow + 1);
+    }
+
+    @Override
+    public double update(double limit, long rttNanos, int inFlight, boolean dropped) {
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return limit;
+        }
+        shortRtt += shortFactor * (rttNanos - shortRtt);
+        longRtt += longFactor * (rttNanos - longRtt);
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+
+        double gradient = dropped
+                ? MIN_GRADIENT
+                : Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - smoothing) + estimate * smoothing;
+
+        // A mostly idle service gives no evidence that a higher limit would be safe
+        if (next > limit && inFlight * 2 < limit) {
+            return limit;
+        }
+        return next;
+    }
+
+    @Override
+    public String getName() {
+        return "gradient";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("shortRttMs", shortRtt / 1_000_000);
+        metrics.put("longRttMs", longRtt / 1_000_000);
+        metrics.put("tolerance", tolerance);
+        return metrics;
+    }
+}
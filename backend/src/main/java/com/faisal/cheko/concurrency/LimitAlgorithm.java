@@ -0,0 +1,25 @@
+package com.faisal.cheko.concurrency;
+
+import java.util.Map;
+
+/**
+ * Strategy that moves the concurrency limit in response to observed request latency.
+ * Calls are serialized by {@link ConcurrencyLimiter}, so implementations may keep plain state.
+ */
+public interface LimitAlgorithm {
+
+    /**
+     * Compute the next limit after a request completes.
+     *
+     * @param limit    the current limit
+     * @param rttNanos how long the request took
+     * @param inFlight requests in flight when it completed, including itself
+     * @param dropped  whether the request failed in a way that signals overload
+     * @return the new limit, before clamping to the configured bounds
+     */
+    double update(double limit, long rttNanos, int inFlight, boolean dropped);
+
+    String getName();
+
+    Map<String, Object> getMetrics();
+}
@@ -0,0 +1,63 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Adaptive concurrency limit settings, bound from {@code cheko.concurrency-limit.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.concurrency-limit")
+@Data
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private Algorithm algorithm = Algorithm.GRADIENT;
+
+    // Requests allowed in flight before any latency has been observed
+    private int initialLimit = 20;
+
+    private int minLimit = 2;
+
+    private int maxLimit = 200;
+
+    private Gradient gradient = new Gradient();
+
+    private Aimd aimd = new Aimd();
+
+    public enum Algorithm {
+        // Shrink in proportion to how far recent latency exceeds the long-term baseline
+        GRADIENT,
+        // Grow by one per success, back off by a ratio on errors or timeouts
+        AIMD
+    }
+
+    @Data
+    public static class Gradient {
+
+        // How much slower than the baseline requests may get before the limit shrinks
+        private double tolerance = 1.5;
+
+        // Weight of each new limit estimate
+        private double smoothing = 0.2;
+
+        // Samples averaged into the recent latency
+        private int shortWindow = 10;
+
+        // Samples averaged into the baseline latency
+        private int longWindow = 600;
+    }
+
+    @Data
+    public static class Aimd {
+
+        private double backoffRatio = 0.9;
+
+        // Requests slower than this count as overload
+        private Duration timeout = Duration.ofSeconds(1);
+    }
+}
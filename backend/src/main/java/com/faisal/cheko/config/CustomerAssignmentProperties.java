@@ -0,0 +1,29 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Nearest-branch customer assignment settings, bound from {@code cheko.customer-assignment.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.customer-assignment")
+@Data
+public class CustomerAssignmentProperties {
+
+    // Customers read from the database cursor and searched in parallel at a time
+    private int chunkSize = 10_000;
+
+    // Assignment rows sent to the database per JDBC batch
+    private int batchSize = 1000;
+
+    // Threads of the fork-join pool the searches run on; zero uses one per processor
+    private int parallelism = 0;
+
+    // Most nearest branches a run may record per customer
+    private int maxK = 5;
+
+    // Cron expression of scheduled runs, recording the nearest branch only; "-" disables them
+    private String cron = "-";
+}
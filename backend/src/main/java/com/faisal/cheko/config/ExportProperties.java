@@ -0,0 +1,26 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Streaming export settings, bound from {@code cheko.export.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.export")
+@Data
+public class ExportProperties {
+
+    // Rows the JDBC driver fetches per round trip, and rows written between flushes
+    private int fetchSize = 1000;
+
+    // Exports streaming at once; each holds a database connection and a read transaction
+    // throughout, so further requests are refused with 503 instead
+    private int maxConcurrent = 4;
+
+    // How long one export may stream; applies to the export endpoints only
+    private Duration timeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,26 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Branch location search settings, bound from {@code cheko.geo.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.geo")
+@Data
+public class GeoProperties {
+
+    // Largest search radius a nearby request may ask for, in meters
+    private double maxRadiusMeters = 100_000;
+
+    // Most branches a nearby request may return
+    private int maxLimit = 100;
+
+    // The spatial index is rebuilt after this long even without branch changes, which bounds
+    // how long changes made outside this node stay invisible; zero disables the bound
+    private Duration maxStaleness = Duration.ofMinutes(5);
+}
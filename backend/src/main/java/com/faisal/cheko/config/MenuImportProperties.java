@@ -0,0 +1,26 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bulk menu import settings, bound from {@code cheko.menu-import.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.menu-import")
+@Data
+public class MenuImportProperties {
+
+    // Item rows sent to the database per JDBC batch
+    private int batchSize = 1000;
+
+    // Most records one import may hold; the whole import is one transaction
+    private long maxRecords = 1_000_000;
+
+    // Errors listed in the report; reading stops once this many are found
+    private int maxErrors = 100;
+
+    // Longest record accepted, in characters
+    private int maxRecordChars = 16384;
+}
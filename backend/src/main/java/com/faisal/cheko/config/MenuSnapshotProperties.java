@@ -0,0 +1,32 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * In-memory menu snapshot settings, bound from {@code cheko.menu-snapshot.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.menu-snapshot")
+@Data
+public class MenuSnapshotProperties {
+
+    // Serve menu item reads from per-branch snapshots instead of querying the database
+    private boolean enabled = true;
+
+    // Snapshots older than this are rebuilt before use, which bounds how long changes made
+    // outside this node (other replicas, SQL scripts) stay invisible; zero disables the bound
+    private Duration maxStaleness = Duration.ofMinutes(5);
+
+    // Upper bound on cached listing totals (branch, section, filters) used by paged database reads
+    private int maxCachedCounts = 10000;
+
+    // Most completions a suggest request may ask for; each trie node keeps this many
+    private int maxSuggestions = 20;
+
+    // How often a background task re-reads the per-item order counts ranking suggestions
+    private Duration suggestionPopularityRefresh = Duration.ofMinutes(10);
+}
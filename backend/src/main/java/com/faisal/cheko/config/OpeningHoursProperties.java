@@ -0,0 +1,19 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.ZoneId;
+
+/**
+ * Branch opening hours settings, bound from {@code cheko.opening-hours.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.opening-hours")
+@Data
+public class OpeningHoursProperties {
+
+    // Zone of opening hours that do not name one with a "timezone" entry
+    private ZoneId defaultZone = ZoneId.of("Asia/Riyadh");
+}
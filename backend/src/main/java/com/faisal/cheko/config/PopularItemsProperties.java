@@ -0,0 +1,24 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Popular item tracking settings, bound from {@code cheko.popular-items.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.popular-items")
+@Data
+public class PopularItemsProperties {
+
+    // Count placed order lines per item in memory and rebuild the counts from history on startup
+    private boolean enabled = true;
+
+    // Items tracked per summary (overall, per branch, per section and per window); any item
+    // ordered more often than total / capacity in its scope is guaranteed to be reported
+    private int capacity = 200;
+
+    // Most items a popular-items request may ask for
+    private int maxLimit = 50;
+}
@@ -0,0 +1,115 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limiting settings, bound from {@code cheko.rate-limit.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.rate-limit")
+@Data
+public class RateLimitProperties {
+
+    // Backend that tracks per-client consumption
+    private Mode mode = Mode.EXACT;
+
+    // Maximum number of tokens per client
+    private int capacity = 20;
+
+    // Tokens added per refill period
+    private int refillTokens = 1;
+
+    private Duration refillPeriod = Duration.ofSeconds(1);
+
+    // Per-route policies, first match wins; unmatched requests use the limits above at cost 1
+    private List<Policy> policies = new ArrayList<>();
+
+    private Store store = new Store();
+
+    private Sketch sketch = new Sketch();
+
+    private Cluster cluster = new Cluster();
+
+    public enum Mode {
+        // One token bucket per client, bounded by the store settings
+        EXACT,
+        // Fixed-size Count-Min sketch over sliding windows, constant memory
+        SKETCH,
+        // Buckets shared by all nodes in Postgres; nodes lease token batches and spend them locally
+        CLUSTER
+    }
+
+    @Data
+    public static class Policy {
+
+        private String name;
+
+        // Route pattern: literal segments, '*' or '{var}' for one segment, trailing '**' for the rest
+        private String pattern;
+
+        // HTTP methods covered; empty means all
+        private List<String> methods = new ArrayList<>();
+
+        // Limits for this policy's own buckets; unset values fall back to the global ones
+        private Integer capacity;
+        private Integer refillTokens;
+        private Duration refillPeriod;
+
+        // Tokens taken by one request
+        private int cost = 1;
+    }
+
+    @Data
+    public static class Store {
+
+        // Hard cap on tracked clients; beyond it a new client displaces the oldest bucket
+        private int maxEntries = 100_000;
+
+        // How often buckets that have refilled to capacity are dropped
+        private Duration sweepInterval = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Sketch {
+
+        // Columns per row; overestimation is at most (e / width) of the tokens spent in a window
+        private int width = 65_536;
+
+        // Rows; the error bound holds with probability 1 - e^-depth
+        private int depth = 4;
+
+        // Number of noisiest clients reported on /api/metrics
+        private int heavyHitters = 20;
+
+        // One in this many requests past half capacity is counted towards the noisiest
+        // clients, weighted by this rate; 1 counts every one
+        private int heavyHitterSampling = 16;
+    }
+
+    @Data
+    public static class Cluster {
+
+        // Identifies this node's leases; defaults to the JVM name (pid@host)
+        private String nodeId;
+
+        // Tokens taken from the shared bucket per round trip; larger batches mean fewer
+        // round trips but more tokens parked on one node
+        private int leaseSize = 5;
+
+        // Unspent tokens are handed back after this long
+        private Duration leaseTtl = Duration.ofSeconds(2);
+
+        // How often expired and exhausted leases are settled with the shared store
+        private Duration settleInterval = Duration.ofSeconds(1);
+
+        // Leases this far past expiry belong to a node that stopped settling and are dropped
+        // without a refund
+        private Duration reclaimGrace = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,23 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Request context settings, bound from {@code cheko.request-context.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.request-context")
+@Data
+public class RequestContextProperties {
+
+    // CIDR blocks of load balancers and proxies allowed to set X-Forwarded-For;
+    // defaults to loopback and private networks
+    private List<String> trustedProxies = new ArrayList<>(Arrays.asList(
+            "127.0.0.0/8", "10.0.0.0/8", "172.16.0.0/12", "192.168.0.0/16", "::1/128", "fc00::/7"));
+}
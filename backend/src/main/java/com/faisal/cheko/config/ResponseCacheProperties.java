@@ -0,0 +1,31 @@
+package com.faisal.cheko.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Rendered menu response cache settings, bound from {@code cheko.response-cache.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cheko.response-cache")
+@Data
+public class ResponseCacheProperties {
+
+    // Keep serialized menu responses and answer conditional requests from them
+    private boolean enabled = true;
+
+    // Upper bounds on the number of cached responses and on the bytes they hold
+    private int maxEntries = 5000;
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    // Responses at least this large are also stored gzip-compressed
+    private DataSize gzipMinSize = DataSize.ofKilobytes(1);
+
+    // Entries older than this are rendered again, bounding how long changes made outside
+    // this node stay invisible; zero disables the bound
+    private Duration ttl = Duration.ofMinutes(5);
+}
@@ -1,5 +1,6 @@
 package com.faisal.cheko.config;
 
+import com.faisal.cheko.interceptor.ExportTimeoutInterceptor;
 import com.faisal.cheko.interceptor.RequestInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -15,6 +16,7 @@ import java.util.List;
 public class WebConfig implements WebMvcConfigurer {
 
     private final RequestInterceptor requestInterceptor;
+    private final ExportTimeoutInterceptor exportTimeoutInterceptor;
     
     private final List<String> SECURED_PATHS = Arrays.asList(
         "/api/**",              // API endpoints
@@ -40,8 +42,9 @@ public class WebConfig implements WebMvcConfigurer {
     private final long MAX_AGE = 3600; // 1 hour
 
     @Autowired
-    public WebConfig(RequestInterceptor requestInterceptor) {
+    public WebConfig(RequestInterceptor requestInterceptor, ExportTimeoutInterceptor exportTimeoutInterceptor) {
         this.requestInterceptor = requestInterceptor;
+        this.exportTimeoutInterceptor = exportTimeoutInterceptor;
     }
 
     @Override
@@ -61,5 +64,7 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addInterceptor(requestInterceptor)
                 .addPathPatterns("/api/**")  // Apply to all API endpoints
                 .excludePathPatterns("/api/health"); // Exclude health check endpoint
+        registry.addInterceptor(exportTimeoutInterceptor)
+                .addPathPatterns("/api/branches/*/menu/export", "/api/orders/export");
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.faisal.cheko.context;
+
+/**
+ * Per-request facts worked out once at the front of the filter chain and shared by every
+ * later filter, the request interceptor and the logging MDC.
+ */
+public final class RequestContext {
+
+    /**
+     * Request attribute holding the context.
+     */
+    public static final String ATTRIBUTE = RequestContext.class.getName();
+
+    private final String requestId;
+    private final String clientIp;
+    private final long startNanos;
+
+    public RequestContext(String requestId, String clientIp, long startNanos) {
+        this.requestId = requestId;
+        this.clientIp = clientIp;
+        this.startNanos = startNanos;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * The client address, taken from forwarding headers only as far as they were added by trusted proxies.
+     */
+    public String getClientIp() {
+        return clientIp;
+    }
+
+    /**
+     * {@link System#nanoTime()} when the request entered the application.
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
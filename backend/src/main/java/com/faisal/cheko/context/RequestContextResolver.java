@@ -0,0 +1,76 @@
+package com.faisal.cheko.context;
+
+import com.faisal.cheko.config.RequestContextProperties;
+import com.faisal.cheko.util.Ulid;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the {@link RequestContext} for a request, once, and caches it as a request attribute.
+ * <p>
+ * The client address is resolved from the connection's peer address. Only when that peer
+ * is a trusted proxy is {@code X-Forwarded-For} consulted, and then it is walked from the
+ * right, skipping trusted hops, so the first untrusted address is the client. Entries a
+ * client writes into the header itself sit to the left of that point and are ignored.
+ */
+@Component
+public class RequestContextResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestContextResolver.class);
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final TrustedProxies trustedProxies;
+
+    @Autowired
+    public RequestContextResolver(RequestContextProperties properties) {
+        this.trustedProxies = new TrustedProxies(properties.getTrustedProxies());
+        log.info("Trusting forwarding headers from {} proxy address blocks", trustedProxies.size());
+    }
+
+    /**
+     * Return the request's context, creating it on first use.
+     *
+     * @param request the HTTP request
+     * @return the context, never null
+     */
+    public RequestContext resolve(HttpServletRequest request) {
+        Object existing = request.getAttribute(RequestContext.ATTRIBUTE);
+        if (existing instanceof RequestContext) {
+            return (RequestContext) existing;
+        }
+        RequestContext context = new RequestContext(Ulid.next(), resolveClientIp(request), System.nanoTime());
+        request.setAttribute(RequestContext.ATTRIBUTE, context);
+        return context;
+    }
+
+    String resolveClientIp(HttpServletRequest request) {
+        String peer = request.getRemoteAddr();
+        if (!trustedProxies.isTrusted(peer)) {
+            return peer;
+        }
+        String forwarded = request.getHeader(FORWARDED_FOR);
+        if (forwarded == null || forwarded.isEmpty()) {
+            return peer;
+        }
+
+        String candidate = peer;
+        int end = forwarded.length();
+        while (end > 0) {
+            int comma = forwarded.lastIndexOf(',', end - 1);
+            String hop = forwarded.substring(comma + 1, end).trim();
+            end = comma < 0 ? 0 : comma;
+            if (hop.isEmpty() || "unknown".equalsIgnoreCase(hop)) {
+                continue;
+            }
+            candidate = hop;
+            if (!trustedProxies.isTrusted(hop)) {
+                return hop;
+            }
+        }
+        // Every hop was a trusted proxy; the leftmost one is the closest thing to a client
+        return candidate;
+    }
+}
@@ -0,0 +1,160 @@
+package com.faisal.cheko.context;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set of CIDR blocks whose forwarding headers are believed.
+ * <p>
+ * Blocks are parsed once into address bytes and a prefix length. Checking an address
+ * compares at most 16 bytes per block and never resolves host names: IPv4 literals are
+ * parsed by hand, and anything else that is not an IPv6 literal is simply not trusted.
+ */
+public class TrustedProxies {
+
+    private final List<Block> blocks = new ArrayList<>();
+
+    /**
+     * @param cidrs blocks such as {@code 10.0.0.0/8} or {@code ::1/128}; a bare address means a single host
+     * @throws IllegalArgumentException if a block is not a valid IP literal with an in-range prefix
+     */
+    public TrustedProxies(List<String> cidrs) {
+        for (String cidr : cidrs) {
+            blocks.add(parseBlock(cidr.trim()));
+        }
+    }
+
+    public boolean isTrusted(String address) {
+        if (blocks.isEmpty() || address == null) {
+            return false;
+        }
+        byte[] bytes = parseAddress(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (Block block : blocks) {
+            if (block.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return blocks.size();
+    }
+
+    private static Block parseBlock(String cidr) {
+        int slash = cidr.indexOf('/');
+        String address = slash < 0 ? cidr : cidr.substring(0, slash);
+        byte[] bytes = parseAddress(address);
+        if (bytes == null) {
+            throw new IllegalArgumentException("Invalid trusted proxy address: " + cidr);
+        }
+        int prefix = bytes.length * 8;
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(cidr.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid trusted proxy prefix: " + cidr);
+            }
+            if (prefix < 0 || prefix > bytes.length * 8) {
+                throw new IllegalArgumentException("Invalid trusted proxy prefix: " + cidr);
+            }
+        }
+        return new Block(bytes, prefix);
+    }
+
+    /**
+     * Parse an IP literal without touching DNS.
+     *
+     * @return the address bytes, or null if the text is not an IP literal
+     */
+    static byte[] parseAddress(String address) {
+        if (address.indexOf(':') >= 0) {
+            String literal = address.startsWith("[") && address.endsWith("]")
+                    ? address.substring(1, address.length() - 1)
+                    : address;
+            for (int i = 0; i < literal.length(); i++) {
+                char c = literal.charAt(i);
+                if (Character.digit(c, 16) < 0 && c != ':' && c != '.' && c != '%') {
+                    return null;
+                }
+            }
+            try {
+                byte[] bytes = InetAddress.getByName(literal).getAddress();
+                return bytes.length == 16 && isIpv4Mapped(bytes) ? tail(bytes) : bytes;
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        }
+        return parseIpv4(address);
+    }
+
+    private static byte[] parseIpv4(String address) {
+        byte[] bytes = new byte[4];
+        int part = 0;
+        int value = -1;
+        for (int i = 0; i <= address.length(); i++) {
+            char c = i < address.length() ? address.charAt(i) : '.';
+            if (c == '.') {
+                if (value < 0 || part > 3) {
+                    return null;
+                }
+                bytes[part++] = (byte) value;
+                value = -1;
+            } else if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return part == 4 ? bytes : null;
+    }
+
+    private static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return bytes[10] == (byte) 0xFF && bytes[11] == (byte) 0xFF;
+    }
+
+    private static byte[] tail(byte[] bytes) {
+        return new byte[]{bytes[12], bytes[13], bytes[14], bytes[15]};
+    }
+
+    private static final class Block {
+        private final byte[] network;
+        private final int prefix;
+
+        private Block(byte[] network, int prefix) {
+            this.network = network;
+            this.prefix = prefix;
+        }
+
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefix / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefix % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
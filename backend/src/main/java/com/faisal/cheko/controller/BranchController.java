@@ -1,7 +1,13 @@
 package com.faisal.cheko.controller;
 
+import com.faisal.cheko.cache.RenderedResponseCache;
+import com.faisal.cheko.dto.BranchMenuResponse;
 import com.faisal.cheko.dto.BranchRequest;
 import com.faisal.cheko.dto.BranchResponse;
+import com.faisal.cheko.dto.MenuImportReport;
+import com.faisal.cheko.exception.BadRequestException;
+import com.faisal.cheko.exporter.ExportFormat;
+import com.faisal.cheko.importer.MenuImportFormat;
 import com.faisal.cheko.service.BranchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,12 +16,20 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 
@@ -25,27 +39,65 @@ import java.util.List;
 public class BranchController {
 
     private final BranchService branchService;
+    private final RenderedResponseCache responseCache;
 
     @Autowired
-    public BranchController(BranchService branchService) {
+    public BranchController(BranchService branchService, RenderedResponseCache responseCache) {
         this.branchService = branchService;
+        this.responseCache = responseCache;
     }
 
     @GetMapping
-    @Operation(summary = "Get all branches", description = "Returns a list of all branches")
+    @Operation(summary = "Get all branches",
+            description = "Returns a list of all branches, optionally only those open now or at a given time")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Successfully retrieved branches",
                     content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = BranchResponse.class))
-            )
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid open filter")
     })
-    public ResponseEntity<List<BranchResponse>> getAllBranches() {
-        List<BranchResponse> branches = branchService.getAllBranches();
+    public ResponseEntity<List<BranchResponse>> getAllBranches(
+            @Parameter(description = "Only include branches open now; the only accepted value is 'now'")
+            @RequestParam(required = false) String open,
+            @Parameter(description = "Only include branches open at this ISO-8601 date-time with offset")
+            @RequestParam(name = "open_at", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime openAt) {
+        List<BranchResponse> branches = branchService.getAllBranches(openFilter(open, openAt));
         return ResponseEntity.ok(branches);
     }
 
+    @GetMapping("/nearby")
+    @Operation(summary = "Find branches near a location",
+            description = "Returns the branches within the radius of the point, nearest first, with their great-circle distance in meters")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved nearby branches",
+                    content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = BranchResponse.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid coordinates, radius, limit or open filter")
+    })
+    public ResponseEntity<List<BranchResponse>> getNearbyBranches(
+            @Parameter(description = "Latitude of the point", required = true)
+            @RequestParam double lat,
+            @Parameter(description = "Longitude of the point", required = true)
+            @RequestParam double lng,
+            @Parameter(description = "Search radius in meters")
+            @RequestParam(defaultValue = "5000") double radius,
+            @Parameter(description = "Maximum number of branches")
+            @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "Only include active branches")
+            @RequestParam(defaultValue = "false") boolean activeOnly,
+            @Parameter(description = "Only include branches open now; the only accepted value is 'now'")
+            @RequestParam(required = false) String open,
+            @Parameter(description = "Only include branches open at this ISO-8601 date-time with offset")
+            @RequestParam(name = "open_at", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime openAt) {
+        return ResponseEntity.ok(branchService.getNearbyBranches(lat, lng, radius, limit, activeOnly, openFilter(open, openAt)));
+    }
+
     @PostMapping
     @Operation(summary = "Create a new branch", description = "Creates a new branch and returns the created branch")
     @ApiResponses(value = {
@@ -67,5 +119,108 @@ public class BranchController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdBranch);
     }
 
+    @GetMapping("/{branchId}/menu")
+    @Operation(summary = "Get the full menu of a branch",
+            description = "Returns every section of the branch with its items in a single response, instead of one request per section")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved the branch menu",
+                    content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = BranchMenuResponse.class))
+            ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "404", description = "Branch not found")
+    })
+    public ResponseEntity<byte[]> getBranchMenu(
+            @Parameter(description = "Branch ID", required = true)
+            @PathVariable Long branchId,
+            @Parameter(description = "Only include available items")
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            HttpServletRequest request) {
+        return responseCache.serve(request, branchId, () -> branchService.getBranchMenu(branchId, availableOnly));
+    }
+
+    @PostMapping("/{branchId}/menu/import")
+    @Operation(summary = "Import menu sections and items",
+            description = "Adds the sections and items in a CSV (text/csv) or NDJSON (application/x-ndjson) body to the branch, "
+                    + "all or nothing. Columns: section, section_description, name, description, price, calories, image_url, is_available")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Every record was imported",
+                    content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = MenuImportReport.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid records; nothing was imported and the report lists the errors",
+                    content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = MenuImportReport.class))
+            ),
+            @ApiResponse(responseCode = "404", description = "Branch not found")
+    })
+    public ResponseEntity<MenuImportReport> importMenu(
+            @Parameter(description = "Branch ID", required = true)
+            @PathVariable Long branchId,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            HttpServletRequest request) throws IOException {
+        MenuImportFormat format = MenuImportFormat.fromContentType(contentType);
+        if (format == null) {
+            throw new BadRequestException("Content type must be " + MenuImportFormat.CSV.getMediaType()
+                    + " or " + MenuImportFormat.NDJSON.getMediaType());
+        }
+        MenuImportReport report = branchService.importMenu(branchId, format, request.getInputStream());
+        return ResponseEntity.status(report.getCommitted() ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(report);
+    }
 
+    @GetMapping("/{branchId}/menu/export")
+    @Operation(summary = "Export the menu of a branch",
+            description = "Streams every section and item of the branch as NDJSON or CSV, read from the database as it is written. "
+                    + "The columns are those of the menu import, so an export can be imported into another branch")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Menu rows, one per item, and one per section without items",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}
+            ),
+            @ApiResponse(responseCode = "400", description = "Unknown format"),
+            @ApiResponse(responseCode = "404", description = "Branch not found"),
+            @ApiResponse(responseCode = "503", description = "Too many exports running; retry after Retry-After seconds")
+    })
+    public ResponseEntity<StreamingResponseBody> exportMenu(
+            @Parameter(description = "Branch ID", required = true)
+            @PathVariable Long branchId,
+            @Parameter(description = "Output format: ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Only include available items")
+            @RequestParam(defaultValue = "false") boolean availableOnly) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        if (exportFormat == null) {
+            throw new BadRequestException("Format must be ndjson or csv");
+        }
+        StreamingResponseBody body = branchService.exportMenu(branchId, availableOnly, exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"branch-" + branchId + "-menu." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * The instant branches must be open at, or null when neither {@code open} nor
+     * {@code open_at} is given.
+     */
+    private static Instant openFilter(String open, OffsetDateTime openAt) {
+        if (open != null && openAt != null) {
+            throw new BadRequestException("Use either open or open_at, not both");
+        }
+        if (open != null) {
+            if (!"now".equalsIgnoreCase(open.trim())) {
+                throw new BadRequestException("Unsupported open filter '" + open + "', expected 'now'");
+            }
+            return Instant.now();
+        }
+        return openAt != null ? openAt.toInstant() : null;
+    }
 }
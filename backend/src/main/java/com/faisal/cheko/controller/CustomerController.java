@@ -0,0 +1,45 @@
+package com.faisal.cheko.controller;
+
+import com.faisal.cheko.dto.CustomerAssignmentReport;
+import com.faisal.cheko.service.CustomerService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+
+@RestController
+@RequestMapping("/api/customers")
+@Tag(name = "Customer", description = "Customer APIs")
+public class CustomerController {
+
+    private final CustomerService customerService;
+
+    @Autowired
+    public CustomerController(CustomerService customerService) {
+        this.customerService = customerService;
+    }
+
+    @PostMapping("/branch-assignments")
+    @Operation(summary = "Assign customers to their nearest branches",
+               description = "Replaces the stored assignments of every customer with a location with its k nearest active branches, " +
+                       "and reports the throughput of the run")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Assignments replaced",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CustomerAssignmentReport.class))),
+            @ApiResponse(responseCode = "400", description = "k out of range"),
+            @ApiResponse(responseCode = "409", description = "A run is already in progress")
+    })
+    public ResponseEntity<CustomerAssignmentReport> assignNearestBranches(
+            @Parameter(description = "Nearest branches recorded per customer")
+            @RequestParam(defaultValue = "1") int k) {
+        return ResponseEntity.ok(customerService.assignNearestBranches(k));
+    }
+}
@@ -1,6 +1,9 @@
 package com.faisal.cheko.controller;
 
+import com.faisal.cheko.cache.RenderedResponseCache;
+import com.faisal.cheko.dto.CursorPageResponse;
 import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.MenuItemSuggestionResponse;
 import com.faisal.cheko.dto.PageResponse;
 import com.faisal.cheko.service.MenuItemService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,8 +13,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -27,10 +30,12 @@ import java.util.List;
 public class MenuItemController {
 
     private final MenuItemService menuItemService;
+    private final RenderedResponseCache responseCache;
 
     @Autowired
-    public MenuItemController(MenuItemService menuItemService) {
+    public MenuItemController(MenuItemService menuItemService, RenderedResponseCache responseCache) {
         this.menuItemService = menuItemService;
+        this.responseCache = responseCache;
     }
 
     @GetMapping("/branch/{branchId}/paginated")
@@ -42,9 +47,10 @@ public class MenuItemController {
                     content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = PageResponse.class))
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Branch not found")
     })
-    public ResponseEntity<PageResponse<MenuItemResponse>> getMenuItemsByBranchIdPaginated(
+    public ResponseEntity<byte[]> getMenuItemsByBranchIdPaginated(
             @Parameter(description = "Branch ID", required = true)
             @PathVariable Long branchId,
             @Parameter(description = "Page number (0-based)", example = "0")
@@ -54,15 +60,16 @@ public class MenuItemController {
             @Parameter(description = "Sort field", example = "name")
             @RequestParam(defaultValue = "name") String sort,
             @Parameter(description = "Sort direction", example = "asc")
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Include totalElements and totalPages; false skips counting and only reports hasNext", example = "true")
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            HttpServletRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
         
-        Page<MenuItemResponse> menuItemsPage = menuItemService.getMenuItemsByBranchIdPaginated(branchId, pageable);
-        PageResponse<MenuItemResponse> response = PageResponse.from(menuItemsPage);
-        
-        return ResponseEntity.ok(response);
+        return responseCache.serve(request, branchId, () ->
+                PageResponse.from(menuItemService.getMenuItemsByBranchIdPaginated(branchId, pageable, includeTotal)));
     }
 
     @GetMapping("/branch/{branchId}/available/paginated")
@@ -72,9 +79,10 @@ public class MenuItemController {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved menu items",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = PageResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Branch not found")
     })
-    public ResponseEntity<PageResponse<MenuItemResponse>> getAvailableMenuItemsByBranchIdPaginated(
+    public ResponseEntity<byte[]> getAvailableMenuItemsByBranchIdPaginated(
             @Parameter(description = "Branch ID", required = true)
             @PathVariable Long branchId,
             @Parameter(description = "Search by menu item name", required = false)
@@ -83,18 +91,19 @@ public class MenuItemController {
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size", example = "10")
             @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field", example = "name")
+            @Parameter(description = "Sort field; relevance ranks search results best match first", example = "name")
             @RequestParam(defaultValue = "name") String sort,
             @Parameter(description = "Sort direction", example = "asc")
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Include totalElements and totalPages; false skips counting and only reports hasNext", example = "true")
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            HttpServletRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
         
-        Page<MenuItemResponse> menuItemsPage = menuItemService.getAvailableMenuItemsByBranchIdPaginated(branchId, search, pageable);
-        PageResponse<MenuItemResponse> response = PageResponse.from(menuItemsPage);
-        
-        return ResponseEntity.ok(response);
+        return responseCache.serve(request, branchId, () ->
+                PageResponse.from(menuItemService.getAvailableMenuItemsByBranchIdPaginated(branchId, search, pageable, includeTotal)));
     }
 
     
@@ -108,9 +117,10 @@ public class MenuItemController {
                     content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = PageResponse.class))
             ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Branch or Section not found")
     })
-    public ResponseEntity<PageResponse<MenuItemResponse>> getMenuItemsByBranchIdAndBySectionIdPaginated(
+    public ResponseEntity<byte[]> getMenuItemsByBranchIdAndBySectionIdPaginated(
             @Parameter(description = "Branch ID", required = true)
             @PathVariable Long branchId,
             @Parameter(description = "Section ID", required = true)
@@ -122,15 +132,16 @@ public class MenuItemController {
             @Parameter(description = "Sort field", example = "name")
             @RequestParam(defaultValue = "name") String sort,
             @Parameter(description = "Sort direction", example = "asc")
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Include totalElements and totalPages; false skips counting and only reports hasNext", example = "true")
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            HttpServletRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
         
-        Page<MenuItemResponse> menuItemsPage = menuItemService.getMenuItemsByBranchIdAndBySectionIdPaginated(branchId, sectionId, pageable);
-        PageResponse<MenuItemResponse> response = PageResponse.from(menuItemsPage);
-        
-        return ResponseEntity.ok(response);
+        return responseCache.serve(request, branchId, () ->
+                PageResponse.from(menuItemService.getMenuItemsByBranchIdAndBySectionIdPaginated(branchId, sectionId, pageable, includeTotal)));
     }
     
     @GetMapping("/branch/{branchId}/section/{sectionId}/available")
@@ -140,9 +151,10 @@ public class MenuItemController {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved menu items",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = PageResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Branch or Section not found")
     })
-    public ResponseEntity<PageResponse<MenuItemResponse>> getAvailableMenuItemsByBranchIdAndBySectionIdPaginated(
+    public ResponseEntity<byte[]> getAvailableMenuItemsByBranchIdAndBySectionIdPaginated(
             @Parameter(description = "Branch ID", required = true)
             @PathVariable Long branchId,
             @Parameter(description = "Section ID", required = true)
@@ -153,18 +165,164 @@ public class MenuItemController {
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size", example = "10")
             @RequestParam(defaultValue = "10") int size,
-            @Parameter(description = "Sort field", example = "name")
+            @Parameter(description = "Sort field; relevance ranks search results best match first", example = "name")
             @RequestParam(defaultValue = "name") String sort,
             @Parameter(description = "Sort direction", example = "asc")
-            @RequestParam(defaultValue = "asc") String direction) {
+            @RequestParam(defaultValue = "asc") String direction,
+            @Parameter(description = "Include totalElements and totalPages; false skips counting and only reports hasNext", example = "true")
+            @RequestParam(defaultValue = "true") boolean includeTotal,
+            HttpServletRequest request) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
         
-        Page<MenuItemResponse> menuItemsPage = menuItemService.getAvailableMenuItemsByBranchIdAndBySectionIdPaginated(branchId, sectionId, search, pageable);
-        PageResponse<MenuItemResponse> response = PageResponse.from(menuItemsPage);
+        return responseCache.serve(request, branchId, () ->
+                PageResponse.from(menuItemService.getAvailableMenuItemsByBranchIdAndBySectionIdPaginated(branchId, sectionId, search, pageable, includeTotal)));
+    }
+
+    @GetMapping("/branch/{branchId}/cursor")
+    @Operation(summary = "Get menu items by branch ID with cursor pagination",
+               description = "Returns a page of menu items for a specific branch, continuing after the given cursor. Each page costs the same however deep it is")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved menu items",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Unsupported sort or invalid cursor"),
+            @ApiResponse(responseCode = "404", description = "Branch not found")
+    })
+    public ResponseEntity<byte[]> getMenuItemsByBranchIdAfterCursor(
+            @Parameter(description = "Branch ID", required = true)
+            @PathVariable Long branchId,
+            @Parameter(description = "Cursor from the previous page's nextCursor; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (at most 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort field: id, name or price", example = "name")
+            @RequestParam(defaultValue = "name") String sort,
+            @Parameter(description = "Sort direction", example = "asc")
+            @RequestParam(defaultValue = "asc") String direction,
+            HttpServletRequest request) {
+        
+        return responseCache.serve(request, branchId, () ->
+                menuItemService.getMenuItemsByBranchIdAfterCursor(branchId, null, false, null,
+                        sort, direction, cursor, size));
+    }
+
+    @GetMapping("/branch/{branchId}/available/cursor")
+    @Operation(summary = "Get available menu items by branch ID with cursor pagination and search",
+               description = "Returns a page of available menu items for a specific branch, optionally filtered by name, continuing after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved menu items",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Unsupported sort or invalid cursor"),
+            @ApiResponse(responseCode = "404", description = "Branch not found")
+    })
+    public ResponseEntity<byte[]> getAvailableMenuItemsByBranchIdAfterCursor(
+            @Parameter(description = "Branch ID", required = true)
+            @PathVariable Long branchId,
+            @Parameter(description = "Search by menu item name", required = false)
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Cursor from the previous page's nextCursor; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (at most 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort field: id, name or price", example = "name")
+            @RequestParam(defaultValue = "name") String sort,
+            @Parameter(description = "Sort direction", example = "asc")
+            @RequestParam(defaultValue = "asc") String direction,
+            HttpServletRequest request) {
+        
+        return responseCache.serve(request, branchId, () ->
+                menuItemService.getMenuItemsByBranchIdAfterCursor(branchId, null, true, search,
+                        sort, direction, cursor, size));
+    }
+
+    @GetMapping("/branch/{branchId}/section/{sectionId}/cursor")
+    @Operation(summary = "Get menu items by branch ID and section ID with cursor pagination",
+               description = "Returns a page of menu items for a specific branch and section, continuing after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved menu items",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Unsupported sort or invalid cursor"),
+            @ApiResponse(responseCode = "404", description = "Branch or Section not found")
+    })
+    public ResponseEntity<byte[]> getMenuItemsByBranchIdAndBySectionIdAfterCursor(
+            @Parameter(description = "Branch ID", required = true)
+            @PathVariable Long branchId,
+            @Parameter(description = "Section ID", required = true)
+            @PathVariable Long sectionId,
+            @Parameter(description = "Cursor from the previous page's nextCursor; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (at most 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort field: id, name or price", example = "name")
+            @RequestParam(defaultValue = "name") String sort,
+            @Parameter(description = "Sort direction", example = "asc")
+            @RequestParam(defaultValue = "asc") String direction,
+            HttpServletRequest request) {
+        
+        return responseCache.serve(request, branchId, () ->
+                menuItemService.getMenuItemsByBranchIdAfterCursor(branchId, sectionId, false, null,
+                        sort, direction, cursor, size));
+    }
+
+    @GetMapping("/branch/{branchId}/section/{sectionId}/available/cursor")
+    @Operation(summary = "Get available menu items by branch ID and section ID with cursor pagination and search",
+               description = "Returns a page of available menu items for a specific branch and section, optionally filtered by name, continuing after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved menu items",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageResponse.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match"),
+            @ApiResponse(responseCode = "400", description = "Unsupported sort or invalid cursor"),
+            @ApiResponse(responseCode = "404", description = "Branch or Section not found")
+    })
+    public ResponseEntity<byte[]> getAvailableMenuItemsByBranchIdAndBySectionIdAfterCursor(
+            @Parameter(description = "Branch ID", required = true)
+            @PathVariable Long branchId,
+            @Parameter(description = "Section ID", required = true)
+            @PathVariable Long sectionId,
+            @Parameter(description = "Search by menu item name", required = false)
+            @RequestParam(required = false) String search,
+            @Parameter(description = "Cursor from the previous page's nextCursor; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (at most 100)", example = "10")
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort field: id, name or price", example = "name")
+            @RequestParam(defaultValue = "name") String sort,
+            @Parameter(description = "Sort direction", example = "asc")
+            @RequestParam(defaultValue = "asc") String direction,
+            HttpServletRequest request) {
+        
+        return responseCache.serve(request, branchId, () ->
+                menuItemService.getMenuItemsByBranchIdAfterCursor(branchId, sectionId, true, search,
+                        sort, direction, cursor, size));
+    }
+
+    @GetMapping("/branch/{branchId}/suggest")
+    @Operation(summary = "Suggest menu item names by prefix",
+               description = "Returns the most ordered menu items of a branch whose name, or a word of it, starts with the prefix. Intended for autocomplete while typing; served from memory")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved suggestions",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = MenuItemSuggestionResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Limit out of range"),
+            @ApiResponse(responseCode = "404", description = "Branch not found")
+    })
+    public ResponseEntity<List<MenuItemSuggestionResponse>> getMenuItemSuggestions(
+            @Parameter(description = "Branch ID", required = true)
+            @PathVariable Long branchId,
+            @Parameter(description = "Beginning of a menu item name or word", required = true, example = "bur")
+            @RequestParam String prefix,
+            @Parameter(description = "Maximum number of suggestions (at most 20)", example = "8")
+            @RequestParam(defaultValue = "8") int limit) {
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(menuItemService.getMenuItemSuggestions(branchId, prefix, limit));
     }
 
     // second highest calroie API
@@ -1,5 +1,6 @@
 package com.faisal.cheko.controller;
 
+import com.faisal.cheko.cache.RenderedResponseCache;
 import com.faisal.cheko.dto.MenuSectionWithCountResponse;
 import com.faisal.cheko.service.MenuItemService;
 import com.faisal.cheko.service.MenuSectionService;
@@ -10,11 +11,11 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 
 @RestController
@@ -23,10 +24,12 @@ import java.util.List;
 public class MenuSectionController {
 
     private final MenuSectionService menuSectionService;
+    private final RenderedResponseCache responseCache;
 
     @Autowired
-    public MenuSectionController(MenuSectionService menuSectionService) {
+    public MenuSectionController(MenuSectionService menuSectionService, RenderedResponseCache responseCache) {
         this.menuSectionService = menuSectionService;
+        this.responseCache = responseCache;
     }
 
     @GetMapping("/branch/{branchId}/with-counts")
@@ -37,13 +40,14 @@ public class MenuSectionController {
                     description = "Successfully retrieved menu sections with counts",
                     content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = MenuSectionWithCountResponse.class))
-            )
+            ),
+            @ApiResponse(responseCode = "304", description = "Not modified since the ETag in If-None-Match")
     })
-    public ResponseEntity<List<MenuSectionWithCountResponse>> getMenuSectionsByBranchIdWithCounts(
+    public ResponseEntity<byte[]> getMenuSectionsByBranchIdWithCounts(
             @Parameter(description = "Branch ID", required = true)
-            @PathVariable Long branchId) {
-        List<MenuSectionWithCountResponse> menuSections = menuSectionService.getMenuSectionsByBranchIdWithCounts(branchId);
-        return ResponseEntity.ok(menuSections);
+            @PathVariable Long branchId,
+            HttpServletRequest request) {
+        return responseCache.serve(request, branchId, () -> menuSectionService.getMenuSectionsByBranchIdWithCounts(branchId));
     }
 
 }
@@ -1,11 +1,53 @@
 package com.faisal.cheko.controller;
 
+import com.faisal.cheko.dto.PopularItemResponse;
+import com.faisal.cheko.service.OrderItemService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/order-items")
 @Tag(name = "Order Item", description = "Order items APIs")
 public class OrderItemController {
-}
\ No newline at end of file
+
+    private final OrderItemService orderItemService;
+
+    @Autowired
+    public OrderItemController(OrderItemService orderItemService) {
+        this.orderItemService = orderItemService;
+    }
+
+    @GetMapping("/popular")
+    @Operation(summary = "Get the most ordered menu items",
+               description = "Returns the most ordered menu items in the current hour, the current day (UTC) or all time, " +
+                       "overall or for one branch or section. Counts are tracked in memory and may overestimate by at most maxOverestimate")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved popular items",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = PopularItemResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Unsupported window or limit out of range")
+    })
+    public ResponseEntity<List<PopularItemResponse>> getPopularItems(
+            @Parameter(description = "Window: hour, day or all", example = "day")
+            @RequestParam(defaultValue = "all") String window,
+            @Parameter(description = "Only items of this branch")
+            @RequestParam(required = false) Long branchId,
+            @Parameter(description = "Only items of this section; takes precedence over branchId")
+            @RequestParam(required = false) Long sectionId,
+            @Parameter(description = "Number of items (at most 50)", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        return ResponseEntity.ok(orderItemService.getPopularItems(window, branchId, sectionId, limit));
+    }
+}
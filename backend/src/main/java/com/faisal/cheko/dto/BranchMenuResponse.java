@@ -0,0 +1,21 @@
+package com.faisal.cheko.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BranchMenuResponse {
+
+    private Long branchId;
+    private String branchName;
+    private Integer itemCount;
+    private List<BranchMenuSectionResponse> sections;
+}
@@ -0,0 +1,21 @@
+package com.faisal.cheko.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BranchMenuSectionResponse {
+
+    private Long id;
+    private String name;
+    private String description;
+    private List<MenuItemResponse> items;
+}
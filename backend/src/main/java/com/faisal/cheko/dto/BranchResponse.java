@@ -1,5 +1,6 @@
 package com.faisal.cheko.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -32,4 +33,15 @@ public class BranchResponse {
     private Boolean isActive;
     private ZonedDateTime createdAt;
     private ZonedDateTime updatedAt;
+
+    // Distance from the searched point, only set by location searches
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanceMeters;
+
+    // Whether the branch is open at the requested time, or now, and when it next opens if it
+    // is closed; left out when the branch has no opening hours
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean isOpen;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ZonedDateTime nextOpeningTime;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.faisal.cheko.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerAssignmentReport {
+
+    // Nearest branches recorded per customer
+    private Integer k;
+    // Active branches with a location the customers were matched against
+    private Integer branches;
+    // Customers with a location that were read
+    private Long customers;
+    private Long assignments;
+    // Customers that got no branch because no active branch has a location
+    private Long unassigned;
+    private Long chunks;
+    private Long elapsedMs;
+    // Time spent in the parallel searches and in writing the assignments
+    private Long searchMs;
+    private Long writeMs;
+    private Long customersPerSecond;
+}
@@ -0,0 +1,20 @@
+package com.faisal.cheko.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MenuImportError {
+
+    // Input line the record starts on, counting from 1
+    private Long line;
+    // Column at fault, or null when the whole record is
+    private String field;
+    private String message;
+}
@@ -0,0 +1,29 @@
+package com.faisal.cheko.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MenuImportReport {
+
+    private Long branchId;
+    private String format;
+    // Whether the rows were written; an import with any error writes nothing
+    private Boolean committed;
+    private Long records;
+    private Long sectionsCreated;
+    private Long itemsCreated;
+    private Long elapsedMs;
+    private Long recordsPerSecond;
+    // Every error found, unless more than the listed ones (errorCount tells)
+    private Long errorCount;
+    private List<MenuImportError> errors;
+}
@@ -0,0 +1,21 @@
+package com.faisal.cheko.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MenuItemSuggestionResponse {
+
+    private Long id;
+    private Long sectionId;
+    private String sectionName;
+    private String name;
+    private Boolean isAvailable;
+    private Long orderCount;
+}
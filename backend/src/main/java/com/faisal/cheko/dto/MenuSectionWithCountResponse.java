@@ -18,4 +18,5 @@ public class MenuSectionWithCountResponse {
     private String name;
     private String description;
     private Long itemCount;
+    private Long availableItemCount;
 }
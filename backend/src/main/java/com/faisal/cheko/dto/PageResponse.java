@@ -1,14 +1,21 @@
 package com.faisal.cheko.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
 
+/**
+ * One page of a listing. Built from a {@link Page} it carries the totals; built from a plain
+ * {@link Slice} (no count was run) the totals are left out and {@code hasNext} tells whether
+ * another page follows.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,22 +25,29 @@ public class PageResponse<T> {
     private List<T> content;
     private int pageNumber;
     private int pageSize;
-    private long totalElements;
-    private int totalPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
     private boolean first;
     private boolean last;
     private boolean empty;
+    private boolean hasNext;
 
-    public static <T> PageResponse<T> from(Page<T> page) {
-        return PageResponse.<T>builder()
-                .content(page.getContent())
-                .pageNumber(page.getNumber())
-                .pageSize(page.getSize())
-                .totalElements(page.getTotalElements())
-                .totalPages(page.getTotalPages())
-                .first(page.isFirst())
-                .last(page.isLast())
-                .empty(page.isEmpty())
-                .build();
+    public static <T> PageResponse<T> from(Slice<T> slice) {
+        PageResponseBuilder<T> builder = PageResponse.<T>builder()
+                .content(slice.getContent())
+                .pageNumber(slice.getNumber())
+                .pageSize(slice.getSize())
+                .first(slice.isFirst())
+                .last(slice.isLast())
+                .empty(slice.isEmpty())
+                .hasNext(slice.hasNext());
+        if (slice instanceof Page) {
+            Page<T> page = (Page<T>) slice;
+            builder.totalElements(page.getTotalElements())
+                    .totalPages(page.getTotalPages());
+        }
+        return builder.build();
     }
-}
\ No newline at end of file
+}
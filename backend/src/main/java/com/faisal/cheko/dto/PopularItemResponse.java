@@ -0,0 +1,25 @@
+package com.faisal.cheko.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PopularItemResponse {
+
+    private Long menuItemId;
+    private String name;
+    private Long sectionId;
+    private String sectionName;
+    private Long branchId;
+    private String branchName;
+    // Order lines in the window; never below the true number
+    private Long orderCount;
+    // How far orderCount may exceed the true number, zero when it is exact
+    private Long maxOverestimate;
+}
@@ -0,0 +1,77 @@
+package com.faisal.cheko.event;
+
+/**
+ * Published when menu data changes. Listeners that cache menu data react after the
+ * surrounding transaction commits.
+ * <p>
+ * The identifiers narrow down what changed; any of them may be null. A null
+ * {@code branchId} with a null {@code sectionId} means the change could touch any branch.
+ * Item events also carry the item's availability after the change.
+ */
+public class MenuChangedEvent {
+
+    public enum Type {
+        ITEM_CREATED,
+        ITEM_UPDATED,
+        ITEM_DELETED,
+        SECTION_CREATED,
+        SECTION_UPDATED,
+        SECTION_DELETED,
+        BRANCH_CREATED,
+        BRANCH_UPDATED,
+        BRANCH_DELETED,
+        // Several rows changed at once, e.g. an import
+        BULK
+    }
+
+    private final Long branchId;
+    private final Long sectionId;
+    private final Long itemId;
+    private final Type type;
+    private final Boolean itemAvailable;
+
+    public MenuChangedEvent(Long branchId, Long sectionId, Long itemId, Type type) {
+        this(branchId, sectionId, itemId, type, null);
+    }
+
+    public MenuChangedEvent(Long branchId, Long sectionId, Long itemId, Type type, Boolean itemAvailable) {
+        this.branchId = branchId;
+        this.sectionId = sectionId;
+        this.itemId = itemId;
+        this.type = type;
+        this.itemAvailable = itemAvailable;
+    }
+
+    public static MenuChangedEvent branch(Long branchId) {
+        return new MenuChangedEvent(branchId, null, null, Type.BULK);
+    }
+
+    public static MenuChangedEvent all() {
+        return new MenuChangedEvent(null, null, null, Type.BULK);
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public Long getSectionId() {
+        return sectionId;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Boolean getItemAvailable() {
+        return itemAvailable;
+    }
+
+    @Override
+    public String toString() {
+        return "MenuChangedEvent{" + type + ", branch=" + branchId + ", section=" + sectionId + ", item=" + itemId + "}";
+    }
+}
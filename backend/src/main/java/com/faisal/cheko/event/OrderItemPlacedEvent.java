@@ -0,0 +1,29 @@
+package com.faisal.cheko.event;
+
+/**
+ * Published when an order line is persisted. Listeners that count orders react after the
+ * surrounding transaction commits.
+ */
+public class OrderItemPlacedEvent {
+
+    private final Long orderItemId;
+    private final Long menuItemId;
+
+    public OrderItemPlacedEvent(Long orderItemId, Long menuItemId) {
+        this.orderItemId = orderItemId;
+        this.menuItemId = menuItemId;
+    }
+
+    public Long getOrderItemId() {
+        return orderItemId;
+    }
+
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderItemPlacedEvent{orderItem=" + orderItemId + ", menuItem=" + menuItemId + "}";
+    }
+}
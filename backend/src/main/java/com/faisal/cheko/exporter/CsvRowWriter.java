@@ -0,0 +1,70 @@
+package com.faisal.cheko.exporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+
+/**
+ * RFC 4180 CSV in UTF-8: a header row of column labels, then one line per row. Fields holding
+ * a comma, quote or line break are quoted; nulls are empty fields.
+ */
+final class CsvRowWriter implements RowWriter {
+
+    private final Writer writer;
+    private int columnCount;
+
+    CsvRowWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeHeader(String[] columns) throws IOException {
+        columnCount = columns.length;
+        for (int i = 0; i < columns.length; i++) {
+            writeField(i, columns[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void writeRow(ResultSet row) throws SQLException, IOException {
+        for (int i = 0; i < columnCount; i++) {
+            Object value = row.getObject(i + 1);
+            if (value instanceof Timestamp) {
+                value = ((Timestamp) value).toInstant().atOffset(ZoneOffset.UTC);
+            }
+            writeField(i, value == null ? "" : value.toString());
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeField(int index, String value) throws IOException {
+        if (index > 0) {
+            writer.write(',');
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
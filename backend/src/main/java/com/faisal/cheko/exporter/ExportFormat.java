@@ -0,0 +1,40 @@
+package com.faisal.cheko.exporter;
+
+/**
+ * Output formats of the streaming exports, chosen with the {@code format} request parameter.
+ */
+public enum ExportFormat {
+
+    // One JSON object per line
+    NDJSON("application/x-ndjson", "ndjson"),
+    // Header row naming the columns, then one row per record
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return the format with this name, ignoring case, or null when none matches
+     */
+    public static ExportFormat fromParameter(String parameter) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(parameter)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.faisal.cheko.exporter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+
+/**
+ * One JSON object per row, keyed by column label. Timestamps are written as UTC ISO-8601.
+ */
+final class NdjsonRowWriter implements RowWriter {
+
+    private final JsonGenerator generator;
+    private String[] columns;
+
+    NdjsonRowWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        // Objects are separated by the newline written after each row, not by a space
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void writeHeader(String[] columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public void writeRow(ResultSet row) throws SQLException, IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < columns.length; i++) {
+            generator.writeFieldName(columns[i]);
+            Object value = row.getObject(i + 1);
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof BigDecimal) {
+                generator.writeNumber((BigDecimal) value);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short) {
+                generator.writeNumber(((Number) value).longValue());
+            } else if (value instanceof Boolean) {
+                generator.writeBoolean((Boolean) value);
+            } else if (value instanceof Timestamp) {
+                generator.writeString(((Timestamp) value).toInstant().atOffset(ZoneOffset.UTC).toString());
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,21 @@
+package com.faisal.cheko.exporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes result set rows to an output stream in one export format, one row at a time.
+ */
+interface RowWriter extends Closeable {
+
+    void writeHeader(String[] columns) throws IOException;
+
+    /**
+     * Write the row the result set is positioned on.
+     */
+    void writeRow(ResultSet row) throws SQLException, IOException;
+
+    void flush() throws IOException;
+}
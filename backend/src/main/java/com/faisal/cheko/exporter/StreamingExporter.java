@@ -0,0 +1,223 @@
+package com.faisal.cheko.exporter;
+
+import com.faisal.cheko.config.ExportProperties;
+import com.faisal.cheko.exception.ServiceBusyException;
+import com.faisal.cheko.service.MetricsContributor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams menu items and orders straight from a JDBC result set to an output stream, as
+ * NDJSON or CSV.
+ * <p>
+ * The query runs in a read-only transaction with a bounded fetch size, which makes the
+ * PostgreSQL driver read the result through a server-side cursor, a batch at a time, instead
+ * of loading every row before returning. Each row is written as soon as it is read and the
+ * output is flushed once per batch, so memory use does not grow with the number of rows and
+ * the client starts receiving data right away. A client that disconnects fails the next write,
+ * which ends the query.
+ * <p>
+ * At most the configured number of exports stream at once. A slot is taken by
+ * {@link #reserve}, before the response is committed, so an export over the cap is refused
+ * with 503 rather than queued behind connections held for minutes.
+ * <p>
+ * The menu export uses the column names of the menu import, so an export can be imported into
+ * another branch as it is.
+ */
+@Component
+public class StreamingExporter implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingExporter.class);
+
+    // Labels of the selected columns, in select order, written as the CSV header and JSON keys
+    private static final String[] MENU_COLUMNS = {
+            "section_id", "section", "section_description",
+            "id", "name", "description", "price", "calories", "image_url", "is_available"};
+    private static final String[] ORDER_COLUMNS = {"id", "customer_id", "branch_id", "status", "total_price", "created_at"};
+
+    private static final String SELECT_MENU =
+            "SELECT ms.id AS section_id, ms.name AS section, ms.description AS section_description, " +
+            "mi.id, mi.name, mi.description, mi.price, mi.calories, mi.image_url, mi.is_available " +
+            "FROM restaurant.menu_sections ms " +
+            "LEFT JOIN restaurant.menu_items mi ON mi.section_id = ms.id";
+    private static final String SELECT_ORDERS =
+            "SELECT o.id, o.customer_id, o.branch_id, s.code AS status, o.total_price, o.created_at " +
+            "FROM restaurant.orders o " +
+            "LEFT JOIN restaurant.status s ON s.id = o.status_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int maxConcurrent;
+    private final Semaphore slots;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder exports = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private volatile long lastExportNanos;
+
+    @Autowired
+    public StreamingExporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper, ExportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = Math.max(1, properties.getFetchSize());
+        this.maxConcurrent = Math.max(1, properties.getMaxConcurrent());
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Take an export slot for the body, which gives it back once it has been written.
+     *
+     * @throws ServiceBusyException if every slot is taken
+     */
+    public StreamingResponseBody reserve(StreamingResponseBody body) {
+        if (!slots.tryAcquire()) {
+            refused.increment();
+            throw new ServiceBusyException("Too many exports are running. Please retry shortly.", 5);
+        }
+        return out -> {
+            try {
+                body.writeTo(out);
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    /**
+     * Write every section of the branch with its items, ordered by section and item id. A
+     * section without items is written as a row with empty item columns.
+     *
+     * @return the number of rows written
+     */
+    public long exportMenu(Long branchId, boolean availableOnly, ExportFormat format, OutputStream out) {
+        String sql = SELECT_MENU + (availableOnly ? " AND mi.is_available = TRUE" : "")
+                + " WHERE ms.branch_id = ? ORDER BY ms.id, mi.id";
+        return export(sql, MENU_COLUMNS, List.of(branchId), format, out);
+    }
+
+    /**
+     * Write the orders matching the filters, ordered by id. Every filter is optional; the
+     * time range includes {@code from} and excludes {@code to}.
+     *
+     * @return the number of rows written
+     */
+    public long exportOrders(Long branchId, OffsetDateTime from, OffsetDateTime to, ExportFormat format, OutputStream out) {
+        StringBuilder sql = new StringBuilder(SELECT_ORDERS);
+        List<Object> args = new ArrayList<>();
+        String keyword = " WHERE ";
+        if (branchId != null) {
+            sql.append(keyword).append("o.branch_id = ?");
+            args.add(branchId);
+            keyword = " AND ";
+        }
+        if (from != null) {
+            sql.append(keyword).append("o.created_at >= ?");
+            args.add(Timestamp.from(from.toInstant()));
+            keyword = " AND ";
+        }
+        if (to != null) {
+            sql.append(keyword).append("o.created_at < ?");
+            args.add(Timestamp.from(to.toInstant()));
+        }
+        sql.append(" ORDER BY o.id");
+        return export(sql.toString(), ORDER_COLUMNS, args, format, out);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "export";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("active", active.get());
+        metrics.put("maxConcurrent", maxConcurrent);
+        metrics.put("refused", refused.sum());
+        metrics.put("exports", exports.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("rows", rows.sum());
+        metrics.put("lastExportMs", TimeUnit.NANOSECONDS.toMillis(lastExportNanos));
+        return metrics;
+    }
+
+    long export(String sql, String[] columns, List<Object> args, ExportFormat format, OutputStream out) {
+        long start = System.nanoTime();
+        active.incrementAndGet();
+        boolean completed = false;
+        try (RowWriter writer = createWriter(format, out)) {
+            writer.writeHeader(columns);
+            long written = readTransaction.execute(status -> query(sql, args, writer));
+            writer.flush();
+            completed = true;
+            lastExportNanos = System.nanoTime() - start;
+            exports.increment();
+            log.debug("Exported {} rows as {} in {} ms", written, format, TimeUnit.NANOSECONDS.toMillis(lastExportNanos));
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            active.decrementAndGet();
+            if (!completed) {
+                failures.increment();
+            }
+        }
+    }
+
+    private long query(String sql, List<Object> args, RowWriter writer) {
+        long[] written = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, (ResultSet resultSet) -> {
+            try {
+                writer.writeRow(resultSet);
+                if (++written[0] % fetchSize == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        rows.add(written[0]);
+        return written[0];
+    }
+
+    private RowWriter createWriter(ExportFormat format, OutputStream out) throws IOException {
+        return format == ExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out, objectMapper);
+    }
+}
@@ -0,0 +1,151 @@
+package com.faisal.cheko.filter;
+
+import com.faisal.cheko.concurrency.ConcurrencyLimiter;
+import com.faisal.cheko.service.ConcurrencyLimiterService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Filter to shed load when the service is saturated.
+ * Caps the number of API requests in flight at an adaptive limit derived from observed
+ * latency, and rejects the excess right away with 503 instead of letting it queue for
+ * Tomcat threads and database connections. Runs after {@link RateLimitFilter}, so
+ * requests refused for rate limiting never take a slot.
+ * <p>
+ * Only database timeouts and exhausted connections count as overload, whether a handler
+ * answered them and marked the request with {@link #OVERLOADED_ATTRIBUTE} or they escaped the
+ * handlers as an exception. A 503 refusing an export over its cap is not overload. A client abort or an unhandled
+ * application error is released as an ordinary sample.
+ * <p>
+ * A request that goes asynchronous, like a streamed export, keeps its slot until the async
+ * processing completes, times out or fails. Its duration is not fed to the limit: minutes of
+ * streaming would read as extreme latency.
+ */
+@Component
+@Order(2)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    /**
+     * Request attribute an error handler sets when it answers for a database that is too slow
+     * or out of connections. Other 503s, like an export refused at its own cap, are deliberate
+     * admission decisions and say nothing about load.
+     */
+    public static final String OVERLOADED_ATTRIBUTE = ConcurrencyLimitFilter.class.getName() + ".overloaded";
+
+    private final ConcurrencyLimiterService concurrencyLimiterService;
+
+    @Autowired
+    public ConcurrencyLimitFilter(ConcurrencyLimiterService concurrencyLimiterService) {
+        this.concurrencyLimiterService = concurrencyLimiterService;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        String path = request.getRequestURI();
+        // Health and metrics must stay reachable precisely when the service is overloaded
+        if (!concurrencyLimiterService.isEnabled() || !path.startsWith("/api/")
+                || path.equals("/api/health") || path.equals("/api/metrics")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Optional<ConcurrencyLimiter.Permit> permit = concurrencyLimiterService.tryAcquire();
+        if (permit.isEmpty()) {
+            response.setHeader("Retry-After", "1");
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setContentType("application/json");
+            response.getWriter().write(String.format(
+                    "{\"status\":%d,\"error\":\"Service Unavailable\",\"message\":\"Server is at capacity. Please retry shortly.\"}",
+                    HttpStatus.SERVICE_UNAVAILABLE.value()));
+
+            log.warn("Shed request {} {}: concurrency limit reached", request.getMethod(), path);
+            return;
+        }
+
+        boolean overloaded = false;
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnAsyncEnd(permit.get()));
+                async = true;
+                return;
+            }
+            overloaded = Boolean.TRUE.equals(request.getAttribute(OVERLOADED_ATTRIBUTE));
+        } catch (IOException | ServletException | RuntimeException e) {
+            overloaded = isOverload(e);
+            throw e;
+        } finally {
+            if (!async) {
+                permit.get().release(overloaded);
+            }
+        }
+    }
+
+    /**
+     * Whether a failure that escaped the handlers says the database is too slow or out of
+     * connections. Client aborts and ordinary application errors say nothing about load.
+     */
+    private static boolean isOverload(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class ReleaseOnAsyncEnd implements AsyncListener {
+
+        private final ConcurrencyLimiter.Permit permit;
+
+        private ReleaseOnAsyncEnd(ConcurrencyLimiter.Permit permit) {
+            this.permit = permit;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.releaseUnmeasured();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.releaseUnmeasured();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.releaseUnmeasured();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A further async cycle on the same request keeps the slot; re-register for its end
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
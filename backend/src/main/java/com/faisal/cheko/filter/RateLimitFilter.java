@@ -1,5 +1,8 @@
 package com.faisal.cheko.filter;
 
+import com.faisal.cheko.context.RequestContextResolver;
+import com.faisal.cheko.ratelimit.RateLimitPolicy;
+import com.faisal.cheko.ratelimit.RateLimitResult;
 import com.faisal.cheko.service.RateLimiterService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -14,24 +17,29 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filter to enforce rate limits on API requests.
- * Uses the RateLimiterService to track and limit requests from each client.
+ * Uses the RateLimiterService to track and limit requests from each client,
+ * identified by the address in the shared request context.
+ * Each request is charged against the route policy that covers it, and the
+ * response headers report that policy's real limit and refill timing.
  * Extends OncePerRequestFilter to ensure it's only executed once per request.
  */
 @Component
-@Order(1) // Execute this filter first
+@Order(1) // Execute right after the request context is established
 public class RateLimitFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
-    private static final int DEFAULT_RETRY_AFTER_SECONDS = 60;
 
     private final RateLimiterService rateLimiterService;
+    private final RequestContextResolver requestContextResolver;
 
     @Autowired
-    public RateLimitFilter(RateLimiterService rateLimiterService) {
+    public RateLimitFilter(RateLimiterService rateLimiterService, RequestContextResolver requestContextResolver) {
         this.rateLimiterService = rateLimiterService;
+        this.requestContextResolver = requestContextResolver;
     }
 
     @Override
@@ -46,86 +54,32 @@ public class RateLimitFilter extends OncePerRequestFilter {
             return;
         }
         
-        String clientIp = getClientIp(request);
-        int requestCost = getRequestCost(request);
-        boolean allowed = rateLimiterService.allowRequest(clientIp, requestCost);
+        String clientIp = requestContextResolver.resolve(request).getClientIp();
+        RateLimitPolicy policy = rateLimiterService.resolvePolicy(request.getMethod(), path);
+        RateLimitResult result = rateLimiterService.tryConsume(policy, clientIp);
         
-        if (!allowed) {
-            int remainingTokens = rateLimiterService.getRemainingTokens(clientIp);
-            
-            response.setHeader("X-RateLimit-Limit", "20");
-            response.setHeader("X-RateLimit-Remaining", String.valueOf(remainingTokens));
-            response.setHeader("X-RateLimit-Reset", String.valueOf(DEFAULT_RETRY_AFTER_SECONDS));
-            response.setHeader("Retry-After", String.valueOf(DEFAULT_RETRY_AFTER_SECONDS));
+        response.setHeader("X-RateLimit-Policy", policy.getName());
+        response.setHeader("X-RateLimit-Limit", String.valueOf(result.getLimit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(result.getRemainingTokens()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(result.getSecondsToFull()));
+        response.setHeader("X-RateLimit-Next-Token-Ms",
+                String.valueOf(TimeUnit.NANOSECONDS.toMillis(result.getNanosToNextToken())));
+        
+        if (!result.isAllowed()) {
+            long retryAfterSeconds = Math.max(1, result.getSecondsToRetry());
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
             
             // Set response status and write error message
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             response.setContentType("application/json");
             response.getWriter().write(String.format(
                     "{\"status\":%d,\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded. Try again in %d seconds.\"}",
-                    HttpStatus.TOO_MANY_REQUESTS.value(), DEFAULT_RETRY_AFTER_SECONDS));
+                    HttpStatus.TOO_MANY_REQUESTS.value(), retryAfterSeconds));
             
             log.warn("Rate limit exceeded for client IP: {}", clientIp);
             return;
         }
         
-        int remainingTokens = rateLimiterService.getRemainingTokens(clientIp);
-        response.setHeader("X-RateLimit-Limit", "20");
-        response.setHeader("X-RateLimit-Remaining", String.valueOf(remainingTokens));
-        
         filterChain.doFilter(request, response);
     }
-
-    private int getRequestCost(HttpServletRequest request) {
-        String method = request.getMethod();
-        String path = request.getRequestURI();
-        
-        // Assign higher costs to write operations
-        if ("POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method)) {
-            return 2;
-        }
-        
-        // Assign higher costs to expensive endpoints
-        if (path.contains("/api/users") && "GET".equals(method)) {
-            return 2;
-        }
-        
-        // Default cost for other requests
-        return 1;
-    }
-
-    /**
-     * Extract the client IP address from the request.
-     * Handles cases where the request comes through a proxy or load balancer.
-     *
-     * @param request the HTTP request
-     * @return the client IP address
-     */
-    private String getClientIp(HttpServletRequest request) {
-        String clientIp = request.getHeader("X-Forwarded-For");
-        
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getHeader("Proxy-Client-IP");
-        }
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getHeader("HTTP_CLIENT_IP");
-        }
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getHeader("HTTP_X_FORWARDED_FOR");
-        }
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getRemoteAddr();
-        }
-        
-        // If the IP contains multiple addresses (X-Forwarded-For can contain a comma-separated list),
-        // take the first one
-        if (clientIp != null && clientIp.contains(",")) {
-            clientIp = clientIp.split(",")[0].trim();
-        }
-        
-        return clientIp;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.faisal.cheko.filter;
+
+import com.faisal.cheko.context.RequestContext;
+import com.faisal.cheko.context.RequestContextResolver;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filter that establishes the {@link RequestContext} before anything else runs.
+ * Resolves the client address and request ID once, publishes them to the logging MDC
+ * and the {@code X-Request-ID} header, and clears the MDC when the request ends.
+ */
+@Component
+@Order(0)
+public class RequestIdentityFilter extends OncePerRequestFilter {
+
+    public static final String MDC_REQUEST_ID = "requestId";
+    public static final String MDC_CLIENT_IP = "clientIp";
+
+    private final RequestContextResolver requestContextResolver;
+
+    @Autowired
+    public RequestIdentityFilter(RequestContextResolver requestContextResolver) {
+        this.requestContextResolver = requestContextResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+
+        RequestContext context = requestContextResolver.resolve(request);
+        MDC.put(MDC_REQUEST_ID, context.getRequestId());
+        MDC.put(MDC_CLIENT_IP, context.getClientIp());
+        response.setHeader("X-Request-ID", context.getRequestId());
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_REQUEST_ID);
+            MDC.remove(MDC_CLIENT_IP);
+        }
+    }
+}
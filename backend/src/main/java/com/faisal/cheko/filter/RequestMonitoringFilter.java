@@ -1,20 +1,22 @@
 package com.faisal.cheko.filter;
 
+import com.faisal.cheko.context.RequestContext;
+import com.faisal.cheko.context.RequestContextResolver;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.UUID;
 
 /**
  * Filter to monitor and log client requests.
+ * The request ID and client address come from the shared {@link RequestContext}.
  * Extends OncePerRequestFilter to ensure it's only executed once per request.
  */
 @Component
@@ -22,17 +24,22 @@ public class RequestMonitoringFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(RequestMonitoringFilter.class);
 
+    private final RequestContextResolver requestContextResolver;
+
+    @Autowired
+    public RequestMonitoringFilter(RequestContextResolver requestContextResolver) {
+        this.requestContextResolver = requestContextResolver;
+    }
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
         
-        String requestId = UUID.randomUUID().toString();
-        MDC.put("requestId", requestId);
-        response.addHeader("X-Request-ID", requestId);
-
-        String clientIp = getClientIp(request);
+        RequestContext context = requestContextResolver.resolve(request);
+        String requestId = context.getRequestId();
+        String clientIp = context.getClientIp();
         String userAgent = request.getHeader("User-Agent");
         String requestMethod = request.getMethod();
         String requestUri = request.getRequestURI();
@@ -41,49 +48,16 @@ public class RequestMonitoringFilter extends OncePerRequestFilter {
         log.info("Request started: {} {} {} from IP: {}, User-Agent: {}, Query: {}",
                 requestId, requestMethod, requestUri, clientIp, userAgent, queryString);
 
-        long startTime = System.currentTimeMillis();
-        
         try {
             // Continue with the filter chain
             filterChain.doFilter(request, response);
         } finally {
             // Calculate request duration
-            long duration = System.currentTimeMillis() - startTime;
+            long duration = context.getElapsedMillis();
             
             // Log request completion
             log.info("Request completed: {} {} {} - Status: {}, Duration: {}ms",
                     requestId, requestMethod, requestUri, response.getStatus(), duration);
-            
-            // Clean up MDC
-            MDC.remove("requestId");
         }
     }
-
-    private String getClientIp(HttpServletRequest request) {
-        String clientIp = request.getHeader("X-Forwarded-For");
-        
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getHeader("Proxy-Client-IP");
-        }
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getHeader("HTTP_CLIENT_IP");
-        }
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getHeader("HTTP_X_FORWARDED_FOR");
-        }
-        if (clientIp == null || clientIp.isEmpty() || "unknown".equalsIgnoreCase(clientIp)) {
-            clientIp = request.getRemoteAddr();
-        }
-        
-        // If the IP contains multiple addresses (X-Forwarded-For can contain a comma-separated list),
-        // take the first one
-        if (clientIp != null && clientIp.contains(",")) {
-            clientIp = clientIp.split(",")[0].trim();
-        }
-        
-        return clientIp;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,205 @@
+package com.faisal.cheko.geo;
+
+import com.faisal.cheko.config.GeoProperties;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.model.Branch;
+import com.faisal.cheko.repository.BranchRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import com.faisal.cheko.service.MetricsContributor;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Answers nearby-branch searches from a {@link BranchTree}, a JTS {@link STRtree} over branch
+ * locations, so a search costs no database round trip.
+ * <p>
+ * The tree is built off the request path once the application is ready and the database is
+ * reachable, and replaced whole on every rebuild, so a search sees either the old tree or the
+ * new one. A committed branch create, update or delete marks the tree out of date; until the
+ * rebuild that follows has replaced it, searches are answered by PostGIS, so a client never
+ * misses a branch it has just written. A rebuild that raced with a change is discarded. Like
+ * the menu snapshots, a tree older than the configured maximum staleness is rebuilt.
+ * <p>
+ * The tree also keeps the whole branch list, with every opening schedule compiled once per
+ * build, so listing branches and filtering them by opening hours cost no query either.
+ */
+@Component
+public class BranchSpatialIndex implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(BranchSpatialIndex.class);
+
+    private final BranchRepository branchRepository;
+    private final DatabaseConnectionService databaseConnectionService;
+    private final TransactionTemplate readTransaction;
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+    private final long maxStalenessNanos;
+
+    // Replaced whole by each rebuild; null until the first one and while a change is pending
+    private volatile BranchTree tree;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    // Guarded by this; bumped by every change, so a rebuild that raced with one is discarded
+    private long changes;
+
+    private final LongAdder indexReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+    private volatile long lastBuildNanos;
+
+    @Autowired
+    public BranchSpatialIndex(BranchRepository branchRepository,
+                              DatabaseConnectionService databaseConnectionService,
+                              PlatformTransactionManager transactionManager,
+                              GeoProperties properties) {
+        this.branchRepository = branchRepository;
+        this.databaseConnectionService = databaseConnectionService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.maxStalenessNanos = properties.getMaxStaleness() == null ? 0 : properties.getMaxStaleness().toNanos();
+    }
+
+    /**
+     * Branches within the radius of the point, nearest first.
+     *
+     * @param activeOnly leave out branches that are not active
+     * @param limit      most branches returned
+     * @param filter     branches to keep, applied before the limit, or null for all
+     */
+    public List<NearbyBranch> nearby(double lat, double lng, double radiusMeters, int limit, boolean activeOnly,
+                                     Predicate<Branch> filter) {
+        BranchTree current = tree;
+        if (current != null) {
+            indexReads.increment();
+            return current.within(lat, lng, radiusMeters, limit, activeOnly, filter);
+        }
+        rebuildRequested.set(true);
+        fallbackReads.increment();
+        Point point = geometryFactory.createPoint(new Coordinate(lng, lat));
+        return BranchTree.rank(branchRepository.findNearbyBranches(point, radiusMeters), lat, lng, radiusMeters, limit, activeOnly, filter);
+    }
+
+    /**
+     * Every branch, with its opening schedule compiled. Read from the tree, or from the
+     * database while a branch change is pending.
+     */
+    public List<Branch> all() {
+        BranchTree current = tree;
+        if (current != null) {
+            indexReads.increment();
+            return current.all();
+        }
+        rebuildRequested.set(true);
+        fallbackReads.increment();
+        return branchRepository.findAll();
+    }
+
+    /**
+     * The current tree, built now if there is none, for batch work that must see one
+     * consistent set of branches. A tree built here that raced with a change is used but not
+     * kept.
+     */
+    BranchTree requireTree() {
+        BranchTree current = tree;
+        if (current != null) {
+            return current;
+        }
+        rebuild();
+        current = tree;
+        return current != null ? current : new BranchTree(readTransaction.execute(status -> branchRepository.findAll()), System.nanoTime());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildRequested.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${cheko.geo.index-rebuild-interval:PT1S}")
+    public void rebuildIfDue() {
+        if (!databaseConnectionService.isConnected()) {
+            return;
+        }
+        BranchTree current = tree;
+        boolean stale = current != null && maxStalenessNanos > 0 && System.nanoTime() - current.getBuiltAtNanos() > maxStalenessNanos;
+        if (rebuildRequested.compareAndSet(true, false) || stale) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        switch (event.getType()) {
+            case BRANCH_CREATED:
+            case BRANCH_UPDATED:
+            case BRANCH_DELETED:
+                synchronized (this) {
+                    changes++;
+                    tree = null;
+                }
+                rebuildRequested.set(true);
+                break;
+            default:
+                // Menu changes do not move branches
+                break;
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "branchSpatialIndex";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        BranchTree current = tree;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("loaded", current != null);
+        metrics.put("branches", current == null ? 0 : current.size());
+        metrics.put("kernel", HaversineKernel.preferred().getName());
+        metrics.put("indexReads", indexReads.sum());
+        metrics.put("fallbackReads", fallbackReads.sum());
+        metrics.put("builds", builds.sum());
+        metrics.put("lastBuildMs", TimeUnit.NANOSECONDS.toMillis(lastBuildNanos));
+        return metrics;
+    }
+
+    void rebuild() {
+        long changesBefore;
+        synchronized (this) {
+            changesBefore = changes;
+        }
+        long start = System.nanoTime();
+        List<Branch> branches = readTransaction.execute(status -> branchRepository.findAll());
+        BranchTree built = new BranchTree(branches, start);
+        lastBuildNanos = System.nanoTime() - start;
+        builds.increment();
+        synchronized (this) {
+            if (changes != changesBefore) {
+                log.debug("Discarded branch spatial index that raced with a branch change");
+                rebuildRequested.set(true);
+                return;
+            }
+            tree = built;
+        }
+    }
+}
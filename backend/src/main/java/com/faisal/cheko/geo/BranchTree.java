@@ -0,0 +1,207 @@
+package com.faisal.cheko.geo;
+
+import com.faisal.cheko.model.Branch;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable JTS {@link STRtree} of branch locations, keyed by longitude and latitude in
+ * degrees. The tree is fully built before it is handed out, after which {@link STRtree} is safe
+ * for concurrent queries.
+ * <p>
+ * The tree is queried with the bounding box of the search circle, split in two where the box
+ * crosses the antimeridian and widened to every longitude where the circle reaches a pole.
+ * Tree entries are positions in a structure-of-arrays copy of the coordinates, so the
+ * candidates are then measured exactly, a block at a time, by a {@link HaversineKernel}.
+ */
+final class BranchTree {
+
+    // First radius of a nearest-branch search, and the factor it grows by until enough branches are found
+    private static final double FIRST_NEAREST_RADIUS_METERS = 2_000;
+    private static final double NEAREST_RADIUS_GROWTH = 4;
+    private static final double HALF_CIRCUMFERENCE_METERS = Math.PI * GeoDistance.EARTH_RADIUS_METERS;
+
+    private static final Comparator<NearbyBranch> NEAREST_FIRST = Comparator.comparingDouble(NearbyBranch::getDistanceMeters)
+            .thenComparing(nearby -> nearby.getBranch().getId(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final STRtree index = new STRtree();
+    private final HaversineKernel kernel;
+    // Every branch, in the order they were read
+    private final List<Branch> all;
+    // Branches with a location, and their coordinates at the same positions
+    private final Branch[] branches;
+    private final boolean[] active;
+    private final GeoPoints points;
+    private final int activeSize;
+    private final long builtAtNanos;
+
+    BranchTree(List<Branch> branches, long builtAtNanos) {
+        this(branches, builtAtNanos, HaversineKernel.preferred());
+    }
+
+    BranchTree(List<Branch> branches, long builtAtNanos, HaversineKernel kernel) {
+        List<Branch> located = new ArrayList<>(branches.size());
+        for (Branch branch : branches) {
+            // Compiled once per build, before the tree is published, so readers share it
+            branch.getOpeningSchedule();
+            if (branch.getLocation() != null) {
+                located.add(branch);
+            }
+        }
+        this.kernel = kernel;
+        this.all = Collections.unmodifiableList(new ArrayList<>(branches));
+        this.branches = located.toArray(new Branch[0]);
+        this.active = new boolean[this.branches.length];
+        double[] latitudes = new double[this.branches.length];
+        double[] longitudes = new double[this.branches.length];
+        int activeCount = 0;
+        for (int i = 0; i < this.branches.length; i++) {
+            Point location = this.branches[i].getLocation();
+            latitudes[i] = location.getY();
+            longitudes[i] = location.getX();
+            active[i] = Boolean.TRUE.equals(this.branches[i].getIsActive());
+            if (active[i]) {
+                activeCount++;
+            }
+            index.insert(new Envelope(location.getX(), location.getX(), location.getY(), location.getY()), i);
+        }
+        index.build();
+        this.points = GeoPoints.ofDegrees(latitudes, longitudes);
+        this.activeSize = activeCount;
+        this.builtAtNanos = builtAtNanos;
+    }
+
+    /**
+     * Branches within the radius of the point, nearest first.
+     *
+     * @param filter branches to keep, applied before the limit, or null for all
+     */
+    List<NearbyBranch> within(double lat, double lng, double radiusMeters, int limit, boolean activeOnly,
+                              Predicate<Branch> filter) {
+        return measure(candidates(lat, lng, radiusMeters), lat, lng, radiusMeters, limit, activeOnly, filter);
+    }
+
+    /**
+     * The {@code k} branches nearest to the point, nearest first, or all of them when there are
+     * fewer. The search radius grows until it holds {@code k} branches; every branch within a
+     * radius is in its bounding box, so the result is exact.
+     */
+    List<NearbyBranch> nearest(double lat, double lng, int k, boolean activeOnly) {
+        int wanted = Math.min(k, activeOnly ? activeSize : branches.length);
+        if (wanted <= 0) {
+            return new ArrayList<>();
+        }
+        double radius = FIRST_NEAREST_RADIUS_METERS;
+        while (true) {
+            List<NearbyBranch> found = measure(candidates(lat, lng, radius), lat, lng, radius, wanted, activeOnly, null);
+            if (found.size() >= wanted || radius >= HALF_CIRCUMFERENCE_METERS) {
+                return found;
+            }
+            radius = Math.min(radius * NEAREST_RADIUS_GROWTH, HALF_CIRCUMFERENCE_METERS);
+        }
+    }
+
+    /**
+     * Every branch the tree was built from, including those without a location.
+     */
+    List<Branch> all() {
+        return all;
+    }
+
+    int size() {
+        return branches.length;
+    }
+
+    int activeSize() {
+        return activeSize;
+    }
+
+    long getBuiltAtNanos() {
+        return builtAtNanos;
+    }
+
+    String getKernelName() {
+        return kernel.getName();
+    }
+
+    /**
+     * Measure the candidates and keep the nearest ones within the radius. Used for branches
+     * that come from the database rather than from a tree.
+     */
+    static List<NearbyBranch> rank(List<Branch> candidates, double lat, double lng, double radiusMeters, int limit, boolean activeOnly,
+                                   Predicate<Branch> filter) {
+        List<NearbyBranch> found = new ArrayList<>();
+        for (Branch branch : candidates) {
+            if (branch.getLocation() == null || (activeOnly && !Boolean.TRUE.equals(branch.getIsActive()))
+                    || (filter != null && !filter.test(branch))) {
+                continue;
+            }
+            double distance = GeoDistance.haversine(lat, lng, branch.getLocation().getY(), branch.getLocation().getX());
+            if (distance <= radiusMeters) {
+                found.add(new NearbyBranch(branch, distance));
+            }
+        }
+        found.sort(NEAREST_FIRST);
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    /**
+     * Measure the tree candidates at the given positions in one kernel call and keep the
+     * nearest ones within the radius.
+     */
+    private List<NearbyBranch> measure(List<Integer> candidates, double lat, double lng, double radiusMeters, int limit,
+                                       boolean activeOnly, Predicate<Branch> filter) {
+        int[] positions = new int[candidates.size()];
+        int count = 0;
+        for (Integer position : candidates) {
+            if ((!activeOnly || active[position]) && (filter == null || filter.test(branches[position]))) {
+                positions[count++] = position;
+            }
+        }
+        double[] distances = new double[count];
+        kernel.distances(lat, lng, points, positions, count, distances);
+
+        List<NearbyBranch> found = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (distances[i] <= radiusMeters) {
+                found.add(new NearbyBranch(branches[positions[i]], distances[i]));
+            }
+        }
+        found.sort(NEAREST_FIRST);
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    /**
+     * Positions of the branches in the bounding box of the search circle.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Integer> candidates(double lat, double lng, double radiusMeters) {
+        double angle = radiusMeters / GeoDistance.EARTH_RADIUS_METERS;
+        double deltaLat = Math.toDegrees(angle);
+        double minLat = lat - deltaLat;
+        double maxLat = lat + deltaLat;
+        double sinRatio = Math.sin(angle) / Math.cos(Math.toRadians(lat));
+        if (minLat <= -90 || maxLat >= 90 || angle >= Math.PI / 2 || sinRatio >= 1) {
+            // The circle reaches a pole, so it spans every longitude
+            return index.query(new Envelope(-180, 180, Math.max(minLat, -90), Math.min(maxLat, 90)));
+        }
+        // Widest longitude offset of a circle on the sphere, reached north of the centre's parallel
+        double deltaLng = Math.toDegrees(Math.asin(sinRatio));
+        double minLng = lng - deltaLng;
+        double maxLng = lng + deltaLng;
+        List<Integer> found = new ArrayList<>(index.query(new Envelope(Math.max(minLng, -180), Math.min(maxLng, 180), minLat, maxLat)));
+        if (minLng < -180) {
+            found.addAll(index.query(new Envelope(minLng + 360, 180, minLat, maxLat)));
+        } else if (maxLng > 180) {
+            found.addAll(index.query(new Envelope(-180, maxLng - 360, minLat, maxLat)));
+        }
+        return found;
+    }
+}
@@ -0,0 +1,287 @@
+package com.faisal.cheko.geo;
+
+import com.faisal.cheko.config.CustomerAssignmentProperties;
+import com.faisal.cheko.dto.CustomerAssignmentReport;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import com.faisal.cheko.service.MetricsContributor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Assigns every customer with a location to its {@code k} nearest active branches and stores
+ * the result in {@code restaurant.customer_branch_assignments}, for delivery-zone planning.
+ * <p>
+ * Customers are read through a database cursor, a chunk at a time, into primitive arrays.
+ * Each chunk is searched in parallel on a dedicated fork-join pool against one
+ * {@link BranchTree}, so every customer of a run sees the same branches, and the chunk's
+ * assignments are then inserted in JDBC batches before the next chunk is read. Memory use is
+ * bounded by the chunk size whatever the number of customers.
+ * <p>
+ * A run replaces all assignments in one transaction, so readers see either the previous
+ * assignments or the new ones. Only one run happens at a time.
+ */
+@Component
+public class CustomerBranchAssigner implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerBranchAssigner.class);
+
+    // Customers one fork-join task searches without splitting further
+    private static final int SEARCH_SPLIT_THRESHOLD = 256;
+
+    private static final String SELECT_CUSTOMERS =
+            "SELECT id, ST_Y(location::geometry) AS lat, ST_X(location::geometry) AS lng " +
+            "FROM restaurant.customers WHERE location IS NOT NULL ORDER BY id";
+    private static final String DELETE_ASSIGNMENTS = "DELETE FROM restaurant.customer_branch_assignments";
+    private static final String INSERT_ASSIGNMENT =
+            "INSERT INTO restaurant.customer_branch_assignments (customer_id, rank, branch_id, distance_meters) VALUES (?, ?, ?, ?)";
+    private static final int[] ASSIGNMENT_TYPES = {Types.BIGINT, Types.INTEGER, Types.BIGINT, Types.DOUBLE};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BranchSpatialIndex branchSpatialIndex;
+    private final DatabaseConnectionService databaseConnectionService;
+    private final CustomerAssignmentProperties properties;
+    private final ForkJoinPool pool;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicReference<CustomerAssignmentReport> lastReport = new AtomicReference<>();
+
+    @Autowired
+    public CustomerBranchAssigner(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  BranchSpatialIndex branchSpatialIndex, DatabaseConnectionService databaseConnectionService,
+                                  CustomerAssignmentProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.branchSpatialIndex = branchSpatialIndex;
+        this.databaseConnectionService = databaseConnectionService;
+        this.properties = properties;
+        // Own pool, so a run does not occupy the common pool parallel streams rely on
+        this.pool = new ForkJoinPool(properties.getParallelism() > 0
+                ? properties.getParallelism()
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Replace every customer's assignments with its {@code k} nearest active branches.
+     *
+     * @throws ConcurrencyFailureException if a run is already in progress
+     */
+    public CustomerAssignmentReport assignAll(int k) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConcurrencyFailureException("Customer branch assignment is already running");
+        }
+        try {
+            long start = System.nanoTime();
+            BranchTree tree = branchSpatialIndex.requireTree();
+            Run run = transactionTemplate.execute(status -> {
+                Run result = new Run(tree, k);
+                jdbcTemplate.update(DELETE_ASSIGNMENTS);
+                result.readAll();
+                return result;
+            });
+            long elapsedNanos = System.nanoTime() - start;
+
+            CustomerAssignmentReport report = CustomerAssignmentReport.builder()
+                    .k(k)
+                    .branches(tree.activeSize())
+                    .customers(run.customers)
+                    .assignments(run.assignments)
+                    .unassigned(run.unassigned)
+                    .chunks(run.chunks)
+                    .elapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                    .searchMs(TimeUnit.NANOSECONDS.toMillis(run.searchNanos))
+                    .writeMs(TimeUnit.NANOSECONDS.toMillis(run.writeNanos))
+                    .customersPerSecond(elapsedNanos == 0 ? 0 : run.customers * 1_000_000_000L / elapsedNanos)
+                    .build();
+            lastReport.set(report);
+            log.info("Assigned {} customers to their {} nearest of {} active branches in {} ms ({} customers/s, search {} ms, write {} ms)",
+                    report.getCustomers(), k, report.getBranches(), report.getElapsedMs(), report.getCustomersPerSecond(),
+                    report.getSearchMs(), report.getWriteMs());
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Scheduled(cron = "${cheko.customer-assignment.cron:-}")
+    public void assignAllOnSchedule() {
+        if (!databaseConnectionService.isConnected() || running.get()) {
+            return;
+        }
+        try {
+            assignAll(1);
+        } catch (ConcurrencyFailureException e) {
+            log.debug("Skipped scheduled customer branch assignment; a run is in progress");
+        }
+    }
+
+    public int getMaxK() {
+        return properties.getMaxK();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "customerAssignment";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        CustomerAssignmentReport report = lastReport.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("running", running.get());
+        metrics.put("parallelism", pool.getParallelism());
+        metrics.put("lastCustomers", report == null ? 0 : report.getCustomers());
+        metrics.put("lastElapsedMs", report == null ? 0 : report.getElapsedMs());
+        metrics.put("lastCustomersPerSecond", report == null ? 0 : report.getCustomersPerSecond());
+        return metrics;
+    }
+
+    /**
+     * State of one run, confined to the reading thread; the search tasks only touch their own
+     * slice of the chunk arrays.
+     */
+    private final class Run {
+
+        private final BranchTree tree;
+        private final int k;
+        private final int chunkSize;
+        private final long[] customerIds;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        // k results per customer, rank by rank; a branch id of 0 marks a missing rank
+        private final long[] branchIds;
+        private final double[] distances;
+        private int filled;
+
+        private long customers;
+        private long assignments;
+        private long unassigned;
+        private long chunks;
+        private long searchNanos;
+        private long writeNanos;
+
+        private Run(BranchTree tree, int k) {
+            this.tree = tree;
+            this.k = k;
+            this.chunkSize = Math.max(1, properties.getChunkSize());
+            this.customerIds = new long[chunkSize];
+            this.latitudes = new double[chunkSize];
+            this.longitudes = new double[chunkSize];
+            this.branchIds = new long[chunkSize * k];
+            this.distances = new double[chunkSize * k];
+        }
+
+        private void readAll() {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_CUSTOMERS, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(chunkSize);
+                return statement;
+            }, (ResultSet resultSet) -> {
+                customerIds[filled] = resultSet.getLong(1);
+                latitudes[filled] = resultSet.getDouble(2);
+                longitudes[filled] = resultSet.getDouble(3);
+                if (++filled == chunkSize) {
+                    processChunk();
+                }
+            });
+            if (filled > 0) {
+                processChunk();
+            }
+        }
+
+        private void processChunk() {
+            long start = System.nanoTime();
+            pool.invoke(new Search(this, 0, filled));
+            long searched = System.nanoTime();
+            searchNanos += searched - start;
+
+            List<Object[]> batch = new ArrayList<>(properties.getBatchSize());
+            for (int i = 0; i < filled; i++) {
+                if (branchIds[i * k] == 0) {
+                    unassigned++;
+                }
+                for (int rank = 0; rank < k && branchIds[i * k + rank] != 0; rank++) {
+                    batch.add(new Object[]{customerIds[i], rank + 1, branchIds[i * k + rank], distances[i * k + rank]});
+                    if (batch.size() >= properties.getBatchSize()) {
+                        assignments += batch.size();
+                        jdbcTemplate.batchUpdate(INSERT_ASSIGNMENT, batch, ASSIGNMENT_TYPES);
+                        batch = new ArrayList<>(properties.getBatchSize());
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                assignments += batch.size();
+                jdbcTemplate.batchUpdate(INSERT_ASSIGNMENT, batch, ASSIGNMENT_TYPES);
+            }
+            writeNanos += System.nanoTime() - searched;
+
+            customers += filled;
+            chunks++;
+            filled = 0;
+        }
+
+        private void search(int from, int to) {
+            for (int i = from; i < to; i++) {
+                List<NearbyBranch> nearest = tree.nearest(latitudes[i], longitudes[i], k, true);
+                for (int rank = 0; rank < k; rank++) {
+                    boolean found = rank < nearest.size();
+                    branchIds[i * k + rank] = found ? nearest.get(rank).getBranch().getId() : 0;
+                    distances[i * k + rank] = found ? nearest.get(rank).getDistanceMeters() : 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches a range of the chunk, splitting it in halves down to a few hundred customers.
+     */
+    private static final class Search extends RecursiveAction {
+
+        private final Run run;
+        private final int from;
+        private final int to;
+
+        private Search(Run run, int from, int to) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEARCH_SPLIT_THRESHOLD) {
+                run.search(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Search(run, from, middle), new Search(run, middle, to));
+        }
+    }
+}
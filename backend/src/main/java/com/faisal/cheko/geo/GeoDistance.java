@@ -0,0 +1,29 @@
+package com.faisal.cheko.geo;
+
+/**
+ * Great-circle distances between WGS84 coordinates, in meters.
+ * <p>
+ * Distances are measured on a sphere of the mean Earth radius, the sphere PostGIS uses for
+ * {@code ST_Distance(geography, geography, false)}. They stay within 0.5% of the spheroid
+ * distance PostGIS returns by default.
+ */
+public final class GeoDistance {
+
+    // IUGG mean radius R1 of the WGS84 ellipsoid
+    public static final double EARTH_RADIUS_METERS = 6_371_008.7714;
+
+    private GeoDistance() {
+    }
+
+    /**
+     * Haversine distance, accurate for antipodal points as well as very close ones.
+     */
+    public static double haversine(double lat1, double lng1, double lat2, double lng2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinHalfDeltaPhi = Math.sin((phi2 - phi1) / 2);
+        double sinHalfDeltaLambda = Math.sin(Math.toRadians(lng2 - lng1) / 2);
+        double a = sinHalfDeltaPhi * sinHalfDeltaPhi + Math.cos(phi1) * Math.cos(phi2) * sinHalfDeltaLambda * sinHalfDeltaLambda;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,40 @@
+package com.faisal.cheko.geo;
+
+/**
+ * Coordinates of a set of points stored as structure-of-arrays, in radians, with the cosine
+ * of each latitude computed once, laid out for {@link HaversineKernel}s to read a block of
+ * points at a time.
+ */
+public final class GeoPoints {
+
+    final double[] latitudes;
+    final double[] longitudes;
+    final double[] cosLatitudes;
+
+    private GeoPoints(int size) {
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.cosLatitudes = new double[size];
+    }
+
+    /**
+     * @param latitudes  latitudes in degrees
+     * @param longitudes longitudes in degrees, one per latitude
+     */
+    public static GeoPoints ofDegrees(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Expected as many longitudes as latitudes");
+        }
+        GeoPoints points = new GeoPoints(latitudes.length);
+        for (int i = 0; i < latitudes.length; i++) {
+            points.latitudes[i] = Math.toRadians(latitudes[i]);
+            points.longitudes[i] = Math.toRadians(longitudes[i]);
+            points.cosLatitudes[i] = Math.cos(points.latitudes[i]);
+        }
+        return points;
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+}
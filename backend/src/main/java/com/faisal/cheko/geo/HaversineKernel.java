@@ -0,0 +1,67 @@
+package com.faisal.cheko.geo;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Haversine distances from one point to a block of {@link GeoPoints} at once, in meters, on
+ * the sphere of {@link GeoDistance}.
+ * <p>
+ * {@link #preferred()} is the SIMD kernel built on the JDK Vector API when the
+ * {@code jdk.incubator.vector} module is present (the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}), and the scalar kernel otherwise. Both compute
+ * the same formula; results agree to within a few ulps.
+ */
+public interface HaversineKernel {
+
+    /**
+     * Distance from the point to each of the first {@code count} points of {@code points},
+     * written to {@code distances[0..count)}.
+     *
+     * @param lat latitude of the point, in degrees
+     * @param lng longitude of the point, in degrees
+     */
+    void distances(double lat, double lng, GeoPoints points, int count, double[] distances);
+
+    /**
+     * Distance from the point to {@code points[indexes[i]]} for each {@code i} below
+     * {@code count}, written to {@code distances[i]}.
+     */
+    void distances(double lat, double lng, GeoPoints points, int[] indexes, int count, double[] distances);
+
+    String getName();
+
+    static HaversineKernel scalar() {
+        return ScalarHaversineKernel.INSTANCE;
+    }
+
+    static HaversineKernel preferred() {
+        return Preferred.KERNEL;
+    }
+
+    /**
+     * Picks the kernel once. The vector kernel is loaded by name, so this interface links
+     * without the incubator module.
+     */
+    final class Preferred {
+
+        private static final HaversineKernel KERNEL = select();
+
+        private Preferred() {
+        }
+
+        private static HaversineKernel select() {
+            if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                try {
+                    return (HaversineKernel) Class.forName("com.faisal.cheko.geo.VectorHaversineKernel")
+                            .getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    LoggerFactory.getLogger(HaversineKernel.class).warn("Vector haversine kernel unavailable, using the scalar one", e);
+                }
+            } else {
+                LoggerFactory.getLogger(HaversineKernel.class)
+                        .info("Module jdk.incubator.vector not present, using the scalar haversine kernel");
+            }
+            return ScalarHaversineKernel.INSTANCE;
+        }
+    }
+}
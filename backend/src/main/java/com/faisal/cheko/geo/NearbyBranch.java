@@ -0,0 +1,25 @@
+package com.faisal.cheko.geo;
+
+import com.faisal.cheko.model.Branch;
+
+/**
+ * A branch found by a location search, with its distance from the searched point.
+ */
+public final class NearbyBranch {
+
+    private final Branch branch;
+    private final double distanceMeters;
+
+    public NearbyBranch(Branch branch, double distanceMeters) {
+        this.branch = branch;
+        this.distanceMeters = distanceMeters;
+    }
+
+    public Branch getBranch() {
+        return branch;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+}
@@ -0,0 +1,53 @@
+package com.faisal.cheko.geo;
+
+/**
+ * One point at a time with {@link Math} trigonometry; the fallback when the Vector API is not
+ * available, and the tail of every vector loop.
+ */
+final class ScalarHaversineKernel implements HaversineKernel {
+
+    static final ScalarHaversineKernel INSTANCE = new ScalarHaversineKernel();
+
+    private static final double DIAMETER = 2 * GeoDistance.EARTH_RADIUS_METERS;
+
+    private ScalarHaversineKernel() {
+    }
+
+    @Override
+    public void distances(double lat, double lng, GeoPoints points, int count, double[] distances) {
+        double phi = Math.toRadians(lat);
+        distances(phi, Math.toRadians(lng), Math.cos(phi), points, 0, count, distances);
+    }
+
+    @Override
+    public void distances(double lat, double lng, GeoPoints points, int[] indexes, int count, double[] distances) {
+        double phi = Math.toRadians(lat);
+        distances(phi, Math.toRadians(lng), Math.cos(phi), points, indexes, 0, count, distances);
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    static void distances(double phi, double lambda, double cosPhi, GeoPoints points, int from, int to, double[] distances) {
+        for (int i = from; i < to; i++) {
+            distances[i] = distance(phi, lambda, cosPhi, points.latitudes[i], points.longitudes[i], points.cosLatitudes[i]);
+        }
+    }
+
+    static void distances(double phi, double lambda, double cosPhi, GeoPoints points, int[] indexes, int from, int to,
+                          double[] distances) {
+        for (int i = from; i < to; i++) {
+            int index = indexes[i];
+            distances[i] = distance(phi, lambda, cosPhi, points.latitudes[index], points.longitudes[index], points.cosLatitudes[index]);
+        }
+    }
+
+    private static double distance(double phi1, double lambda1, double cosPhi1, double phi2, double lambda2, double cosPhi2) {
+        double sinHalfDeltaPhi = Math.sin((phi2 - phi1) * 0.5);
+        double sinHalfDeltaLambda = Math.sin((lambda2 - lambda1) * 0.5);
+        double a = sinHalfDeltaPhi * sinHalfDeltaPhi + cosPhi1 * cosPhi2 * sinHalfDeltaLambda * sinHalfDeltaLambda;
+        return DIAMETER * Math.asin(Math.sqrt(Math.min(a, 1)));
+    }
+}
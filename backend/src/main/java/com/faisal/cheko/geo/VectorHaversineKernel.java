@@ -0,0 +1,62 @@
+package com.faisal.cheko.geo;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD haversine on the JDK Vector API: as many points per step as the widest vector the CPU
+ * supports holds doubles (4 with AVX2, 8 with AVX-512). The remainder of a block goes through
+ * the scalar kernel. Only loaded when the {@code jdk.incubator.vector} module is present.
+ */
+final class VectorHaversineKernel implements HaversineKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double DIAMETER = 2 * GeoDistance.EARTH_RADIUS_METERS;
+
+    @Override
+    public void distances(double lat, double lng, GeoPoints points, int count, double[] distances) {
+        double phi = Math.toRadians(lat);
+        double lambda = Math.toRadians(lng);
+        double cosPhi = Math.cos(phi);
+        int bound = SPECIES.loopBound(count);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            distance(phi, lambda, cosPhi,
+                    DoubleVector.fromArray(SPECIES, points.latitudes, i),
+                    DoubleVector.fromArray(SPECIES, points.longitudes, i),
+                    DoubleVector.fromArray(SPECIES, points.cosLatitudes, i))
+                    .intoArray(distances, i);
+        }
+        ScalarHaversineKernel.distances(phi, lambda, cosPhi, points, bound, count, distances);
+    }
+
+    @Override
+    public void distances(double lat, double lng, GeoPoints points, int[] indexes, int count, double[] distances) {
+        double phi = Math.toRadians(lat);
+        double lambda = Math.toRadians(lng);
+        double cosPhi = Math.cos(phi);
+        int bound = SPECIES.loopBound(count);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            distance(phi, lambda, cosPhi,
+                    DoubleVector.fromArray(SPECIES, points.latitudes, 0, indexes, i),
+                    DoubleVector.fromArray(SPECIES, points.longitudes, 0, indexes, i),
+                    DoubleVector.fromArray(SPECIES, points.cosLatitudes, 0, indexes, i))
+                    .intoArray(distances, i);
+        }
+        ScalarHaversineKernel.distances(phi, lambda, cosPhi, points, indexes, bound, count, distances);
+    }
+
+    @Override
+    public String getName() {
+        return "vector-" + SPECIES.length() + "x64";
+    }
+
+    private static DoubleVector distance(double phi, double lambda, double cosPhi,
+                                         DoubleVector phi2, DoubleVector lambda2, DoubleVector cosPhi2) {
+        DoubleVector sinHalfDeltaPhi = phi2.sub(phi).mul(0.5).lanewise(VectorOperators.SIN);
+        DoubleVector sinHalfDeltaLambda = lambda2.sub(lambda).mul(0.5).lanewise(VectorOperators.SIN);
+        DoubleVector a = sinHalfDeltaPhi.mul(sinHalfDeltaPhi)
+                .add(cosPhi2.mul(cosPhi).mul(sinHalfDeltaLambda.mul(sinHalfDeltaLambda)));
+        return a.min(1.0).lanewise(VectorOperators.SQRT).lanewise(VectorOperators.ASIN).mul(DIAMETER);
+    }
+}
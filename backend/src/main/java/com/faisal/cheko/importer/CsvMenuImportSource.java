@@ -0,0 +1,55 @@
+package com.faisal.cheko.importer;
+
+import com.faisal.cheko.util.CsvReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV records; the first row names the columns.
+ */
+final class CsvMenuImportSource implements MenuImportSource {
+
+    private final CsvReader reader;
+    private List<String> columns;
+
+    CsvMenuImportSource(Reader reader, int maxRecordChars) {
+        this.reader = new CsvReader(reader, maxRecordChars);
+    }
+
+    @Override
+    public MenuImportRecord next() throws IOException {
+        if (columns == null) {
+            List<String> header = reader.next();
+            if (header == null) {
+                return null;
+            }
+            columns = new ArrayList<>(header.size());
+            for (String column : header) {
+                columns.add(MenuImportRecord.normalize(column));
+            }
+        }
+        List<String> fields = reader.next();
+        if (fields == null) {
+            return null;
+        }
+        if (fields.size() != columns.size()) {
+            return MenuImportRecord.malformed(reader.getRecordLine(),
+                    "Expected " + columns.size() + " fields as in the header, found " + fields.size());
+        }
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            values.put(columns.get(i), fields.get(i));
+        }
+        return MenuImportRecord.of(reader.getRecordLine(), values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
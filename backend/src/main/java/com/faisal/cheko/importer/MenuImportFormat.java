@@ -0,0 +1,45 @@
+package com.faisal.cheko.importer;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Input formats accepted by the menu import, chosen by the request's content type.
+ */
+public enum MenuImportFormat {
+
+    // Header row naming the columns, then one record per row
+    CSV("text/csv"),
+    // One JSON object per line, keyed by the same column names
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    MenuImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return the format for the content type, or null when none matches
+     */
+    public static MenuImportFormat fromContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        for (MenuImportFormat format : values()) {
+            if (MediaType.parseMediaType(format.mediaType).equalsTypeAndSubtype(type)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.faisal.cheko.importer;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One raw input record: its values by normalized column name, or the reason it could not be
+ * read at all.
+ */
+final class MenuImportRecord {
+
+    private final long line;
+    private final Map<String, String> values;
+    private final String error;
+
+    private MenuImportRecord(long line, Map<String, String> values, String error) {
+        this.line = line;
+        this.values = values;
+        this.error = error;
+    }
+
+    static MenuImportRecord of(long line, Map<String, String> values) {
+        return new MenuImportRecord(line, values, null);
+    }
+
+    static MenuImportRecord malformed(long line, String error) {
+        return new MenuImportRecord(line, null, error);
+    }
+
+    /**
+     * Column names compare without case, underscores, hyphens, spaces or a byte order mark, so
+     * {@code image_url} and {@code imageUrl} are the same column.
+     */
+    static String normalize(String column) {
+        StringBuilder normalized = new StringBuilder(column.length());
+        for (int i = 0; i < column.length(); i++) {
+            char c = column.charAt(i);
+            if (c != '_' && c != '-' && !Character.isWhitespace(c) && c != '\uFEFF') {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    long getLine() {
+        return line;
+    }
+
+    /**
+     * The trimmed value of a column, or null when it is absent or blank.
+     */
+    String get(String column) {
+        String value = values.get(column);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    Set<String> getColumns() {
+        return values.keySet();
+    }
+
+    String getError() {
+        return error;
+    }
+}
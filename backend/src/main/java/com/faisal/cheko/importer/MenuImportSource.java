@@ -0,0 +1,16 @@
+package com.faisal.cheko.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads import records one at a time from a stream.
+ */
+interface MenuImportSource extends Closeable {
+
+    /**
+     * @return the next record, or null at the end of the input
+     * @throws IOException when the input cannot be read any further
+     */
+    MenuImportRecord next() throws IOException;
+}
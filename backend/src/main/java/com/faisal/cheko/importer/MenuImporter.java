@@ -0,0 +1,334 @@
+package com.faisal.cheko.importer;
+
+import com.faisal.cheko.config.MenuImportProperties;
+import com.faisal.cheko.dto.MenuImportError;
+import com.faisal.cheko.dto.MenuImportReport;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.exception.ResourceNotFoundException;
+import com.faisal.cheko.repository.BranchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk import of menu sections and items for one branch from a CSV or NDJSON stream.
+ * <p>
+ * Every record names a section; a record with item columns also adds an item to it. Sections
+ * are matched to the branch's existing sections by name and created on first use. Records
+ * are validated as they are read and items are written in JDBC batches, so only one batch is
+ * held in memory whatever the input size. The whole import is one transaction: after the
+ * first invalid record nothing more is written, the remaining records are still validated so
+ * the report lists every error (up to a limit), and the transaction is rolled back.
+ * <p>
+ * Rows are inserted with plain JDBC, which raises no entity events; a successful import
+ * publishes a single {@link MenuChangedEvent} for the branch instead, so menu caches are
+ * invalidated once after the commit rather than once per row.
+ */
+@Component
+public class MenuImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(MenuImporter.class);
+
+    static final String SECTION = "section";
+    static final String SECTION_DESCRIPTION = "sectiondescription";
+    static final String NAME = "name";
+    static final String DESCRIPTION = "description";
+    static final String PRICE = "price";
+    static final String CALORIES = "calories";
+    static final String IMAGE_URL = "imageurl";
+    static final String IS_AVAILABLE = "isavailable";
+
+    // Ids written by the menu export; accepted and ignored, since imported rows get new ids
+    static final String ID = "id";
+    static final String SECTION_ID = "sectionid";
+
+    private static final Set<String> COLUMNS = new HashSet<>(Arrays.asList(
+            SECTION, SECTION_DESCRIPTION, NAME, DESCRIPTION, PRICE, CALORIES, IMAGE_URL, IS_AVAILABLE, ID, SECTION_ID));
+    private static final List<String> ITEM_COLUMNS = Arrays.asList(NAME, DESCRIPTION, PRICE, CALORIES, IMAGE_URL, IS_AVAILABLE);
+
+    // Limits of the menu_sections and menu_items columns
+    private static final int MAX_SECTION_NAME = 100;
+    private static final int MAX_ITEM_NAME = 255;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    private static final String SELECT_SECTIONS =
+            "SELECT id, name FROM restaurant.menu_sections WHERE branch_id = ? ORDER BY id";
+    private static final String INSERT_SECTION =
+            "INSERT INTO restaurant.menu_sections (branch_id, name, description) VALUES (?, ?, ?)";
+    private static final String INSERT_ITEM =
+            "INSERT INTO restaurant.menu_items (section_id, name, description, price, calories, image_url, is_available) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] ITEM_TYPES = {
+            Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.NUMERIC, Types.INTEGER, Types.VARCHAR, Types.BOOLEAN};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BranchRepository branchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final MenuImportProperties properties;
+
+    @Autowired
+    public MenuImporter(JdbcTemplate jdbcTemplate, BranchRepository branchRepository,
+                        PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                        ObjectMapper objectMapper, MenuImportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.branchRepository = branchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * Import the records in the stream, read as UTF-8, into the branch.
+     *
+     * @throws ResourceNotFoundException if the branch does not exist
+     */
+    public MenuImportReport importMenu(Long branchId, MenuImportFormat format, InputStream input) {
+        if (!branchRepository.existsById(branchId)) {
+            throw ResourceNotFoundException.create("Branch", "id", branchId);
+        }
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        MenuImportSource source = format == MenuImportFormat.CSV
+                ? new CsvMenuImportSource(reader, properties.getMaxRecordChars())
+                : new NdjsonMenuImportSource(reader, objectMapper, properties.getMaxRecordChars());
+
+        long start = System.nanoTime();
+        Run run = transactionTemplate.execute(status -> {
+            Run result = new Run(branchId);
+            result.readAll(source);
+            if (result.errorCount > 0) {
+                status.setRollbackOnly();
+            } else if (result.sectionsCreated > 0 || result.itemsCreated > 0) {
+                // Listeners run after the commit, once for the whole import
+                eventPublisher.publishEvent(MenuChangedEvent.branch(branchId));
+            }
+            return result;
+        });
+        long elapsedNanos = System.nanoTime() - start;
+
+        boolean committed = run.errorCount == 0;
+        log.info("Menu import into branch {} {} after {} ms: records={}, newSections={}, newItems={}, errors={}", branchId,
+                committed ? "committed" : "rolled back", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), run.records,
+                run.sectionsCreated, run.itemsCreated, run.errorCount);
+        return MenuImportReport.builder()
+                .branchId(branchId)
+                .format(format.name())
+                .committed(committed)
+                .records(run.records)
+                .sectionsCreated(committed ? run.sectionsCreated : 0)
+                .itemsCreated(committed ? run.itemsCreated : 0)
+                .elapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .recordsPerSecond(elapsedNanos == 0 ? 0 : run.records * 1_000_000_000L / elapsedNanos)
+                .errorCount(run.errorCount)
+                .errors(run.errors)
+                .build();
+    }
+
+    /**
+     * State of one import, confined to the importing thread.
+     */
+    private final class Run {
+
+        private final Long branchId;
+        // Section name to id, existing and created; holds one entry per section of the branch
+        private final Map<String, Long> sections = new HashMap<>();
+        private final Set<String> reportedColumns = new HashSet<>();
+        private final List<MenuImportError> errors = new ArrayList<>();
+        private List<Object[]> batch;
+        private long records;
+        private long sectionsCreated;
+        private long itemsCreated;
+        private long errorCount;
+
+        private Run(Long branchId) {
+            this.branchId = branchId;
+            this.batch = new ArrayList<>(properties.getBatchSize());
+            jdbcTemplate.query(SELECT_SECTIONS, rs -> {
+                sections.putIfAbsent(rs.getString("name"), rs.getLong("id"));
+            }, branchId);
+        }
+
+        private void readAll(MenuImportSource source) {
+            long line = 0;
+            try (source) {
+                MenuImportRecord record;
+                while (errors.size() < properties.getMaxErrors() && (record = source.next()) != null) {
+                    line = record.getLine();
+                    if (++records > properties.getMaxRecords()) {
+                        error(line, null, "More than " + properties.getMaxRecords() + " records");
+                        records--;
+                        return;
+                    }
+                    accept(record);
+                }
+                if (records == 0 && errorCount == 0) {
+                    error(line, null, "No records");
+                }
+                if (errorCount == 0) {
+                    flush();
+                }
+            } catch (IOException e) {
+                error(line + 1, null, "Could not read the input: " + e.getMessage());
+            }
+        }
+
+        private void accept(MenuImportRecord record) {
+            long line = record.getLine();
+            if (record.getError() != null) {
+                error(line, null, record.getError());
+                return;
+            }
+            for (String column : record.getColumns()) {
+                if (!COLUMNS.contains(column) && reportedColumns.add(column)) {
+                    error(line, column, "Unknown column");
+                }
+            }
+
+            String sectionName = record.get(SECTION);
+            if (sectionName == null) {
+                error(line, SECTION, "Section is required");
+            } else if (sectionName.length() > MAX_SECTION_NAME) {
+                error(line, SECTION, "Section name is longer than " + MAX_SECTION_NAME + " characters");
+            }
+
+            boolean item = ITEM_COLUMNS.stream().anyMatch(column -> record.get(column) != null);
+            String name = record.get(NAME);
+            BigDecimal price = null;
+            Integer calories = null;
+            Boolean available = Boolean.TRUE;
+            if (item) {
+                if (name == null) {
+                    error(line, NAME, "Name is required for an item");
+                } else if (name.length() > MAX_ITEM_NAME) {
+                    error(line, NAME, "Name is longer than " + MAX_ITEM_NAME + " characters");
+                }
+                price = price(line, record.get(PRICE));
+                calories = calories(line, record.get(CALORIES));
+                available = available(line, record.get(IS_AVAILABLE));
+            }
+            if (errorCount > 0) {
+                // Nothing is written once the import is known to fail
+                return;
+            }
+
+            Long sectionId = sections.get(sectionName);
+            if (sectionId == null) {
+                sectionId = insertSection(sectionName, record.get(SECTION_DESCRIPTION));
+                sections.put(sectionName, sectionId);
+                sectionsCreated++;
+            }
+            if (item) {
+                batch.add(new Object[] {sectionId, name, record.get(DESCRIPTION), price, calories,
+                        record.get(IMAGE_URL), available});
+                if (batch.size() >= properties.getBatchSize()) {
+                    flush();
+                }
+            }
+        }
+
+        private BigDecimal price(long line, String value) {
+            if (value == null) {
+                error(line, PRICE, "Price is required for an item");
+                return null;
+            }
+            BigDecimal price;
+            try {
+                price = new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                error(line, PRICE, "Price '" + value + "' is not a number");
+                return null;
+            }
+            if (price.signum() < 0 || price.compareTo(MAX_PRICE) > 0) {
+                error(line, PRICE, "Price must be between 0 and " + MAX_PRICE.toPlainString());
+            } else if (price.stripTrailingZeros().scale() > 2) {
+                error(line, PRICE, "Price has more than two decimals");
+            }
+            return price;
+        }
+
+        private Integer calories(long line, String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                int calories = Integer.parseInt(value);
+                if (calories < 0) {
+                    error(line, CALORIES, "Calories must not be negative");
+                }
+                return calories;
+            } catch (NumberFormatException e) {
+                error(line, CALORIES, "Calories '" + value + "' is not a whole number");
+                return null;
+            }
+        }
+
+        private Boolean available(long line, String value) {
+            if (value == null) {
+                return Boolean.TRUE;
+            }
+            if ("true".equalsIgnoreCase(value)) {
+                return Boolean.TRUE;
+            }
+            if ("false".equalsIgnoreCase(value)) {
+                return Boolean.FALSE;
+            }
+            error(line, IS_AVAILABLE, "Availability must be true or false, not '" + value + "'");
+            return null;
+        }
+
+        private Long insertSection(String name, String description) {
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_SECTION, new String[] {"id"});
+                statement.setLong(1, branchId);
+                statement.setString(2, name);
+                statement.setString(3, description);
+                return statement;
+            }, keys);
+            return keys.getKey().longValue();
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT_ITEM, batch, ITEM_TYPES);
+            itemsCreated += batch.size();
+            batch = new ArrayList<>(properties.getBatchSize());
+        }
+
+        private void error(long line, String field, String message) {
+            errorCount++;
+            if (errors.size() < properties.getMaxErrors()) {
+                errors.add(new MenuImportError(line, field, message));
+            }
+        }
+    }
+}
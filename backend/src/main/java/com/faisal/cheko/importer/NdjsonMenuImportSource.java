@@ -0,0 +1,89 @@
+package com.faisal.cheko.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Newline-delimited JSON records, one object per line. A line that is not a JSON object is
+ * reported and the following lines are still read.
+ */
+final class NdjsonMenuImportSource implements MenuImportSource {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final int maxRecordChars;
+    private long line;
+
+    NdjsonMenuImportSource(Reader reader, ObjectMapper objectMapper, int maxRecordChars) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.objectMapper = objectMapper;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    @Override
+    public MenuImportRecord next() throws IOException {
+        String text;
+        do {
+            text = readLine();
+            line++;
+            if (text == null) {
+                return null;
+            }
+        } while (text.isBlank());
+
+        if (text.length() > maxRecordChars) {
+            return MenuImportRecord.malformed(line, "Record is longer than " + maxRecordChars + " characters");
+        }
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            return MenuImportRecord.malformed(line, "Not valid JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            return MenuImportRecord.malformed(line, "Expected a JSON object");
+        }
+        Map<String, String> values = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            if (value.isContainerNode()) {
+                return MenuImportRecord.malformed(line, "Field '" + field.getKey() + "' must be a plain value");
+            }
+            values.put(MenuImportRecord.normalize(field.getKey()), value.isNull() ? null : value.asText());
+        }
+        return MenuImportRecord.of(line, values);
+    }
+
+    /**
+     * Like {@link BufferedReader#readLine()}, but keeps at most one character past the limit
+     * of an overlong line and skips the rest of it.
+     */
+    private String readLine() throws IOException {
+        StringBuilder text = new StringBuilder();
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            if (c != '\r' && text.length() <= maxRecordChars) {
+                text.append((char) c);
+            }
+            c = reader.read();
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,32 @@
+package com.faisal.cheko.interceptor;
+
+import com.faisal.cheko.config.ExportProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Gives streamed exports their own async timeout. Every other endpoint keeps the default, so
+ * a stuck async request elsewhere is still cut off quickly.
+ */
+@Component
+public class ExportTimeoutInterceptor implements AsyncHandlerInterceptor {
+
+    private final long timeoutMillis;
+
+    @Autowired
+    public ExportTimeoutInterceptor(ExportProperties properties) {
+        this.timeoutMillis = properties.getTimeout().toMillis();
+    }
+
+    /**
+     * Runs in the dispatch that started async processing, the last point at which the servlet
+     * container accepts a new timeout.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.getAsyncContext().setTimeout(timeoutMillis);
+    }
+}
@@ -1,9 +1,12 @@
 package com.faisal.cheko.interceptor;
 
+import com.faisal.cheko.context.RequestContext;
+import com.faisal.cheko.context.RequestContextResolver;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
@@ -11,16 +14,22 @@ import org.springframework.web.servlet.ModelAndView;
 /**
  * Interceptor to handle requests before and after they're processed by controllers.
  * Provides more granular control over the request handling process than filters.
+ * Timing and identity come from the shared {@link RequestContext}.
  */
 @Component
 public class RequestInterceptor implements HandlerInterceptor {
 
     private static final Logger log = LoggerFactory.getLogger(RequestInterceptor.class);
-    private static final String START_TIME_ATTRIBUTE = "startTime";
+
+    private final RequestContextResolver requestContextResolver;
+
+    @Autowired
+    public RequestInterceptor(RequestContextResolver requestContextResolver) {
+        this.requestContextResolver = requestContextResolver;
+    }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-        request.setAttribute(START_TIME_ATTRIBUTE, System.currentTimeMillis());
         log.debug("Handler: {}", handler.getClass().getSimpleName());
         response.setHeader("X-Content-Type-Options", "nosniff");
         response.setHeader("X-Frame-Options", "DENY");
@@ -47,16 +56,15 @@ public class RequestInterceptor implements HandlerInterceptor {
 
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
-        Long startTime = (Long) request.getAttribute(START_TIME_ATTRIBUTE);
-        if (startTime != null) {
-            long processingTime = System.currentTimeMillis() - startTime;
-            log.debug("Request processing time: {}ms", processingTime);
-            
-            response.setHeader("X-Processing-Time-Ms", String.valueOf(processingTime));
-        }
+        RequestContext context = requestContextResolver.resolve(request);
+        long processingTime = context.getElapsedMillis();
+        log.debug("Request processing time: {}ms", processingTime);
+        
+        response.setHeader("X-Processing-Time-Ms", String.valueOf(processingTime));
         
         if (ex != null) {
-            log.error("Exception occurred during request processing: {}", ex.getMessage(), ex);
+            log.error("Exception occurred during request {} from {}: {}",
+                    context.getRequestId(), context.getClientIp(), ex.getMessage(), ex);
         }
     }
 }
\ No newline at end of file
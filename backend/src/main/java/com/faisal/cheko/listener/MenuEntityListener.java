@@ -0,0 +1,58 @@
+package com.faisal.cheko.listener;
+
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.model.Branch;
+import com.faisal.cheko.model.MenuItem;
+import com.faisal.cheko.model.MenuSection;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that turns writes to menu items, sections and branches into
+ * {@link MenuChangedEvent}s. Branches count because menu responses carry the branch name.
+ * Only identifiers are read, so lazy associations are never initialized during a flush.
+ */
+@Component
+public class MenuEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public MenuEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        publish(entity, MenuChangedEvent.Type.ITEM_CREATED, MenuChangedEvent.Type.SECTION_CREATED, MenuChangedEvent.Type.BRANCH_CREATED);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        publish(entity, MenuChangedEvent.Type.ITEM_UPDATED, MenuChangedEvent.Type.SECTION_UPDATED, MenuChangedEvent.Type.BRANCH_UPDATED);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, MenuChangedEvent.Type.ITEM_DELETED, MenuChangedEvent.Type.SECTION_DELETED, MenuChangedEvent.Type.BRANCH_DELETED);
+    }
+
+    private void publish(Object entity, MenuChangedEvent.Type itemType, MenuChangedEvent.Type sectionType,
+                         MenuChangedEvent.Type branchType) {
+        if (entity instanceof MenuItem) {
+            MenuItem item = (MenuItem) entity;
+            Long sectionId = item.getSection() != null ? item.getSection().getId() : null;
+            eventPublisher.publishEvent(new MenuChangedEvent(null, sectionId, item.getId(), itemType, item.getIsAvailable()));
+        } else if (entity instanceof MenuSection) {
+            MenuSection section = (MenuSection) entity;
+            Long branchId = section.getBranch() != null ? section.getBranch().getId() : null;
+            eventPublisher.publishEvent(new MenuChangedEvent(branchId, section.getId(), null, sectionType));
+        } else if (entity instanceof Branch) {
+            eventPublisher.publishEvent(new MenuChangedEvent(((Branch) entity).getId(), null, null, branchType));
+        }
+    }
+}
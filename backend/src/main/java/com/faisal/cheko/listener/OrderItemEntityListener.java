@@ -0,0 +1,29 @@
+package com.faisal.cheko.listener;
+
+import com.faisal.cheko.event.OrderItemPlacedEvent;
+import com.faisal.cheko.model.OrderItem;
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that turns persisted order lines into {@link OrderItemPlacedEvent}s.
+ * Only identifiers are read, so the lazy menu item is never initialized during a flush.
+ */
+@Component
+public class OrderItemEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public OrderItemEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onPersist(OrderItem orderItem) {
+        Long menuItemId = orderItem.getMenuItem() != null ? orderItem.getMenuItem().getId() : null;
+        eventPublisher.publishEvent(new OrderItemPlacedEvent(orderItem.getId(), menuItemId));
+    }
+}
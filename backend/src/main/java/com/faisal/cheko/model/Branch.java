@@ -1,10 +1,14 @@
 package com.faisal.cheko.model;
 
+import com.faisal.cheko.listener.MenuEntityListener;
+import com.faisal.cheko.schedule.OpeningSchedule;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import org.locationtech.jts.geom.Point;
@@ -13,6 +17,7 @@ import java.time.ZonedDateTime;
 import java.util.Map;
 
 @Entity
+@EntityListeners(MenuEntityListener.class)
 @Table(name = "branches", schema = "restaurant")
 @Data
 @Builder
@@ -49,6 +54,12 @@ public class Branch {
     @JdbcTypeCode(SqlTypes.JSON)
     private Map<String, Object> openingHours;
 
+    // Compiled from openingHours when first asked for or when the row is written, not on every load
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private OpeningSchedule openingSchedule;
+
     @Column(name = "is_main_branch")
     private Boolean isMainBranch;
 
@@ -61,8 +72,21 @@ public class Branch {
     @Column(name = "updated_at", columnDefinition = "TIMESTAMPTZ DEFAULT NOW()")
     private ZonedDateTime updatedAt;
 
+    public OpeningSchedule getOpeningSchedule() {
+        if (openingSchedule == null) {
+            openingSchedule = OpeningSchedule.compileLeniently(openingHours);
+        }
+        return openingSchedule;
+    }
+
+    public void setOpeningHours(Map<String, Object> openingHours) {
+        this.openingHours = openingHours;
+        this.openingSchedule = null;
+    }
+
     @PrePersist
     protected void onCreate() {
+        openingSchedule = OpeningSchedule.compileLeniently(openingHours);
         createdAt = ZonedDateTime.now();
         updatedAt = ZonedDateTime.now();
         
@@ -77,6 +101,7 @@ public class Branch {
 
     @PreUpdate
     protected void onUpdate() {
+        openingSchedule = OpeningSchedule.compileLeniently(openingHours);
         updatedAt = ZonedDateTime.now();
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.faisal.cheko.model;
 
+import com.faisal.cheko.listener.MenuEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,6 +9,7 @@ import lombok.NoArgsConstructor;
 
 
 @Entity
+@EntityListeners(MenuEntityListener.class)
 @Table(name = "menu_sections", schema = "restaurant")
 @Data
 @Builder
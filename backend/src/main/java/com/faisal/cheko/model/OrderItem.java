@@ -1,5 +1,6 @@
 package com.faisal.cheko.model;
 
+import com.faisal.cheko.listener.OrderItemEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
@@ -11,6 +12,7 @@ import java.math.BigDecimal;
 
 
 @Entity
+@EntityListeners(OrderItemEntityListener.class)
 @Table(name = "order_items", schema = "restaurant")
 @Data
 @Builder
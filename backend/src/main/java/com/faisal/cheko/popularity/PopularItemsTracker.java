@@ -0,0 +1,469 @@
+package com.faisal.cheko.popularity;
+
+import com.faisal.cheko.config.PopularItemsProperties;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.event.OrderItemPlacedEvent;
+import com.faisal.cheko.repository.MenuItemRepository;
+import com.faisal.cheko.repository.OrderItemRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import com.faisal.cheko.service.MetricsContributor;
+import com.faisal.cheko.util.SpaceSaving;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Most ordered menu items, counted in memory as order lines are placed, so popular-item reads
+ * never group the order history.
+ * <p>
+ * Every {@link PopularityWindow} keeps a {@link SpaceSaving} summary overall plus one per
+ * branch and one per section, each tracking at most the configured capacity of items. A
+ * summary reports counts that never undercount and overcount by at most their error, and any
+ * item ordered more than {@code total / capacity} times in its scope is guaranteed to appear.
+ * Windows are tumbling: when the hour or day turns, that window starts again from empty.
+ * <p>
+ * Order lines arrive through {@link OrderItemPlacedEvent}s once their transaction commits; one
+ * line counts once, as in the SQL reports. Counting needs the item's section and branch; those
+ * are remembered per item, and lines of an item not seen yet wait until a scheduled task looks
+ * their placements up in one query, so committing transactions never query. A menu change
+ * forgets the placements it may have moved.
+ * <p>
+ * On startup, once the database is reachable, the windows are rebuilt from history: the exact
+ * counts are grouped once per window and the top items of every scope seeded into the
+ * summaries. Lines placed while the rebuild runs are held back and, still inside the rebuild's
+ * transaction, looked up in its snapshot; only those the history did not see are replayed.
+ * Ids are handed out at insert rather than commit, so no id bound could tell them apart. Until
+ * the first rebuild completes, {@link #top} answers null and callers query the database.
+ */
+@Component
+public class PopularItemsTracker implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(PopularItemsTracker.class);
+
+    private final OrderItemRepository orderItemRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final DatabaseConnectionService databaseConnectionService;
+    private final TransactionTemplate readTransaction;
+    private final PopularItemsProperties properties;
+    private final LongSupplier clock;
+
+    private final Map<PopularityWindow, AtomicReference<Counts>> windows = new EnumMap<>(PopularityWindow.class);
+    // Menu item -> {section id, branch id}
+    private final ConcurrentHashMap<Long, long[]> placements = new ConcurrentHashMap<>();
+    // Lines of items without a known placement, as {menu item id, placed at millis}
+    private final ConcurrentLinkedQueue<long[]> unplaced = new ConcurrentLinkedQueue<>();
+
+    private final Object lock = new Object();
+    // Guarded by lock: events held back while a rebuild reads the history
+    private List<OrderItemPlacedEvent> heldBack;
+    // Guarded by lock; bumped by every menu change, so placements read before one are not kept
+    private long menuChanges;
+    private volatile boolean rebuilt;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder placementLookups = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile long lastRebuildNanos;
+
+    @Autowired
+    public PopularItemsTracker(OrderItemRepository orderItemRepository, MenuItemRepository menuItemRepository,
+                               DatabaseConnectionService databaseConnectionService,
+                               PlatformTransactionManager transactionManager, PopularItemsProperties properties) {
+        this(orderItemRepository, menuItemRepository, databaseConnectionService, transactionManager, properties,
+                System::currentTimeMillis);
+    }
+
+    PopularItemsTracker(OrderItemRepository orderItemRepository, MenuItemRepository menuItemRepository,
+                        DatabaseConnectionService databaseConnectionService,
+                        PlatformTransactionManager transactionManager, PopularItemsProperties properties,
+                        LongSupplier clock) {
+        this.orderItemRepository = orderItemRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.databaseConnectionService = databaseConnectionService;
+        this.properties = properties;
+        this.clock = clock;
+
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        long now = clock.getAsLong();
+        for (PopularityWindow window : PopularityWindow.values()) {
+            windows.put(window, new AtomicReference<>(new Counts(window.indexOf(now), properties.getCapacity())));
+        }
+    }
+
+    /**
+     * Most ordered items of a scope in a window, highest count first, or null until the
+     * counts have been rebuilt from history.
+     *
+     * @param branchId  only items of this branch, or null
+     * @param sectionId only items of this section, or null; takes precedence over the branch
+     */
+    public List<SpaceSaving.Entry<Long>> top(PopularityWindow window, Long branchId, Long sectionId, int limit) {
+        if (!rebuilt || !properties.isEnabled()) {
+            rebuildRequested.set(true);
+            return null;
+        }
+        Counts counts = current(window);
+        SpaceSaving<Long> summary = sectionId != null ? counts.bySection.get(sectionId)
+                : branchId != null ? counts.byBranch.get(branchId)
+                : counts.overall;
+        return summary == null ? new ArrayList<>() : summary.top(limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildRequested.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${cheko.popular-items.rebuild-retry-interval:PT5S}")
+    public void rebuildIfRequested() {
+        if (properties.isEnabled() && databaseConnectionService.isConnected() && rebuildRequested.compareAndSet(true, false)) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderItemPlaced(OrderItemPlacedEvent event) {
+        if (!properties.isEnabled() || event.getMenuItemId() == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (heldBack != null) {
+                heldBack.add(event);
+                return;
+            }
+        }
+        record(event.getMenuItemId(), clock.getAsLong());
+    }
+
+    /**
+     * Count the lines whose items had no known placement, looking the placements up in one
+     * query.
+     */
+    @Scheduled(fixedDelayString = "${cheko.popular-items.placement-lookup-interval:PT1S}")
+    public void placeWaitingLines() {
+        if (unplaced.isEmpty()) {
+            return;
+        }
+        List<long[]> lines = new ArrayList<>();
+        for (long[] line = unplaced.poll(); line != null; line = unplaced.poll()) {
+            lines.add(line);
+        }
+        Set<Long> itemIds = new LinkedHashSet<>();
+        for (long[] line : lines) {
+            if (!placements.containsKey(line[0])) {
+                itemIds.add(line[0]);
+            }
+        }
+
+        Map<Long, long[]> found = new HashMap<>();
+        if (!itemIds.isEmpty()) {
+            long changesBefore = menuChangesSoFar();
+            try {
+                for (Object[] row : menuItemRepository.findPlacementsByIds(itemIds)) {
+                    found.put((Long) row[0], new long[]{(Long) row[1], (Long) row[2]});
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not look up placements of ordered items, will retry: {}", e.getMessage());
+                unplaced.addAll(lines);
+                return;
+            }
+            placementLookups.increment();
+            remember(found, changesBefore);
+        }
+
+        for (long[] line : lines) {
+            long[] placement = found.containsKey(line[0]) ? found.get(line[0]) : placements.get(line[0]);
+            // Items deleted meanwhile are no longer reported
+            if (placement != null) {
+                offer(line[0], placement, line[1]);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        Long itemId = event.getItemId();
+        Long sectionId = event.getSectionId();
+        Long branchId = event.getBranchId();
+        synchronized (lock) {
+            menuChanges++;
+        }
+        switch (event.getType()) {
+            case ITEM_CREATED:
+            case SECTION_CREATED:
+            case BRANCH_CREATED:
+            case BRANCH_UPDATED:
+                // Nothing already placed moves
+                return;
+            case ITEM_UPDATED:
+            case ITEM_DELETED:
+                if (itemId != null) {
+                    placements.remove(itemId);
+                    return;
+                }
+                forget(sectionId, branchId);
+                return;
+            default:
+                forget(sectionId, branchId);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "popularItems";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        metrics.put("rebuilt", rebuilt);
+        metrics.put("capacity", properties.getCapacity());
+        for (PopularityWindow window : PopularityWindow.values()) {
+            Counts counts = current(window);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("orderLines", counts.overall.getTotal());
+            summary.put("trackedItems", counts.overall.size());
+            summary.put("branches", counts.byBranch.size());
+            summary.put("sections", counts.bySection.size());
+            metrics.put(window.name().toLowerCase(Locale.ROOT), summary);
+        }
+        metrics.put("recorded", recorded.sum());
+        metrics.put("replayed", replayed.sum());
+        metrics.put("knownPlacements", placements.size());
+        metrics.put("unplacedLines", unplaced.size());
+        metrics.put("placementLookups", placementLookups.sum());
+        metrics.put("rebuilds", rebuilds.sum());
+        metrics.put("lastRebuildMs", TimeUnit.NANOSECONDS.toMillis(lastRebuildNanos));
+        return metrics;
+    }
+
+    void rebuild() {
+        synchronized (lock) {
+            heldBack = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            long now = clock.getAsLong();
+            long changesBefore = menuChangesSoFar();
+            readTransaction.executeWithoutResult(status -> {
+                Map<PopularityWindow, Counts> loaded = new EnumMap<>(PopularityWindow.class);
+                Map<Long, long[]> seen = new HashMap<>();
+                for (PopularityWindow window : PopularityWindow.values()) {
+                    long index = window.indexOf(now);
+                    List<Object[]> counts = window == PopularityWindow.ALL
+                            ? orderItemRepository.countOrdersPerItem()
+                            : orderItemRepository.countOrdersPerItemSince(
+                                    ZonedDateTime.ofInstant(Instant.ofEpochMilli(window.startOf(index)), ZoneOffset.UTC));
+                    loaded.put(window, seeded(index, counts, seen));
+                }
+                remember(seen, changesBefore);
+                for (PopularityWindow window : PopularityWindow.values()) {
+                    windows.get(window).set(loaded.get(window));
+                }
+                replayUnseen();
+            });
+            rebuilt = true;
+            rebuilds.increment();
+            lastRebuildNanos = System.nanoTime() - start;
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild popular items from order history, will retry: {}", e.getMessage());
+            rebuildRequested.set(true);
+        } finally {
+            List<OrderItemPlacedEvent> events;
+            synchronized (lock) {
+                events = heldBack;
+                heldBack = null;
+            }
+            // Left over only when the rebuild failed; the old counts never saw them
+            if (events != null) {
+                for (OrderItemPlacedEvent event : events) {
+                    record(event.getMenuItemId(), clock.getAsLong());
+                }
+            }
+        }
+    }
+
+    /**
+     * Replay the held-back lines the history did not include, then resume counting live. Runs
+     * inside the rebuild's repeatable-read transaction, so a line is in the history exactly when
+     * its row is visible here, whatever its id.
+     */
+    private void replayUnseen() {
+        while (true) {
+            List<OrderItemPlacedEvent> events;
+            synchronized (lock) {
+                if (heldBack.isEmpty()) {
+                    heldBack = null;
+                    return;
+                }
+                events = heldBack;
+                heldBack = new ArrayList<>();
+            }
+            Set<Long> orderItemIds = new HashSet<>();
+            for (OrderItemPlacedEvent event : events) {
+                if (event.getOrderItemId() != null) {
+                    orderItemIds.add(event.getOrderItemId());
+                }
+            }
+            Set<Long> inHistory = orderItemIds.isEmpty() ? Set.of() : new HashSet<>(orderItemRepository.findExistingIds(orderItemIds));
+            for (OrderItemPlacedEvent event : events) {
+                if (event.getOrderItemId() == null || !inHistory.contains(event.getOrderItemId())) {
+                    record(event.getMenuItemId(), clock.getAsLong());
+                    replayed.increment();
+                }
+            }
+        }
+    }
+
+    private void record(Long menuItemId, long placedAt) {
+        long[] placement = placements.get(menuItemId);
+        if (placement == null) {
+            unplaced.add(new long[]{menuItemId, placedAt});
+            return;
+        }
+        offer(menuItemId, placement, placedAt);
+    }
+
+    /**
+     * Count a line in every window it was placed in; a line that waited for its placement past
+     * the turn of a window is left out of the new one.
+     */
+    private void offer(Long menuItemId, long[] placement, long placedAt) {
+        for (PopularityWindow window : PopularityWindow.values()) {
+            Counts counts = current(window);
+            if (counts.index == window.indexOf(placedAt)) {
+                counts.offer(menuItemId, placement[0], placement[1], 1);
+            }
+        }
+        recorded.increment();
+    }
+
+    private void remember(Map<Long, long[]> found, long changesBefore) {
+        synchronized (lock) {
+            if (menuChanges == changesBefore) {
+                placements.putAll(found);
+            }
+        }
+    }
+
+    private void forget(Long sectionId, Long branchId) {
+        if (sectionId != null) {
+            placements.values().removeIf(placement -> placement[0] == sectionId);
+        } else if (branchId != null) {
+            placements.values().removeIf(placement -> placement[1] == branchId);
+        } else {
+            placements.clear();
+        }
+    }
+
+    private long menuChangesSoFar() {
+        synchronized (lock) {
+            return menuChanges;
+        }
+    }
+
+    /**
+     * The window's counts, starting them over when the window has turned.
+     */
+    private Counts current(PopularityWindow window) {
+        AtomicReference<Counts> reference = windows.get(window);
+        long index = window.indexOf(clock.getAsLong());
+        Counts counts = reference.get();
+        while (counts.index < index) {
+            Counts next = new Counts(index, properties.getCapacity());
+            if (reference.compareAndSet(counts, next)) {
+                return next;
+            }
+            counts = reference.get();
+        }
+        return counts;
+    }
+
+    /**
+     * Summaries holding the exact counts of the top items of every scope. Seeding them heaviest
+     * first with exact counts leaves no error; items that did not fit are the lightest ones,
+     * which is what a summary fed line by line would have evicted too.
+     */
+    private Counts seeded(long index, List<Object[]> rows, Map<Long, long[]> seen) {
+        Counts counts = new Counts(index, properties.getCapacity());
+        List<Object[]> heaviestFirst = new ArrayList<>(rows);
+        heaviestFirst.sort(Comparator.comparing((Object[] row) -> (Long) row[3]).reversed());
+        Map<Long, Integer> perSection = new HashMap<>();
+        Map<Long, Integer> perBranch = new HashMap<>();
+        int capacity = properties.getCapacity();
+        for (Object[] row : heaviestFirst) {
+            Long itemId = (Long) row[0];
+            Long sectionId = (Long) row[1];
+            Long branchId = (Long) row[2];
+            long count = (Long) row[3];
+            seen.put(itemId, new long[]{sectionId, branchId});
+            if (counts.overall.size() < capacity) {
+                counts.overall.offer(itemId, count);
+            }
+            if (perSection.merge(sectionId, 1, Integer::sum) <= capacity) {
+                counts.bySection.computeIfAbsent(sectionId, id -> new SpaceSaving<>(capacity)).offer(itemId, count);
+            }
+            if (perBranch.merge(branchId, 1, Integer::sum) <= capacity) {
+                counts.byBranch.computeIfAbsent(branchId, id -> new SpaceSaving<>(capacity)).offer(itemId, count);
+            }
+        }
+        return counts;
+    }
+
+    private static final class Counts {
+        private final long index;
+        private final SpaceSaving<Long> overall;
+        private final ConcurrentHashMap<Long, SpaceSaving<Long>> bySection = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<Long, SpaceSaving<Long>> byBranch = new ConcurrentHashMap<>();
+        private final int capacity;
+
+        private Counts(long index, int capacity) {
+            this.index = index;
+            this.capacity = capacity;
+            this.overall = new SpaceSaving<>(capacity);
+        }
+
+        private void offer(Long itemId, long sectionId, long branchId, long weight) {
+            overall.offer(itemId, weight);
+            bySection.computeIfAbsent(sectionId, id -> new SpaceSaving<>(capacity)).offer(itemId, weight);
+            byBranch.computeIfAbsent(branchId, id -> new SpaceSaving<>(capacity)).offer(itemId, weight);
+        }
+    }
+}
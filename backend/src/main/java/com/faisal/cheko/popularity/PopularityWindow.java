@@ -0,0 +1,49 @@
+package com.faisal.cheko.popularity;
+
+import com.faisal.cheko.exception.BadRequestException;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Tumbling windows popular items are counted over. Windows are aligned to UTC: the hour
+ * window restarts on the hour and the day window at midnight UTC.
+ */
+public enum PopularityWindow {
+
+    HOUR(Duration.ofHours(1)),
+    DAY(Duration.ofDays(1)),
+    ALL(null);
+
+    private final Duration length;
+
+    PopularityWindow(Duration length) {
+        this.length = length;
+    }
+
+    /**
+     * @throws BadRequestException if the parameter names no window
+     */
+    public static PopularityWindow fromParameter(String window) {
+        for (PopularityWindow candidate : values()) {
+            if (candidate.name().toLowerCase(Locale.ROOT).equals(window)) {
+                return candidate;
+            }
+        }
+        throw new BadRequestException("Unsupported window '" + window + "', expected hour, day or all");
+    }
+
+    /**
+     * Index of the window containing the instant; every instant of the all-time window has index 0.
+     */
+    public long indexOf(long epochMillis) {
+        return length == null ? 0 : Math.floorDiv(epochMillis, length.toMillis());
+    }
+
+    /**
+     * First instant of the window with the given index.
+     */
+    public long startOf(long index) {
+        return length == null ? 0 : index * length.toMillis();
+    }
+}
@@ -0,0 +1,177 @@
+package com.faisal.cheko.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded map of client keys to token buckets.
+ * <p>
+ * A bucket that has refilled to full capacity carries no information: recreating it
+ * yields the same result. Sweeps therefore drop every full bucket, which also covers
+ * idle clients because an idle bucket is always full. When the store reaches its size
+ * cap and a sweep cannot make room, the oldest bucket is displaced to make room for the
+ * new key, so a flood of distinct (possibly spoofed) keys cannot grow the heap, and every
+ * new client still gets a bucket of its own. A displaced client starts again from a full
+ * bucket, so under a flood the limiter errs towards admitting rather than locking new
+ * clients out.
+ */
+public class ClientBucketStore {
+
+    /**
+     * Rough retained size of one entry: map node, key string and bucket with its AtomicLong.
+     */
+    static final int ESTIMATED_ENTRY_BYTES = 192;
+
+    // A full store sweeps inline at most this often, so a flood cannot turn every miss into a scan
+    private static final long INLINE_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    // Buckets in the order they were created, oldest first; a sweep drops the ones it evicted
+    private final Queue<Created> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final Supplier<TokenBucket> bucketFactory;
+    private final LongSupplier clock;
+    private final AtomicBoolean sweeping = new AtomicBoolean(false);
+    private final AtomicLong lastSweep;
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder displacements = new LongAdder();
+
+    public ClientBucketStore(int maxEntries, Supplier<TokenBucket> bucketFactory) {
+        this(maxEntries, bucketFactory, System::nanoTime);
+    }
+
+    ClientBucketStore(int maxEntries, Supplier<TokenBucket> bucketFactory, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.bucketFactory = bucketFactory;
+        this.clock = clock;
+        this.lastSweep = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Get the bucket for a key, creating it and displacing the oldest bucket if the store is
+     * full.
+     *
+     * @param key the client key
+     * @return the client's bucket
+     */
+    public TokenBucket getBucket(String key) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        if (buckets.size() >= maxEntries) {
+            long last = lastSweep.get();
+            long now = clock.getAsLong();
+            if (now - last >= INLINE_SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+                evictFullBuckets();
+            }
+            if (buckets.size() >= maxEntries) {
+                displaceOldest();
+            }
+        }
+
+        return buckets.computeIfAbsent(key, k -> {
+            TokenBucket created = bucketFactory.get();
+            insertionOrder.offer(new Created(k, created));
+            return created;
+        });
+    }
+
+    /**
+     * Look up a bucket without creating one.
+     */
+    public TokenBucket peekBucket(String key) {
+        return buckets.get(key);
+    }
+
+    /**
+     * Remove every bucket that has refilled to capacity.
+     * Only one thread sweeps at a time; concurrent callers return immediately.
+     *
+     * @return the number of evicted buckets
+     */
+    public int evictFullBuckets() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            int evicted = 0;
+            Iterator<Map.Entry<String, TokenBucket>> iterator = buckets.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getValue().isFull()) {
+                    iterator.remove();
+                    evicted++;
+                }
+            }
+            if (evicted > 0) {
+                insertionOrder.removeIf(created -> !created.isCurrent(buckets));
+            }
+            evictions.add(evicted);
+            return evicted;
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * Drop the oldest bucket still in the store. Entries for buckets a sweep has already
+     * dropped are skipped; a key recreated since keeps its fresh bucket.
+     */
+    private void displaceOldest() {
+        Created oldest;
+        while ((oldest = insertionOrder.poll()) != null) {
+            if (buckets.remove(oldest.key(), oldest.bucket())) {
+                displacements.increment();
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getDisplacements() {
+        return displacements.sum();
+    }
+
+    public long getEstimatedBytes() {
+        return (long) buckets.size() * ESTIMATED_ENTRY_BYTES;
+    }
+
+    int insertionOrderLength() {
+        return insertionOrder.size();
+    }
+
+    /**
+     * A bucket as it was created for its key. The key may since have been evicted and given
+     * a new bucket, so the entry only stands for the key while the map still holds this bucket.
+     */
+    private record Created(String key, TokenBucket bucket) {
+
+        boolean isCurrent(Map<String, TokenBucket> buckets) {
+            return buckets.get(key) == bucket;
+        }
+    }
+}
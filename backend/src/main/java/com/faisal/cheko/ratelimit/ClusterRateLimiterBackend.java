@@ -0,0 +1,344 @@
+package com.faisal.cheko.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster backend: buckets live in a shared {@link TokenLeaseStore}, and each node leases
+ * small batches of tokens from them and spends those locally.
+ * <p>
+ * Most requests are served from the local lease with a single CAS. Only when a lease runs
+ * out does a request pay for a round trip to the store, so with a lease size of {@code n}
+ * at most one request in {@code n} leaves the node. A client that is refused is not asked
+ * about again until its bucket should have refilled enough, so abusive clients cannot turn
+ * into database load either.
+ * <p>
+ * Accuracy: tokens are only spent after the store granted them, so the cluster never
+ * admits more than the shared bucket allows. The cost is that up to {@code leaseSize - 1}
+ * tokens per client can sit unused on a node until the lease expires and is settled, which
+ * makes the limit slightly stricter while a client hops between nodes. Leases of a node
+ * that dies are dropped once they are {@code reclaimGrace} past expiry, without a refund,
+ * since the node may have spent any of their tokens; the bucket refills them instead. A
+ * release batch that fails stays queued for the next settle. Releasing is idempotent, and a
+ * lease dropped meanwhile is not refunded, so a retry never credits tokens twice.
+ * <p>
+ * If the store is unreachable the backend falls back to per-node exact limiting rather
+ * than failing requests. So do clients beyond the {@code maxEntries} this node tracks, so
+ * that tokens are never leased to a holder the node cannot keep.
+ */
+public class ClusterRateLimiterBackend implements RateLimiterBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRateLimiterBackend.class);
+
+    private final TokenLeaseStore store;
+    private final String keyPrefix;
+    private final String nodeId;
+    private final int capacity;
+    private final double refillPerSecond;
+    private final long nanosPerToken;
+    private final int leaseSize;
+    private final Duration leaseTtl;
+    private final long leaseTtlNanos;
+    private final Duration reclaimGrace;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, LeaseHolder> holders = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<long[]> pendingReleases = new ConcurrentLinkedQueue<>();
+    private final ExactRateLimiterBackend fallback;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder leasesAcquired = new LongAdder();
+    private final LongAdder leaseDenials = new LongAdder();
+    private final LongAdder storeErrors = new LongAdder();
+    private final LongAdder fallbackRequests = new LongAdder();
+    private final LongAdder untrackedRequests = new LongAdder();
+
+    /**
+     * @param store     the shared bucket store
+     * @param keyPrefix prefix keeping this policy's buckets apart from other policies'
+     * @param nodeId    identifies this node's leases
+     */
+    public ClusterRateLimiterBackend(TokenLeaseStore store, String keyPrefix, String nodeId,
+                                     int capacity, int refillTokens, Duration refillPeriod,
+                                     int leaseSize, Duration leaseTtl, Duration reclaimGrace, int maxEntries) {
+        this(store, keyPrefix, nodeId, capacity, refillTokens, refillPeriod, leaseSize, leaseTtl, reclaimGrace,
+                maxEntries, System::nanoTime);
+    }
+
+    ClusterRateLimiterBackend(TokenLeaseStore store, String keyPrefix, String nodeId,
+                              int capacity, int refillTokens, Duration refillPeriod,
+                              int leaseSize, Duration leaseTtl, Duration reclaimGrace, int maxEntries,
+                              LongSupplier clock) {
+        if (capacity <= 0 || refillTokens <= 0 || leaseSize <= 0 || leaseTtl.isNegative() || leaseTtl.isZero()) {
+            throw new IllegalArgumentException("Cluster rate limiter settings must be positive");
+        }
+        this.store = store;
+        this.keyPrefix = keyPrefix;
+        this.nodeId = nodeId;
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1, refillPeriod.toNanos() / refillTokens);
+        this.refillPerSecond = 1_000_000_000d / nanosPerToken;
+        this.leaseSize = Math.min(leaseSize, capacity);
+        this.leaseTtl = leaseTtl;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.reclaimGrace = reclaimGrace;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.fallback = new ExactRateLimiterBackend(capacity, refillTokens, refillPeriod, maxEntries);
+    }
+
+    @Override
+    public RateLimitResult tryConsume(String key, int tokens) {
+        LeaseHolder holder = holderFor(key);
+        if (holder == null) {
+            untrackedRequests.increment();
+            return fallback.tryConsume(key, tokens);
+        }
+
+        Lease lease = holder.lease;
+        long now = clock.getAsLong();
+        if (lease != null && lease.isLive(now) && lease.take(tokens)) {
+            localHits.increment();
+            return allowed(holder, lease);
+        }
+
+        synchronized (holder) {
+            now = clock.getAsLong();
+            lease = holder.lease;
+            // Another request may have renewed the lease while this one waited
+            if (lease != null && lease.isLive(now) && lease.take(tokens)) {
+                localHits.increment();
+                return allowed(holder, lease);
+            }
+            if (holder.isRefused(now)) {
+                return denied(holder.deniedUntil - now);
+            }
+
+            retire(holder);
+            Optional<LeaseGrant> grant;
+            try {
+                grant = acquire(key, tokens);
+            } catch (DataAccessException e) {
+                storeErrors.increment();
+                fallbackRequests.increment();
+                log.warn("Shared rate limit store unavailable, limiting {} on this node only: {}", key, e.getMessage());
+                return fallback.tryConsume(key, tokens);
+            }
+
+            if (grant.isEmpty()) {
+                leaseDenials.increment();
+                // Without knowing the exact balance, assume the bucket is empty
+                long retry = tokens * nanosPerToken;
+                holder.deniedUntil = now + retry;
+                holder.refused = true;
+                holder.bucketRemaining = 0;
+                return denied(retry);
+            }
+
+            leasesAcquired.increment();
+            LeaseGrant granted = grant.get();
+            Lease fresh = new Lease(granted.getId(), granted.getTokens() - tokens, now + leaseTtlNanos);
+            holder.bucketRemaining = (long) Math.floor(granted.getRemainingInBucket());
+            holder.lease = fresh;
+            return allowed(holder, fresh);
+        }
+    }
+
+    @Override
+    public RateLimitResult probe(String key) {
+        LeaseHolder holder = holders.get(key);
+        if (holder == null) {
+            return fallback.probe(key);
+        }
+        Lease lease = holder.lease;
+        long local = lease != null && lease.isLive(clock.getAsLong()) ? lease.remaining.get() : 0;
+        return result(local + holder.bucketRemaining > 0, local + holder.bucketRemaining, 0);
+    }
+
+    /**
+     * Hand back expired leases and push all retired leases to the store in one batch.
+     */
+    @Override
+    public void settle() {
+        long now = clock.getAsLong();
+        for (LeaseHolder holder : holders.values()) {
+            Lease lease = holder.lease;
+            if (lease != null && !lease.isLive(now)) {
+                synchronized (holder) {
+                    if (holder.lease == lease) {
+                        retire(holder);
+                    }
+                }
+            }
+        }
+
+        List<long[]> batch = new ArrayList<>();
+        for (long[] release; (release = pendingReleases.poll()) != null; ) {
+            batch.add(release);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            store.releaseAll(batch);
+        } catch (DataAccessException e) {
+            // Retried on the next settle; a lease reclaimed meanwhile is simply not refunded
+            pendingReleases.addAll(batch);
+            storeErrors.increment();
+            log.warn("Could not settle {} rate limit leases, will retry: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        Iterator<LeaseHolder> iterator = holders.values().iterator();
+        while (iterator.hasNext()) {
+            LeaseHolder holder = iterator.next();
+            if (holder.lease == null && !holder.isRefused(now)) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        evicted += fallback.evictIdle();
+
+        try {
+            int reclaimed = store.reclaimExpired(reclaimGrace);
+            if (reclaimed > 0) {
+                log.info("Dropped {} abandoned rate limit leases", reclaimed);
+            }
+            evicted += store.deleteFullBuckets();
+        } catch (DataAccessException e) {
+            storeErrors.increment();
+            log.warn("Rate limit store housekeeping failed: {}", e.getMessage());
+        }
+        return evicted;
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("nodeId", nodeId);
+        metrics.put("leaseSize", leaseSize);
+        metrics.put("leaseTtlSeconds", leaseTtl.toMillis() / 1000d);
+        metrics.put("trackedClients", holders.size());
+        metrics.put("localHits", localHits.sum());
+        metrics.put("leasesAcquired", leasesAcquired.sum());
+        metrics.put("leaseDenials", leaseDenials.sum());
+        metrics.put("pendingReleases", pendingReleases.size());
+        metrics.put("storeErrors", storeErrors.sum());
+        metrics.put("fallbackRequests", fallbackRequests.sum());
+        metrics.put("untrackedRequests", untrackedRequests.sum());
+        return metrics;
+    }
+
+    /**
+     * The client's holder, or null when the node already tracks as many clients as it may.
+     */
+    private LeaseHolder holderFor(String key) {
+        LeaseHolder holder = holders.get(key);
+        if (holder != null) {
+            return holder;
+        }
+        if (holders.size() >= maxEntries) {
+            return null;
+        }
+        return holders.computeIfAbsent(key, k -> new LeaseHolder());
+    }
+
+    private Optional<LeaseGrant> acquire(String key, int tokens) {
+        String bucketKey = keyPrefix + ":" + key;
+        int batch = Math.max(leaseSize, tokens);
+        Optional<LeaseGrant> grant = store.acquire(bucketKey, nodeId, capacity, refillPerSecond, batch, tokens, leaseTtl);
+        if (grant.isEmpty() && store.createBucketIfAbsent(bucketKey, capacity, refillPerSecond)) {
+            grant = store.acquire(bucketKey, nodeId, capacity, refillPerSecond, batch, tokens, leaseTtl);
+        }
+        return grant;
+    }
+
+    /**
+     * Detach the holder's lease and queue its unspent tokens for the next settle. Must hold the holder's lock.
+     */
+    private void retire(LeaseHolder holder) {
+        Lease lease = holder.lease;
+        if (lease == null) {
+            return;
+        }
+        holder.lease = null;
+        // Concurrent fast-path takes either finished before this or now see zero
+        int unspent = lease.remaining.getAndSet(0);
+        pendingReleases.add(new long[]{lease.id, unspent});
+    }
+
+    private RateLimitResult allowed(LeaseHolder holder, Lease lease) {
+        return result(true, lease.remaining.get() + holder.bucketRemaining, 0);
+    }
+
+    private RateLimitResult denied(long retryNanos) {
+        return result(false, 0, retryNanos);
+    }
+
+    private RateLimitResult result(boolean allowedRequest, long remaining, long retryNanos) {
+        remaining = Math.min(capacity, Math.max(0, remaining));
+        long nextToken = remaining >= capacity ? 0 : nanosPerToken;
+        long full = (capacity - remaining) * nanosPerToken;
+        return new RateLimitResult(allowedRequest, capacity, remaining, retryNanos, nextToken, full);
+    }
+
+    private static final class LeaseHolder {
+        private volatile Lease lease;
+        // Shared bucket balance reported by the store at the last acquire
+        private volatile long bucketRemaining;
+        // Refused clients are not looked up again before deniedUntil
+        private volatile boolean refused;
+        private volatile long deniedUntil;
+
+        boolean isRefused(long now) {
+            return refused && now - deniedUntil < 0;
+        }
+    }
+
+    private static final class Lease {
+        private final long id;
+        private final AtomicInteger remaining;
+        private final long expiresAt;
+
+        private Lease(long id, int remaining, long expiresAt) {
+            this.id = id;
+            this.remaining = new AtomicInteger(remaining);
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isLive(long now) {
+            return now - expiresAt < 0;
+        }
+
+        boolean take(int tokens) {
+            while (true) {
+                int current = remaining.get();
+                if (current < tokens) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - tokens)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
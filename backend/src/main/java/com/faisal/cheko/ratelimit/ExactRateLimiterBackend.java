@@ -0,0 +1,46 @@
+package com.faisal.cheko.ratelimit;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exact backend: one lock-free {@link TokenBucket} per client in a bounded {@link ClientBucketStore}.
+ */
+public class ExactRateLimiterBackend implements RateLimiterBackend {
+
+    private final int capacity;
+    private final ClientBucketStore store;
+
+    public ExactRateLimiterBackend(int capacity, int refillTokens, Duration refillPeriod, int maxEntries) {
+        this.capacity = capacity;
+        this.store = new ClientBucketStore(maxEntries, () -> new TokenBucket(capacity, refillTokens, refillPeriod));
+    }
+
+    @Override
+    public RateLimitResult tryConsume(String key, int tokens) {
+        return store.getBucket(key).tryConsume(tokens);
+    }
+
+    @Override
+    public RateLimitResult probe(String key) {
+        TokenBucket bucket = store.peekBucket(key);
+        return bucket != null ? bucket.probe() : new RateLimitResult(true, capacity, capacity, 0, 0, 0);
+    }
+
+    @Override
+    public int evictIdle() {
+        return store.evictFullBuckets();
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("storeSize", store.size());
+        metrics.put("storeMaxEntries", store.getMaxEntries());
+        metrics.put("evictions", store.getEvictions());
+        metrics.put("displacements", store.getDisplacements());
+        metrics.put("estimatedMemoryBytes", store.getEstimatedBytes());
+        return metrics;
+    }
+}
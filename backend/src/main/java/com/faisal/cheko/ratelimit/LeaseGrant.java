@@ -0,0 +1,32 @@
+package com.faisal.cheko.ratelimit;
+
+/**
+ * A batch of tokens leased from the shared bucket store.
+ */
+public class LeaseGrant {
+
+    private final long id;
+    private final int tokens;
+    private final double remainingInBucket;
+
+    public LeaseGrant(long id, int tokens, double remainingInBucket) {
+        this.id = id;
+        this.tokens = tokens;
+        this.remainingInBucket = remainingInBucket;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Tokens left in the shared bucket right after this lease was taken.
+     */
+    public double getRemainingInBucket() {
+        return remainingInBucket;
+    }
+}
@@ -0,0 +1,75 @@
+package com.faisal.cheko.ratelimit;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A compiled rate limit policy: which requests it covers, what they cost,
+ * and the backend holding its own per-client buckets.
+ */
+public class RateLimitPolicy {
+
+    private final String name;
+    private final String pattern;
+    private final Set<String> methods;
+    private final int cost;
+    private final int order;
+    private final RateLimiterBackend backend;
+
+    /**
+     * @param name    policy name, reported in headers and metrics
+     * @param pattern route pattern, see {@link RoutePolicyMatcher}
+     * @param methods HTTP methods covered; empty means all methods
+     * @param cost    tokens taken by one request
+     * @param order   declaration order; the lowest matching order wins
+     * @param backend backend holding this policy's buckets
+     */
+    public RateLimitPolicy(String name, String pattern, Set<String> methods, int cost, int order,
+                           RateLimiterBackend backend) {
+        if (cost <= 0) {
+            throw new IllegalArgumentException("Rate limit policy '" + name + "' must have a positive cost");
+        }
+        this.name = name;
+        this.pattern = pattern;
+        this.methods = methods == null ? Collections.emptySet() : methods.stream()
+                .map(method -> method.trim().toUpperCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.cost = cost;
+        this.order = order;
+        this.backend = backend;
+    }
+
+    public RateLimitResult tryConsume(String clientKey) {
+        return backend.tryConsume(clientKey, cost);
+    }
+
+    public RateLimitResult probe(String clientKey) {
+        return backend.probe(clientKey);
+    }
+
+    public boolean appliesTo(String method) {
+        return methods.isEmpty() || methods.contains(method);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public RateLimiterBackend getBackend() {
+        return backend;
+    }
+}
@@ -0,0 +1,74 @@
+package com.faisal.cheko.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a single rate limit check.
+ * Carries everything the filter needs for its response headers, so a request
+ * only has to touch its bucket once.
+ */
+public final class RateLimitResult {
+
+    private final boolean allowed;
+    private final long limit;
+    private final long remainingTokens;
+    private final long nanosToRetry;
+    private final long nanosToNextToken;
+    private final long nanosToFull;
+
+    public RateLimitResult(boolean allowed, long limit, long remainingTokens,
+                           long nanosToRetry, long nanosToNextToken, long nanosToFull) {
+        this.allowed = allowed;
+        this.limit = limit;
+        this.remainingTokens = remainingTokens;
+        this.nanosToRetry = nanosToRetry;
+        this.nanosToNextToken = nanosToNextToken;
+        this.nanosToFull = nanosToFull;
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getRemainingTokens() {
+        return remainingTokens;
+    }
+
+    /**
+     * Time until a request of the same cost would be allowed, 0 when allowed.
+     */
+    public long getNanosToRetry() {
+        return nanosToRetry;
+    }
+
+    /**
+     * Time until one more token becomes available, 0 when the bucket is full.
+     */
+    public long getNanosToNextToken() {
+        return nanosToNextToken;
+    }
+
+    /**
+     * Time until the bucket is back to full capacity.
+     */
+    public long getNanosToFull() {
+        return nanosToFull;
+    }
+
+    public long getSecondsToRetry() {
+        return ceilSeconds(nanosToRetry);
+    }
+
+    public long getSecondsToFull() {
+        return ceilSeconds(nanosToFull);
+    }
+
+    private static long ceilSeconds(long nanos) {
+        long unit = TimeUnit.SECONDS.toNanos(1);
+        return nanos <= 0 ? 0 : (nanos + unit - 1) / unit;
+    }
+}
@@ -0,0 +1,36 @@
+package com.faisal.cheko.ratelimit;
+
+import java.util.Map;
+
+/**
+ * Storage strategy behind {@link com.faisal.cheko.service.RateLimiterService}.
+ * Implementations decide how per-client consumption is tracked.
+ */
+public interface RateLimiterBackend {
+
+    /**
+     * Consume tokens for a key and report the resulting state.
+     */
+    RateLimitResult tryConsume(String key, int tokens);
+
+    /**
+     * Report the current state for a key without consuming anything.
+     */
+    RateLimitResult probe(String key);
+
+    /**
+     * Periodic housekeeping, called on the store sweep schedule.
+     *
+     * @return the number of entries released
+     */
+    int evictIdle();
+
+    /**
+     * Push locally buffered state to a shared store, called on the cluster settle schedule.
+     * Backends that keep all state in memory have nothing to do.
+     */
+    default void settle() {
+    }
+
+    Map<String, Object> getMetrics();
+}
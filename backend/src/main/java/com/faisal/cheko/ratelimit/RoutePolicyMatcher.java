@@ -0,0 +1,121 @@
+package com.faisal.cheko.ratelimit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment trie that maps a request path and method to a {@link RateLimitPolicy}.
+ * <p>
+ * Patterns are compiled once at startup. Supported segments are literals,
+ * {@code *} or {@code {name}} for exactly one segment, and a trailing {@code **}
+ * for any remainder (including none). A lookup walks the path once, following
+ * the literal and single-segment branches, so its cost depends on the path
+ * length and not on the number of policies. When several policies match, the
+ * one declared first wins; requests no policy covers fall back to the default.
+ */
+public class RoutePolicyMatcher {
+
+    private final Node root = new Node();
+    private final RateLimitPolicy defaultPolicy;
+
+    public RoutePolicyMatcher(List<RateLimitPolicy> policies, RateLimitPolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+        for (RateLimitPolicy policy : policies) {
+            insert(policy);
+        }
+    }
+
+    /**
+     * Find the policy for a request.
+     *
+     * @param method the HTTP method, upper case
+     * @param path   the request path, starting with '/'
+     * @return the matching policy, never null
+     */
+    public RateLimitPolicy match(String method, String path) {
+        RateLimitPolicy best = search(root, path, 1, method, null);
+        return best != null ? best : defaultPolicy;
+    }
+
+    public RateLimitPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    private RateLimitPolicy search(Node node, String path, int position, String method, RateLimitPolicy best) {
+        best = pick(node.remainderPolicies, method, best);
+
+        // Skip empty segments produced by repeated or trailing slashes
+        while (position < path.length() && path.charAt(position) == '/') {
+            position++;
+        }
+        if (position >= path.length()) {
+            return pick(node.endPolicies, method, best);
+        }
+
+        int end = path.indexOf('/', position);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        Node literal = node.literals.get(path.substring(position, end));
+        if (literal != null) {
+            best = search(literal, path, end, method, best);
+        }
+        if (node.anySegment != null) {
+            best = search(node.anySegment, path, end, method, best);
+        }
+        return best;
+    }
+
+    private static RateLimitPolicy pick(List<RateLimitPolicy> candidates, String method, RateLimitPolicy best) {
+        for (RateLimitPolicy candidate : candidates) {
+            if (candidate.appliesTo(method) && (best == null || candidate.getOrder() < best.getOrder())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private void insert(RateLimitPolicy policy) {
+        String pattern = policy.getPattern();
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Rate limit pattern must start with '/': " + pattern);
+        }
+
+        Node node = root;
+        String[] segments = pattern.substring(1).split("/");
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals("**")) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' is only supported at the end of a pattern: " + pattern);
+                }
+                node.remainderPolicies.add(policy);
+                return;
+            }
+            if (segment.equals("*") || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (node.anySegment == null) {
+                    node.anySegment = new Node();
+                }
+                node = node.anySegment;
+            } else if (segment.contains("*") || segment.contains("{")) {
+                throw new IllegalArgumentException("Partial wildcards are not supported: " + pattern);
+            } else {
+                node = node.literals.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        node.endPolicies.add(policy);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node anySegment;
+        private final List<RateLimitPolicy> endPolicies = new ArrayList<>();
+        private final List<RateLimitPolicy> remainderPolicies = new ArrayList<>();
+    }
+}
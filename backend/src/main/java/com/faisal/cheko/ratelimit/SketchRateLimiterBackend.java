@@ -0,0 +1,315 @@
+package com.faisal.cheko.ratelimit;
+
+import com.faisal.cheko.util.SpaceSaving;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Approximate backend that tracks consumption in fixed-size Count-Min sketches.
+ * <p>
+ * Time is split into windows of {@code capacity * emission interval}, the time a drained
+ * bucket needs to refill. Two sketches hold the current and previous window, and a
+ * client's usage is estimated with the usual sliding-window interpolation:
+ * {@code current + previous * (1 - elapsed fraction of current window)}. A request is
+ * allowed while that estimate plus its cost stays within capacity.
+ * <p>
+ * An admitted request adds its tokens to every row, then reads the rows back and checks
+ * the limit again, taking its tokens back out if that read is over. By the time the last
+ * admitted request of a client reads the rows, every other admitted request of that client
+ * has finished adding, so concurrent requests for one hot client cannot together pass
+ * capacity; at worst two requests racing at the limit are both turned away.
+ * <p>
+ * Error bounds: with {@code width} columns and {@code depth} rows, an estimate exceeds
+ * the true usage by at most {@code (e / width) * N} with probability at least
+ * {@code 1 - e^-depth}, where {@code N} is the total number of tokens consumed by all
+ * clients in the window. Every cell receives every token of every client hashed to it, so
+ * the sketch never underestimates, and errors only ever make the limiter stricter. Memory is
+ * {@code 2 * depth * width * 4} bytes regardless of how many clients appear; each window
+ * gets a freshly allocated sketch and the one from two windows back is dropped.
+ * <p>
+ * One in {@code heavyHitterSampling} requests from clients whose estimate passes half the
+ * capacity is fed, weighted by the sampling rate, into a Space-Saving summary that reports
+ * the noisiest clients of the current and previous window. Sampling keeps the summary's
+ * lock off the path of most requests.
+ */
+public class SketchRateLimiterBackend implements RateLimiterBackend {
+
+    private final long capacity;
+    private final long windowNanos;
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final LongSupplier clock;
+    private final long origin;
+
+    // The current and previous window's sketch, in the slot of the window's parity
+    private final AtomicReferenceArray<WindowSketch> sketches = new AtomicReferenceArray<>(2);
+
+    private final int heavyHitterCount;
+    private final int heavyHitterSampling;
+    private final SpaceSaving<String> heavyHitters;
+    private final AtomicLong heavyHitterWindow = new AtomicLong(Long.MIN_VALUE);
+    private volatile List<SpaceSaving.Entry<String>> previousHeavyHitters = Collections.emptyList();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public SketchRateLimiterBackend(int capacity, int refillTokens, Duration refillPeriod,
+                                    int width, int depth, int heavyHitterCount, int heavyHitterSampling) {
+        this(capacity, refillTokens, refillPeriod, width, depth, heavyHitterCount, heavyHitterSampling, System::nanoTime);
+    }
+
+    SketchRateLimiterBackend(int capacity, int refillTokens, Duration refillPeriod,
+                             int width, int depth, int heavyHitterCount, int heavyHitterSampling, LongSupplier clock) {
+        if (capacity <= 0 || refillTokens <= 0 || width <= 0 || depth <= 0 || heavyHitterCount <= 0
+                || heavyHitterSampling <= 0) {
+            throw new IllegalArgumentException("Sketch rate limiter settings must be positive");
+        }
+        this.capacity = capacity;
+        this.windowNanos = Math.max(1, refillPeriod.toNanos() / refillTokens) * capacity;
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.mask = this.width - 1;
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        for (int i = 0; i < sketches.length(); i++) {
+            sketches.set(i, new WindowSketch(Long.MIN_VALUE, 0));
+        }
+        this.heavyHitterCount = heavyHitterCount;
+        this.heavyHitterSampling = heavyHitterSampling;
+        this.heavyHitters = new SpaceSaving<>(heavyHitterCount * 4);
+    }
+
+    @Override
+    public RateLimitResult tryConsume(String key, int tokens) {
+        long hash = hash(key);
+        long elapsed;
+        long window;
+        AtomicIntegerArray current;
+        do {
+            elapsed = clock.getAsLong() - origin;
+            window = Math.floorDiv(elapsed, windowNanos);
+            // Null when other threads have already moved two windows on; read the clock again
+            current = sketchFor(window);
+        } while (current == null);
+        double fraction = (double) Math.floorMod(elapsed, windowNanos) / windowNanos;
+
+        AtomicIntegerArray previous = existingSketch(window - 1);
+        long currentEstimate = estimate(current, hash);
+        long previousEstimate = previous != null ? estimate(previous, hash) : 0;
+        double usage = currentEstimate + previousEstimate * (1 - fraction);
+
+        if (usage + tokens > capacity) {
+            return reject(key, tokens, window, currentEstimate, previousEstimate, fraction, usage);
+        }
+
+        // Add first and check again once every row holds our tokens
+        for (int row = 0; row < depth; row++) {
+            current.addAndGet(index(row, hash), tokens);
+        }
+        long currentAfter = estimate(current, hash);
+        double usageAfter = currentAfter + previousEstimate * (1 - fraction);
+        if (usageAfter > capacity) {
+            for (int row = 0; row < depth; row++) {
+                current.addAndGet(index(row, hash), -tokens);
+            }
+            long currentBefore = Math.max(0, currentAfter - tokens);
+            return reject(key, tokens, window, currentBefore, previousEstimate, fraction, usageAfter - tokens);
+        }
+        allowed.increment();
+
+        if (usageAfter * 2 > capacity) {
+            recordHeavyHitter(key, tokens, window);
+        }
+        return result(true, currentAfter, previousEstimate, fraction, usageAfter, 0);
+    }
+
+    @Override
+    public RateLimitResult probe(String key) {
+        long elapsed = clock.getAsLong() - origin;
+        long window = Math.floorDiv(elapsed, windowNanos);
+        double fraction = (double) Math.floorMod(elapsed, windowNanos) / windowNanos;
+        long hash = hash(key);
+
+        AtomicIntegerArray current = existingSketch(window);
+        AtomicIntegerArray previous = existingSketch(window - 1);
+        long currentEstimate = current != null ? estimate(current, hash) : 0;
+        long previousEstimate = previous != null ? estimate(previous, hash) : 0;
+        double usage = currentEstimate + previousEstimate * (1 - fraction);
+        return result(usage + 1 <= capacity, currentEstimate, previousEstimate, fraction, usage, 0);
+    }
+
+    @Override
+    public int evictIdle() {
+        // Sketch memory is fixed; old windows are recycled on rotation
+        return 0;
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long window = Math.floorDiv(clock.getAsLong() - origin, windowNanos);
+        rotateHeavyHitters(window);
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sketchWidth", width);
+        metrics.put("sketchDepth", depth);
+        metrics.put("windowSeconds", windowNanos / 1_000_000_000d);
+        metrics.put("errorFactor", Math.E / width);
+        metrics.put("confidence", 1 - Math.exp(-depth));
+        metrics.put("estimatedMemoryBytes", (long) sketches.length() * depth * width * Integer.BYTES);
+        metrics.put("heavyHitterSampling", heavyHitterSampling);
+        metrics.put("allowed", allowed.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("heavyHitters", describe(heavyHitters.top(heavyHitterCount)));
+        metrics.put("previousWindowHeavyHitters", describe(previousHeavyHitters));
+        return metrics;
+    }
+
+    private RateLimitResult reject(String key, int tokens, long window, long currentEstimate, long previousEstimate,
+                                   double fraction, double usage) {
+        rejected.increment();
+        recordHeavyHitter(key, tokens, window);
+        long retry = tokens > capacity
+                ? nanosUntil(currentEstimate, previousEstimate, fraction, 0)
+                : nanosUntil(currentEstimate, previousEstimate, fraction, capacity - tokens);
+        return result(false, currentEstimate, previousEstimate, fraction, usage, retry);
+    }
+
+    private RateLimitResult result(boolean allowedRequest, long currentEstimate, long previousEstimate,
+                                   double fraction, double usage, long retryNanos) {
+        long remaining = Math.max(0, (long) Math.floor(capacity - usage));
+        long nextToken = remaining >= capacity
+                ? 0
+                : nanosUntil(currentEstimate, previousEstimate, fraction, capacity - remaining - 1);
+        long full = nanosUntil(currentEstimate, previousEstimate, fraction, 0);
+        return new RateLimitResult(allowedRequest, capacity, remaining, retryNanos, nextToken, full);
+    }
+
+    /**
+     * Time until the sliding estimate decays to the given usage, assuming no further consumption.
+     */
+    private long nanosUntil(long currentEstimate, long previousEstimate, double fraction, double targetUsage) {
+        if (currentEstimate + previousEstimate * (1 - fraction) <= targetUsage) {
+            return 0;
+        }
+        if (currentEstimate <= targetUsage && previousEstimate > 0) {
+            double neededFraction = 1 - (targetUsage - currentEstimate) / previousEstimate;
+            return (long) Math.ceil((neededFraction - fraction) * windowNanos);
+        }
+        // The current window has to roll over and then decay as the previous one
+        double restOfWindow = (1 - fraction) * windowNanos;
+        double neededFraction = currentEstimate > 0 ? Math.max(0, 1 - targetUsage / currentEstimate) : 0;
+        return (long) Math.ceil(restOfWindow + neededFraction * windowNanos);
+    }
+
+    /**
+     * The sketch of the given window, published if the slot still holds an older one, or null
+     * if a later window has already taken the slot. A stale caller never gets a newer
+     * window's sketch, so its tokens cannot land in a window they do not belong to.
+     */
+    private AtomicIntegerArray sketchFor(long window) {
+        int slot = (int) (window & 1);
+        while (true) {
+            WindowSketch held = sketches.get(slot);
+            if (held.window == window) {
+                return held.cells;
+            }
+            if (held.window > window) {
+                return null;
+            }
+            // This slot last held window - 2 or older. A fresh sketch is published rather than
+            // the old one cleared, so no increment can land while it is being zeroed
+            WindowSketch fresh = new WindowSketch(window, depth * width);
+            if (sketches.compareAndSet(slot, held, fresh)) {
+                return fresh.cells;
+            }
+        }
+    }
+
+    private AtomicIntegerArray existingSketch(long window) {
+        WindowSketch held = sketches.get((int) (window & 1));
+        return held.window == window ? held.cells : null;
+    }
+
+    private long estimate(AtomicIntegerArray sketch, long hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, sketch.get(index(row, hash)));
+        }
+        return min;
+    }
+
+    private int index(int row, long hash) {
+        // Kirsch-Mitzenmacher double hashing derives all rows from one 64-bit hash
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * width + ((h1 + row * h2) & mask);
+    }
+
+    private void recordHeavyHitter(String key, int tokens, long window) {
+        if (heavyHitterSampling > 1 && ThreadLocalRandom.current().nextInt(heavyHitterSampling) != 0) {
+            return;
+        }
+        rotateHeavyHitters(window);
+        heavyHitters.offer(key, (long) tokens * heavyHitterSampling);
+    }
+
+    private void rotateHeavyHitters(long window) {
+        long tracked = heavyHitterWindow.get();
+        if (tracked < window && heavyHitterWindow.compareAndSet(tracked, window)) {
+            previousHeavyHitters = tracked == window - 1
+                    ? heavyHitters.top(heavyHitterCount)
+                    : Collections.emptyList();
+            heavyHitters.clear();
+        }
+    }
+
+    private static final class WindowSketch {
+
+        private final long window;
+        private final AtomicIntegerArray cells;
+
+        private WindowSketch(long window, int length) {
+            this.window = window;
+            this.cells = new AtomicIntegerArray(length);
+        }
+    }
+
+    private static List<Map<String, Object>> describe(List<SpaceSaving.Entry<String>> entries) {
+        List<Map<String, Object>> described = new ArrayList<>(entries.size());
+        for (SpaceSaving.Entry<String> entry : entries) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("client", entry.getItem());
+            item.put("tokens", entry.getCount());
+            item.put("error", entry.getError());
+            described.add(item);
+        }
+        return described;
+    }
+
+    private static long hash(String key) {
+        // 64-bit FNV-1a followed by the MurmurHash3 finalizer
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
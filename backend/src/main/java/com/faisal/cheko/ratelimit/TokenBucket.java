@@ -0,0 +1,91 @@
+package com.faisal.cheko.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket implemented as a Generic Cell Rate Algorithm (GCRA).
+ * <p>
+ * The whole bucket state is a single {@code long}: the theoretical arrival time (TAT)
+ * of the next request on the {@link System#nanoTime()} scale. Each token moves the TAT
+ * forward by one emission interval, and a request is allowed as long as the TAT stays
+ * within the burst tolerance ({@code capacity * interval}) of the current time.
+ * Updates are a single compare-and-set, so concurrent requests for the same client
+ * never block each other.
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier clock;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(int capacity, int refillTokens, Duration refillPeriod) {
+        this(capacity, refillTokens, refillPeriod, System::nanoTime);
+    }
+
+    TokenBucket(int capacity, int refillTokens, Duration refillPeriod, LongSupplier clock) {
+        if (capacity <= 0 || refillTokens <= 0 || refillPeriod.isZero() || refillPeriod.isNegative()) {
+            throw new IllegalArgumentException("Capacity, refill tokens and refill period must be positive");
+        }
+        this.capacity = capacity;
+        this.emissionIntervalNanos = Math.max(1, refillPeriod.toNanos() / refillTokens);
+        this.toleranceNanos = emissionIntervalNanos * capacity;
+        this.clock = clock;
+        // A TAT equal to "now" means no debt, i.e. a full bucket
+        this.theoreticalArrival = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Try to take the given number of tokens.
+     * Consumption and the resulting bucket state are computed in one pass.
+     *
+     * @param tokens the number of tokens to consume
+     * @return the outcome, including remaining tokens and retry timing
+     */
+    public RateLimitResult tryConsume(int tokens) {
+        long increment = emissionIntervalNanos * Math.max(tokens, 0);
+        while (true) {
+            long now = clock.getAsLong();
+            long tat = theoreticalArrival.get();
+            long debt = Math.max(0, tat - now);
+            long debtAfter = debt + increment;
+
+            if (debtAfter > toleranceNanos) {
+                long retry = tokens > capacity ? toleranceNanos : debtAfter - toleranceNanos;
+                return result(false, debt, retry);
+            }
+            if (theoreticalArrival.compareAndSet(tat, now + debtAfter)) {
+                return result(true, debtAfter, 0);
+            }
+        }
+    }
+
+    /**
+     * Current bucket state without consuming anything.
+     */
+    public RateLimitResult probe() {
+        long debt = Math.max(0, theoreticalArrival.get() - clock.getAsLong());
+        return result(debt + emissionIntervalNanos <= toleranceNanos, debt, 0);
+    }
+
+    /**
+     * A bucket with no outstanding debt is indistinguishable from a freshly created one.
+     */
+    public boolean isFull() {
+        return theoreticalArrival.get() - clock.getAsLong() <= 0;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    private RateLimitResult result(boolean allowed, long debt, long retryNanos) {
+        long remaining = Math.min(capacity, (toleranceNanos - debt) / emissionIntervalNanos);
+        long nextToken = debt <= 0 ? 0 : debt - (toleranceNanos - (remaining + 1) * emissionIntervalNanos);
+        return new RateLimitResult(allowed, capacity, Math.max(0, remaining),
+                retryNanos, Math.max(0, nextToken), debt);
+    }
+}
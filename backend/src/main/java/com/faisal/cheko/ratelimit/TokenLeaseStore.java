@@ -0,0 +1,50 @@
+package com.faisal.cheko.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Central store of token buckets shared by every node in cluster mode.
+ * Nodes lease batches of tokens from it and spend them locally.
+ */
+public interface TokenLeaseStore {
+
+    /**
+     * Lease up to {@code batch} tokens from a bucket, refilling it first.
+     *
+     * @return the grant, or empty when the bucket does not exist or holds fewer than {@code minimum} tokens
+     */
+    Optional<LeaseGrant> acquire(String bucketKey, String nodeId, int capacity, double refillPerSecond,
+                                 int batch, int minimum, Duration ttl);
+
+    /**
+     * Create a full bucket if none exists yet.
+     *
+     * @return true if this call created the bucket
+     */
+    boolean createBucketIfAbsent(String bucketKey, int capacity, double refillPerSecond);
+
+    /**
+     * Settle leases in one batch, refunding the given unspent tokens.
+     *
+     * @param releases pairs of lease id and unspent tokens
+     */
+    void releaseAll(List<long[]> releases);
+
+    /**
+     * Drop leases that expired more than {@code grace} ago, i.e. leases of nodes that stopped
+     * settling. Their tokens are not refunded: the node may have spent any of them before it
+     * stopped, so the bucket refills them instead.
+     *
+     * @return the number of leases dropped
+     */
+    int reclaimExpired(Duration grace);
+
+    /**
+     * Drop buckets that have refilled to capacity and have no open lease.
+     *
+     * @return the number of buckets removed
+     */
+    int deleteFullBuckets();
+}
@@ -16,6 +16,10 @@ public interface BranchRepository extends JpaRepository<Branch, Long> {
 
     List<Branch> findByIsActiveTrue();
     Optional<Branch> findByIsMainBranchTrue();
+
+    @Query("SELECT b.id FROM Branch b")
+    List<Long> findAllIds();
+
     @Query(value = "SELECT b.* FROM restaurant.branches b " +
                   "WHERE ST_DWithin(b.location, :location, :distance) " +
                   "ORDER BY ST_Distance(b.location, :location)", 
@@ -0,0 +1,30 @@
+package com.faisal.cheko.repository;
+
+import com.faisal.cheko.dto.MenuItemResponse;
+
+import java.util.List;
+
+/**
+ * Keyset ("seek") queries over menu items, mixed into {@link MenuItemRepository}.
+ */
+public interface MenuItemKeysetRepository {
+
+    /**
+     * Read up to {@code limit} items of a branch that sort after the given position. Rows are
+     * located through a {@code (key, id) > (?, ?)} comparison instead of an offset, so the
+     * cost of a page does not depend on how deep it is, and no count query is run.
+     *
+     * @param branchId      the branch
+     * @param sectionId     only items of this section, or null for the whole branch
+     * @param availableOnly only items marked available
+     * @param nameQuery     case-insensitive substring of the item name, or null/empty for all
+     * @param sortKey       the column to order by, with the id as tiebreaker
+     * @param ascending     the direction of both columns
+     * @param afterValue    sort key value of the last row already returned, or null for the first page
+     * @param afterId       id of the last row already returned, or null for the first page
+     * @param limit         maximum number of rows
+     */
+    List<MenuItemResponse> findPageAfter(Long branchId, Long sectionId, boolean availableOnly, String nameQuery,
+                                         MenuItemSortKey sortKey, boolean ascending,
+                                         Object afterValue, Long afterId, int limit);
+}
@@ -0,0 +1,76 @@
+package com.faisal.cheko.repository;
+
+import com.faisal.cheko.dto.MenuItemResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+/**
+ * JPQL implementation of {@link MenuItemKeysetRepository}. The query text only depends on
+ * which filters are present, the sort key and the direction, so Hibernate's query plan
+ * cache keeps a handful of shapes.
+ */
+public class MenuItemKeysetRepositoryImpl implements MenuItemKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<MenuItemResponse> findPageAfter(Long branchId, Long sectionId, boolean availableOnly, String nameQuery,
+                                                MenuItemSortKey sortKey, boolean ascending,
+                                                Object afterValue, Long afterId, int limit) {
+        boolean search = nameQuery != null && !nameQuery.isEmpty();
+        boolean after = afterId != null;
+        String jpql = buildQuery(sectionId != null, availableOnly, search, sortKey, ascending, after);
+
+        TypedQuery<MenuItemResponse> query = entityManager.createQuery(jpql, MenuItemResponse.class)
+                .setParameter("branchId", branchId)
+                .setMaxResults(limit);
+        if (sectionId != null) {
+            query.setParameter("sectionId", sectionId);
+        }
+        if (search) {
+            query.setParameter("nameQuery", nameQuery);
+        }
+        if (after) {
+            query.setParameter("afterId", afterId);
+            if (sortKey != MenuItemSortKey.ID) {
+                query.setParameter("afterValue", afterValue);
+            }
+        }
+        return query.getResultList();
+    }
+
+    static String buildQuery(boolean bySection, boolean availableOnly, boolean search,
+                             MenuItemSortKey sortKey, boolean ascending, boolean after) {
+        String comparison = ascending ? " > " : " < ";
+        String direction = ascending ? " ASC" : " DESC";
+
+        StringBuilder jpql = new StringBuilder(MenuItemRepository.ITEM_RESPONSE).append("WHERE b.id = :branchId");
+        if (bySection) {
+            jpql.append(" AND ms.id = :sectionId");
+        }
+        if (availableOnly) {
+            jpql.append(" AND mi.isAvailable = true");
+        }
+        if (search) {
+            jpql.append(" AND LOWER(mi.name) LIKE LOWER(CONCAT('%', :nameQuery, '%'))");
+        }
+        if (after) {
+            if (sortKey == MenuItemSortKey.ID) {
+                jpql.append(" AND mi.id").append(comparison).append(":afterId");
+            } else {
+                // Row comparison, which PostgreSQL answers with a range scan on a (key, id) index
+                jpql.append(" AND (").append(sortKey.getPath()).append(", mi.id)").append(comparison)
+                        .append("(:afterValue, :afterId)");
+            }
+        }
+        jpql.append(" ORDER BY ");
+        if (sortKey != MenuItemSortKey.ID) {
+            jpql.append(sortKey.getPath()).append(direction).append(", ");
+        }
+        return jpql.append("mi.id").append(direction).toString();
+    }
+}
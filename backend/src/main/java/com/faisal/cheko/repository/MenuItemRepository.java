@@ -1,37 +1,86 @@
 package com.faisal.cheko.repository;
 
+import com.faisal.cheko.dto.MenuItemResponse;
 import com.faisal.cheko.model.MenuItem;
-import com.faisal.cheko.model.MenuSection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 
+/**
+ * Read queries project straight into {@link MenuItemResponse}, joining section and branch in
+ * the same statement, so mapping a page never touches a lazy association. Branch listings
+ * return slices (one extra row instead of a count query); totals come from
+ * {@link #countByBranchId}, which callers cache. Keyset pagination comes from
+ * {@link MenuItemKeysetRepository}.
+ */
 @Repository
-public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
-    Page<MenuItem> findBySectionId(Long sectionId, Pageable pageable);
+public interface MenuItemRepository extends JpaRepository<MenuItem, Long>, MenuItemKeysetRepository {
 
-    @Query("SELECT mi FROM MenuItem mi JOIN mi.section ms WHERE ms.branch.id = :branchId")
-    Page<MenuItem> findByBranchId(@Param("branchId") Long branchId, Pageable pageable);
+    String ITEM_RESPONSE = "SELECT new com.faisal.cheko.dto.MenuItemResponse(" +
+            "mi.id, ms.id, ms.name, b.id, b.branchName, mi.name, mi.description, mi.price, mi.calories, mi.imageUrl, mi.isAvailable) " +
+            "FROM MenuItem mi JOIN mi.section ms JOIN ms.branch b ";
 
-    @Query("SELECT mi FROM MenuItem mi JOIN mi.section ms WHERE ms.branch.id = :branchId AND mi.isAvailable = true")
-    Page<MenuItem> findAvailableByBranchId(@Param("branchId") Long branchId, Pageable pageable);
+    String ITEM_COUNT = "SELECT COUNT(mi) FROM MenuItem mi JOIN mi.section ms ";
+
+    @Query(value = ITEM_RESPONSE + "WHERE ms.id = :sectionId",
+           countQuery = ITEM_COUNT + "WHERE ms.id = :sectionId")
+    Page<MenuItemResponse> findBySectionId(@Param("sectionId") Long sectionId, Pageable pageable);
+
+    @Query(ITEM_RESPONSE + "WHERE b.id = :branchId ORDER BY mi.id")
+    List<MenuItemResponse> findAllResponsesByBranchId(@Param("branchId") Long branchId);
+
+    @Query(ITEM_RESPONSE + "WHERE mi.id = :id")
+    Optional<MenuItemResponse> findResponseById(@Param("id") Long id);
+
+    @Query(ITEM_RESPONSE + "WHERE mi.id IN :ids")
+    List<MenuItemResponse> findAllResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Section and branch of items: item id, section id, branch id
+    @Query("SELECT mi.id, ms.id, ms.branch.id FROM MenuItem mi JOIN mi.section ms WHERE mi.id IN :ids")
+    List<Object[]> findPlacementsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(ITEM_RESPONSE + "WHERE ms.id = :sectionId")
+    List<MenuItemResponse> findAllResponsesBySectionId(@Param("sectionId") Long sectionId);
+
+    // Section and availability of every item: id, section id, isAvailable
+    @Query("SELECT mi.id, mi.section.id, mi.isAvailable FROM MenuItem mi")
+    List<Object[]> findAllItemStates();
+
+    @Query(ITEM_RESPONSE + "WHERE mi.calories IS NOT NULL")
+    List<MenuItemResponse> findAllResponsesWithCalories();
+
+    @Query(ITEM_RESPONSE + "WHERE b.id = :branchId")
+    Slice<MenuItemResponse> findByBranchId(@Param("branchId") Long branchId, Pageable pageable);
+
+    @Query(ITEM_RESPONSE + "WHERE b.id = :branchId AND mi.isAvailable = true")
+    Slice<MenuItemResponse> findAvailableByBranchId(@Param("branchId") Long branchId, Pageable pageable);
     
-    @Query("SELECT mi FROM MenuItem mi JOIN mi.section ms WHERE ms.branch.id = :branchId AND mi.isAvailable = true AND LOWER(mi.name) LIKE LOWER(CONCAT('%', :nameQuery, '%'))")
-    Page<MenuItem> findAvailableByBranchIdAndNameContainingIgnoreCase(@Param("branchId") Long branchId, @Param("nameQuery") String nameQuery, Pageable pageable);
+    @Query(ITEM_RESPONSE + "WHERE b.id = :branchId AND mi.isAvailable = true AND LOWER(mi.name) LIKE LOWER(CONCAT('%', :nameQuery, '%'))")
+    Slice<MenuItemResponse> findAvailableByBranchIdAndNameContainingIgnoreCase(@Param("branchId") Long branchId, @Param("nameQuery") String nameQuery, Pageable pageable);
     
-    @Query("SELECT mi FROM MenuItem mi JOIN mi.section ms WHERE ms.branch.id = :branchId AND ms.id = :sectionId")
-    Page<MenuItem> findByBranchIdAndSectionId(@Param("branchId") Long branchId, @Param("sectionId") Long sectionId, Pageable pageable);
+    @Query(ITEM_RESPONSE + "WHERE b.id = :branchId AND ms.id = :sectionId")
+    Slice<MenuItemResponse> findByBranchIdAndSectionId(@Param("branchId") Long branchId, @Param("sectionId") Long sectionId, Pageable pageable);
     
-    @Query("SELECT mi FROM MenuItem mi JOIN mi.section ms WHERE ms.branch.id = :branchId AND ms.id = :sectionId AND mi.isAvailable = true AND (:nameQuery IS NULL OR :nameQuery = '' OR LOWER(mi.name) LIKE LOWER(CONCAT('%', :nameQuery, '%')))")
-    Page<MenuItem> findAvailableByBranchIdAndSectionIdWithSearch(@Param("branchId") Long branchId, @Param("sectionId") Long sectionId, @Param("nameQuery") String nameQuery, Pageable pageable);
+    @Query(ITEM_RESPONSE + "WHERE b.id = :branchId AND ms.id = :sectionId AND mi.isAvailable = true AND (:nameQuery IS NULL OR :nameQuery = '' OR LOWER(mi.name) LIKE LOWER(CONCAT('%', :nameQuery, '%')))")
+    Slice<MenuItemResponse> findAvailableByBranchIdAndSectionIdWithSearch(@Param("branchId") Long branchId, @Param("sectionId") Long sectionId, @Param("nameQuery") String nameQuery, Pageable pageable);
+
+    /**
+     * Number of items matching the filters of a branch listing; null filters match everything.
+     */
+    @Query(ITEM_COUNT + "WHERE ms.branch.id = :branchId AND (:sectionId IS NULL OR ms.id = :sectionId) " +
+           "AND (:availableOnly = false OR mi.isAvailable = true) " +
+           "AND (:nameQuery IS NULL OR LOWER(mi.name) LIKE LOWER(CONCAT('%', :nameQuery, '%')))")
+    long countByBranchId(@Param("branchId") Long branchId, @Param("sectionId") Long sectionId,
+                         @Param("availableOnly") boolean availableOnly, @Param("nameQuery") String nameQuery);
 
     /*
 
@@ -48,17 +97,29 @@ WHERE mi.calories = (
 )
 
      */
-    @Query(value =
-           "SELECT mi.* FROM restaurant.menu_items mi " +
-           "JOIN restaurant.menu_sections ms ON mi.section_id = ms.id " +
+    @Query(ITEM_RESPONSE +
            "WHERE mi.calories = (" +
-           "    SELECT MAX(mi2.calories) FROM restaurant.menu_items mi2 " +
-           "    WHERE mi2.section_id = mi.section_id " +
+           "    SELECT MAX(mi2.calories) FROM MenuItem mi2 " +
+           "    WHERE mi2.section = mi.section " +
            "    AND mi2.calories < (" +
-           "        SELECT MAX(mi3.calories) FROM restaurant.menu_items mi3 " +
-           "        WHERE mi3.section_id = mi.section_id" +
+           "        SELECT MAX(mi3.calories) FROM MenuItem mi3 " +
+           "        WHERE mi3.section = mi.section" +
            "    )" +
-           ")",
-           nativeQuery = true)
-    List<MenuItem> findSecondHighestCalorieMealPerCategory();
-}
\ No newline at end of file
+           ")")
+    List<MenuItemResponse> findSecondHighestCalorieMealPerCategory();
+
+    /**
+     * Same result as {@link #findSecondHighestCalorieMealPerCategory()}, ranking each section
+     * once with a window function instead of two correlated subqueries per row.
+     */
+    @Query(ITEM_RESPONSE +
+           "WHERE mi.id IN (" +
+           "    SELECT ranked.id FROM (" +
+           "        SELECT mi2.id AS id, DENSE_RANK() OVER (PARTITION BY mi2.section.id ORDER BY mi2.calories DESC) AS calorieRank " +
+           "        FROM MenuItem mi2 WHERE mi2.calories IS NOT NULL" +
+           "    ) ranked " +
+           "    WHERE ranked.calorieRank = 2" +
+           ") " +
+           "ORDER BY ms.id, mi.id")
+    List<MenuItemResponse> findSecondHighestCalorieMealPerCategoryRanked();
+}
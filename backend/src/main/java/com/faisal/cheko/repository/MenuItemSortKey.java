@@ -0,0 +1,56 @@
+package com.faisal.cheko.repository;
+
+import com.faisal.cheko.dto.MenuItemResponse;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Columns a menu item listing can be keyset-paginated by. Each is non-null and, paired with
+ * the id as a tiebreaker, gives a total order, so a page can resume right after the last row
+ * of the previous one.
+ */
+public enum MenuItemSortKey {
+
+    ID("mi.id", MenuItemResponse::getId, Long::valueOf),
+    NAME("mi.name", MenuItemResponse::getName, value -> value),
+    PRICE("mi.price", MenuItemResponse::getPrice, BigDecimal::new);
+
+    private final String path;
+    private final Function<MenuItemResponse, Object> extractor;
+    private final Function<String, Object> parser;
+
+    MenuItemSortKey(String path, Function<MenuItemResponse, Object> extractor, Function<String, Object> parser) {
+        this.path = path;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    /**
+     * @return the key for a sort parameter, or null if listings cannot be keyset-paginated by it
+     */
+    public static MenuItemSortKey fromParameter(String sort) {
+        for (MenuItemSortKey key : values()) {
+            if (key.name().toLowerCase(Locale.ROOT).equals(sort)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * JPQL path of the column, relative to the {@code mi} alias.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public Object valueOf(MenuItemResponse item) {
+        return extractor.apply(item);
+    }
+
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+}
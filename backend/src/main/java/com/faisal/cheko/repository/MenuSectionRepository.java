@@ -1,6 +1,6 @@
 package com.faisal.cheko.repository;
 
-import com.faisal.cheko.model.Branch;
+import com.faisal.cheko.dto.MenuSectionWithCountResponse;
 import com.faisal.cheko.model.MenuSection;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -12,11 +12,30 @@ import java.util.Optional;
 
 @Repository
 public interface MenuSectionRepository extends JpaRepository<MenuSection, Long>, JpaSpecificationExecutor<MenuSection> {
+
+    // Sections with their branch and item counts, all and available, in a single statement
+    String SECTION_WITH_COUNT = "SELECT new com.faisal.cheko.dto.MenuSectionWithCountResponse(" +
+            "ms.id, b.id, b.branchName, ms.name, ms.description, COUNT(mi.id), " +
+            "SUM(CASE WHEN mi.isAvailable = true THEN 1L ELSE 0L END)) " +
+            "FROM MenuSection ms JOIN ms.branch b LEFT JOIN MenuItem mi ON mi.section = ms ";
+
+    String SECTION_GROUPING = "GROUP BY ms.id, b.id, b.branchName, ms.name, ms.description ORDER BY ms.id";
+
     List<MenuSection> findByBranchId(Long branchId);
 
-    @Query("SELECT ms, COUNT(mi) FROM MenuSection ms LEFT JOIN MenuItem mi ON mi.section = ms GROUP BY ms")
-    List<Object[]> findAllWithItemCounts();
+    @Query(SECTION_WITH_COUNT + SECTION_GROUPING)
+    List<MenuSectionWithCountResponse> findAllWithItemCounts();
+
+    @Query(SECTION_WITH_COUNT + "WHERE b.id = ?1 " + SECTION_GROUPING)
+    List<MenuSectionWithCountResponse> findByBranchIdWithItemCounts(Long branchId);
+
+    @Query(SECTION_WITH_COUNT + "WHERE ms.id = ?1 " + SECTION_GROUPING)
+    Optional<MenuSectionWithCountResponse> findByIdWithItemCounts(Long sectionId);
+
+    @Query("SELECT ms.branch.id FROM MenuSection ms WHERE ms.id = ?1")
+    Optional<Long> findBranchIdById(Long sectionId);
 
-    @Query("SELECT ms, COUNT(mi) FROM MenuSection ms LEFT JOIN MenuItem mi ON mi.section = ms WHERE ms.branch.id = ?1 GROUP BY ms")
-    List<Object[]> findByBranchIdWithItemCounts(Long branchId);
-}
\ No newline at end of file
+    // Rows of [section id, branch id]
+    @Query("SELECT ms.id, ms.branch.id FROM MenuSection ms")
+    List<Object[]> findAllIdsWithBranchId();
+}
@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -27,4 +29,45 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
            "ORDER BY orderCount DESC " +
            "LIMIT :limit")
     List<Object[]> findTopOrderedItemsBySection(@Param("sectionId") Long sectionId, @Param("limit") int limit);
+
+    // Number of order lines per menu item of a branch; items never ordered are absent
+    @Query("SELECT mi.id, COUNT(oi) FROM OrderItem oi JOIN oi.menuItem mi JOIN mi.section ms " +
+           "WHERE ms.branch.id = :branchId " +
+           "GROUP BY mi.id")
+    List<Object[]> countOrdersPerItemByBranchId(@Param("branchId") Long branchId);
+
+    // Which of these order lines exist, as far as the current transaction can see
+    @Query("SELECT oi.id FROM OrderItem oi WHERE oi.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Order lines per menu item with the item's section and branch: id, section id, branch id, count
+    @Query("SELECT mi.id, ms.id, ms.branch.id, COUNT(oi) FROM OrderItem oi JOIN oi.menuItem mi JOIN mi.section ms " +
+           "GROUP BY mi.id, ms.id, ms.branch.id")
+    List<Object[]> countOrdersPerItem();
+
+    // The same, counting only orders placed since a time. The driver sends timestamps untyped,
+    // so the bound cannot be made optional with an IS NULL test; all time has its own query
+    @Query("SELECT mi.id, ms.id, ms.branch.id, COUNT(oi) FROM OrderItem oi JOIN oi.order o JOIN oi.menuItem mi JOIN mi.section ms " +
+           "WHERE o.createdAt >= :since " +
+           "GROUP BY mi.id, ms.id, ms.branch.id")
+    List<Object[]> countOrdersPerItemSince(@Param("since") ZonedDateTime since);
+
+    // Most ordered menu items of all time, optionally of one branch or section: id, count
+    @Query("SELECT mi.id, COUNT(oi) AS orderCount FROM OrderItem oi JOIN oi.menuItem mi JOIN mi.section ms " +
+           "WHERE (:branchId IS NULL OR ms.branch.id = :branchId) AND (:sectionId IS NULL OR ms.id = :sectionId) " +
+           "GROUP BY mi.id " +
+           "ORDER BY orderCount DESC, mi.id " +
+           "LIMIT :limit")
+    List<Object[]> findTopOrderedItemIds(@Param("branchId") Long branchId, @Param("sectionId") Long sectionId,
+                                         @Param("limit") int limit);
+
+    // Most ordered menu items since a time, optionally of one branch or section: id, count
+    @Query("SELECT mi.id, COUNT(oi) AS orderCount FROM OrderItem oi JOIN oi.order o JOIN oi.menuItem mi JOIN mi.section ms " +
+           "WHERE o.createdAt >= :since " +
+           "AND (:branchId IS NULL OR ms.branch.id = :branchId) AND (:sectionId IS NULL OR ms.id = :sectionId) " +
+           "GROUP BY mi.id " +
+           "ORDER BY orderCount DESC, mi.id " +
+           "LIMIT :limit")
+    List<Object[]> findTopOrderedItemIdsSince(@Param("since") ZonedDateTime since, @Param("branchId") Long branchId,
+                                              @Param("sectionId") Long sectionId, @Param("limit") int limit);
 }
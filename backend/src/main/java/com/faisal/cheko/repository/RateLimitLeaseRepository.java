@@ -0,0 +1,103 @@
+package com.faisal.cheko.repository;
+
+import com.faisal.cheko.ratelimit.LeaseGrant;
+import com.faisal.cheko.ratelimit.TokenLeaseStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Postgres-backed {@link TokenLeaseStore} for cluster-wide rate limiting.
+ * Every statement is a single round trip that locks at most one bucket row.
+ */
+@Repository
+public class RateLimitLeaseRepository implements TokenLeaseStore {
+
+    // Refill the bucket up to now, take up to a batch of whole tokens and record the lease, all in one statement
+    private static final String ACQUIRE_SQL =
+            "WITH cur AS (" +
+            "    SELECT bucket_key, LEAST(?, tokens + EXTRACT(EPOCH FROM (now() - refilled_at)) * ?) AS available " +
+            "    FROM restaurant.rate_limit_buckets WHERE bucket_key = ? FOR UPDATE" +
+            "), granted AS (" +
+            "    UPDATE restaurant.rate_limit_buckets b " +
+            "    SET tokens = cur.available - LEAST(?, FLOOR(cur.available)), refilled_at = now(), " +
+            "        capacity = ?, refill_per_second = ? " +
+            "    FROM cur WHERE b.bucket_key = cur.bucket_key AND cur.available >= ? " +
+            "    RETURNING b.bucket_key, LEAST(?, FLOOR(cur.available))::int AS tokens, b.tokens AS remaining" +
+            ") " +
+            "INSERT INTO restaurant.rate_limit_leases (bucket_key, node_id, tokens, expires_at) " +
+            "SELECT bucket_key, ?, tokens, now() + make_interval(secs => ?) FROM granted " +
+            "RETURNING id, tokens, (SELECT remaining FROM granted) AS remaining";
+
+    private static final String CREATE_BUCKET_SQL =
+            "INSERT INTO restaurant.rate_limit_buckets (bucket_key, tokens, capacity, refill_per_second, refilled_at) " +
+            "VALUES (?, ?, ?, ?, now()) ON CONFLICT (bucket_key) DO NOTHING";
+
+    // Drop the lease and give its unspent tokens back; a lease already reclaimed is left alone
+    private static final String RELEASE_SQL =
+            "WITH released AS (" +
+            "    DELETE FROM restaurant.rate_limit_leases WHERE id = ? RETURNING bucket_key" +
+            ") " +
+            "UPDATE restaurant.rate_limit_buckets b SET tokens = LEAST(b.capacity, b.tokens + ?) " +
+            "FROM released WHERE b.bucket_key = released.bucket_key";
+
+    // Leases of nodes that stopped settling are dropped without a refund, as any of their tokens may have been spent
+    private static final String RECLAIM_SQL =
+            "DELETE FROM restaurant.rate_limit_leases WHERE expires_at < now() - make_interval(secs => ?)";
+
+    // A bucket that has refilled to capacity and has no open lease is the same as a missing one
+    private static final String DELETE_FULL_BUCKETS_SQL =
+            "DELETE FROM restaurant.rate_limit_buckets b " +
+            "WHERE b.tokens + EXTRACT(EPOCH FROM (now() - b.refilled_at)) * b.refill_per_second >= b.capacity " +
+            "AND NOT EXISTS (SELECT 1 FROM restaurant.rate_limit_leases l WHERE l.bucket_key = b.bucket_key)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public RateLimitLeaseRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<LeaseGrant> acquire(String bucketKey, String nodeId, int capacity, double refillPerSecond,
+                                        int batch, int minimum, Duration ttl) {
+        List<LeaseGrant> grants = jdbcTemplate.query(ACQUIRE_SQL,
+                (rs, rowNum) -> new LeaseGrant(rs.getLong("id"), rs.getInt("tokens"), rs.getDouble("remaining")),
+                capacity, refillPerSecond, bucketKey,
+                batch, capacity, refillPerSecond, minimum,
+                batch, nodeId, ttl.toMillis() / 1000.0);
+        return grants.stream().findFirst();
+    }
+
+    @Override
+    public boolean createBucketIfAbsent(String bucketKey, int capacity, double refillPerSecond) {
+        return jdbcTemplate.update(CREATE_BUCKET_SQL, bucketKey, capacity, capacity, refillPerSecond) > 0;
+    }
+
+    @Override
+    public void releaseAll(List<long[]> releases) {
+        if (releases.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(releases.size());
+        for (long[] release : releases) {
+            args.add(new Object[]{release[0], release[1]});
+        }
+        jdbcTemplate.batchUpdate(RELEASE_SQL, args);
+    }
+
+    @Override
+    public int reclaimExpired(Duration grace) {
+        return jdbcTemplate.update(RECLAIM_SQL, grace.toMillis() / 1000.0);
+    }
+
+    @Override
+    public int deleteFullBuckets() {
+        return jdbcTemplate.update(DELETE_FULL_BUCKETS_SQL);
+    }
+}
@@ -0,0 +1,216 @@
+package com.faisal.cheko.schedule;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A branch's opening hours compiled into a sorted table of minute-of-week intervals, so
+ * whether the branch is open at a given instant is a binary search.
+ * <p>
+ * The source is the {@code opening_hours} jsonb: day names mapped to {@code {"open": "HH:mm",
+ * "close": "HH:mm"}}, or to a list of them for split shifts, plus an optional
+ * {@code "timezone"} holding a zone id. A closing time at or before the opening time runs past
+ * midnight into the next day, and Sunday night spans wrap to Monday morning. Days that are
+ * missing or null are closed. Times are wall-clock times in the schedule's zone, or in the
+ * fallback zone the caller passes when the hours name none.
+ * <p>
+ * Instances are immutable.
+ */
+public final class OpeningSchedule {
+
+    public static final OpeningSchedule EMPTY = new OpeningSchedule(new int[0], new int[0], null);
+
+    private static final String TIMEZONE = "timezone";
+    private static final String OPEN = "open";
+    private static final String CLOSE = "close";
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    // Disjoint, non-adjacent [start, end) minutes from Monday 00:00, sorted by start
+    private final int[] starts;
+    private final int[] ends;
+    private final ZoneId zone;
+
+    private OpeningSchedule(int[] starts, int[] ends, ZoneId zone) {
+        this.starts = starts;
+        this.ends = ends;
+        this.zone = zone;
+    }
+
+    /**
+     * Compile opening hours, rejecting anything malformed.
+     *
+     * @throws IllegalArgumentException naming the first malformed entry
+     */
+    public static OpeningSchedule compile(Map<String, Object> openingHours) {
+        if (openingHours == null || openingHours.isEmpty()) {
+            return EMPTY;
+        }
+        ZoneId zone = null;
+        List<int[]> intervals = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : openingHours.entrySet()) {
+            String key = entry.getKey().trim().toLowerCase(Locale.ROOT);
+            if (TIMEZONE.equals(key)) {
+                zone = parseZone(entry.getValue());
+                continue;
+            }
+            DayOfWeek day = parseDay(key);
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            Collection<?> shifts = value instanceof Collection ? (Collection<?>) value : Arrays.asList(value);
+            for (Object shift : shifts) {
+                addShift(intervals, day, key, shift);
+            }
+        }
+        return merge(intervals, zone);
+    }
+
+    /**
+     * Like {@link #compile}, but opening hours that cannot be compiled give a schedule that is
+     * never open, so a bad row cannot fail a read.
+     */
+    public static OpeningSchedule compileLeniently(Map<String, Object> openingHours) {
+        try {
+            return compile(openingHours);
+        } catch (IllegalArgumentException e) {
+            return EMPTY;
+        }
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * The zone the hours are in, or {@code fallbackZone} when they name none.
+     */
+    public ZoneId zone(ZoneId fallbackZone) {
+        return zone != null ? zone : fallbackZone;
+    }
+
+    public boolean isOpenAt(Instant instant, ZoneId fallbackZone) {
+        if (starts.length == 0) {
+            return false;
+        }
+        int minute = minuteOfWeek(instant.atZone(zone(fallbackZone)));
+        int index = lastStartAtOrBefore(minute);
+        return index >= 0 && minute < ends[index];
+    }
+
+    /**
+     * When the branch next opens after the instant, in the schedule's zone, or null when it
+     * never opens or never closes.
+     */
+    public ZonedDateTime nextOpeningAfter(Instant instant, ZoneId fallbackZone) {
+        if (starts.length == 0) {
+            return null;
+        }
+        ZoneId resolvedZone = zone(fallbackZone);
+        ZonedDateTime local = instant.atZone(resolvedZone);
+        int minute = minuteOfWeek(local);
+        int next = lastStartAtOrBefore(minute) + 1;
+        int weeksAhead = 0;
+        if (next == starts.length) {
+            next = 0;
+            weeksAhead = 1;
+        }
+        if (next == 0 && ends[ends.length - 1] == MINUTES_PER_WEEK && starts[0] == 0) {
+            // Monday 00:00 continues Sunday night's opening rather than starting one
+            if (starts.length == 1) {
+                return null;
+            }
+            next = 1;
+        }
+        LocalDateTime weekStart = local.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+        LocalDateTime opening = weekStart.plusDays(7L * weeksAhead).plusMinutes(starts[next]);
+        // A wall-clock time skipped by a DST change resolves to just after the gap
+        return ZonedDateTime.of(opening, resolvedZone);
+    }
+
+    private int lastStartAtOrBefore(int minute) {
+        int index = Arrays.binarySearch(starts, minute);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static int minuteOfWeek(ZonedDateTime local) {
+        return (local.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + local.getHour() * 60 + local.getMinute();
+    }
+
+    private static void addShift(List<int[]> intervals, DayOfWeek day, String key, Object shift) {
+        if (!(shift instanceof Map)) {
+            throw new IllegalArgumentException("Opening hours for " + key + " must have 'open' and 'close' times");
+        }
+        Map<?, ?> times = (Map<?, ?>) shift;
+        int open = parseTime(times.get(OPEN), key);
+        int close = parseTime(times.get(CLOSE), key);
+        int start = (day.getValue() - 1) * MINUTES_PER_DAY + open;
+        // Closing at or before opening runs into the next day; equal times mean open all day
+        int end = start + (close > open ? close - open : close + MINUTES_PER_DAY - open);
+        if (end <= MINUTES_PER_WEEK) {
+            intervals.add(new int[]{start, end});
+        } else {
+            intervals.add(new int[]{start, MINUTES_PER_WEEK});
+            intervals.add(new int[]{0, end - MINUTES_PER_WEEK});
+        }
+    }
+
+    private static OpeningSchedule merge(List<int[]> intervals, ZoneId zone) {
+        intervals.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] starts = new int[intervals.size()];
+        int[] ends = new int[intervals.size()];
+        int size = 0;
+        for (int[] interval : intervals) {
+            if (size > 0 && interval[0] <= ends[size - 1]) {
+                ends[size - 1] = Math.max(ends[size - 1], interval[1]);
+            } else {
+                starts[size] = interval[0];
+                ends[size] = interval[1];
+                size++;
+            }
+        }
+        return new OpeningSchedule(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), zone);
+    }
+
+    private static DayOfWeek parseDay(String key) {
+        try {
+            return DayOfWeek.valueOf(key.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown day '" + key + "' in opening hours");
+        }
+    }
+
+    private static int parseTime(Object value, String key) {
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Opening hours for " + key + " must have 'open' and 'close' times");
+        }
+        try {
+            LocalTime time = LocalTime.parse(((String) value).trim());
+            return time.getHour() * 60 + time.getMinute();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time '" + value + "' for " + key + " in opening hours, expected HH:mm");
+        }
+    }
+
+    private static ZoneId parseZone(Object value) {
+        try {
+            return ZoneId.of(String.valueOf(value).trim());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unknown timezone '" + value + "' in opening hours");
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.faisal.cheko.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable compressed prefix trie (radix tree) answering "which documents start with this
+ * prefix", with the best completions of every node computed up front.
+ * <p>
+ * Every document contributes its {@link TextNormalizer normalized} name and each of its word
+ * starts, so {@code bur} completes both "Burger" and "Classic Burger". Chains of single-child
+ * nodes are collapsed into one edge whose label is a slice of a shared character pool, and
+ * the whole tree lives in a handful of int arrays: no node objects, no per-edge strings.
+ * <p>
+ * Each node stores the ids of its {@code maxCompletions} best documents in rank order, so a
+ * lookup walks at most the length of the prefix and copies a precomputed list.
+ */
+public final class PrefixTrie {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final String pool;
+    // Per node: label slice of the incoming edge, children range, completions range
+    private final int[] labelStart;
+    private final int[] labelLength;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] completionStart;
+    private final int[] completionCount;
+    private final int[] completions;
+    private final int keyCount;
+
+    /**
+     * @param names          document names; the document id is the position in the list
+     * @param rank           orders documents best first, applied to document ids
+     * @param maxCompletions completions kept per node, the most a lookup can return
+     */
+    public PrefixTrie(List<String> names, Comparator<Integer> rank, int maxCompletions) {
+        List<Key> keys = new ArrayList<>();
+        for (int doc = 0; doc < names.size(); doc++) {
+            String name = TextNormalizer.normalize(names.get(doc));
+            Set<String> suffixes = new LinkedHashSet<>();
+            for (int i = 0; i < name.length(); i++) {
+                if (i == 0 || name.charAt(i - 1) == ' ') {
+                    suffixes.add(name.substring(i));
+                }
+            }
+            for (String suffix : suffixes) {
+                keys.add(new Key(suffix, doc));
+            }
+        }
+        keys.sort(Comparator.comparing((Key key) -> key.text).thenComparingInt(key -> key.doc));
+        this.keyCount = keys.size();
+
+        StringBuilder poolBuilder = new StringBuilder();
+        int[] keyOffset = new int[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            keyOffset[i] = poolBuilder.length();
+            poolBuilder.append(keys.get(i).text);
+        }
+        this.pool = poolBuilder.toString();
+
+        Builder builder = new Builder(keys, keyOffset, rank, maxCompletions);
+        builder.build();
+        this.labelStart = builder.labelStart.toArray();
+        this.labelLength = builder.labelLength.toArray();
+        this.firstChild = builder.firstChild.toArray();
+        this.childCount = builder.childCount.toArray();
+        this.completionStart = builder.completionStart.toArray();
+        this.completionCount = builder.completionCount.toArray();
+        this.completions = builder.completions.toArray();
+    }
+
+    /**
+     * Best documents having a name or name word that starts with the prefix, at most
+     * {@code limit} of them. An empty prefix matches nothing.
+     */
+    public int[] complete(String prefix, int limit) {
+        String needle = TextNormalizer.normalize(prefix);
+        if (needle.isEmpty() || limit <= 0) {
+            return EMPTY;
+        }
+        int node = 0;
+        int matched = 0;
+        while (matched < needle.length()) {
+            int child = findChild(node, needle.charAt(matched));
+            if (child < 0) {
+                return EMPTY;
+            }
+            int length = Math.min(labelLength[child], needle.length() - matched);
+            if (!pool.regionMatches(labelStart[child], needle, matched, length)) {
+                return EMPTY;
+            }
+            matched += length;
+            node = child;
+        }
+        int count = Math.min(limit, completionCount[node]);
+        return Arrays.copyOfRange(completions, completionStart[node], completionStart[node] + count);
+    }
+
+    public int getNodeCount() {
+        return labelStart.length;
+    }
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Approximate heap size of the trie: the character pool and the node and completion arrays.
+     */
+    public long getEstimatedBytes() {
+        long arrays = 6L * (16 + 4L * labelStart.length) + 16 + 4L * completions.length;
+        return 40 + (16 + 2L * pool.length()) + arrays;
+    }
+
+    private int findChild(int node, char c) {
+        // Children are sorted by the first character of their label
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char first = pool.charAt(labelStart[mid]);
+            if (first < c) {
+                low = mid + 1;
+            } else if (first > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Key {
+        private final String text;
+        private final int doc;
+
+        private Key(String text, int doc) {
+            this.text = text;
+            this.doc = doc;
+        }
+    }
+
+    /**
+     * Lays the tree out breadth first, so the children of a node occupy consecutive slots.
+     */
+    private static final class Builder {
+        private final List<Key> keys;
+        private final int[] keyOffset;
+        private final Comparator<Integer> rank;
+        private final int maxCompletions;
+
+        private final IntList labelStart = new IntList();
+        private final IntList labelLength = new IntList();
+        private final IntList firstChild = new IntList();
+        private final IntList childCount = new IntList();
+        private final IntList completionStart = new IntList();
+        private final IntList completionCount = new IntList();
+        private final IntList completions = new IntList();
+
+        private Builder(List<Key> keys, int[] keyOffset, Comparator<Integer> rank, int maxCompletions) {
+            this.keys = keys;
+            this.keyOffset = keyOffset;
+            this.rank = rank;
+            this.maxCompletions = maxCompletions;
+        }
+
+        private void build() {
+            // Pending node: its slot, the sorted key range below it and the matched depth
+            Deque<int[]> pending = new ArrayDeque<>();
+            addNode(0, 0);
+            pending.add(new int[]{0, 0, keys.size(), 0});
+            while (!pending.isEmpty()) {
+                int[] next = pending.poll();
+                int node = next[0];
+                int from = next[1];
+                int to = next[2];
+                int depth = next[3];
+                setCompletions(node, from, to);
+
+                firstChild.set(node, labelStart.size());
+                int start = from;
+                while (start < to && keys.get(start).text.length() == depth) {
+                    // Keys ending here are covered by this node's completions
+                    start++;
+                }
+                int children = 0;
+                while (start < to) {
+                    char c = keys.get(start).text.charAt(depth);
+                    int end = start + 1;
+                    while (end < to && keys.get(end).text.charAt(depth) == c) {
+                        end++;
+                    }
+                    int common = commonPrefix(keys.get(start).text, keys.get(end - 1).text);
+                    int child = addNode(keyOffset[start] + depth, common - depth);
+                    pending.add(new int[]{child, start, end, common});
+                    children++;
+                    start = end;
+                }
+                childCount.set(node, children);
+            }
+        }
+
+        private int addNode(int start, int length) {
+            labelStart.add(start);
+            labelLength.add(length);
+            firstChild.add(0);
+            childCount.add(0);
+            completionStart.add(0);
+            completionCount.add(0);
+            return labelStart.size() - 1;
+        }
+
+        private void setCompletions(int node, int from, int to) {
+            List<Integer> docs = new ArrayList<>(new LinkedHashSet<>(docsOf(from, to)));
+            docs.sort(rank);
+            int count = Math.min(maxCompletions, docs.size());
+            completionStart.set(node, completions.size());
+            completionCount.set(node, count);
+            for (int i = 0; i < count; i++) {
+                completions.add(docs.get(i));
+            }
+        }
+
+        private List<Integer> docsOf(int from, int to) {
+            List<Integer> docs = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                docs.add(keys.get(i).doc);
+            }
+            return docs;
+        }
+
+        private static int commonPrefix(String a, String b) {
+            int length = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < length && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void set(int index, int value) {
+            values[index] = value;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
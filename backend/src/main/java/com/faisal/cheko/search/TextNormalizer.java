@@ -0,0 +1,92 @@
+package com.faisal.cheko.search;
+
+import java.text.Normalizer;
+
+/**
+ * Folds text into the form the search index compares: lower case, no diacritics, and one
+ * spelling for letters that users type interchangeably.
+ * <p>
+ * Latin: accents are stripped after compatibility decomposition (so {@code Crème} and
+ * {@code creme} agree, as do ligatures and full-width forms), and letters that do not
+ * decompose ({@code ß}, {@code æ}, {@code ø}, ...) are spelled out.
+ * <p>
+ * Arabic: harakat and tatweel are dropped, hamza forms of alef, waw and yeh fold to the bare
+ * letter, alef wasla to alef, alef maksura to yeh, teh marbuta to heh, and Persian kaf and
+ * yeh to their Arabic forms. Arabic-Indic digits become ASCII digits.
+ * <p>
+ * Anything that is not a letter or digit becomes a single space.
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); ) {
+            int cp = decomposed.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (Character.getType(cp) == Character.NON_SPACING_MARK || cp == 0x0640) {
+                // Accents, harakat, hamza above/below left over from decomposition, tatweel
+                continue;
+            }
+            String folded = fold(Character.toLowerCase(cp));
+            if (folded == null) {
+                pendingSpace = out.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            out.append(folded);
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return the folded spelling of a lower-case code point, or null if it separates words
+     */
+    private static String fold(int cp) {
+        switch (cp) {
+            case 0x0671: // alef wasla
+                return "ا";
+            case 0x0649: // alef maksura
+            case 0x06CC: // farsi yeh
+                return "ي";
+            case 0x0629: // teh marbuta
+                return "ه";
+            case 0x06A9: // keheh
+                return "ك";
+            case 'ß':
+                return "ss";
+            case 'æ':
+                return "ae";
+            case 'œ':
+                return "oe";
+            case 'ø':
+                return "o";
+            case 'đ':
+                return "d";
+            case 'ł':
+                return "l";
+            case 'ı':
+                return "i";
+            default:
+                break;
+        }
+        if (cp >= 0x0660 && cp <= 0x0669) {
+            return String.valueOf((char) ('0' + cp - 0x0660));
+        }
+        if (cp >= 0x06F0 && cp <= 0x06F9) {
+            return String.valueOf((char) ('0' + cp - 0x06F0));
+        }
+        return Character.isLetterOrDigit(cp) ? new String(Character.toChars(cp)) : null;
+    }
+}
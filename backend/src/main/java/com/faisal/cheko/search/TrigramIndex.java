@@ -0,0 +1,240 @@
+package com.faisal.cheko.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable trigram inverted index over documents with a name and a description.
+ * <p>
+ * Both fields are {@link TextNormalizer normalized} and split into words; every word
+ * contributes its trigrams, padded the way {@code pg_trgm} pads them (two spaces before, one
+ * after), to a postings list per field. A search:
+ * <ol>
+ *     <li>intersects the postings of the query's trigrams to find candidates and keeps those
+ *     whose normalized text really contains the query, i.e. substring matching that ignores
+ *     case and diacritics;</li>
+ *     <li>only if nothing matches exactly, falls back to names sharing at least
+ *     {@link #FUZZY_THRESHOLD} of the query's padded trigrams, which tolerates a missing,
+ *     extra or swapped letter or two.</li>
+ * </ol>
+ * Hits are ranked: an exact name before a name prefix, a word start, a name substring and
+ * then a description match; fuzzy hits by trigram similarity, after all exact ones.
+ */
+public final class TrigramIndex {
+
+    // Share of the query's trigrams a name must contain to count as a typo-tolerant match
+    static final double FUZZY_THRESHOLD = 0.5;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final String[] names;
+    private final String[] descriptions;
+    private final Map<Long, int[]> namePostings;
+    private final Map<Long, int[]> descriptionPostings;
+
+    /**
+     * @param names        document names; the document id is the position in the list
+     * @param descriptions document descriptions, same order, entries may be null
+     */
+    public TrigramIndex(List<String> names, List<String> descriptions) {
+        int size = names.size();
+        this.names = new String[size];
+        this.descriptions = new String[size];
+        Map<Long, List<Integer>> nameLists = new HashMap<>();
+        Map<Long, List<Integer>> descriptionLists = new HashMap<>();
+        for (int doc = 0; doc < size; doc++) {
+            this.names[doc] = TextNormalizer.normalize(names.get(doc));
+            this.descriptions[doc] = TextNormalizer.normalize(descriptions.get(doc));
+            addPostings(nameLists, doc, this.names[doc]);
+            addPostings(descriptionLists, doc, this.descriptions[doc]);
+        }
+        this.namePostings = freeze(nameLists);
+        this.descriptionPostings = freeze(descriptionLists);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Find the documents matching a query, best first. An empty query matches nothing.
+     */
+    public List<Hit> search(String query) {
+        String needle = TextNormalizer.normalize(query);
+        if (needle.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        int[] nameCandidates = candidates(namePostings, needle);
+        int[] descriptionCandidates = candidates(descriptionPostings, needle);
+        Set<Integer> matched = new HashSet<>();
+        for (int doc : nameCandidates) {
+            double score = nameScore(names[doc], needle);
+            if (score > 0) {
+                hits.add(new Hit(doc, score, true));
+                matched.add(doc);
+            }
+        }
+        for (int doc : descriptionCandidates) {
+            if (!matched.contains(doc) && descriptions[doc].contains(needle)) {
+                boolean wordStart = descriptions[doc].startsWith(needle) || descriptions[doc].contains(" " + needle);
+                hits.add(new Hit(doc, (wordStart ? 200 : 100) - lengthPenalty(names[doc]), true));
+            }
+        }
+        if (hits.isEmpty()) {
+            hits = fuzzy(needle);
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getScore).reversed().thenComparingInt(Hit::getDocument));
+        return hits;
+    }
+
+    private static double nameScore(String name, String needle) {
+        double score;
+        if (name.equals(needle)) {
+            score = 1000;
+        } else if (name.startsWith(needle)) {
+            score = 800;
+        } else if (name.contains(" " + needle)) {
+            score = 600;
+        } else if (name.contains(needle)) {
+            score = 400;
+        } else {
+            return 0;
+        }
+        return score - lengthPenalty(name);
+    }
+
+    // Among equal matches, shorter names are closer to what was typed
+    private static double lengthPenalty(String name) {
+        return Math.min(name.length(), 99) / 100.0;
+    }
+
+    private List<Hit> fuzzy(String needle) {
+        Set<Long> wanted = new HashSet<>();
+        for (String word : needle.split(" ")) {
+            paddedTrigrams(word, wanted);
+        }
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (long trigram : wanted) {
+            for (int doc : namePostings.getOrDefault(trigram, EMPTY)) {
+                shared.merge(doc, 1, Integer::sum);
+            }
+        }
+        List<Hit> hits = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+            double similarity = entry.getValue() / (double) wanted.size();
+            if (similarity >= FUZZY_THRESHOLD) {
+                hits.add(new Hit(entry.getKey(), similarity * 100 - lengthPenalty(names[entry.getKey()]), false));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Documents containing every inner trigram of every query word; when the query has no
+     * word of three letters or more, every document.
+     */
+    private int[] candidates(Map<Long, int[]> postings, String needle) {
+        int[] result = null;
+        for (String word : needle.split(" ")) {
+            for (int i = 0; i + 3 <= word.length(); i++) {
+                int[] docs = postings.getOrDefault(trigram(word.charAt(i), word.charAt(i + 1), word.charAt(i + 2)), EMPTY);
+                result = result == null ? docs : intersect(result, docs);
+                if (result.length == 0) {
+                    return result;
+                }
+            }
+        }
+        if (result == null) {
+            result = new int[names.length];
+            Arrays.setAll(result, i -> i);
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static void addPostings(Map<Long, List<Integer>> postings, int doc, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        Set<Long> trigrams = new HashSet<>();
+        for (String word : text.split(" ")) {
+            paddedTrigrams(word, trigrams);
+        }
+        for (long trigram : trigrams) {
+            postings.computeIfAbsent(trigram, t -> new ArrayList<>()).add(doc);
+        }
+    }
+
+    private static void paddedTrigrams(String word, Set<Long> into) {
+        String padded = "  " + word + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            into.add(trigram(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)));
+        }
+    }
+
+    private static long trigram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    // Documents are added in id order, so every postings list is already sorted
+    private static Map<Long, int[]> freeze(Map<Long, List<Integer>> lists) {
+        Map<Long, int[]> frozen = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<Long, List<Integer>> entry : lists.entrySet()) {
+            frozen.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return frozen;
+    }
+
+    public static final class Hit {
+        private final int document;
+        private final double score;
+        private final boolean exact;
+
+        private Hit(int document, double score, boolean exact) {
+            this.document = document;
+            this.score = score;
+            this.exact = exact;
+        }
+
+        public int getDocument() {
+            return document;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * Whether the document contains the query, as opposed to a typo-tolerant match.
+         */
+        public boolean isExact() {
+            return exact;
+        }
+    }
+}
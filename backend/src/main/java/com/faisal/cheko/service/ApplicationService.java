@@ -2,9 +2,11 @@ package com.faisal.cheko.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -13,6 +15,13 @@ public class ApplicationService {
 
     private static final Logger log = LoggerFactory.getLogger(ApplicationService.class);
 
+    private final List<MetricsContributor> metricsContributors;
+
+    @Autowired
+    public ApplicationService(List<MetricsContributor> metricsContributors) {
+        this.metricsContributors = metricsContributors;
+    }
+
     public Map<String, Object> getApplicationStatus() {
         log.info("Retrieving application status");
         
@@ -32,6 +41,10 @@ public class ApplicationService {
         metrics.put("memory", Runtime.getRuntime().totalMemory() / (1024 * 1024) + "MB");
         metrics.put("processors", Runtime.getRuntime().availableProcessors());
         metrics.put("uptime", System.currentTimeMillis());
+
+        for (MetricsContributor contributor : metricsContributors) {
+            metrics.put(contributor.getMetricsName(), contributor.getMetrics());
+        }
         
         return metrics;
     }
@@ -1,14 +1,26 @@
 package com.faisal.cheko.service;
 
+import com.faisal.cheko.dto.BranchMenuResponse;
 import com.faisal.cheko.dto.BranchRequest;
 import com.faisal.cheko.dto.BranchResponse;
+import com.faisal.cheko.dto.MenuImportReport;
+import com.faisal.cheko.exporter.ExportFormat;
+import com.faisal.cheko.importer.MenuImportFormat;
 import org.locationtech.jts.geom.Point;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
 
 
 public interface BranchService {
 
-    List<BranchResponse> getAllBranches();
+    List<BranchResponse> getAllBranches(Instant openAt);
+    List<BranchResponse> getNearbyBranches(double latitude, double longitude, double radiusMeters, int limit, boolean activeOnly,
+                                           Instant openAt);
     BranchResponse createBranch(BranchRequest branchRequest);
+    BranchMenuResponse getBranchMenu(Long branchId, boolean availableOnly);
+    MenuImportReport importMenu(Long branchId, MenuImportFormat format, InputStream input);
+    StreamingResponseBody exportMenu(Long branchId, boolean availableOnly, ExportFormat format);
 }
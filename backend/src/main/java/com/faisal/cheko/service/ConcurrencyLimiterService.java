@@ -0,0 +1,71 @@
+package com.faisal.cheko.service;
+
+import com.faisal.cheko.concurrency.AimdLimit;
+import com.faisal.cheko.concurrency.ConcurrencyLimiter;
+import com.faisal.cheko.concurrency.GradientLimit;
+import com.faisal.cheko.concurrency.LimitAlgorithm;
+import com.faisal.cheko.config.ConcurrencyLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+
+@Service
+public class ConcurrencyLimiterService implements MetricsContributor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrencyLimiterService.class);
+
+    private final ConcurrencyLimitProperties properties;
+    private final ConcurrencyLimiter limiter;
+
+    @Autowired
+    public ConcurrencyLimiterService(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limiter = new ConcurrencyLimiter(createAlgorithm(), properties.getInitialLimit(),
+                properties.getMinLimit(), properties.getMaxLimit());
+
+        log.info("Adaptive concurrency limit {} using the {} algorithm, starting at {}",
+                properties.isEnabled() ? "enabled" : "disabled", properties.getAlgorithm(), limiter.getLimit());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Admit a request if the current concurrency limit allows it.
+     *
+     * @return a permit to release when the request finishes, or empty if the request should be shed
+     */
+    public Optional<ConcurrencyLimiter.Permit> tryAcquire() {
+        return limiter.tryAcquire();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "concurrencyLimiter";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", properties.isEnabled());
+        metrics.putAll(limiter.getMetrics());
+        return metrics;
+    }
+
+    private LimitAlgorithm createAlgorithm() {
+        if (properties.getAlgorithm() == ConcurrencyLimitProperties.Algorithm.AIMD) {
+            ConcurrencyLimitProperties.Aimd aimd = properties.getAimd();
+            return new AimdLimit(aimd.getBackoffRatio(), aimd.getTimeout());
+        }
+        ConcurrencyLimitProperties.Gradient gradient = properties.getGradient();
+        return new GradientLimit(gradient.getTolerance(), gradient.getSmoothing(),
+                gradient.getShortWindow(), gradient.getLongWindow());
+    }
+}
@@ -0,0 +1,9 @@
+package com.faisal.cheko.service;
+
+import com.faisal.cheko.dto.CustomerAssignmentReport;
+
+
+public interface CustomerService {
+
+    CustomerAssignmentReport assignNearestBranches(int k);
+}
@@ -1,18 +1,25 @@
 package com.faisal.cheko.service;
 
+import com.faisal.cheko.dto.CursorPageResponse;
 import com.faisal.cheko.dto.MenuItemRequest;
 import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.MenuItemSuggestionResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 public interface MenuItemService {
     Page<MenuItemResponse> getMenuItemsBySectionIdPaginated(Long sectionId, Pageable pageable);
-    Page<MenuItemResponse> getMenuItemsByBranchIdAndBySectionIdPaginated(Long branchId, Long sectionId, Pageable pageable);
-    Page<MenuItemResponse> getMenuItemsByBranchIdPaginated(Long branchId, Pageable pageable);
-    Page<MenuItemResponse> getAvailableMenuItemsByBranchIdPaginated(Long branchId, String nameQuery, Pageable pageable);
-    Page<MenuItemResponse> getAvailableMenuItemsByBranchIdAndBySectionIdPaginated(Long branchId, Long sectionId, String nameQuery, Pageable pageable);
+    // With includeTotal the result is a Page carrying the total; otherwise a Slice, and no count is run
+    Slice<MenuItemResponse> getMenuItemsByBranchIdAndBySectionIdPaginated(Long branchId, Long sectionId, Pageable pageable, boolean includeTotal);
+    Slice<MenuItemResponse> getMenuItemsByBranchIdPaginated(Long branchId, Pageable pageable, boolean includeTotal);
+    Slice<MenuItemResponse> getAvailableMenuItemsByBranchIdPaginated(Long branchId, String nameQuery, Pageable pageable, boolean includeTotal);
+    Slice<MenuItemResponse> getAvailableMenuItemsByBranchIdAndBySectionIdPaginated(Long branchId, Long sectionId, String nameQuery, Pageable pageable, boolean includeTotal);
+    CursorPageResponse<MenuItemResponse> getMenuItemsByBranchIdAfterCursor(Long branchId, Long sectionId, boolean availableOnly, String nameQuery,
+                                                                           String sort, String direction, String cursor, int size);
     List<MenuItemResponse> getSecondHighestCalorieMealPerCategory();
+    List<MenuItemSuggestionResponse> getMenuItemSuggestions(Long branchId, String prefix, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.faisal.cheko.service;
+
+import java.util.Map;
+
+/**
+ * Component that publishes its own figures on the {@code /api/metrics} endpoint.
+ * Every bean implementing this interface is picked up by {@link ApplicationService}.
+ */
+public interface MetricsContributor {
+
+    /**
+     * Key under which the metrics appear in the response.
+     */
+    String getMetricsName();
+
+    Map<String, Object> getMetrics();
+}
@@ -1,6 +1,10 @@
 package com.faisal.cheko.service;
 
+import com.faisal.cheko.dto.PopularItemResponse;
+
+import java.util.List;
 
-public interface OrderItemService {
 
-}
\ No newline at end of file
+public interface OrderItemService {
+    List<PopularItemResponse> getPopularItems(String window, Long branchId, Long sectionId, int limit);
+}
@@ -1,5 +1,12 @@
 package com.faisal.cheko.service;
 
+import com.faisal.cheko.exporter.ExportFormat;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.OffsetDateTime;
+
 
 public interface OrderService {
-}
\ No newline at end of file
+
+    StreamingResponseBody exportOrders(Long branchId, OffsetDateTime from, OffsetDateTime to, ExportFormat format);
+}
@@ -1,99 +1,190 @@
 package com.faisal.cheko.service;
 
+import com.faisal.cheko.config.RateLimitProperties;
+import com.faisal.cheko.ratelimit.ClusterRateLimiterBackend;
+import com.faisal.cheko.ratelimit.ExactRateLimiterBackend;
+import com.faisal.cheko.ratelimit.RateLimitPolicy;
+import com.faisal.cheko.ratelimit.RateLimitResult;
+import com.faisal.cheko.ratelimit.RateLimiterBackend;
+import com.faisal.cheko.ratelimit.RoutePolicyMatcher;
+import com.faisal.cheko.ratelimit.SketchRateLimiterBackend;
+import com.faisal.cheko.ratelimit.TokenLeaseStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 @Service
-public class RateLimiterService {
+public class RateLimiterService implements MetricsContributor {
 
     private static final Logger log = LoggerFactory.getLogger(RateLimiterService.class);
-    private static final int DEFAULT_CAPACITY = 20;  // Maximum number of tokens
-    private static final int DEFAULT_REFILL_TOKENS = 1;  // Tokens to add per refill
-    private static final Duration DEFAULT_REFILL_PERIOD = Duration.ofSeconds(1);  // Refill period
-    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private static final String DEFAULT_POLICY_NAME = "default";
 
-    public boolean allowRequest(String clientIp) {
-        // Get or create a token bucket for this client
-        TokenBucket bucket = buckets.computeIfAbsent(clientIp, 
-                ip -> new TokenBucket(DEFAULT_CAPACITY, DEFAULT_REFILL_TOKENS, DEFAULT_REFILL_PERIOD));
-        
-        // Try to consume a token
-        boolean allowed = bucket.tryConsume();
-        
-        if (!allowed) {
-            log.warn("Rate limit exceeded for client IP: {}", clientIp);
+    private final RateLimitProperties properties;
+    private final TokenLeaseStore leaseStore;
+    private final String nodeId;
+    private final List<RateLimitPolicy> policies = new ArrayList<>();
+    private final RoutePolicyMatcher matcher;
+
+    @Autowired
+    public RateLimiterService(RateLimitProperties properties, TokenLeaseStore leaseStore) {
+        this.properties = properties;
+        this.leaseStore = leaseStore;
+        String configuredNodeId = properties.getCluster().getNodeId();
+        this.nodeId = configuredNodeId != null && !configuredNodeId.isBlank()
+                ? configuredNodeId
+                : ManagementFactory.getRuntimeMXBean().getName();
+
+        List<RateLimitProperties.Policy> configured = properties.getPolicies();
+        for (int i = 0; i < configured.size(); i++) {
+            policies.add(compile(configured.get(i), i));
         }
-        
-        return allowed;
+        RateLimitPolicy defaultPolicy = new RateLimitPolicy(DEFAULT_POLICY_NAME, "/**", null, 1, Integer.MAX_VALUE,
+                createBackend(DEFAULT_POLICY_NAME, properties.getCapacity(), properties.getRefillTokens(), properties.getRefillPeriod()));
+        this.matcher = new RoutePolicyMatcher(policies, defaultPolicy);
+        policies.add(defaultPolicy);
+
+        log.info("Rate limiter running in {} mode with {} route policies", properties.getMode(), configured.size());
+        if (properties.getMode() == RateLimitProperties.Mode.CLUSTER) {
+            log.info("Sharing rate limit buckets through the database as node {}", nodeId);
+        }
+    }
+
+    public boolean allowRequest(String clientIp) {
+        return allowRequest(clientIp, 1);
     }
 
     public boolean allowRequest(String clientIp, int tokens) {
-        TokenBucket bucket = buckets.computeIfAbsent(clientIp,
-                ip -> new TokenBucket(DEFAULT_CAPACITY, DEFAULT_REFILL_TOKENS, DEFAULT_REFILL_PERIOD));
-        
-        boolean allowed = bucket.tryConsume(tokens);
-        
-        if (!allowed) {
-            log.warn("Rate limit exceeded for client IP: {}", clientIp);
-        }
-        
-        return allowed;
+        return tryConsume(clientIp, tokens).isAllowed();
     }
 
-    public int getRemainingTokens(String clientIp) {
-        TokenBucket bucket = buckets.get(clientIp);
-        return bucket != null ? bucket.getTokens() : DEFAULT_CAPACITY;
+    /**
+     * Find the policy covering a request. Patterns are precompiled, so this only walks the path.
+     *
+     * @param method the HTTP method
+     * @param path   the request path
+     * @return the matching policy, or the default policy
+     */
+    public RateLimitPolicy resolvePolicy(String method, String path) {
+        return matcher.match(method, path);
     }
 
+    /**
+     * Charge a request against a policy's bucket for the client.
+     *
+     * @param policy   the policy covering the request
+     * @param clientIp the client identifier
+     * @return the outcome, including the remaining tokens and retry timing
+     */
+    public RateLimitResult tryConsume(RateLimitPolicy policy, String clientIp) {
+        RateLimitResult result = policy.tryConsume(clientIp);
 
-    private static class TokenBucket {
-        private final int capacity;
-        private final int refillTokens;
-        private final long refillPeriodNanos;
-        private int tokens;
-        private long lastRefillTimestamp;
+        if (!result.isAllowed()) {
+            log.warn("Rate limit exceeded for client IP: {} under policy: {}", clientIp, policy.getName());
+        }
 
-        public TokenBucket(int capacity, int refillTokens, Duration refillPeriod) {
-            this.capacity = capacity;
-            this.refillTokens = refillTokens;
-            this.refillPeriodNanos = refillPeriod.toNanos();
-            this.tokens = capacity;
-            this.lastRefillTimestamp = System.nanoTime();
+        return result;
+    }
+
+    /**
+     * Consume tokens from the client's default bucket and return the resulting state in one call.
+     *
+     * @param clientIp the client identifier
+     * @param tokens   the cost of the request
+     * @return the outcome, including the remaining tokens
+     */
+    public RateLimitResult tryConsume(String clientIp, int tokens) {
+        RateLimitResult result = matcher.getDefaultPolicy().getBackend().tryConsume(clientIp, tokens);
+
+        if (!result.isAllowed()) {
+            log.warn("Rate limit exceeded for client IP: {}", clientIp);
         }
 
-        public synchronized boolean tryConsume() {
-            return tryConsume(1);
+        return result;
+    }
+
+    public int getRemainingTokens(String clientIp) {
+        return (int) matcher.getDefaultPolicy().probe(clientIp).getRemainingTokens();
+    }
+
+    /**
+     * Drop buckets that have refilled to capacity; they are recreated on the client's next request.
+     */
+    @Scheduled(fixedDelayString = "${cheko.rate-limit.store.sweep-interval:PT30S}")
+    public void evictFullBuckets() {
+        int evicted = 0;
+        for (RateLimitPolicy policy : policies) {
+            evicted += policy.getBackend().evictIdle();
         }
-        public synchronized boolean tryConsume(int tokensToConsume) {
-            refill();
-            
-            if (tokens >= tokensToConsume) {
-                tokens -= tokensToConsume;
-                return true;
-            }
-            
-            return false;
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets", evicted);
         }
-        public synchronized int getTokens() {
-            refill();
-            return tokens;
+    }
+
+    /**
+     * Hand unspent leased tokens back to the shared store. Only does work in cluster mode.
+     */
+    @Scheduled(fixedDelayString = "${cheko.rate-limit.cluster.settle-interval:PT1S}")
+    public void settleLeases() {
+        for (RateLimitPolicy policy : policies) {
+            policy.getBackend().settle();
         }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "rateLimiter";
+    }
 
-        private void refill() {
-            long now = System.nanoTime();
-            long elapsedNanos = now - lastRefillTimestamp;
-            long refillCount = elapsedNanos / refillPeriodNanos;
-            if (refillCount > 0) {
-                int tokensToAdd = (int) (refillCount * refillTokens);
-                tokens = Math.min(capacity, tokens + tokensToAdd);
-                lastRefillTimestamp += refillCount * refillPeriodNanos;
-            }
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", properties.getMode());
+
+        Map<String, Object> policyMetrics = new LinkedHashMap<>();
+        for (RateLimitPolicy policy : policies) {
+            Map<String, Object> figures = new LinkedHashMap<>();
+            figures.put("pattern", policy.getPattern());
+            figures.put("cost", policy.getCost());
+            figures.putAll(policy.getBackend().getMetrics());
+            policyMetrics.put(policy.getName(), figures);
+        }
+        metrics.put("policies", policyMetrics);
+        return metrics;
+    }
+
+    private RateLimitPolicy compile(RateLimitProperties.Policy policy, int order) {
+        String name = policy.getName() != null ? policy.getName() : "policy-" + order;
+        int capacity = policy.getCapacity() != null ? policy.getCapacity() : properties.getCapacity();
+        int refillTokens = policy.getRefillTokens() != null ? policy.getRefillTokens() : properties.getRefillTokens();
+        Duration refillPeriod = policy.getRefillPeriod() != null ? policy.getRefillPeriod() : properties.getRefillPeriod();
+
+        return new RateLimitPolicy(name, policy.getPattern(), new HashSet<>(policy.getMethods()), policy.getCost(),
+                order, createBackend(name, capacity, refillTokens, refillPeriod));
+    }
+
+    private RateLimiterBackend createBackend(String policyName, int capacity, int refillTokens, Duration refillPeriod) {
+        if (properties.getMode() == RateLimitProperties.Mode.CLUSTER) {
+            RateLimitProperties.Cluster cluster = properties.getCluster();
+            return new ClusterRateLimiterBackend(leaseStore, policyName, nodeId, capacity, refillTokens, refillPeriod,
+                    cluster.getLeaseSize(), cluster.getLeaseTtl(), cluster.getReclaimGrace(),
+                    properties.getStore().getMaxEntries());
+        }
+        if (properties.getMode() == RateLimitProperties.Mode.SKETCH) {
+            RateLimitProperties.Sketch sketch = properties.getSketch();
+            return new SketchRateLimiterBackend(capacity, refillTokens, refillPeriod,
+                    sketch.getWidth(), sketch.getDepth(), sketch.getHeavyHitters(), sketch.getHeavyHitterSampling());
         }
+        return new ExactRateLimiterBackend(capacity, refillTokens, refillPeriod, properties.getStore().getMaxEntries());
     }
 }
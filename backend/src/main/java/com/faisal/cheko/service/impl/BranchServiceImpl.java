@@ -1,10 +1,24 @@
 package com.faisal.cheko.service.impl;
 
+import com.faisal.cheko.cache.MenuSnapshot;
+import com.faisal.cheko.cache.MenuSnapshotCache;
+import com.faisal.cheko.dto.BranchMenuResponse;
 import com.faisal.cheko.dto.BranchRequest;
 import com.faisal.cheko.dto.BranchResponse;
+import com.faisal.cheko.config.GeoProperties;
+import com.faisal.cheko.config.OpeningHoursProperties;
+import com.faisal.cheko.dto.MenuImportReport;
+import com.faisal.cheko.exception.BadRequestException;
 import com.faisal.cheko.exception.ResourceNotFoundException;
+import com.faisal.cheko.exporter.ExportFormat;
+import com.faisal.cheko.exporter.StreamingExporter;
+import com.faisal.cheko.geo.BranchSpatialIndex;
+import com.faisal.cheko.geo.NearbyBranch;
+import com.faisal.cheko.importer.MenuImportFormat;
+import com.faisal.cheko.importer.MenuImporter;
 import com.faisal.cheko.model.Branch;
 import com.faisal.cheko.repository.BranchRepository;
+import com.faisal.cheko.schedule.OpeningSchedule;
 import com.faisal.cheko.service.BranchService;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -13,8 +27,13 @@ import org.locationtech.jts.geom.PrecisionModel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 
@@ -22,19 +41,63 @@ import java.util.stream.Collectors;
 public class BranchServiceImpl implements BranchService {
 
     private final BranchRepository branchRepository;
+    private final MenuSnapshotCache menuSnapshotCache;
+    private final MenuImporter menuImporter;
+    private final StreamingExporter streamingExporter;
+    private final BranchSpatialIndex branchSpatialIndex;
+    private final GeoProperties geoProperties;
+    private final OpeningHoursProperties openingHoursProperties;
     private final GeometryFactory geometryFactory;
 
     @Autowired
-    public BranchServiceImpl(BranchRepository branchRepository) {
+    public BranchServiceImpl(BranchRepository branchRepository, MenuSnapshotCache menuSnapshotCache, MenuImporter menuImporter,
+                             StreamingExporter streamingExporter, BranchSpatialIndex branchSpatialIndex, GeoProperties geoProperties,
+                             OpeningHoursProperties openingHoursProperties) {
         this.branchRepository = branchRepository;
+        this.menuSnapshotCache = menuSnapshotCache;
+        this.menuImporter = menuImporter;
+        this.streamingExporter = streamingExporter;
+        this.branchSpatialIndex = branchSpatialIndex;
+        this.geoProperties = geoProperties;
+        this.openingHoursProperties = openingHoursProperties;
         // Create a geometry factory with SRID 4326 (WGS84)
         this.geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
     }
 
+    /**
+     * Served from the branch spatial index, whose branches have their hours compiled once per
+     * rebuild, so the open filter is a binary search per branch and costs no query.
+     */
     @Override
-    public List<BranchResponse> getAllBranches() {
-        return branchRepository.findAll().stream()
-                .map(this::mapToResponse)
+    public List<BranchResponse> getAllBranches(Instant openAt) {
+        Instant at = openAt != null ? openAt : Instant.now();
+        Predicate<Branch> filter = openFilter(openAt);
+        return branchSpatialIndex.all().stream()
+                .filter(branch -> filter == null || filter.test(branch))
+                .map(branch -> mapToResponse(branch, at))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<BranchResponse> getNearbyBranches(double latitude, double longitude, double radiusMeters, int limit, boolean activeOnly,
+                                                  Instant openAt) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new BadRequestException("Latitude must be between -90 and 90 and longitude between -180 and 180");
+        }
+        if (!(radiusMeters > 0) || radiusMeters > geoProperties.getMaxRadiusMeters()) {
+            throw new BadRequestException("Radius must be greater than 0 and at most " + geoProperties.getMaxRadiusMeters() + " meters");
+        }
+        if (limit < 1 || limit > geoProperties.getMaxLimit()) {
+            throw new BadRequestException("Limit must be between 1 and " + geoProperties.getMaxLimit());
+        }
+        Instant at = openAt != null ? openAt : Instant.now();
+        List<NearbyBranch> nearby = branchSpatialIndex.nearby(latitude, longitude, radiusMeters, limit, activeOnly, openFilter(openAt));
+        return nearby.stream()
+                .map(found -> {
+                    BranchResponse response = mapToResponse(found.getBranch(), at);
+                    response.setDistanceMeters(found.getDistanceMeters());
+                    return response;
+                })
                 .collect(Collectors.toList());
     }
 
@@ -43,10 +106,49 @@ public class BranchServiceImpl implements BranchService {
     public BranchResponse createBranch(BranchRequest branchRequest) {
         Branch branch = mapToEntity(branchRequest);
         Branch savedBranch = branchRepository.save(branch);
-        return mapToResponse(savedBranch);
+        return mapToResponse(savedBranch, Instant.now());
+    }
+
+    /**
+     * The tree comes from the branch snapshot, so it costs no query while the snapshot is
+     * cached; with snapshots disabled the menu is read in one transaction and not kept.
+     */
+    @Override
+    public BranchMenuResponse getBranchMenu(Long branchId, boolean availableOnly) {
+        MenuSnapshot snapshot = menuSnapshotCache.isEnabled()
+                ? menuSnapshotCache.getBranch(branchId)
+                : menuSnapshotCache.read(branchId);
+        return snapshot.toMenu(availableOnly);
     }
 
-    private BranchResponse mapToResponse(Branch branch) {
+    @Override
+    public MenuImportReport importMenu(Long branchId, MenuImportFormat format, InputStream input) {
+        return menuImporter.importMenu(branchId, format, input);
+    }
+
+    /**
+     * The branch is checked here, before the response is committed, so a missing branch is
+     * still a 404; the rows are read while the body is written.
+     */
+    @Override
+    public StreamingResponseBody exportMenu(Long branchId, boolean availableOnly, ExportFormat format) {
+        if (!branchRepository.existsById(branchId)) {
+            throw ResourceNotFoundException.create("Branch", "id", branchId);
+        }
+        return streamingExporter.reserve(out -> streamingExporter.exportMenu(branchId, availableOnly, format, out));
+    }
+
+    private Predicate<Branch> openFilter(Instant openAt) {
+        if (openAt == null) {
+            return null;
+        }
+        return branch -> branch.getOpeningSchedule().isOpenAt(openAt, openingHoursProperties.getDefaultZone());
+    }
+
+    /**
+     * @param at instant the open state and the next opening time are given for
+     */
+    private BranchResponse mapToResponse(Branch branch, Instant at) {
         Double latitude = null;
         Double longitude = null;
         
@@ -54,6 +156,17 @@ public class BranchServiceImpl implements BranchService {
             latitude = branch.getLocation().getY();
             longitude = branch.getLocation().getX();
         }
+
+        // Left out for branches without usable opening hours
+        Boolean isOpen = null;
+        ZonedDateTime nextOpeningTime = null;
+        OpeningSchedule schedule = branch.getOpeningSchedule();
+        if (!schedule.isEmpty()) {
+            isOpen = schedule.isOpenAt(at, openingHoursProperties.getDefaultZone());
+            if (!isOpen) {
+                nextOpeningTime = schedule.nextOpeningAfter(at, openingHoursProperties.getDefaultZone());
+            }
+        }
         
         return BranchResponse.builder()
                 .id(branch.getId())
@@ -70,6 +183,8 @@ public class BranchServiceImpl implements BranchService {
                 .isActive(branch.getIsActive())
                 .createdAt(branch.getCreatedAt())
                 .updatedAt(branch.getUpdatedAt())
+                .isOpen(isOpen)
+                .nextOpeningTime(nextOpeningTime)
                 .build();
     }
 
@@ -96,6 +211,11 @@ public class BranchServiceImpl implements BranchService {
         
         branch.setPhone(branchRequest.getPhone());
         branch.setEmail(branchRequest.getEmail());
+        try {
+            OpeningSchedule.compile(branchRequest.getOpeningHours());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
         branch.setOpeningHours(branchRequest.getOpeningHours());
         
         if (branchRequest.getIsMainBranch() != null) {
@@ -0,0 +1,28 @@
+package com.faisal.cheko.service.impl;
+
+import com.faisal.cheko.dto.CustomerAssignmentReport;
+import com.faisal.cheko.exception.BadRequestException;
+import com.faisal.cheko.geo.CustomerBranchAssigner;
+import com.faisal.cheko.service.CustomerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+
+@Service
+public class CustomerServiceImpl implements CustomerService {
+
+    private final CustomerBranchAssigner customerBranchAssigner;
+
+    @Autowired
+    public CustomerServiceImpl(CustomerBranchAssigner customerBranchAssigner) {
+        this.customerBranchAssigner = customerBranchAssigner;
+    }
+
+    @Override
+    public CustomerAssignmentReport assignNearestBranches(int k) {
+        if (k < 1 || k > customerBranchAssigner.getMaxK()) {
+            throw new BadRequestException("k must be between 1 and " + customerBranchAssigner.getMaxK());
+        }
+        return customerBranchAssigner.assignAll(k);
+    }
+}
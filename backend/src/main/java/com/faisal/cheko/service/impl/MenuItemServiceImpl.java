@@ -1,128 +1,308 @@
 package com.faisal.cheko.service.impl;
 
+import com.faisal.cheko.cache.MenuIdIndex;
+import com.faisal.cheko.cache.MenuItemCountCache;
+import com.faisal.cheko.cache.MenuSnapshot;
+import com.faisal.cheko.cache.MenuSnapshotCache;
+import com.faisal.cheko.cache.MenuSuggestionCache;
+import com.faisal.cheko.cache.SecondHighestCalorieCache;
+import com.faisal.cheko.dto.CursorPageResponse;
 import com.faisal.cheko.dto.MenuItemRequest;
 import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.MenuItemSuggestionResponse;
+import com.faisal.cheko.exception.BadRequestException;
 import com.faisal.cheko.exception.ResourceNotFoundException;
 import com.faisal.cheko.model.MenuItem;
 import com.faisal.cheko.model.MenuSection;
-import com.faisal.cheko.repository.BranchRepository;
 import com.faisal.cheko.repository.MenuItemRepository;
+import com.faisal.cheko.repository.MenuItemSortKey;
 import com.faisal.cheko.repository.MenuSectionRepository;
 import com.faisal.cheko.service.MenuItemService;
+import com.faisal.cheko.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 @Service
 public class MenuItemServiceImpl implements MenuItemService {
 
+    // Largest page any listing returns; bigger requests get a page of this size
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final MenuItemRepository menuItemRepository;
     private final MenuSectionRepository menuSectionRepository;
-    private final BranchRepository branchRepository;
+    private final MenuSnapshotCache menuSnapshotCache;
+    private final MenuItemCountCache menuItemCountCache;
+    private final MenuSuggestionCache menuSuggestionCache;
+    private final SecondHighestCalorieCache secondHighestCalorieCache;
+    private final MenuIdIndex menuIdIndex;
 
     @Autowired
     public MenuItemServiceImpl(MenuItemRepository menuItemRepository, 
                               MenuSectionRepository menuSectionRepository,
-                              BranchRepository branchRepository) {
+                              MenuSnapshotCache menuSnapshotCache,
+                              MenuItemCountCache menuItemCountCache,
+                              MenuSuggestionCache menuSuggestionCache,
+                              SecondHighestCalorieCache secondHighestCalorieCache,
+                              MenuIdIndex menuIdIndex) {
         this.menuItemRepository = menuItemRepository;
         this.menuSectionRepository = menuSectionRepository;
-        this.branchRepository = branchRepository;
+        this.menuSnapshotCache = menuSnapshotCache;
+        this.menuItemCountCache = menuItemCountCache;
+        this.menuSuggestionCache = menuSuggestionCache;
+        this.secondHighestCalorieCache = secondHighestCalorieCache;
+        this.menuIdIndex = menuIdIndex;
     }
 
     @Override
     public Page<MenuItemResponse> getMenuItemsBySectionIdPaginated(Long sectionId, Pageable pageable) {
-        if (!menuSectionRepository.existsById(sectionId)) {
-            throw ResourceNotFoundException.create("MenuSection", "id", sectionId);
+        pageable = capped(pageable);
+        Long branchId = requireSection(null, sectionId);
+        if (useSnapshot(pageable)) {
+            return menuSnapshotCache.getBranch(branchId).query(sectionId, false, null, pageable);
         }
-        
-        return menuItemRepository.findBySectionId(sectionId, pageable)
-                .map(this::mapToResponse);
+
+        return menuItemRepository.findBySectionId(sectionId, pageable);
     }
     
     @Override
-    public Page<MenuItemResponse> getMenuItemsByBranchIdAndBySectionIdPaginated(Long branchId, Long sectionId, Pageable pageable) {
-        if (!branchRepository.existsById(branchId)) {
-            throw ResourceNotFoundException.create("Branch", "id", branchId);
-        }
-        
-        if (!menuSectionRepository.existsById(sectionId)) {
-            throw ResourceNotFoundException.create("MenuSection", "id", sectionId);
+    public Slice<MenuItemResponse> getMenuItemsByBranchIdAndBySectionIdPaginated(Long branchId, Long sectionId, Pageable pageable, boolean includeTotal) {
+        pageable = capped(pageable);
+        if (useSnapshot(pageable)) {
+            return withTotal(branchSnapshotWithSection(branchId, sectionId).query(sectionId, false, null, pageable), includeTotal);
         }
+
+        pageable = forDatabase(pageable);
+        requireBranch(branchId);
+        requireSection(branchId, sectionId);
         
-        return menuItemRepository.findByBranchIdAndSectionId(branchId, sectionId, pageable)
-                .map(this::mapToResponse);
+        return withTotal(menuItemRepository.findByBranchIdAndSectionId(branchId, sectionId, pageable), includeTotal,
+                branchId, sectionId, false, null);
     }
     
     @Override
-    public Page<MenuItemResponse> getMenuItemsByBranchIdPaginated(Long branchId, Pageable pageable) {
-        if (!branchRepository.existsById(branchId)) {
-            throw ResourceNotFoundException.create("Branch", "id", branchId);
+    public Slice<MenuItemResponse> getMenuItemsByBranchIdPaginated(Long branchId, Pageable pageable, boolean includeTotal) {
+        pageable = capped(pageable);
+        if (useSnapshot(pageable)) {
+            return withTotal(menuSnapshotCache.getBranch(branchId).query(null, false, null, pageable), includeTotal);
         }
+
+        pageable = forDatabase(pageable);
+        requireBranch(branchId);
         
-        return menuItemRepository.findByBranchId(branchId, pageable)
-                .map(this::mapToResponse);
+        return withTotal(menuItemRepository.findByBranchId(branchId, pageable), includeTotal, branchId, null, false, null);
     }
     
     @Override
-    public Page<MenuItemResponse> getAvailableMenuItemsByBranchIdPaginated(Long branchId, String nameQuery, Pageable pageable) {
-        if (!branchRepository.existsById(branchId)) {
-            throw ResourceNotFoundException.create("Branch", "id", branchId);
+    public Slice<MenuItemResponse> getAvailableMenuItemsByBranchIdPaginated(Long branchId, String nameQuery, Pageable pageable, boolean includeTotal) {
+        pageable = capped(pageable);
+        if (useSnapshot(pageable)) {
+            return withTotal(menuSnapshotCache.getBranch(branchId).query(null, true, nameQuery, pageable), includeTotal);
         }
+
+        pageable = forDatabase(pageable);
+        requireBranch(branchId);
         
+        Slice<MenuItemResponse> slice;
         if (nameQuery != null && !nameQuery.isEmpty()) {
             // Search by name using LIKE %nameQuery%
-            return menuItemRepository.findAvailableByBranchIdAndNameContainingIgnoreCase(branchId, nameQuery, pageable)
-                    .map(this::mapToResponse);
+            slice = menuItemRepository.findAvailableByBranchIdAndNameContainingIgnoreCase(branchId, nameQuery, pageable);
         } else {
             // If no search query, return all available items
-            return menuItemRepository.findAvailableByBranchId(branchId, pageable)
-                    .map(this::mapToResponse);
+            slice = menuItemRepository.findAvailableByBranchId(branchId, pageable);
         }
+        return withTotal(slice, includeTotal, branchId, null, true, nameQuery);
     }
     
     @Override
-    public Page<MenuItemResponse> getAvailableMenuItemsByBranchIdAndBySectionIdPaginated(Long branchId, Long sectionId, String nameQuery, Pageable pageable) {
-        if (!branchRepository.existsById(branchId)) {
-            throw ResourceNotFoundException.create("Branch", "id", branchId);
-        }
-        
-        if (!menuSectionRepository.existsById(sectionId)) {
-            throw ResourceNotFoundException.create("MenuSection", "id", sectionId);
+    public Slice<MenuItemResponse> getAvailableMenuItemsByBranchIdAndBySectionIdPaginated(Long branchId, Long sectionId, String nameQuery, Pageable pageable,
+                                                                                          boolean includeTotal) {
+        pageable = capped(pageable);
+        if (useSnapshot(pageable)) {
+            return withTotal(branchSnapshotWithSection(branchId, sectionId).query(sectionId, true, nameQuery, pageable), includeTotal);
         }
+
+        pageable = forDatabase(pageable);
+        requireBranch(branchId);
+        requireSection(branchId, sectionId);
         
-        return menuItemRepository.findAvailableByBranchIdAndSectionIdWithSearch(branchId, sectionId, nameQuery, pageable)
-                .map(this::mapToResponse);
+        return withTotal(menuItemRepository.findAvailableByBranchIdAndSectionIdWithSearch(branchId, sectionId, nameQuery, pageable),
+                includeTotal, branchId, sectionId, true, nameQuery);
     }
 
 
+    /**
+     * Keyset pagination: each page is read with a seek past the previous page's last row and
+     * one extra row to tell whether more follow, so deep pages cost the same as the first and
+     * no count query runs.
+     */
     @Override
-    public List<MenuItemResponse> getSecondHighestCalorieMealPerCategory() {
-        return menuItemRepository.findSecondHighestCalorieMealPerCategory().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
-    }
-
-    private MenuItemResponse mapToResponse(MenuItem menuItem) {
-        return MenuItemResponse.builder()
-                .id(menuItem.getId())
-                .sectionId(menuItem.getSection().getId())
-                .sectionName(menuItem.getSection().getName())
-                .branchId(menuItem.getSection().getBranch().getId())
-                .branchName(menuItem.getSection().getBranch().getBranchName())
-                .name(menuItem.getName())
-                .description(menuItem.getDescription())
-                .price(menuItem.getPrice())
-                .calories(menuItem.getCalories())
-                .imageUrl(menuItem.getImageUrl())
-                .isAvailable(menuItem.getIsAvailable())
+    public CursorPageResponse<MenuItemResponse> getMenuItemsByBranchIdAfterCursor(Long branchId, Long sectionId, boolean availableOnly,
+                                                                                  String nameQuery, String sort, String direction,
+                                                                                  String cursor, int size) {
+        MenuItemSortKey sortKey = MenuItemSortKey.fromParameter(sort);
+        if (sortKey == null) {
+            throw new BadRequestException("Cursor pagination can sort by id, name or price, not '" + sort + "'");
+        }
+        if (size < 1) {
+            throw new BadRequestException("Page size must be at least 1");
+        }
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        boolean ascending = !"desc".equalsIgnoreCase(direction);
+
+        Object afterValue = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            PageCursor position = decodeCursor(cursor);
+            if (!position.getSort().equals(sort) || position.isAscending() != ascending) {
+                throw new BadRequestException("The cursor belongs to a listing with a different sort");
+            }
+            afterId = position.getId();
+            try {
+                afterValue = sortKey.parse(position.getValue());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+
+        requireBranch(branchId);
+        if (sectionId != null) {
+            requireSection(branchId, sectionId);
+        }
+
+        List<MenuItemResponse> rows = menuItemRepository.findPageAfter(branchId, sectionId, availableOnly, nameQuery,
+                sortKey, ascending, afterValue, afterId, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<MenuItemResponse> content = hasNext ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            MenuItemResponse last = content.get(content.size() - 1);
+            nextCursor = new PageCursor(sort, ascending, last.getId(), String.valueOf(sortKey.valueOf(last))).encode();
+        }
+        return CursorPageResponse.<MenuItemResponse>builder()
+                .content(content)
+                .pageSize(pageSize)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
                 .build();
     }
 
+    @Override
+    public List<MenuItemResponse> getSecondHighestCalorieMealPerCategory() {
+        return secondHighestCalorieCache.getSecondHighestCalorieMealPerCategory();
+    }
+
+    @Override
+    public List<MenuItemSuggestionResponse> getMenuItemSuggestions(Long branchId, String prefix, int limit) {
+        if (limit < 1 || limit > menuSuggestionCache.getMaxSuggestions()) {
+            throw new BadRequestException("Limit must be between 1 and " + menuSuggestionCache.getMaxSuggestions());
+        }
+        return menuSuggestionCache.suggest(branchId, prefix, limit);
+    }
+
+    /**
+     * The snapshot counts while it filters, so its totals are free; without them the page is
+     * handed out as a plain slice.
+     */
+    private static Slice<MenuItemResponse> withTotal(Page<MenuItemResponse> page, boolean includeTotal) {
+        return includeTotal ? page : new SliceImpl<>(page.getContent(), page.getPageable(), page.hasNext());
+    }
+
+    /**
+     * Database reads fetch a slice (one row past the page instead of a count query); the
+     * total, when asked for, comes from the count cache.
+     */
+    private Slice<MenuItemResponse> withTotal(Slice<MenuItemResponse> slice, boolean includeTotal,
+                                              Long branchId, Long sectionId, boolean availableOnly, String nameQuery) {
+        if (!includeTotal) {
+            return slice;
+        }
+        long total = menuItemCountCache.count(branchId, sectionId, availableOnly, nameQuery);
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    /**
+     * Reads are served from the branch's in-memory snapshot unless it is disabled or the
+     * requested sort cannot be evaluated in memory, in which case the database answers.
+     */
+    private boolean useSnapshot(Pageable pageable) {
+        return menuSnapshotCache.isEnabled() && MenuSnapshot.supports(pageable.getSort());
+    }
+
+    /**
+     * Pages are capped at {@link #MAX_PAGE_SIZE} items, so a single request cannot pull a
+     * whole menu into memory; the full menu is served by the streaming export instead.
+     */
+    private static Pageable capped(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getPageSize() <= MAX_PAGE_SIZE) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), MAX_PAGE_SIZE, pageable.getSort());
+    }
+
+    /**
+     * The database cannot rank by relevance; it falls back to ordering by name.
+     */
+    private static Pageable forDatabase(Pageable pageable) {
+        if (pageable.getSort().getOrderFor(MenuSnapshot.RELEVANCE) == null) {
+            return pageable;
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : pageable.getSort()) {
+            orders.add(MenuSnapshot.RELEVANCE.equals(order.getProperty()) ? Sort.Order.asc("name") : order);
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(orders));
+    }
+
+    /**
+     * Same checks as the database path: the branch must exist, and the section must exist and
+     * belong to it.
+     */
+    private MenuSnapshot branchSnapshotWithSection(Long branchId, Long sectionId) {
+        MenuSnapshot snapshot = menuSnapshotCache.getBranch(branchId);
+        if (!snapshot.hasSection(sectionId)) {
+            requireSection(branchId, sectionId);
+        }
+        return snapshot;
+    }
+
+    private void requireBranch(Long branchId) {
+        if (!menuIdIndex.branchExists(branchId)) {
+            throw ResourceNotFoundException.create("Branch", "id", branchId);
+        }
+    }
+
+    /**
+     * @param branchId branch the section must belong to, or null for any branch
+     * @return the branch owning the section
+     */
+    private Long requireSection(Long branchId, Long sectionId) {
+        Long owner = menuIdIndex.sectionBranchId(sectionId);
+        if (owner == null || (branchId != null && !branchId.equals(owner))) {
+            throw ResourceNotFoundException.create("MenuSection", "id", sectionId);
+        }
+        return owner;
+    }
+
+    private static PageCursor decodeCursor(String cursor) {
+        try {
+            return PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
     private MenuItem mapToEntity(MenuItemRequest menuItemRequest) {
         MenuItem menuItem = new MenuItem();
         updateMenuItemFromRequest(menuItem, menuItemRequest);
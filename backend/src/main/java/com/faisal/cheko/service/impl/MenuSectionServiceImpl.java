@@ -1,5 +1,6 @@
 package com.faisal.cheko.service.impl;
 
+import com.faisal.cheko.cache.SectionItemCounters;
 import com.faisal.cheko.dto.MenuSectionRequest;
 import com.faisal.cheko.dto.MenuSectionResponse;
 import com.faisal.cheko.dto.MenuSectionWithCountResponse;
@@ -14,7 +15,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 @Service
@@ -22,19 +22,23 @@ public class MenuSectionServiceImpl implements MenuSectionService {
 
     private final MenuSectionRepository menuSectionRepository;
     private final BranchRepository branchRepository;
+    private final SectionItemCounters sectionItemCounters;
 
     @Autowired
-    public MenuSectionServiceImpl(MenuSectionRepository menuSectionRepository, BranchRepository branchRepository) {
+    public MenuSectionServiceImpl(MenuSectionRepository menuSectionRepository, BranchRepository branchRepository,
+                                  SectionItemCounters sectionItemCounters) {
         this.menuSectionRepository = menuSectionRepository;
         this.branchRepository = branchRepository;
+        this.sectionItemCounters = sectionItemCounters;
     }
     
     @Override
     public List<MenuSectionWithCountResponse> getMenuSectionsByBranchIdWithCounts(Long branchId) {
-        List<Object[]> sectionsWithCounts = menuSectionRepository.findByBranchIdWithItemCounts(branchId);
-        return sectionsWithCounts.stream()
-                .map(this::mapToWithCountResponse)
-                .collect(Collectors.toList());
+        List<MenuSectionWithCountResponse> counted = sectionItemCounters.getBranch(branchId);
+        if (counted != null) {
+            return counted;
+        }
+        return menuSectionRepository.findByBranchIdWithItemCounts(branchId);
     }
     
 
@@ -64,18 +68,4 @@ public class MenuSectionServiceImpl implements MenuSectionService {
         menuSection.setName(menuSectionRequest.getName());
         menuSection.setDescription(menuSectionRequest.getDescription());
     }
-    
-    private MenuSectionWithCountResponse mapToWithCountResponse(Object[] result) {
-        MenuSection menuSection = (MenuSection) result[0];
-        Long count = (Long) result[1];
-        
-        return MenuSectionWithCountResponse.builder()
-                .id(menuSection.getId())
-                .branchId(menuSection.getBranch().getId())
-                .branchName(menuSection.getBranch().getBranchName())
-                .name(menuSection.getName())
-                .description(menuSection.getDescription())
-                .itemCount(count)
-                .build();
-    }
 }
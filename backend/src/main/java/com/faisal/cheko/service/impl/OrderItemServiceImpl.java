@@ -1,10 +1,99 @@
 package com.faisal.cheko.service.impl;
 
+import com.faisal.cheko.config.PopularItemsProperties;
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.PopularItemResponse;
+import com.faisal.cheko.exception.BadRequestException;
+import com.faisal.cheko.popularity.PopularItemsTracker;
+import com.faisal.cheko.popularity.PopularityWindow;
+import com.faisal.cheko.repository.MenuItemRepository;
+import com.faisal.cheko.repository.OrderItemRepository;
 import com.faisal.cheko.service.OrderItemService;
+import com.faisal.cheko.util.SpaceSaving;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 
 @Service
 public class OrderItemServiceImpl implements OrderItemService {
 
-}
\ No newline at end of file
+    private final OrderItemRepository orderItemRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final PopularItemsTracker popularItemsTracker;
+    private final PopularItemsProperties properties;
+
+    @Autowired
+    public OrderItemServiceImpl(OrderItemRepository orderItemRepository, MenuItemRepository menuItemRepository,
+                                PopularItemsTracker popularItemsTracker, PopularItemsProperties properties) {
+        this.orderItemRepository = orderItemRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.popularItemsTracker = popularItemsTracker;
+        this.properties = properties;
+    }
+
+    /**
+     * Served from the in-memory tracker; until it has been rebuilt from history, the same
+     * ranking is grouped in the database.
+     */
+    @Override
+    public List<PopularItemResponse> getPopularItems(String window, Long branchId, Long sectionId, int limit) {
+        if (limit < 1 || limit > properties.getMaxLimit()) {
+            throw new BadRequestException("Limit must be between 1 and " + properties.getMaxLimit());
+        }
+        PopularityWindow popularityWindow = PopularityWindow.fromParameter(window);
+
+        List<SpaceSaving.Entry<Long>> top = popularItemsTracker.top(popularityWindow, branchId, sectionId, limit);
+        if (top == null) {
+            top = new ArrayList<>();
+            Long branchFilter = sectionId != null ? null : branchId;
+            List<Object[]> rows = popularityWindow == PopularityWindow.ALL
+                    ? orderItemRepository.findTopOrderedItemIds(branchFilter, sectionId, limit)
+                    : orderItemRepository.findTopOrderedItemIdsSince(ZonedDateTime.ofInstant(Instant.ofEpochMilli(
+                            popularityWindow.startOf(popularityWindow.indexOf(System.currentTimeMillis()))), ZoneOffset.UTC),
+                            branchFilter, sectionId, limit);
+            for (Object[] row : rows) {
+                top.add(new SpaceSaving.Entry<>((Long) row[0], (Long) row[1], 0));
+            }
+        }
+        if (top.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = new ArrayList<>(top.size());
+        for (SpaceSaving.Entry<Long> entry : top) {
+            ids.add(entry.getItem());
+        }
+        Map<Long, MenuItemResponse> items = new HashMap<>();
+        for (MenuItemResponse item : menuItemRepository.findAllResponsesByIdIn(ids)) {
+            items.put(item.getId(), item);
+        }
+
+        List<PopularItemResponse> popular = new ArrayList<>(top.size());
+        for (SpaceSaving.Entry<Long> entry : top) {
+            MenuItemResponse item = items.get(entry.getItem());
+            if (item == null) {
+                // Deleted since it was ordered
+                continue;
+            }
+            popular.add(PopularItemResponse.builder()
+                    .menuItemId(item.getId())
+                    .name(item.getName())
+                    .sectionId(item.getSectionId())
+                    .sectionName(item.getSectionName())
+                    .branchId(item.getBranchId())
+                    .branchName(item.getBranchName())
+                    .orderCount(entry.getCount())
+                    .maxOverestimate(entry.getError())
+                    .build());
+        }
+        return popular;
+    }
+}
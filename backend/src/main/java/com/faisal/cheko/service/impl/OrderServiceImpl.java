@@ -1,10 +1,31 @@
 package com.faisal.cheko.service.impl;
 
+import com.faisal.cheko.exception.BadRequestException;
+import com.faisal.cheko.exporter.ExportFormat;
+import com.faisal.cheko.exporter.StreamingExporter;
 import com.faisal.cheko.service.OrderService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.OffsetDateTime;
 
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
-}
\ No newline at end of file
+    private final StreamingExporter streamingExporter;
+
+    @Autowired
+    public OrderServiceImpl(StreamingExporter streamingExporter) {
+        this.streamingExporter = streamingExporter;
+    }
+
+    @Override
+    public StreamingResponseBody exportOrders(Long branchId, OffsetDateTime from, OffsetDateTime to, ExportFormat format) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        return streamingExporter.reserve(out -> streamingExporter.exportOrders(branchId, from, to, format, out));
+    }
+}
@@ -0,0 +1,123 @@
+package com.faisal.cheko.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader of RFC 4180 CSV: comma-separated fields, optionally in double quotes, with
+ * doubled quotes inside quoted fields and line breaks allowed within them. Lines may end in
+ * CRLF, LF or a lone CR, and an empty line yields no record.
+ * <p>
+ * One record is held at a time, and a record longer than the configured maximum is rejected,
+ * so memory stays bounded however long the input is.
+ */
+public class CsvReader implements Closeable {
+
+    private final Reader reader;
+    private final int maxRecordChars;
+    // Line the next character is on, and the line the last record started on
+    private long line = 1;
+    private long recordLine;
+    private int pushedBack = -1;
+
+    public CsvReader(Reader reader, int maxRecordChars) {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the input
+     * @throws IOException on a read error, an unterminated quote or a record over the limit
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int chars = 0;
+        boolean quoted = false;
+        while (true) {
+            if (++chars > maxRecordChars) {
+                throw new IOException("Record on line " + recordLine + " is longer than " + maxRecordChars + " characters");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Quoted field starting on line " + recordLine + " is not closed");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                // read() has already looked past a CR; only an LF completing CRLF is consumed
+                if (c == '\r' && pushedBack == '\n') {
+                    read();
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Line on which the record last returned by {@link #next()} starts, counting from 1.
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -1) {
+            c = pushedBack;
+            pushedBack = -1;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n' || (c == '\r' && peekIsNotLf())) {
+            line++;
+        }
+        return c;
+    }
+
+    /**
+     * A lone CR ends a line too; CRLF is counted once, at the LF. The character looked at is
+     * left in the pushback slot, which {@link #read()} has just emptied.
+     */
+    private boolean peekIsNotLf() throws IOException {
+        int following = reader.read();
+        pushedBack = following;
+        return following != '\n';
+    }
+}
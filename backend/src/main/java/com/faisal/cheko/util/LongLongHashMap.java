@@ -0,0 +1,176 @@
+package com.faisal.cheko.util;
+
+/**
+ * Open-addressing hash map from {@code long} to {@code long}, without boxing.
+ * <p>
+ * Keys live in one array and values in another; collisions probe linearly and removals shift
+ * the following entries back, so there are no tombstones and lookups stay short however many
+ * removals happen. Key 0 marks an empty slot and cannot be stored; database ids start at 1.
+ * The table doubles when it is more than half full. Not thread-safe.
+ */
+public class LongLongHashMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    public LongLongHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries the map should hold without resizing
+     */
+    public LongLongHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    public LongLongHashMap(LongLongHashMap other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.mask = other.mask;
+        this.size = other.size;
+    }
+
+    /**
+     * @return the value of the key, or {@code missing} if it is absent
+     */
+    public long get(long key, long missing) {
+        if (key == 0) {
+            return missing;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long candidate = keys[slot];
+            if (candidate == key) {
+                return values[slot];
+            }
+            if (candidate == 0) {
+                return missing;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return false;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long candidate = keys[slot];
+            if (candidate == key) {
+                return true;
+            }
+            if (candidate == 0) {
+                return false;
+            }
+        }
+    }
+
+    public void put(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * @return whether the key was present
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            return false;
+        }
+        int slot = slot(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Shift back every following entry that would no longer be reachable across the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+        size--;
+        return true;
+    }
+
+    /**
+     * Remove every entry whose value equals the given one.
+     *
+     * @return the number of entries removed
+     */
+    public int removeValue(long value) {
+        long[] matching = new long[size];
+        int count = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0 && values[slot] == value) {
+                matching[count++] = keys[slot];
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            remove(matching[i]);
+        }
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Heap used by the two arrays, in bytes.
+     */
+    public long getAllocatedBytes() {
+        return 2 * (16 + 8L * keys.length);
+    }
+
+    private int slot(long key) {
+        // Fibonacci hashing spreads sequential ids across the table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
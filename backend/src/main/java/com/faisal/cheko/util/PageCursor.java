@@ -0,0 +1,70 @@
+package com.faisal.cheko.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset-paginated listing: the sort it was issued for and the sort
+ * key and id of the last row returned. Clients only pass it back; the encoding is URL-safe
+ * base64 so it can go into a query parameter as is.
+ */
+public final class PageCursor {
+
+    private static final String VERSION = "1";
+    private static final char SEPARATOR = '|';
+
+    private final String sort;
+    private final boolean ascending;
+    private final long id;
+    private final String value;
+
+    public PageCursor(String sort, boolean ascending, long id, String value) {
+        this.sort = sort;
+        this.ascending = ascending;
+        this.id = id;
+        this.value = value;
+    }
+
+    public String encode() {
+        // The value goes last so it may contain the separator itself
+        String raw = VERSION + SEPARATOR + sort + SEPARATOR + (ascending ? "a" : "d") + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not a cursor produced by {@link #encode()}
+     */
+    public static PageCursor decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        String[] parts = raw.split("\\|", 5);
+        if (parts.length != 5 || !VERSION.equals(parts[0]) || !(parts[2].equals("a") || parts[2].equals("d"))) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        try {
+            return new PageCursor(parts[1], parts[2].equals("a"), Long.parseLong(parts[3]), parts[4]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
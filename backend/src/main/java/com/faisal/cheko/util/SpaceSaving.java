@@ -0,0 +1,200 @@
+package com.faisal.cheko.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter summary (Metwally, Agrawal and El Abbadi).
+ * <p>
+ * Tracks at most {@code capacity} items. When a new item arrives and the summary is full,
+ * it replaces the item with the smallest count and inherits that count as its error.
+ * Any item whose true frequency exceeds {@code total / capacity} is guaranteed to be
+ * present, and every reported count overestimates the true count by at most its error.
+ * <p>
+ * Counters are kept in a binary min-heap on their counts, each knowing its heap slot, so
+ * the counter to replace is always the root and an offer costs O(log capacity) rather than
+ * a scan of every counter. Methods are synchronized.
+ *
+ * @param <K> the item type
+ */
+public class SpaceSaving<K> {
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    // Min-heap on count; heap[i].slot == i
+    private final Counter<K>[] heap;
+    private long total;
+
+    @SuppressWarnings("unchecked")
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.heap = (Counter<K>[]) new Counter[capacity];
+    }
+
+    /**
+     * Record an occurrence of an item.
+     *
+     * @param item   the item
+     * @param weight the weight of the occurrence, usually 1
+     */
+    public synchronized void offer(K item, long weight) {
+        total += weight;
+
+        Counter<K> counter = counters.get(item);
+        if (counter != null) {
+            counter.count += weight;
+            if (weight < 0) {
+                siftUp(counter.slot);
+            } else {
+                siftDown(counter.slot);
+            }
+            return;
+        }
+
+        int size = counters.size();
+        if (size < capacity) {
+            counter = new Counter<>(item, weight, 0);
+            counters.put(item, counter);
+            heap[size] = counter;
+            counter.slot = size;
+            siftUp(size);
+            return;
+        }
+
+        Counter<K> min = heap[0];
+        counters.remove(min.item);
+        counter = new Counter<>(item, min.count + weight, min.count);
+        counters.put(item, counter);
+        heap[0] = counter;
+        siftDown(0);
+    }
+
+    /**
+     * The n items with the highest estimated counts, highest first.
+     */
+    public synchronized List<Entry<K>> top(int n) {
+        List<Entry<K>> entries = new ArrayList<>(counters.size());
+        for (Counter<K> counter : counters.values()) {
+            entries.add(new Entry<>(counter.item, counter.count, counter.error));
+        }
+        entries.sort(Comparator.comparingLong((Entry<K> e) -> e.getCount()).reversed());
+        return entries.size() > n ? new ArrayList<>(entries.subList(0, n)) : entries;
+    }
+
+    public synchronized void clear() {
+        counters.clear();
+        Arrays.fill(heap, null);
+        total = 0;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void siftUp(int slot) {
+        Counter<K> counter = heap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], slot);
+            slot = parent;
+        }
+        place(counter, slot);
+    }
+
+    private void siftDown(int slot) {
+        Counter<K> counter = heap[slot];
+        int size = counters.size();
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], slot);
+            slot = child;
+        }
+        place(counter, slot);
+    }
+
+    private void place(Counter<K> counter, int slot) {
+        heap[slot] = counter;
+        counter.slot = slot;
+    }
+
+    private static final class Counter<K> {
+        private final K item;
+        private long count;
+        private final long error;
+        private int slot;
+
+        private Counter(K item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Snapshot of one tracked item.
+     */
+    public static final class Entry<K> {
+        private final K item;
+        private final long count;
+        private final long error;
+
+        public Entry(K item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public K getItem() {
+            return item;
+        }
+
+        /**
+         * Estimated count; never below the true count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Maximum overestimation of {@link #getCount()}.
+         */
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * Count the item is guaranteed to have reached.
+         */
+        public long getGuaranteedCount() {
+            return count - error;
+        }
+    }
+}
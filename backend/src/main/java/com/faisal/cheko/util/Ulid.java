@@ -0,0 +1,72 @@
+package com.faisal.cheko.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generator for ULIDs: 26 Crockford base32 characters holding a 48-bit millisecond
+ * timestamp followed by 80 random bits.
+ * <p>
+ * IDs sort by creation time, and each thread keeps its own state, so generation takes no
+ * lock and draws on {@link ThreadLocalRandom} rather than {@code SecureRandom}. Within the
+ * same millisecond a thread increments the random part of its previous ID, which keeps
+ * the IDs it produces strictly increasing. These IDs are for correlation only; they are
+ * not meant to be unguessable.
+ */
+public final class Ulid {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private Ulid() {
+    }
+
+    public static String next() {
+        return STATE.get().next(System.currentTimeMillis());
+    }
+
+    static String next(long millis) {
+        return STATE.get().next(millis);
+    }
+
+    private static final class State {
+        private long lastMillis = -1;
+        // 80 random bits: 16 in high, 64 in low
+        private int high;
+        private long low;
+        private final char[] buffer = new char[26];
+
+        String next(long millis) {
+            if (millis > lastMillis) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                lastMillis = millis;
+                high = random.nextInt() & 0xFFFF;
+                low = random.nextLong();
+            } else if (++low == 0) {
+                // Carry into the high bits; on full overflow borrow the next millisecond
+                high = (high + 1) & 0xFFFF;
+                if (high == 0) {
+                    lastMillis++;
+                }
+            }
+            return encode();
+        }
+
+        private String encode() {
+            long time = lastMillis;
+            for (int i = 9; i >= 0; i--) {
+                buffer[i] = ALPHABET[(int) (time & 31)];
+                time >>>= 5;
+            }
+            // The 80 random bits form 16 five-bit groups; the group at index 13 straddles low and high
+            for (int i = 0; i < 12; i++) {
+                buffer[25 - i] = ALPHABET[(int) ((low >>> (5 * i)) & 31)];
+            }
+            buffer[13] = ALPHABET[(int) ((low >>> 60) & 0xF) | ((high & 1) << 4)];
+            buffer[12] = ALPHABET[(high >>> 1) & 31];
+            buffer[11] = ALPHABET[(high >>> 6) & 31];
+            buffer[10] = ALPHABET[(high >>> 11) & 31];
+            return new String(buffer);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.MenuSectionResponse;
+import com.faisal.cheko.dto.MenuSectionWithCountResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of loading a whole branch menu from the snapshot, rendered to JSON as the response
+ * cache does on a miss: {@code /branches/{id}/menu} in one response against the section
+ * listing plus every page of every section at the default page size of 10, which is
+ * {@code 1 + sum(ceil(items / 10))} responses. Only the server's in-process work is measured;
+ * each extra response also pays its own request overhead and round trip, which this leaves
+ * out. Not a test; after {@code mvn test-compile dependency:build-classpath
+ * -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test}, run it with
+ * {@code java -cp target/test-classes:target/classes:$(cat cp.txt) com.faisal.cheko.cache.BranchMenuBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BranchMenuBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"6", "24"})
+    private int sections;
+
+    @Param({"8", "40"})
+    private int itemsPerSection;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MenuSnapshot snapshot;
+    private List<MenuSectionWithCountResponse> sectionListing;
+
+    @Setup
+    public void setUp() {
+        List<MenuSectionResponse> sectionRows = new ArrayList<>();
+        List<MenuItemResponse> items = new ArrayList<>();
+        sectionListing = new ArrayList<>();
+        long itemId = 1;
+        for (long sectionId = 1; sectionId <= sections; sectionId++) {
+            sectionRows.add(MenuSectionResponse.builder().id(sectionId).branchId(1L).branchName("Olaya")
+                    .name("Section " + sectionId).description("Dishes of section " + sectionId).build());
+            sectionListing.add(MenuSectionWithCountResponse.builder().id(sectionId).branchId(1L).branchName("Olaya")
+                    .name("Section " + sectionId).description("Dishes of section " + sectionId)
+                    .itemCount((long) itemsPerSection).availableItemCount((long) itemsPerSection).build());
+            for (int i = 0; i < itemsPerSection; i++, itemId++) {
+                items.add(MenuItemResponse.builder().id(itemId).sectionId(sectionId).sectionName("Section " + sectionId)
+                        .branchId(1L).branchName("Olaya").name("Item " + itemId)
+                        .description("A freshly prepared dish, number " + itemId)
+                        .price(BigDecimal.valueOf(1000 + itemId, 2)).calories(200 + (int) (itemId % 700))
+                        .imageUrl("https://images.example.com/items/" + itemId + ".jpg").isAvailable(itemId % 9 != 0)
+                        .build());
+            }
+        }
+        snapshot = new MenuSnapshot(1L, "Olaya", sectionRows, items, System.nanoTime());
+    }
+
+    @Benchmark
+    public int fullMenu() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(snapshot.toMenu(false)).length;
+    }
+
+    @Benchmark
+    public int sectionsThenPages() throws JsonProcessingException {
+        int bytes = objectMapper.writeValueAsBytes(sectionListing).length;
+        for (MenuSectionWithCountResponse section : sectionListing) {
+            Page<MenuItemResponse> page;
+            int number = 0;
+            do {
+                page = snapshot.query(section.getId(), false, null, PageRequest.of(number++, PAGE_SIZE, Sort.by("id")));
+                bytes += objectMapper.writeValueAsBytes(page).length;
+            } while (page.hasNext());
+        }
+        return bytes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BranchMenuBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.MenuSnapshotProperties;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.repository.BranchRepository;
+import com.faisal.cheko.repository.MenuSectionRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MenuIdIndexTests {
+
+	private final BranchRepository branchRepository = mock(BranchRepository.class);
+	private final MenuSectionRepository menuSectionRepository = mock(MenuSectionRepository.class);
+	private final MenuIdIndex index = new MenuIdIndex(branchRepository, menuSectionRepository,
+			mock(DatabaseConnectionService.class), mock(PlatformTransactionManager.class), new MenuSnapshotProperties());
+
+	@Test
+	void learnsExistingIdsAndAsksAgainForMissingOnes() {
+		when(branchRepository.existsById(1L)).thenReturn(true);
+		when(menuSectionRepository.findBranchIdById(2L)).thenReturn(Optional.of(1L));
+		when(menuSectionRepository.findBranchIdById(3L)).thenReturn(Optional.empty());
+
+		for (int i = 0; i < 3; i++) {
+			assertTrue(index.branchExists(1L));
+			assertEquals(1L, index.sectionBranchId(2L));
+			assertFalse(index.branchExists(9L));
+			assertNull(index.sectionBranchId(3L));
+		}
+
+		verify(branchRepository).existsById(1L);
+		verify(menuSectionRepository).findBranchIdById(2L);
+		verify(branchRepository, times(3)).existsById(9L);
+		verify(menuSectionRepository, times(3)).findBranchIdById(3L);
+	}
+
+	@Test
+	void followsCreatesMovesAndDeletes() {
+		index.onMenuChanged(new MenuChangedEvent(1L, null, null, MenuChangedEvent.Type.BRANCH_CREATED));
+		index.onMenuChanged(new MenuChangedEvent(1L, 2L, null, MenuChangedEvent.Type.SECTION_CREATED));
+		index.onMenuChanged(new MenuChangedEvent(1L, 3L, null, MenuChangedEvent.Type.SECTION_CREATED));
+		index.onMenuChanged(new MenuChangedEvent(4L, 3L, null, MenuChangedEvent.Type.SECTION_UPDATED));
+		assertTrue(index.branchExists(1L));
+		assertEquals(1L, index.sectionBranchId(2L));
+		assertEquals(4L, index.sectionBranchId(3L));
+
+		// The database cascades the branch's sections without section events
+		index.onMenuChanged(new MenuChangedEvent(1L, null, null, MenuChangedEvent.Type.BRANCH_DELETED));
+		when(menuSectionRepository.findBranchIdById(2L)).thenReturn(Optional.empty());
+		assertFalse(index.branchExists(1L));
+		assertNull(index.sectionBranchId(2L));
+		assertEquals(4L, index.sectionBranchId(3L));
+		verify(menuSectionRepository, times(0)).findBranchIdById(3L);
+	}
+}
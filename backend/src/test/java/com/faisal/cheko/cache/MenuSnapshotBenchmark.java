@@ -0,0 +1,168 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.ChekoApplication;
+import com.faisal.cheko.service.MenuItemService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of menu item reads served from the branch snapshot against the same
+ * reads through the repository queries, on a real Postgres and the full application context.
+ * Sample mode reports percentiles; compare the {@code p0.99} rows of the two paths. Both
+ * include the service's existence checks, which the id index answers once it has seen the
+ * branch.
+ * <p>
+ * Starts a throwaway PostGIS container with {@code db/Schema.sql}, or uses the database named
+ * by {@code -Dcheko.benchmark.postgres-url} (with {@code -Dcheko.benchmark.postgres-user} and
+ * {@code -Dcheko.benchmark.postgres-password}), which must already hold that schema. Either
+ * way the menu is seeded into a branch of its own, deleted again afterwards. Not a test; after
+ * {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * -Dmdep.includeScope=test}, run it with {@code java -cp target/test-classes:target/classes:$(cat cp.txt)
+ * com.faisal.cheko.cache.MenuSnapshotBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MenuSnapshotBenchmark {
+
+    private static final int SECTIONS = 10;
+
+    @Param({"snapshot", "database"})
+    private String path;
+
+    @Param({"200", "2000"})
+    private int items;
+
+    private PostgreSQLContainer<?> container;
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private MenuItemService menuItemService;
+    private long branchId;
+    private List<Long> sectionIds;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String url = System.getProperty("cheko.benchmark.postgres-url");
+        String user = System.getProperty("cheko.benchmark.postgres-user", "postgres");
+        String password = System.getProperty("cheko.benchmark.postgres-password", "");
+        if (url == null) {
+            container = new PostgreSQLContainer<>(DockerImageName.parse("postgis/postgis:16-3.4-alpine")
+                    .asCompatibleSubstituteFor("postgres"));
+            container.start();
+            url = container.getJdbcUrl();
+            user = container.getUsername();
+            password = container.getPassword();
+            new JdbcTemplate(new DriverManagerDataSource(url, user, password))
+                    .execute(Files.readString(Path.of("../db/Schema.sql")));
+        }
+
+        context = new SpringApplicationBuilder(ChekoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + user,
+                        "--spring.datasource.password=" + password,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.faisal.cheko=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                        "--cheko.menu-snapshot.enabled=" + path.equals("snapshot"));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        menuItemService = context.getBean(MenuItemService.class);
+        seed();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (jdbcTemplate != null && branchId != 0) {
+            jdbcTemplate.update("DELETE FROM restaurant.branches WHERE id = ?", branchId);
+        }
+        if (context != null) {
+            context.close();
+        }
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Benchmark
+    public Object branchPage(Cursor cursor) {
+        Pageable page = PageRequest.of(cursor.next++ % (items / 10), 10, Sort.by("name"));
+        return menuItemService.getMenuItemsByBranchIdPaginated(branchId, page, false);
+    }
+
+    @Benchmark
+    public Object sectionPage(Cursor cursor) {
+        long sectionId = sectionIds.get(cursor.next++ % SECTIONS);
+        return menuItemService.getMenuItemsByBranchIdAndBySectionIdPaginated(branchId, sectionId, PageRequest.of(0, 10), false);
+    }
+
+    @Benchmark
+    public Object availableByName() {
+        return menuItemService.getAvailableMenuItemsByBranchIdPaginated(branchId, "dish 1", PageRequest.of(0, 10), false);
+    }
+
+    private void seed() {
+        branchId = jdbcTemplate.queryForObject(
+                "INSERT INTO restaurant.branches (branch_name, address, is_active) VALUES ('Benchmark', 'Nowhere', true) RETURNING id",
+                Long.class);
+        sectionIds = new ArrayList<>();
+        for (int s = 0; s < SECTIONS; s++) {
+            sectionIds.add(jdbcTemplate.queryForObject(
+                    "INSERT INTO restaurant.menu_sections (branch_id, name, description) VALUES (?, ?, ?) RETURNING id",
+                    Long.class, branchId, "Section " + s, "Dishes of section " + s));
+        }
+        List<Object[]> rows = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            rows.add(new Object[]{sectionIds.get(i % SECTIONS), "Dish " + i, "A freshly prepared dish, number " + i,
+                    BigDecimal.valueOf(1000 + i, 2), 200 + i % 700, "https://images.example.com/items/" + i + ".jpg",
+                    i % 9 != 0});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO restaurant.menu_items "
+                + "(section_id, name, description, price, calories, image_url, is_available) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+        jdbcTemplate.execute("ANALYZE restaurant.menu_items");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MenuSnapshotBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,121 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.dto.BranchMenuResponse;
+import com.faisal.cheko.dto.BranchMenuSectionResponse;
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.MenuSectionResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MenuSnapshotTests {
+
+	private final MenuSnapshot snapshot = new MenuSnapshot(1L, "Olaya",
+			Arrays.asList(section(10L, "Mains"), section(20L, "Drinks")),
+			Arrays.asList(
+					item(1L, 10L, "Kabsa", "45.00", 900, true),
+					item(2L, 10L, "chicken mandi", "40.00", null, true),
+					item(3L, 10L, "Chicken Shawarma", "18.00", 650, false),
+					item(4L, 20L, "Mint Lemonade", "12.00", 180, true),
+					item(5L, 20L, "Arabic Coffee", "8.00", 5, true)),
+			System.nanoTime());
+
+	@Test
+	void filtersBySectionAvailabilityAndName() {
+		Page<MenuItemResponse> page = snapshot.query(10L, true, "CHICK", PageRequest.of(0, 10, Sort.by("name")));
+
+		assertEquals(Arrays.asList(2L), ids(page.getContent()));
+		assertEquals(1, page.getTotalElements());
+	}
+
+	@Test
+	void sortsLikePostgresWithNullsLastAscendingAndFirstDescending() {
+		assertEquals(Arrays.asList(5L, 4L, 3L, 1L, 2L),
+				ids(snapshot.query(null, false, null, PageRequest.of(0, 10, Sort.by("calories"))).getContent()));
+		assertEquals(Arrays.asList(2L, 1L, 3L, 4L, 5L),
+				ids(snapshot.query(null, false, null,
+						PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "calories"))).getContent()));
+		// Case-insensitive text order
+		assertEquals(Arrays.asList(5L, 2L, 3L, 1L, 4L),
+				ids(snapshot.query(null, false, null, PageRequest.of(0, 10, Sort.by("name"))).getContent()));
+	}
+
+	@Test
+	void pagesCountOnlyMatchingItems() {
+		Page<MenuItemResponse> second = snapshot.query(null, true, null, PageRequest.of(1, 2, Sort.by("price")));
+
+		assertEquals(Arrays.asList(2L, 1L), ids(second.getContent()));
+		assertEquals(4, second.getTotalElements());
+		assertEquals(2, second.getTotalPages());
+		assertTrue(second.isLast());
+	}
+
+	@Test
+	void searchesRankByRelevanceAndTolerateTypos() {
+		assertEquals(Arrays.asList(4L),
+				ids(snapshot.query(null, false, "lemon", PageRequest.of(0, 10, Sort.by("relevance"))).getContent()));
+		// Misspelled, so no name contains it; the closest names come back, shorter first
+		assertEquals(Arrays.asList(2L, 3L),
+				ids(snapshot.query(10L, false, "chiken", PageRequest.of(0, 10, Sort.by("relevance"))).getContent()));
+		// Any other sort orders the matches as usual
+		assertEquals(Arrays.asList(3L, 2L),
+				ids(snapshot.query(10L, false, "chiken", PageRequest.of(0, 10,
+						Sort.by(Sort.Direction.DESC, "name"))).getContent()));
+	}
+
+	@Test
+	void unknownSortPropertiesAreLeftToTheDatabase() {
+		assertTrue(MenuSnapshot.supports(Sort.by("price", "name")));
+		assertTrue(MenuSnapshot.supports(Sort.by("relevance")));
+		assertFalse(MenuSnapshot.supports(Sort.by("section.branch.city")));
+	}
+
+	@Test
+	void menuTreeMatchesOneSectionRequestPerSection() {
+		BranchMenuResponse menu = snapshot.toMenu(false);
+
+		assertEquals(5, menu.getItemCount());
+		assertEquals(Arrays.asList(10L, 20L), menu.getSections().stream().map(BranchMenuSectionResponse::getId).collect(Collectors.toList()));
+		// Same items, in the same order, as the section listing plus a page per section
+		for (BranchMenuSectionResponse section : menu.getSections()) {
+			assertEquals(ids(snapshot.query(section.getId(), false, null, PageRequest.of(0, 100, Sort.by("id"))).getContent()),
+					ids(section.getItems()));
+		}
+
+		BranchMenuResponse available = snapshot.toMenu(true);
+		assertEquals(4, available.getItemCount());
+		assertEquals(Arrays.asList(1L, 2L), ids(available.getSections().get(0).getItems()));
+		assertEquals(2, available.getSections().size());
+	}
+
+	private static List<Long> ids(List<MenuItemResponse> items) {
+		return items.stream().map(MenuItemResponse::getId).collect(Collectors.toList());
+	}
+
+	private static MenuSectionResponse section(Long id, String name) {
+		return MenuSectionResponse.builder().id(id).branchId(1L).branchName("Olaya").name(name).build();
+	}
+
+	private static MenuItemResponse item(Long id, Long sectionId, String name, String price, Integer calories,
+										 boolean available) {
+		return MenuItemResponse.builder()
+				.id(id)
+				.sectionId(sectionId)
+				.branchId(1L)
+				.name(name)
+				.price(new BigDecimal(price))
+				.calories(calories)
+				.isAvailable(available)
+				.build();
+	}
+}
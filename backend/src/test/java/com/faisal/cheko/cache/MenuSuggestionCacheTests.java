@@ -0,0 +1,100 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.MenuSnapshotProperties;
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.dto.MenuItemSuggestionResponse;
+import com.faisal.cheko.repository.OrderItemRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MenuSuggestionCacheTests {
+
+	private final MenuSnapshotCache snapshots = mock(MenuSnapshotCache.class);
+	private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+	private final DatabaseConnectionService databaseConnectionService = mock(DatabaseConnectionService.class);
+	private final MenuSuggestionCache cache = new MenuSuggestionCache(snapshots, orderItemRepository, databaseConnectionService,
+			new MenuSnapshotProperties());
+
+	@Test
+	void triesFollowTheCachedSnapshot() {
+		when(snapshots.isEnabled()).thenReturn(true);
+		when(snapshots.getBranch(1L)).thenReturn(snapshot("Kabsa", "Karak Tea"));
+		when(orderItemRepository.countOrdersPerItemByBranchId(anyLong())).thenReturn(Collections.singletonList(new Object[] {2L, 5L}));
+
+		assertEquals(Arrays.asList("Karak Tea", "Kabsa"), names(cache.suggest(1L, "ka", 10)));
+		assertEquals(Arrays.asList("Karak Tea", "Kabsa"), names(cache.suggest(1L, "ka", 10)));
+		assertEquals(1L, cache.getMetrics().get("builds"));
+
+		// A menu write replaces the snapshot, and the trie with it
+		when(snapshots.getBranch(1L)).thenReturn(snapshot("Kabsa"));
+		assertEquals(Arrays.asList("Kabsa"), names(cache.suggest(1L, "ka", 10)));
+		verify(snapshots, never()).read(anyLong());
+	}
+
+	@Test
+	void orderCountsAreRefreshedOffTheRequestPath() {
+		when(snapshots.isEnabled()).thenReturn(true);
+		when(snapshots.getBranch(1L)).thenReturn(snapshot("Kabsa", "Karak Tea"));
+		when(databaseConnectionService.isConnected()).thenReturn(true);
+		when(orderItemRepository.countOrdersPerItemByBranchId(1L)).thenReturn(Collections.singletonList(new Object[] {2L, 5L}));
+
+		assertEquals(Arrays.asList("Karak Tea", "Kabsa"), names(cache.suggest(1L, "ka", 10)));
+
+		// Kabsa overtakes Karak Tea; requests keep the old ranking until the refresh swaps it
+		when(orderItemRepository.countOrdersPerItemByBranchId(1L)).thenReturn(Arrays.asList(new Object[] {1L, 9L}, new Object[] {2L, 5L}));
+		assertEquals(Arrays.asList("Karak Tea", "Kabsa"), names(cache.suggest(1L, "ka", 10)));
+		verify(orderItemRepository, times(1)).countOrdersPerItemByBranchId(1L);
+
+		cache.refreshPopularity();
+		assertEquals(Arrays.asList("Kabsa", "Karak Tea"), names(cache.suggest(1L, "ka", 10)));
+		assertEquals(9L, cache.suggest(1L, "kab", 10).get(0).getOrderCount());
+
+		// A failed refresh keeps serving the last ranking
+		when(orderItemRepository.countOrdersPerItemByBranchId(1L)).thenThrow(new QueryTimeoutException("slow"));
+		cache.refreshPopularity();
+		assertEquals(Arrays.asList("Kabsa", "Karak Tea"), names(cache.suggest(1L, "ka", 10)));
+		assertEquals(1L, cache.getMetrics().get("popularityLoadFailures"));
+		verify(orderItemRepository, times(3)).countOrdersPerItemByBranchId(1L);
+	}
+
+	@Test
+	void disabledSnapshotsAreReadAfreshForEveryRequest() {
+		when(snapshots.isEnabled()).thenReturn(false);
+		when(snapshots.read(1L)).thenReturn(snapshot("Kabsa", "Karak Tea"));
+		when(orderItemRepository.countOrdersPerItemByBranchId(anyLong())).thenReturn(Collections.emptyList());
+
+		assertEquals(Arrays.asList("Kabsa", "Karak Tea"), names(cache.suggest(1L, "ka", 10)));
+
+		when(snapshots.read(1L)).thenReturn(snapshot("Kabsa"));
+		assertEquals(Arrays.asList("Kabsa"), names(cache.suggest(1L, "ka", 10)));
+		assertEquals(0, cache.getMetrics().get("cachedBranches"));
+		verify(snapshots, never()).getBranch(anyLong());
+	}
+
+	private static MenuSnapshot snapshot(String... names) {
+		List<MenuItemResponse> items = new ArrayList<>();
+		for (int i = 0; i < names.length; i++) {
+			items.add(MenuItemResponse.builder().id(i + 1L).sectionId(10L).branchId(1L).name(names[i]).isAvailable(true).build());
+		}
+		return new MenuSnapshot(1L, "Olaya", Collections.emptyList(), items, System.nanoTime());
+	}
+
+	private static List<String> names(List<MenuItemSuggestionResponse> suggestions) {
+		return suggestions.stream().map(MenuItemSuggestionResponse::getName).collect(Collectors.toList());
+	}
+}
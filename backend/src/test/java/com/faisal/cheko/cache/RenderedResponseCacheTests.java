@@ -0,0 +1,156 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.ResponseCacheProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RenderedResponseCacheTests {
+
+	private final AtomicReference<String> version = new AtomicReference<>("0.0");
+	private final AtomicInteger renders = new AtomicInteger();
+	private final RenderedResponseCache cache = cache(new ResponseCacheProperties());
+
+	@Test
+	void matchingIfNoneMatchIsAnsweredWithoutRendering() {
+		ResponseEntity<byte[]> first = cache.serve(get(null), 1L, this::body);
+		assertEquals(HttpStatus.OK, first.getStatusCode());
+		String etag = first.getHeaders().getETag();
+
+		ResponseEntity<byte[]> second = cache.serve(get(etag), 1L, this::body);
+
+		assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+		assertNull(second.getBody());
+		assertEquals(etag, second.getHeaders().getETag());
+		assertEquals(1, renders.get());
+	}
+
+	@Test
+	void contentVersionChangeRendersAgain() {
+		String etag = cache.serve(get(null), 1L, this::body).getHeaders().getETag();
+
+		version.set("0.1");
+		ResponseEntity<byte[]> afterWrite = cache.serve(get(etag), 1L, this::body);
+
+		assertEquals(HttpStatus.OK, afterWrite.getStatusCode());
+		assertNotEquals(etag, afterWrite.getHeaders().getETag());
+		assertEquals(2, renders.get());
+	}
+
+	@Test
+	void gzipVariantHasItsOwnTagAndRevalidatesEitherWay() throws Exception {
+		ResponseCacheProperties properties = new ResponseCacheProperties();
+		properties.setGzipMinSize(DataSize.ofBytes(0));
+		RenderedResponseCache gzipCache = cache(properties);
+
+		ResponseEntity<byte[]> plain = gzipCache.serve(get(null), 1L, this::body);
+		MockHttpServletRequest gzipRequest = get(null);
+		gzipRequest.addHeader("Accept-Encoding", "br, gzip;q=0.8");
+		ResponseEntity<byte[]> compressed = gzipCache.serve(gzipRequest, 1L, this::body);
+
+		assertEquals("gzip", compressed.getHeaders().getFirst("Content-Encoding"));
+		assertNotEquals(plain.getHeaders().getETag(), compressed.getHeaders().getETag());
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.getBody()))) {
+			assertArrayEquals(plain.getBody(), in.readAllBytes());
+		}
+		assertEquals(HttpStatus.NOT_MODIFIED,
+				gzipCache.serve(get(compressed.getHeaders().getETag()), 1L, this::body).getStatusCode());
+	}
+
+	@Test
+	void queryParameterOrderDoesNotSplitEntries() {
+		MockHttpServletRequest a = get(null);
+		a.setParameter("size", "10");
+		a.setParameter("page", "0");
+		MockHttpServletRequest b = get(null);
+		b.setParameter("page", "0");
+		b.setParameter("size", "10");
+
+		assertEquals(RenderedResponseCache.key(a), RenderedResponseCache.key(b));
+		assertTrue(RenderedResponseCache.matches("W/\"abc\", \"xyz\"", "\"abc\""));
+		assertFalse(RenderedResponseCache.matches("\"abcd\"", "\"abc\""));
+	}
+
+	@Test
+	void unboundQueryParametersShareTheEntry() {
+		MockHttpServletRequest plain = get(null);
+		plain.setParameter("page", "1");
+		MockHttpServletRequest bust = get(null);
+		bust.setParameter("page", "1");
+		bust.setParameter("nonce", "8f3a");
+
+		assertEquals(RenderedResponseCache.key(plain), RenderedResponseCache.key(bust));
+		cache.serve(plain, 1L, this::body);
+		cache.serve(bust, 1L, this::body);
+		assertEquals(1, renders.get());
+		assertEquals(1, cache.getMetrics().get("entries"));
+
+		MockHttpServletRequest nextPage = get(null);
+		nextPage.setParameter("page", "2");
+		assertNotEquals(RenderedResponseCache.key(plain), RenderedResponseCache.key(nextPage));
+	}
+
+	@Test
+	void leastRecentlyUsedEntryIsEvictedFirst() {
+		ResponseCacheProperties properties = new ResponseCacheProperties();
+		properties.setMaxEntries(2);
+		RenderedResponseCache small = cache(properties);
+
+		small.serve(page("1"), 1L, this::body);
+		small.serve(page("2"), 1L, this::body);
+		// Touch page 1 so page 2 becomes the eldest
+		small.serve(page("1"), 1L, this::body);
+		small.serve(page("3"), 1L, this::body);
+		assertEquals(3, renders.get());
+		assertEquals(1L, small.getMetrics().get("evictions"));
+
+		small.serve(page("1"), 1L, this::body);
+		assertEquals(3, renders.get());
+		small.serve(page("2"), 1L, this::body);
+		assertEquals(4, renders.get());
+	}
+
+	private RenderedResponseCache cache(ResponseCacheProperties properties) {
+		MenuSnapshotCache snapshots = mock(MenuSnapshotCache.class);
+		when(snapshots.getContentVersion(anyLong())).thenAnswer(invocation -> version.get());
+		return new RenderedResponseCache(new ObjectMapper(), snapshots, properties);
+	}
+
+	private Object body() {
+		renders.incrementAndGet();
+		return Collections.singletonMap("version", version.get());
+	}
+
+	private static MockHttpServletRequest page(String page) {
+		MockHttpServletRequest request = get(null);
+		request.setParameter("page", page);
+		return request;
+	}
+
+	private static MockHttpServletRequest get(String ifNoneMatch) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/menu-sections/branch/1/with-counts");
+		if (ifNoneMatch != null) {
+			request.addHeader("If-None-Match", ifNoneMatch);
+		}
+		return request;
+	}
+}
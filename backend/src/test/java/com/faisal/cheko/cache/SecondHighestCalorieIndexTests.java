@@ -0,0 +1,139 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.config.MenuSnapshotProperties;
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.repository.MenuItemRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SecondHighestCalorieIndexTests {
+
+	@Test
+	void keepsTiesAndPromotesTheNextValueOnDelete() {
+		SecondHighestCalorieIndex index = new SecondHighestCalorieIndex(Arrays.asList(
+				item(1, 10, 900), item(2, 10, 900), item(3, 10, 700), item(4, 10, 700), item(5, 10, 500),
+				item(6, 20, 300), item(7, 20, 300), item(8, 20, null)));
+
+		// Tied maximum counts once, tied second value returns every item; section 20 has one distinct value
+		assertEquals(Arrays.asList(3L, 4L), ids(index.secondHighest()));
+
+		index.remove(1L);
+		index.remove(2L);
+		assertEquals(Arrays.asList(5L), ids(index.secondHighest()));
+
+		index.put(item(8, 20, 100));
+		index.put(item(5, 20, 500));
+		assertEquals(Arrays.asList(6L, 7L), ids(index.secondHighest()));
+	}
+
+	@Test
+	void agreesWithTheCorrelatedQueryUnderRandomChanges() {
+		Random random = new Random(15);
+		Map<Long, MenuItemResponse> table = new HashMap<>();
+		for (long id = 1; id <= 200; id++) {
+			table.put(id, randomItem(random, id));
+		}
+		SecondHighestCalorieIndex index = new SecondHighestCalorieIndex(table.values());
+
+		for (int step = 0; step < 2000; step++) {
+			long id = 1 + random.nextInt(260);
+			int action = random.nextInt(10);
+			if (action < 3) {
+				table.remove(id);
+				index.remove(id);
+			} else if (action < 9) {
+				MenuItemResponse item = randomItem(random, id);
+				table.put(id, item);
+				index.put(item);
+			} else {
+				long sectionId = 1 + random.nextInt(8);
+				table.values().removeIf(item -> item.getSectionId() == sectionId);
+				List<MenuItemResponse> replacement = new ArrayList<>();
+				for (int i = random.nextInt(4); i > 0; i--) {
+					MenuItemResponse item = randomItem(random, 1000 + step * 4L + i);
+					item.setSectionId(sectionId);
+					replacement.add(item);
+					table.put(item.getId(), item);
+				}
+				index.replaceSection(sectionId, replacement);
+			}
+			assertEquals(ids(correlatedQuery(table.values())), ids(index.secondHighest()), "after step " + step);
+		}
+	}
+
+	@Test
+	void coldReadsUseTheWindowQueryUntilLoadedThenApplyChangesPerItem() {
+		MenuItemRepository repository = mock(MenuItemRepository.class);
+		when(repository.findSecondHighestCalorieMealPerCategoryRanked()).thenReturn(Collections.singletonList(item(2, 10, 300)));
+		when(repository.findAllResponsesWithCalories()).thenReturn(Arrays.asList(item(1, 10, 500), item(2, 10, 300)));
+		SecondHighestCalorieCache cache = new SecondHighestCalorieCache(repository, new MenuSnapshotProperties());
+
+		assertEquals(Arrays.asList(2L), ids(cache.getSecondHighestCalorieMealPerCategory()));
+		verify(repository).findSecondHighestCalorieMealPerCategoryRanked();
+
+		cache.loadIfRequested();
+		when(repository.findResponseById(3L)).thenReturn(Optional.of(item(3, 10, 400)));
+		cache.onMenuChanged(new MenuChangedEvent(null, 10L, 3L, MenuChangedEvent.Type.ITEM_CREATED));
+
+		assertEquals(Arrays.asList(3L), ids(cache.getSecondHighestCalorieMealPerCategory()));
+		verify(repository).findSecondHighestCalorieMealPerCategoryRanked();
+	}
+
+	/**
+	 * Direct translation of the SQL: items whose calories equal the largest value below the
+	 * section maximum.
+	 */
+	private static List<MenuItemResponse> correlatedQuery(Iterable<MenuItemResponse> table) {
+		List<MenuItemResponse> result = new ArrayList<>();
+		for (MenuItemResponse mi : table) {
+			Integer max = null;
+			for (MenuItemResponse mi3 : table) {
+				if (mi3.getSectionId().equals(mi.getSectionId()) && mi3.getCalories() != null
+						&& (max == null || mi3.getCalories() > max)) {
+					max = mi3.getCalories();
+				}
+			}
+			Integer second = null;
+			for (MenuItemResponse mi2 : table) {
+				if (max != null && mi2.getSectionId().equals(mi.getSectionId()) && mi2.getCalories() != null
+						&& mi2.getCalories() < max && (second == null || mi2.getCalories() > second)) {
+					second = mi2.getCalories();
+				}
+			}
+			if (second != null && second.equals(mi.getCalories())) {
+				result.add(mi);
+			}
+		}
+		result.sort(Comparator.comparing(MenuItemResponse::getSectionId).thenComparing(MenuItemResponse::getId));
+		return result;
+	}
+
+	private static MenuItemResponse randomItem(Random random, long id) {
+		Integer calories = random.nextInt(8) == 0 ? null : 100 * random.nextInt(6);
+		return item(id, 1 + random.nextInt(8), calories);
+	}
+
+	private static MenuItemResponse item(long id, long sectionId, Integer calories) {
+		return MenuItemResponse.builder().id(id).sectionId(sectionId).calories(calories).build();
+	}
+
+	private static List<Long> ids(List<MenuItemResponse> items) {
+		return items.stream().map(MenuItemResponse::getId).collect(Collectors.toList());
+	}
+}
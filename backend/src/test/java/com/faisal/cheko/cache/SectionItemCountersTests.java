@@ -0,0 +1,86 @@
+package com.faisal.cheko.cache;
+
+import com.faisal.cheko.dto.MenuSectionWithCountResponse;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.repository.MenuItemRepository;
+import com.faisal.cheko.repository.MenuSectionRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class SectionItemCountersTests {
+
+	private final MenuSectionRepository menuSectionRepository = mock(MenuSectionRepository.class);
+	private final MenuItemRepository menuItemRepository = mock(MenuItemRepository.class);
+	private final DatabaseConnectionService database = mock(DatabaseConnectionService.class);
+	private SectionItemCounters counters;
+
+	@BeforeEach
+	void setUp() {
+		when(database.isConnected()).thenReturn(true);
+		when(menuSectionRepository.findAllWithItemCounts()).thenReturn(Arrays.asList(section(10, 1, 2, 1), section(20, 1, 1, 0)));
+		when(menuItemRepository.findAllItemStates()).thenReturn(Arrays.asList(
+				new Object[]{100L, 10L, true}, new Object[]{101L, 10L, false}, new Object[]{102L, 20L, false}));
+		counters = new SectionItemCounters(menuSectionRepository, menuItemRepository, database, mock(PlatformTransactionManager.class));
+	}
+
+	@Test
+	void seedsOnRequestAndAdjustsOnItemChangesWithoutQueries() {
+		assertNull(counters.getBranch(1L));
+		counters.seedIfRequested();
+		assertEquals(Arrays.asList("10:2/1", "20:1/0"), counts(1L));
+
+		counters.onMenuChanged(new MenuChangedEvent(null, 20L, 103L, MenuChangedEvent.Type.ITEM_CREATED, true));
+		counters.onMenuChanged(new MenuChangedEvent(null, 10L, 101L, MenuChangedEvent.Type.ITEM_UPDATED, true));
+		counters.onMenuChanged(new MenuChangedEvent(null, 20L, 100L, MenuChangedEvent.Type.ITEM_UPDATED, true));
+		counters.onMenuChanged(new MenuChangedEvent(null, 20L, 102L, MenuChangedEvent.Type.ITEM_DELETED, false));
+
+		// 101 became available, 100 moved to section 20, 103 added and 102 deleted there
+		assertEquals(Arrays.asList("10:1/1", "20:2/2"), counts(1L));
+		assertEquals(0, counters.getBranch(2L).size());
+		verify(menuSectionRepository).findAllWithItemCounts();
+		verify(menuItemRepository).findAllItemStates();
+		verifyNoMoreInteractions(menuSectionRepository, menuItemRepository);
+	}
+
+	@Test
+	void reconciliationReportsDriftAndReseeds() {
+		counters.onApplicationReady();
+		counters.seedIfRequested();
+		counters.reconcile();
+		assertEquals(0, counters.getMetrics().get("lastDriftedSections"));
+
+		// A row deleted behind the application's back
+		when(menuSectionRepository.findAllWithItemCounts()).thenReturn(Arrays.asList(section(10, 1, 1, 1), section(20, 1, 1, 0)));
+		when(menuItemRepository.findAllItemStates()).thenReturn(Arrays.asList(
+				new Object[]{100L, 10L, true}, new Object[]{102L, 20L, false}));
+		counters.reconcile();
+
+		assertEquals(1, counters.getMetrics().get("lastDriftedSections"));
+		assertEquals(Arrays.asList("10:1/1", "20:1/0"), counts(1L));
+		verify(menuItemRepository, times(2)).findAllItemStates();
+	}
+
+	private List<String> counts(Long branchId) {
+		return counters.getBranch(branchId).stream()
+				.map(section -> section.getId() + ":" + section.getItemCount() + "/" + section.getAvailableItemCount())
+				.collect(Collectors.toList());
+	}
+
+	private static MenuSectionWithCountResponse section(long id, long branchId, long items, long available) {
+		return new MenuSectionWithCountResponse(id, branchId, "Main", "Section " + id, null, items, available);
+	}
+}
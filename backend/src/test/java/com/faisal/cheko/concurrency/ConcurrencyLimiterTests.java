@@ -0,0 +1,93 @@
+package com.faisal.cheko.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTests {
+
+	private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	void rejectsImmediatelyOnceLimitIsReached() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(new AimdLimit(0.9, Duration.ofSeconds(1)), 2, 1, 10);
+
+		Optional<ConcurrencyLimiter.Permit> first = limiter.tryAcquire();
+		assertTrue(first.isPresent());
+		assertTrue(limiter.tryAcquire().isPresent());
+		assertTrue(limiter.tryAcquire().isEmpty());
+		assertEquals(2, limiter.getInFlight());
+
+		first.get().release(false);
+		first.get().release(false);
+		assertEquals(1, limiter.getInFlight());
+		assertTrue(limiter.tryAcquire().isPresent());
+		assertEquals(1L, limiter.getMetrics().get("rejected"));
+	}
+
+	@Test
+	void gradientLimitShrinksWhenLatencyJumps() {
+		AtomicLong clock = new AtomicLong();
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(new GradientLimit(1.5, 0.2, 10, 600), 40, 2, 200, clock::get);
+
+		runTicks(limiter, clock, 200, 5, 50, 1000);
+		int healthyLimit = limiter.getLimit();
+
+		// The database becomes ten times slower
+		runTicks(limiter, clock, 1, 50, 50, 1000);
+		assertTrue(limiter.getLimit() < healthyLimit / 2,
+				"limit went from " + healthyLimit + " to " + limiter.getLimit());
+	}
+
+	@Test
+	void tailLatencyStaysBoundedWhenDatabaseSlowsDown() {
+		AtomicLong clock = new AtomicLong();
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(new AimdLimit(0.9, Duration.ofMillis(100)), 20, 2, 200, clock::get);
+
+		runTicks(limiter, clock, 200, 5, 10, 100);
+		// Inject database latency: every query now takes 50ms and only 10 connections exist
+		runTicks(limiter, clock, 200, 50, 10, 100);
+		List<Long> latencies = runTicks(limiter, clock, 200, 50, 10, 100);
+
+		Collections.sort(latencies);
+		long p99 = latencies.get((int) (latencies.size() * 0.99));
+		// Admitting all 100 offered requests would cost 50ms * 100 / 10 = 500ms each
+		assertTrue(p99 <= 120 * MILLI, "p99 was " + p99 / MILLI + "ms");
+	}
+
+	/**
+	 * Closed-loop simulation: each tick offers a fixed number of requests, admits what the
+	 * limiter allows, and completes them with a latency that grows once the admitted requests
+	 * outnumber the database connections.
+	 *
+	 * @return latencies of the admitted requests
+	 */
+	private static List<Long> runTicks(ConcurrencyLimiter limiter, AtomicLong clock, int ticks,
+									   long queryMillis, int connections, int offered) {
+		List<Long> latencies = new ArrayList<>();
+		for (int tick = 0; tick < ticks; tick++) {
+			long start = clock.get();
+			List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+			for (int i = 0; i < offered; i++) {
+				limiter.tryAcquire().ifPresent(permits::add);
+			}
+			long latency = (long) (queryMillis * MILLI * Math.max(1.0, (double) permits.size() / connections));
+			for (ConcurrencyLimiter.Permit permit : permits) {
+				clock.set(start + latency);
+				permit.release(false);
+				latencies.add(latency);
+			}
+			clock.set(start + latency + MILLI);
+		}
+		return latencies;
+	}
+}
@@ -0,0 +1,69 @@
+package com.faisal.cheko.context;
+
+import com.faisal.cheko.config.RequestContextProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestContextResolverTests {
+
+	private final RequestContextResolver resolver = resolver("10.0.0.0/8", "2001:db8::/32");
+
+	@Test
+	void forwardedHeaderIgnoredFromUntrustedPeer() {
+		MockHttpServletRequest request = request("203.0.113.9", "198.51.100.1");
+
+		assertEquals("203.0.113.9", resolver.resolveClientIp(request));
+	}
+
+	@Test
+	void walksForwardedHeaderFromTheRightPastTrustedHops() {
+		// The client forged the first entry; the load balancer appended the real address
+		MockHttpServletRequest request = request("10.0.0.5", "1.2.3.4, 198.51.100.7, 10.0.3.3");
+
+		assertEquals("198.51.100.7", resolver.resolveClientIp(request));
+	}
+
+	@Test
+	void contextIsComputedOncePerRequest() {
+		MockHttpServletRequest request = request("10.0.0.5", "198.51.100.7");
+
+		RequestContext context = resolver.resolve(request);
+		assertSame(context, resolver.resolve(request));
+		assertEquals("198.51.100.7", context.getClientIp());
+		assertEquals(26, context.getRequestId().length());
+	}
+
+	@Test
+	void trustedProxyMasksMatchPartialBytes() {
+		TrustedProxies proxies = new TrustedProxies(Arrays.asList("172.16.0.0/12", "2001:db8::/32", "192.0.2.1"));
+
+		assertTrue(proxies.isTrusted("172.31.255.255"));
+		assertFalse(proxies.isTrusted("172.32.0.0"));
+		assertTrue(proxies.isTrusted("2001:db8:1::1"));
+		assertFalse(proxies.isTrusted("2001:db9::1"));
+		assertTrue(proxies.isTrusted("192.0.2.1"));
+		assertFalse(proxies.isTrusted("192.0.2.2"));
+		assertFalse(proxies.isTrusted("proxy.example.com"));
+		assertFalse(proxies.isTrusted("256.1.1.1"));
+	}
+
+	private static RequestContextResolver resolver(String... cidrs) {
+		RequestContextProperties properties = new RequestContextProperties();
+		properties.setTrustedProxies(Arrays.asList(cidrs));
+		return new RequestContextResolver(properties);
+	}
+
+	private static MockHttpServletRequest request(String peer, String forwardedFor) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/branches");
+		request.setRemoteAddr(peer);
+		request.addHeader("X-Forwarded-For", forwardedFor);
+		return request;
+	}
+}
@@ -0,0 +1,56 @@
+package com.faisal.cheko.exporter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RowWriterTests {
+
+	private static final String[] COLUMNS = {"id", "name", "price", "is_available", "created_at"};
+
+	@Test
+	void csvQuotesOnlyFieldsThatNeedIt() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (RowWriter writer = new CsvRowWriter(out)) {
+			writer.writeHeader(COLUMNS);
+			writer.writeRow(row(7L, "Tea, \"mint\"\nlarge", new BigDecimal("12.50"), true, null));
+			writer.writeRow(row(8L, "Coffee", null, false, Timestamp.from(Instant.parse("2025-01-02T03:04:05Z"))));
+		}
+
+		assertEquals("id,name,price,is_available,created_at\r\n"
+				+ "7,\"Tea, \"\"mint\"\"\nlarge\",12.50,true,\r\n"
+				+ "8,Coffee,,false,2025-01-02T03:04:05Z\r\n", out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void ndjsonKeepsNumbersAndBooleansTyped() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (RowWriter writer = new NdjsonRowWriter(out, new ObjectMapper())) {
+			writer.writeHeader(COLUMNS);
+			writer.writeRow(row(7L, "Tea", new BigDecimal("12.50"), true, null));
+			writer.writeRow(row(8L, "Coffee", null, false, Timestamp.from(Instant.parse("2025-01-02T03:04:05Z"))));
+		}
+
+		assertEquals("{\"id\":7,\"name\":\"Tea\",\"price\":12.50,\"is_available\":true,\"created_at\":null}\n"
+				+ "{\"id\":8,\"name\":\"Coffee\",\"price\":null,\"is_available\":false,\"created_at\":\"2025-01-02T03:04:05Z\"}\n",
+				out.toString(StandardCharsets.UTF_8));
+	}
+
+	private static ResultSet row(Object... values) throws Exception {
+		ResultSet resultSet = mock(ResultSet.class);
+		for (int i = 0; i < values.length; i++) {
+			when(resultSet.getObject(i + 1)).thenReturn(values[i]);
+		}
+		return resultSet;
+	}
+}
@@ -0,0 +1,44 @@
+package com.faisal.cheko.exporter;
+
+import com.faisal.cheko.config.ExportProperties;
+import com.faisal.cheko.exception.ServiceBusyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class StreamingExporterTests {
+
+	@Test
+	void exportsOverTheCapAreRefusedUntilASlotIsGivenBack() throws IOException {
+		ExportProperties properties = new ExportProperties();
+		properties.setMaxConcurrent(2);
+		StreamingExporter exporter = new StreamingExporter(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class),
+				new ObjectMapper(), properties);
+
+		StreamingResponseBody first = exporter.reserve(out -> out.write('a'));
+		StreamingResponseBody failing = exporter.reserve(out -> {
+			throw new IOException("client went away");
+		});
+		assertThrows(ServiceBusyException.class, () -> exporter.reserve(out -> { }));
+		assertEquals(1L, exporter.getMetrics().get("refused"));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		first.writeTo(out);
+		assertEquals("a", out.toString());
+		// A failed export gives its slot back as well
+		assertThrows(IOException.class, () -> failing.writeTo(new ByteArrayOutputStream()));
+
+		exporter.reserve(out1 -> { });
+		exporter.reserve(out2 -> { });
+		assertThrows(ServiceBusyException.class, () -> exporter.reserve(out3 -> { }));
+	}
+}
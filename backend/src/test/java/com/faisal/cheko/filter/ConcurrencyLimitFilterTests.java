@@ -0,0 +1,143 @@
+package com.faisal.cheko.filter;
+
+import com.faisal.cheko.config.ConcurrencyLimitProperties;
+import com.faisal.cheko.exception.GlobalExceptionHandler;
+import com.faisal.cheko.exception.ServiceBusyException;
+import com.faisal.cheko.service.ConcurrencyLimiterService;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitFilterTests {
+
+	private final ConcurrencyLimitProperties properties = properties();
+	private final ConcurrencyLimiterService limiterService = new ConcurrencyLimiterService(properties);
+	private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiterService);
+
+	@Test
+	void synchronousRequestsGiveTheirSlotBackWhenTheyReturn() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/branches"), response, new MockFilterChain());
+
+		assertEquals(200, response.getStatus());
+		assertEquals(0, limiterService.getMetrics().get("inFlight"));
+	}
+
+	@Test
+	void asyncRequestsHoldTheirSlotUntilTheyComplete() throws Exception {
+		MockHttpServletRequest export = asyncRequest();
+		filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+		assertEquals(1, limiterService.getMetrics().get("inFlight"));
+
+		// The only slot is still taken while the export streams
+		MockHttpServletResponse shed = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/api/branches"), shed, new MockFilterChain());
+		assertEquals(503, shed.getStatus());
+
+		((MockAsyncContext) export.getAsyncContext()).complete();
+		assertEquals(0, limiterService.getMetrics().get("inFlight"));
+		// Minutes of streaming are not taken for latency
+		assertEquals(properties.getInitialLimit(), limiterService.getMetrics().get("limit"));
+	}
+
+	@Test
+	void timedOutAsyncRequestsGiveTheirSlotBack() throws Exception {
+		MockHttpServletRequest export = asyncRequest();
+		filter.doFilter(export, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+		MockAsyncContext context = (MockAsyncContext) export.getAsyncContext();
+		context.getListeners().forEach(listener -> {
+			try {
+				listener.onTimeout(null);
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		assertEquals(0, limiterService.getMetrics().get("inFlight"));
+	}
+
+	@Test
+	void onlyDatabaseFailuresThatEscapeTheHandlersShrinkTheLimit() {
+		ConcurrencyLimitProperties roomy = properties();
+		roomy.setInitialLimit(10);
+		ConcurrencyLimiterService service = new ConcurrencyLimiterService(roomy);
+		ConcurrencyLimitFilter limited = new ConcurrencyLimitFilter(service);
+
+		// A full window of client aborts and application bugs is no sign of overload
+		for (int i = 0; i < 10; i++) {
+			assertThrows(IOException.class, () -> limited.doFilter(new MockHttpServletRequest("GET", "/api/branches"),
+					new MockHttpServletResponse(), (request, response) -> {
+						throw new IOException("Broken pipe");
+					}));
+			assertThrows(IllegalStateException.class, () -> limited.doFilter(new MockHttpServletRequest("GET", "/api/branches"),
+					new MockHttpServletResponse(), (request, response) -> {
+						throw new IllegalStateException("bug");
+					}));
+		}
+		assertEquals(10, service.getMetrics().get("limit"));
+		assertEquals(0, service.getMetrics().get("inFlight"));
+
+		// A window of query timeouts, even wrapped, backs the limit off
+		for (int i = 0; i < 10; i++) {
+			assertThrows(ServletException.class, () -> limited.doFilter(new MockHttpServletRequest("GET", "/api/branches"),
+					new MockHttpServletResponse(), (request, response) -> {
+						throw new ServletException(new QueryTimeoutException("statement timeout"));
+					}));
+		}
+		assertTrue((int) service.getMetrics().get("limit") < 10);
+	}
+
+	@Test
+	void exportsRefusedAtTheirCapDoNotShrinkTheLimit() throws Exception {
+		ConcurrencyLimitProperties roomy = properties();
+		roomy.setInitialLimit(10);
+		ConcurrencyLimiterService service = new ConcurrencyLimiterService(roomy);
+		ConcurrencyLimitFilter limited = new ConcurrencyLimitFilter(service);
+		GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+		for (int i = 0; i < 20; i++) {
+			MockHttpServletResponse refused = new MockHttpServletResponse();
+			limited.doFilter(new MockHttpServletRequest("GET", "/api/orders/export"), refused, (request, response) ->
+					((MockHttpServletResponse) response).setStatus(handler.handleServiceBusy(
+							new ServiceBusyException("Too many exports are running.", 5),
+							new ServletWebRequest((HttpServletRequest) request)).getStatusCode().value()));
+			assertEquals(503, refused.getStatus());
+		}
+		assertEquals(10, service.getMetrics().get("limit"));
+
+		// The database-unavailable answer is the same status, but it is overload
+		for (int i = 0; i < 10; i++) {
+			limited.doFilter(new MockHttpServletRequest("GET", "/api/branches"), new MockHttpServletResponse(), (request, response) ->
+					((MockHttpServletResponse) response).setStatus(handler.handleDatabaseUnavailable(
+							new QueryTimeoutException("statement timeout"),
+							new ServletWebRequest((HttpServletRequest) request)).getStatusCode().value()));
+		}
+		assertTrue((int) service.getMetrics().get("limit") < 10);
+	}
+
+	private static MockHttpServletRequest asyncRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/export");
+		request.setAsyncSupported(true);
+		return request;
+	}
+
+	private static ConcurrencyLimitProperties properties() {
+		ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+		properties.setAlgorithm(ConcurrencyLimitProperties.Algorithm.AIMD);
+		properties.setInitialLimit(1);
+		properties.setMinLimit(1);
+		return properties;
+	}
+}
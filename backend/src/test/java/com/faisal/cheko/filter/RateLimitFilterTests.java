@@ -0,0 +1,107 @@
+package com.faisal.cheko.filter;
+
+import com.faisal.cheko.config.RateLimitProperties;
+import com.faisal.cheko.config.RequestContextProperties;
+import com.faisal.cheko.context.RequestContextResolver;
+import com.faisal.cheko.ratelimit.TokenLeaseStore;
+import com.faisal.cheko.service.RateLimiterService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class RateLimitFilterTests {
+
+	private final RateLimitFilter filter = new RateLimitFilter(new RateLimiterService(properties(), mock(TokenLeaseStore.class)),
+			new RequestContextResolver(new RequestContextProperties()));
+
+	@Test
+	void headersReportTheMatchedPolicysOwnLimitAndTiming() throws Exception {
+		// Three tokens, one back a minute
+		MockHttpServletResponse first = search();
+		assertEquals(200, first.getStatus());
+		assertEquals("search", first.getHeader("X-RateLimit-Policy"));
+		assertEquals("3", first.getHeader("X-RateLimit-Limit"));
+		assertEquals("2", first.getHeader("X-RateLimit-Remaining"));
+		assertEquals("60", first.getHeader("X-RateLimit-Reset"));
+		assertEquals("60000", first.getHeader("X-RateLimit-Next-Token-Ms"));
+		assertNull(first.getHeader("Retry-After"));
+
+		search();
+		MockHttpServletResponse third = search();
+		assertEquals(200, third.getStatus());
+		assertEquals("0", third.getHeader("X-RateLimit-Remaining"));
+		assertEquals("180", third.getHeader("X-RateLimit-Reset"));
+
+		MockHttpServletResponse rejected = search();
+		assertEquals(429, rejected.getStatus());
+		assertEquals("3", rejected.getHeader("X-RateLimit-Limit"));
+		assertEquals("0", rejected.getHeader("X-RateLimit-Remaining"));
+		assertEquals("180", rejected.getHeader("X-RateLimit-Reset"));
+		assertEquals("60", rejected.getHeader("Retry-After"));
+		long nextTokenMs = Long.parseLong(rejected.getHeader("X-RateLimit-Next-Token-Ms"));
+		assertTrue(nextTokenMs > 59_000 && nextTokenMs <= 60_000, String.valueOf(nextTokenMs));
+	}
+
+	@Test
+	void requestsOutsideEveryPolicyAreChargedToTheDefaultBucket() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			search();
+		}
+
+		MockHttpServletResponse response = request("GET", "/api/branches");
+		assertEquals(200, response.getStatus());
+		assertEquals("default", response.getHeader("X-RateLimit-Policy"));
+		assertEquals("20", response.getHeader("X-RateLimit-Limit"));
+		assertEquals("19", response.getHeader("X-RateLimit-Remaining"));
+		assertEquals("1", response.getHeader("X-RateLimit-Reset"));
+		assertEquals("1000", response.getHeader("X-RateLimit-Next-Token-Ms"));
+	}
+
+	@Test
+	void healthChecksAreNotLimited() throws Exception {
+		MockHttpServletResponse response = request("GET", "/api/health");
+
+		assertEquals(200, response.getStatus());
+		assertNull(response.getHeader("X-RateLimit-Limit"));
+	}
+
+	private MockHttpServletResponse search() throws Exception {
+		return request("GET", "/api/menu-items/search");
+	}
+
+	private MockHttpServletResponse request(String method, String path) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setRemoteAddr("203.0.113.9");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(request, response, chain);
+		if (response.getStatus() == 200) {
+			assertNotNull(chain.getRequest(), "request was not passed on");
+		}
+		return response;
+	}
+
+	private static RateLimitProperties properties() {
+		RateLimitProperties.Policy search = new RateLimitProperties.Policy();
+		search.setName("search");
+		search.setPattern("/api/menu-items/search");
+		search.setMethods(List.of("GET"));
+		search.setCapacity(3);
+		search.setRefillTokens(1);
+		search.setRefillPeriod(Duration.ofMinutes(1));
+
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setPolicies(List.of(search));
+		return properties;
+	}
+}
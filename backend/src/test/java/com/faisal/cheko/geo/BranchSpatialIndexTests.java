@@ -0,0 +1,158 @@
+package com.faisal.cheko.geo;
+
+import com.faisal.cheko.config.GeoProperties;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.model.Branch;
+import com.faisal.cheko.repository.BranchRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BranchSpatialIndexTests {
+
+	private static final GeometryFactory GEOMETRY = new GeometryFactory();
+
+	private final BranchRepository branchRepository = mock(BranchRepository.class);
+	private final BranchSpatialIndex index = new BranchSpatialIndex(branchRepository, mock(DatabaseConnectionService.class),
+			mock(PlatformTransactionManager.class), new GeoProperties());
+
+	@Test
+	void haversineMatchesTheSphere() {
+		double oneDegree = GeoDistance.EARTH_RADIUS_METERS * Math.PI / 180;
+		assertEquals(oneDegree, GeoDistance.haversine(0, 0, 0, 1), 1e-6);
+		assertEquals(oneDegree, GeoDistance.haversine(10, 20, 11, 20), 1e-6);
+		assertEquals(Math.PI * GeoDistance.EARTH_RADIUS_METERS, GeoDistance.haversine(0, 0, 0, 180), 1e-6);
+		assertEquals(0, GeoDistance.haversine(24.7136, 46.6753, 24.7136, 46.6753), 0);
+	}
+
+	@Test
+	void searchesMatchAScanOfEveryBranch() {
+		Random random = new Random(42);
+		List<Branch> branches = new ArrayList<>();
+		for (long id = 1; id <= 2000; id++) {
+			branches.add(branch(id, 24 + random.nextDouble() * 4 - 2, 46 + random.nextDouble() * 4 - 2, random.nextBoolean()));
+		}
+		when(branchRepository.findAll()).thenReturn(branches);
+		index.rebuild();
+
+		for (int i = 0; i < 200; i++) {
+			double lat = 24 + random.nextDouble() * 4 - 2;
+			double lng = 46 + random.nextDouble() * 4 - 2;
+			double radius = 1000 + random.nextDouble() * 50_000;
+			boolean activeOnly = i % 2 == 0;
+			assertEquals(scan(branches, lat, lng, radius, 20, activeOnly), ids(index.nearby(lat, lng, radius, 20, activeOnly, null)));
+		}
+		verify(branchRepository, never()).findNearbyBranches(any(), anyDouble());
+	}
+
+	@Test
+	void nearestMatchesAScanOfEveryBranch() {
+		Random random = new Random(7);
+		List<Branch> branches = new ArrayList<>();
+		for (long id = 1; id <= 500; id++) {
+			branches.add(branch(id, random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180, random.nextInt(4) > 0));
+		}
+		BranchTree tree = new BranchTree(branches, 0);
+
+		for (int i = 0; i < 200; i++) {
+			double lat = random.nextDouble() * 180 - 90;
+			double lng = random.nextDouble() * 360 - 180;
+			List<Long> expected = scan(branches, lat, lng, Double.MAX_VALUE, 3, true);
+			assertEquals(expected, ids(tree.nearest(lat, lng, 3, true)));
+		}
+		assertEquals(List.of(), ids(new BranchTree(List.of(branch(1L, 0, 0, false)), 0).nearest(0, 0, 1, true)));
+	}
+
+	@Test
+	void searchesCrossTheAntimeridianAndReachThePoles() {
+		List<Branch> branches = List.of(branch(1L, 0, 179.99, true), branch(2L, 0, -179.99, true), branch(3L, 89.99, 0, true));
+		when(branchRepository.findAll()).thenReturn(branches);
+		index.rebuild();
+
+		assertEquals(List.of(2L, 1L), ids(index.nearby(0, -179.995, 5000, 10, false, null)));
+		assertEquals(List.of(1L, 2L), ids(index.nearby(0, 179.995, 5000, 10, false, null)));
+		assertEquals(List.of(3L), ids(index.nearby(89.99, 180, 5000, 10, false, null)));
+	}
+
+	@Test
+	void branchChangesFallBackToPostgisUntilRebuilt() {
+		Branch branch = branch(1L, 24.7, 46.7, true);
+		when(branchRepository.findAll()).thenReturn(List.of(branch));
+		when(branchRepository.findNearbyBranches(any(Point.class), anyDouble())).thenReturn(List.of(branch));
+
+		// Not built yet
+		assertEquals(List.of(1L), ids(index.nearby(24.7, 46.7, 1000, 10, true, null)));
+		index.rebuild();
+		assertEquals(List.of(1L), ids(index.nearby(24.7, 46.7, 1000, 10, true, null)));
+		verify(branchRepository, times(1)).findNearbyBranches(any(Point.class), anyDouble());
+
+		index.onMenuChanged(new MenuChangedEvent(2L, null, null, MenuChangedEvent.Type.BRANCH_CREATED));
+		assertEquals(List.of(1L), ids(index.nearby(24.7, 46.7, 1000, 10, true, null)));
+		verify(branchRepository, times(2)).findNearbyBranches(any(Point.class), anyDouble());
+	}
+
+	@Test
+	void branchListsComeFromTheTreeWithSchedulesCompiledOnce() {
+		Branch located = branch(1L, 24.7, 46.7, true);
+		located.setOpeningHours(Map.of("monday", Map.of("open", "09:00", "close", "17:00")));
+		Branch unlocated = Branch.builder().id(2L).isActive(true).build();
+		when(branchRepository.findAll()).thenReturn(List.of(located, unlocated));
+		index.rebuild();
+
+		List<Branch> listed = index.all();
+		assertEquals(List.of(1L, 2L), listed.stream().map(Branch::getId).collect(Collectors.toList()));
+		assertSame(listed.get(0).getOpeningSchedule(), index.all().get(0).getOpeningSchedule());
+		verify(branchRepository, times(1)).findAll();
+
+		// A branch write is listed from the database until the tree has caught up
+		index.onMenuChanged(new MenuChangedEvent(3L, null, null, MenuChangedEvent.Type.BRANCH_CREATED));
+		index.all();
+		verify(branchRepository, times(2)).findAll();
+	}
+
+	private static List<Long> scan(List<Branch> branches, double lat, double lng, double radius, int limit, boolean activeOnly) {
+		return branches.stream()
+				.filter(branch -> !activeOnly || branch.getIsActive())
+				.filter(branch -> distance(branch, lat, lng) <= radius)
+				.sorted(Comparator.comparingDouble((Branch branch) -> distance(branch, lat, lng)).thenComparing(Branch::getId))
+				.limit(limit)
+				.map(Branch::getId)
+				.collect(Collectors.toList());
+	}
+
+	private static double distance(Branch branch, double lat, double lng) {
+		return GeoDistance.haversine(lat, lng, branch.getLocation().getY(), branch.getLocation().getX());
+	}
+
+	private static List<Long> ids(List<NearbyBranch> nearby) {
+		return nearby.stream().map(found -> found.getBranch().getId()).collect(Collectors.toList());
+	}
+
+	private static Branch branch(Long id, double lat, double lng, boolean active) {
+		return Branch.builder()
+				.id(id)
+				.location(GEOMETRY.createPoint(new Coordinate(lng, lat)))
+				.isActive(active)
+				.build();
+	}
+}
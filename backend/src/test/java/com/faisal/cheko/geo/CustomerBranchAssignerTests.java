@@ -0,0 +1,112 @@
+package com.faisal.cheko.geo;
+
+import com.faisal.cheko.config.CustomerAssignmentProperties;
+import com.faisal.cheko.config.GeoProperties;
+import com.faisal.cheko.dto.CustomerAssignmentReport;
+import com.faisal.cheko.model.Branch;
+import com.faisal.cheko.repository.BranchRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CustomerBranchAssignerTests {
+
+	private static final GeometryFactory GEOMETRY = new GeometryFactory();
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final BranchRepository branchRepository = mock(BranchRepository.class);
+	private CustomerBranchAssigner assigner;
+
+	@AfterEach
+	void tearDown() {
+		if (assigner != null) {
+			assigner.shutdown();
+		}
+	}
+
+	@Test
+	void assignsEveryCustomerItsNearestActiveBranchesInParallelChunks() throws Exception {
+		Random random = new Random(3);
+		List<Branch> branches = new ArrayList<>();
+		for (long id = 1; id <= 300; id++) {
+			branches.add(Branch.builder()
+					.id(id)
+					.location(GEOMETRY.createPoint(new Coordinate(46 + random.nextDouble() * 6 - 3, 24 + random.nextDouble() * 6 - 3)))
+					.isActive(id % 3 != 0)
+					.build());
+		}
+		when(branchRepository.findAll()).thenReturn(branches);
+		BranchSpatialIndex index = new BranchSpatialIndex(branchRepository, mock(DatabaseConnectionService.class),
+				mock(PlatformTransactionManager.class), new GeoProperties());
+
+		int customers = 2500;
+		double[][] locations = new double[customers][];
+		for (int i = 0; i < customers; i++) {
+			locations[i] = new double[]{24 + random.nextDouble() * 8 - 4, 46 + random.nextDouble() * 8 - 4};
+		}
+		ResultSet resultSet = mock(ResultSet.class);
+		int[] row = {0};
+		when(resultSet.getLong(1)).thenAnswer(invocation -> (long) row[0] + 1);
+		when(resultSet.getDouble(2)).thenAnswer(invocation -> locations[row[0]][0]);
+		when(resultSet.getDouble(3)).thenAnswer(invocation -> locations[row[0]][1]);
+		doAnswer(invocation -> {
+			RowCallbackHandler handler = invocation.getArgument(1);
+			for (row[0] = 0; row[0] < customers; row[0]++) {
+				handler.processRow(resultSet);
+			}
+			return null;
+		}).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+		Map<Long, List<Long>> written = new HashMap<>();
+		doAnswer(invocation -> {
+			List<Object[]> batch = invocation.getArgument(1);
+			for (Object[] assignment : batch) {
+				written.computeIfAbsent((Long) assignment[0], customer -> new ArrayList<>()).add((Long) assignment[2]);
+			}
+			return new int[batch.size()];
+		}).when(jdbcTemplate).batchUpdate(startsWith("INSERT"), anyList(), any(int[].class));
+
+		CustomerAssignmentProperties properties = new CustomerAssignmentProperties();
+		properties.setChunkSize(1000);
+		properties.setBatchSize(700);
+		properties.setParallelism(4);
+		assigner = new CustomerBranchAssigner(jdbcTemplate, mock(PlatformTransactionManager.class), index,
+				mock(DatabaseConnectionService.class), properties);
+
+		CustomerAssignmentReport report = assigner.assignAll(2);
+
+		assertEquals(customers, report.getCustomers());
+		assertEquals(3, report.getChunks());
+		assertEquals(2L * customers, report.getAssignments());
+		assertEquals(0, report.getUnassigned());
+		BranchTree tree = new BranchTree(branches, 0);
+		for (int i = 0; i < customers; i++) {
+			List<Long> expected = new ArrayList<>();
+			for (NearbyBranch nearby : tree.nearest(locations[i][0], locations[i][1], 2, true)) {
+				expected.add(nearby.getBranch().getId());
+			}
+			assertEquals(expected, written.get((long) i + 1));
+		}
+	}
+}
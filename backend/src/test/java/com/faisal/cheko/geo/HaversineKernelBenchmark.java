@@ -0,0 +1,87 @@
+package com.faisal.cheko.geo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar against vector haversine over blocks of points, contiguous and gathered through an
+ * index array. Not a test; after {@code mvn test-compile dependency:build-classpath
+ * -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test}, run it with
+ * {@code java --add-modules jdk.incubator.vector -cp target/test-classes:target/classes:$(cat cp.txt)
+ * com.faisal.cheko.geo.HaversineKernelBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class HaversineKernelBenchmark {
+
+    @Param({"16", "256", "4096"})
+    private int points;
+
+    private GeoPoints block;
+    private int[] indexes;
+    private double[] distances;
+    private HaversineKernel vector;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        double[] latitudes = new double[points];
+        double[] longitudes = new double[points];
+        indexes = new int[points];
+        for (int i = 0; i < points; i++) {
+            latitudes[i] = 24 + random.nextDouble() * 4 - 2;
+            longitudes[i] = 46 + random.nextDouble() * 4 - 2;
+            indexes[i] = random.nextInt(points);
+        }
+        block = GeoPoints.ofDegrees(latitudes, longitudes);
+        distances = new double[points];
+        vector = new VectorHaversineKernel();
+    }
+
+    @Benchmark
+    public double[] scalar() {
+        HaversineKernel.scalar().distances(24.7136, 46.6753, block, points, distances);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] vector() {
+        vector.distances(24.7136, 46.6753, block, points, distances);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] scalarGathered() {
+        HaversineKernel.scalar().distances(24.7136, 46.6753, block, indexes, points, distances);
+        return distances;
+    }
+
+    @Benchmark
+    public double[] vectorGathered() {
+        vector.distances(24.7136, 46.6753, block, indexes, points, distances);
+        return distances;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HaversineKernelBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.faisal.cheko.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HaversineKernelTests {
+
+	private static final int POINTS = 1003;
+
+	private final Random random = new Random(11);
+	private final double[] latitudes = new double[POINTS];
+	private final double[] longitudes = new double[POINTS];
+
+	HaversineKernelTests() {
+		for (int i = 0; i < POINTS; i++) {
+			latitudes[i] = random.nextDouble() * 180 - 90;
+			longitudes[i] = random.nextDouble() * 360 - 180;
+		}
+		// Same point, antipode, poles and both sides of the antimeridian
+		latitudes[0] = 24.7136;
+		longitudes[0] = 46.6753;
+		latitudes[1] = -24.7136;
+		longitudes[1] = 46.6753 - 180;
+		latitudes[2] = 90;
+		latitudes[3] = -90;
+		latitudes[4] = 24.7136;
+		longitudes[4] = 180;
+		latitudes[5] = 24.7136;
+		longitudes[5] = -180;
+	}
+
+	@Test
+	void kernelsAgreeWithTheSphericalVincentyFormula() {
+		GeoPoints points = GeoPoints.ofDegrees(latitudes, longitudes);
+		for (HaversineKernel kernel : new HaversineKernel[]{HaversineKernel.scalar(), HaversineKernel.preferred()}) {
+			for (int query = 0; query < 20; query++) {
+				double lat = query == 0 ? latitudes[0] : random.nextDouble() * 180 - 90;
+				double lng = query == 0 ? longitudes[0] : random.nextDouble() * 360 - 180;
+				double[] distances = new double[POINTS];
+				kernel.distances(lat, lng, points, POINTS, distances);
+				for (int i = 0; i < POINTS; i++) {
+					double expected = vincentySphere(lat, lng, latitudes[i], longitudes[i]);
+					// Millimetres, or a part in a billion of the distance
+					assertEquals(expected, distances[i], Math.max(1e-3, expected * 1e-9), kernel.getName() + " point " + i);
+					assertEquals(GeoDistance.haversine(lat, lng, latitudes[i], longitudes[i]), distances[i],
+							Math.max(1e-3, expected * 1e-9), kernel.getName() + " point " + i);
+				}
+			}
+		}
+	}
+
+	@Test
+	void indexedDistancesGatherThePoints() {
+		GeoPoints points = GeoPoints.ofDegrees(latitudes, longitudes);
+		int[] indexes = new int[37];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = random.nextInt(POINTS);
+		}
+		double[] all = new double[POINTS];
+		double[] gathered = new double[indexes.length];
+		HaversineKernel kernel = HaversineKernel.preferred();
+		kernel.distances(10, 20, points, POINTS, all);
+		kernel.distances(10, 20, points, indexes, indexes.length, gathered);
+
+		for (int i = 0; i < indexes.length; i++) {
+			assertEquals(all[indexes[i]], gathered[i], 0);
+		}
+	}
+
+	@Test
+	void vectorKernelIsPreferredWhenTheModuleIsPresent() {
+		boolean modulePresent = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+		assertEquals(modulePresent, HaversineKernel.preferred().getName().startsWith("vector"));
+		assertTrue(HaversineKernel.scalar().getName().equals("scalar"));
+	}
+
+	/**
+	 * Great-circle distance by the atan2 form of Vincenty's formula on a sphere, which is well
+	 * conditioned for every pair of points and shares no code with the kernels.
+	 */
+	private static double vincentySphere(double lat1, double lng1, double lat2, double lng2) {
+		double phi1 = Math.toRadians(lat1);
+		double phi2 = Math.toRadians(lat2);
+		double deltaLambda = Math.toRadians(lng2 - lng1);
+		double y = Math.hypot(Math.cos(phi2) * Math.sin(deltaLambda),
+				Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(deltaLambda));
+		double x = Math.sin(phi1) * Math.sin(phi2) + Math.cos(phi1) * Math.cos(phi2) * Math.cos(deltaLambda);
+		return GeoDistance.EARTH_RADIUS_METERS * Math.atan2(y, x);
+	}
+}
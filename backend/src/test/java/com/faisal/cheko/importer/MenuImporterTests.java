@@ -0,0 +1,127 @@
+package com.faisal.cheko.importer;
+
+import com.faisal.cheko.config.MenuImportProperties;
+import com.faisal.cheko.dto.MenuImportReport;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.repository.BranchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MenuImporterTests {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final TransactionStatus transaction = mock(TransactionStatus.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final List<List<Object[]>> batches = new ArrayList<>();
+	private final AtomicLong nextSectionId = new AtomicLong(100);
+	private MenuImporter importer;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		BranchRepository branchRepository = mock(BranchRepository.class);
+		when(branchRepository.existsById(1L)).thenReturn(true);
+		when(transactionManager.getTransaction(any())).thenReturn(transaction);
+
+		// The branch already has a "Drinks" section
+		ResultSet existing = mock(ResultSet.class);
+		when(existing.getString("name")).thenReturn("Drinks");
+		when(existing.getLong("id")).thenReturn(7L);
+		doAnswer(invocation -> {
+			invocation.<RowCallbackHandler>getArgument(1).processRow(existing);
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(1L));
+		doAnswer(invocation -> {
+			invocation.<KeyHolder>getArgument(1).getKeyList().add(Collections.singletonMap("id", nextSectionId.getAndIncrement()));
+			return 1;
+		}).when(jdbcTemplate).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+		doAnswer(invocation -> {
+			batches.add(new ArrayList<>(invocation.<List<Object[]>>getArgument(1)));
+			return new int[0];
+		}).when(jdbcTemplate).batchUpdate(anyString(), anyList(), any(int[].class));
+
+		MenuImportProperties properties = new MenuImportProperties();
+		properties.setBatchSize(2);
+		importer = new MenuImporter(jdbcTemplate, branchRepository, transactionManager, eventPublisher,
+				new ObjectMapper(), properties);
+	}
+
+	@Test
+	void csvRowsAreBatchedUnderNewAndExistingSections() {
+		MenuImportReport report = importer.importMenu(1L, MenuImportFormat.CSV, input(
+				"section,section_description,name,price,calories,is_available\n" +
+				"Mains,Hot dishes,Kabsa,45.00,900,\n" +
+				"Mains,,\"Mandi, chicken\",40,,false\n" +
+				"Drinks,,Lemonade,12.5,180,true\n" +
+				"Desserts,Sweet things,,,,\n"));
+
+		assertTrue(report.getCommitted());
+		assertEquals(4, report.getRecords());
+		assertEquals(2, report.getSectionsCreated());
+		assertEquals(3, report.getItemsCreated());
+		assertEquals(Arrays.asList(2, 1), batches.stream().map(List::size).collect(Collectors.toList()));
+		assertEquals(Arrays.asList(100L, "Mandi, chicken", null, new BigDecimal("40"), null, null, false),
+				Arrays.asList(batches.get(0).get(1)));
+		// Items of the existing section go to its id
+		assertEquals(7L, batches.get(1).get(0)[0]);
+		verify(transactionManager).commit(transaction);
+		verify(eventPublisher).publishEvent(any(MenuChangedEvent.class));
+	}
+
+	@Test
+	void invalidRecordsAreAllReportedAndNothingIsKept() {
+		MenuImportReport report = importer.importMenu(1L, MenuImportFormat.NDJSON, input(
+				"{\"section\":\"Mains\",\"name\":\"Kabsa\",\"price\":45}\n" +
+				"{\"section\":\"Mains\",\"name\":\"Mandi\",\"price\":\"cheap\"}\n" +
+				"\n" +
+				"not json\n" +
+				"{\"section\":\"Mains\",\"imageUrl\":\"x.png\",\"calories\":-5,\"prize\":3}\n"));
+
+		assertFalse(report.getCommitted());
+		assertEquals(0, report.getItemsCreated());
+		List<String> errors = report.getErrors().stream()
+				.map(error -> error.getLine() + ":" + error.getField())
+				.collect(Collectors.toList());
+		assertEquals(Arrays.asList("2:price", "4:null", "5:prize", "5:name", "5:price", "5:calories"), errors);
+		assertEquals(6, report.getErrorCount());
+		verify(transaction).setRollbackOnly();
+		verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), any(int[].class));
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+	private static ByteArrayInputStream input(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
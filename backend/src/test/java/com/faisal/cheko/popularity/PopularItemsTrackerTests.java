@@ -0,0 +1,180 @@
+package com.faisal.cheko.popularity;
+
+import com.faisal.cheko.config.PopularItemsProperties;
+import com.faisal.cheko.event.MenuChangedEvent;
+import com.faisal.cheko.event.OrderItemPlacedEvent;
+import com.faisal.cheko.repository.MenuItemRepository;
+import com.faisal.cheko.repository.OrderItemRepository;
+import com.faisal.cheko.service.DatabaseConnectionService;
+import com.faisal.cheko.util.SpaceSaving;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PopularItemsTrackerTests {
+
+	private static final long HOUR = 3_600_000L;
+
+	private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+	private final MenuItemRepository menuItemRepository = mock(MenuItemRepository.class);
+	private final AtomicLong now = new AtomicLong(1_000 * HOUR + 60_000);
+	private final PopularItemsProperties properties = new PopularItemsProperties();
+
+	@Test
+	void topItemsMatchExactCountsOnASkewedStream() {
+		properties.setCapacity(50);
+		PopularItemsTracker tracker = rebuiltTracker();
+		// Items 2..500 spread over 10 sections of two branches, ordered with a Zipf-like skew
+		when(menuItemRepository.findPlacementsByIds(anyCollection())).thenAnswer(invocation -> {
+			Collection<Long> ids = invocation.getArgument(0);
+			return ids.stream().map(id -> new Object[]{id, id % 10, id % 2}).collect(Collectors.toList());
+		});
+		Random random = new Random(17);
+		Map<Long, Long> exact = new HashMap<>();
+		for (int line = 0; line < 20_000; line++) {
+			long item = 1 + (long) Math.floor(Math.pow(500, random.nextDouble()));
+			exact.merge(item, 1L, Long::sum);
+			tracker.onOrderItemPlaced(new OrderItemPlacedEvent((long) line, item));
+			if (line % 1_000 == 0) {
+				tracker.placeWaitingLines();
+			}
+		}
+		tracker.placeWaitingLines();
+
+		List<SpaceSaving.Entry<Long>> top = tracker.top(PopularityWindow.ALL, null, null, 50);
+		assertEquals(exactTop(exact, 5), top.subList(0, 5).stream().map(SpaceSaving.Entry::getItem).collect(Collectors.toList()));
+		List<Long> reported = top.stream().map(SpaceSaving.Entry::getItem).collect(Collectors.toList());
+		for (Map.Entry<Long, Long> item : exact.entrySet()) {
+			if (item.getValue() > 20_000 / 50) {
+				assertTrue(reported.contains(item.getKey()), "heavy item " + item.getKey() + " reported");
+			}
+		}
+		for (SpaceSaving.Entry<Long> entry : top) {
+			long actual = exact.get(entry.getItem());
+			assertTrue(entry.getGuaranteedCount() <= actual && actual <= entry.getCount(), "bounds of item " + entry.getItem());
+		}
+
+		Map<Long, Long> sectionThree = exact.entrySet().stream().filter(e -> e.getKey() % 10 == 3)
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+		assertEquals(exactTop(sectionThree, 5), tracker.top(PopularityWindow.DAY, null, 3L, 5).stream()
+				.map(SpaceSaving.Entry::getItem).collect(Collectors.toList()));
+	}
+
+	@Test
+	void windowsTumbleIndependently() {
+		PopularItemsTracker tracker = rebuiltTracker();
+		when(menuItemRepository.findPlacementsByIds(anyCollection())).thenReturn(Collections.singletonList(new Object[]{7L, 1L, 1L}));
+		tracker.onOrderItemPlaced(new OrderItemPlacedEvent(1L, 7L));
+		tracker.onOrderItemPlaced(new OrderItemPlacedEvent(2L, 7L));
+
+		now.addAndGet(HOUR);
+		// Placed last hour, so counted in the day but not in the new hour
+		tracker.placeWaitingLines();
+		tracker.onOrderItemPlaced(new OrderItemPlacedEvent(3L, 7L));
+
+		assertEquals(1, tracker.top(PopularityWindow.HOUR, null, null, 5).get(0).getCount());
+		assertEquals(3, tracker.top(PopularityWindow.DAY, 1L, null, 5).get(0).getCount());
+		assertEquals(3, tracker.top(PopularityWindow.ALL, null, 1L, 5).get(0).getCount());
+	}
+
+	@Test
+	void rebuildsFromHistoryWithExactCounts() {
+		properties.setCapacity(2);
+		// item, section, branch, order lines
+		when(orderItemRepository.countOrdersPerItem()).thenReturn(Arrays.asList(
+				new Object[]{1L, 10L, 1L, 40L}, new Object[]{2L, 10L, 1L, 90L}, new Object[]{3L, 20L, 1L, 5L}, new Object[]{4L, 30L, 2L, 60L}));
+		PopularItemsTracker tracker = tracker();
+		assertEquals(null, tracker.top(PopularityWindow.ALL, null, null, 5));
+
+		tracker.rebuild();
+
+		List<SpaceSaving.Entry<Long>> overall = tracker.top(PopularityWindow.ALL, null, null, 5);
+		assertEquals(Arrays.asList(2L, 4L), overall.stream().map(SpaceSaving.Entry::getItem).collect(Collectors.toList()));
+		assertEquals(0, overall.get(0).getError());
+		assertEquals(Arrays.asList(2L, 1L), tracker.top(PopularityWindow.ALL, 1L, null, 5).stream()
+				.map(SpaceSaving.Entry::getItem).collect(Collectors.toList()));
+		assertEquals(5, tracker.top(PopularityWindow.ALL, null, 20L, 5).get(0).getCount());
+		// Nothing in the history falls in the current hour
+		assertTrue(tracker.top(PopularityWindow.HOUR, null, null, 5).isEmpty());
+	}
+
+	@Test
+	void heldBackLinesAreReplayedUnlessTheHistorySawThem() {
+		PopularItemsTracker tracker = tracker();
+		when(orderItemRepository.countOrdersPerItem()).thenAnswer(invocation -> {
+			// Line 5 was inserted first but committed after the history was read; line 6 made it in
+			tracker.onOrderItemPlaced(new OrderItemPlacedEvent(5L, 1L));
+			tracker.onOrderItemPlaced(new OrderItemPlacedEvent(6L, 2L));
+			return Arrays.asList(new Object[]{1L, 10L, 1L, 3L}, new Object[]{2L, 10L, 1L, 4L});
+		});
+		when(orderItemRepository.findExistingIds(anyCollection())).thenReturn(Collections.singletonList(6L));
+
+		tracker.rebuild();
+
+		Map<Long, Long> counts = tracker.top(PopularityWindow.ALL, null, null, 5).stream()
+				.collect(Collectors.toMap(SpaceSaving.Entry::getItem, SpaceSaving.Entry::getCount));
+		assertEquals(4L, counts.get(1L));
+		assertEquals(4L, counts.get(2L));
+		assertEquals(1L, tracker.getMetrics().get("replayed"));
+	}
+
+	@Test
+	void movedItemsAreLookedUpAgainOutsideTheCommit() {
+		when(orderItemRepository.countOrdersPerItem()).thenReturn(Collections.singletonList(new Object[]{1L, 10L, 1L, 3L}));
+		PopularItemsTracker tracker = rebuiltTracker();
+
+		tracker.onMenuChanged(new MenuChangedEvent(1L, 20L, 1L, MenuChangedEvent.Type.ITEM_UPDATED));
+		tracker.onOrderItemPlaced(new OrderItemPlacedEvent(7L, 1L));
+		verify(menuItemRepository, never()).findPlacementsByIds(anyCollection());
+		assertTrue(tracker.top(PopularityWindow.ALL, null, 20L, 5).isEmpty());
+
+		when(menuItemRepository.findPlacementsByIds(anyCollection())).thenReturn(Collections.singletonList(new Object[]{1L, 20L, 1L}));
+		tracker.placeWaitingLines();
+
+		assertEquals(1L, tracker.top(PopularityWindow.ALL, null, 20L, 5).get(0).getItem());
+		// Known again, so the next line is counted straight away
+		tracker.onOrderItemPlaced(new OrderItemPlacedEvent(8L, 1L));
+		assertEquals(2, tracker.top(PopularityWindow.ALL, null, 20L, 5).get(0).getCount());
+		verify(menuItemRepository, times(1)).findPlacementsByIds(anyCollection());
+
+		// A section edit forgets every item placed in it
+		tracker.onMenuChanged(new MenuChangedEvent(1L, 20L, null, MenuChangedEvent.Type.SECTION_UPDATED));
+		assertEquals(0, tracker.getMetrics().get("knownPlacements"));
+	}
+
+	private PopularItemsTracker rebuiltTracker() {
+		PopularItemsTracker tracker = tracker();
+		tracker.rebuild();
+		return tracker;
+	}
+
+	private PopularItemsTracker tracker() {
+		return new PopularItemsTracker(orderItemRepository, menuItemRepository, mock(DatabaseConnectionService.class),
+				mock(PlatformTransactionManager.class), properties, now::get);
+	}
+
+	private static List<Long> exactTop(Map<Long, Long> counts, int n) {
+		return counts.entrySet().stream()
+				.sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+				.limit(n).map(Map.Entry::getKey).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,168 @@
+package com.faisal.cheko.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientBucketStoreTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void sweepDropsOnlyFullBuckets() {
+		AtomicLong clock = new AtomicLong();
+		ClientBucketStore store = new ClientBucketStore(100,
+				() -> new TokenBucket(5, 1, Duration.ofSeconds(1), clock::get), clock::get);
+
+		store.getBucket("idle");
+		store.getBucket("busy").tryConsume(5);
+
+		assertEquals(1, store.evictFullBuckets());
+		assertEquals(1, store.size());
+		assertNotNull(store.peekBucket("busy"));
+
+		clock.addAndGet(5 * SECOND);
+		assertEquals(1, store.evictFullBuckets());
+		assertEquals(0, store.size());
+		assertEquals(2, store.getEvictions());
+	}
+
+	@Test
+	void fullStoreDisplacesTheOldestBucket() {
+		AtomicLong clock = new AtomicLong();
+		ClientBucketStore store = new ClientBucketStore(2,
+				() -> new TokenBucket(5, 1, Duration.ofSeconds(1), clock::get), clock::get);
+
+		TokenBucket first = store.getBucket("a");
+		first.tryConsume(1);
+		TokenBucket second = store.getBucket("b");
+		second.tryConsume(1);
+
+		TokenBucket third = store.getBucket("c");
+		assertNotSame(first, third);
+		assertNotSame(second, third);
+		assertNull(store.peekBucket("a"));
+		assertSame(second, store.peekBucket("b"));
+		assertNotSame(third, store.getBucket("d"));
+		assertNull(store.peekBucket("b"));
+		assertEquals(2, store.size());
+		assertEquals(2, store.getDisplacements());
+	}
+
+	@Test
+	void floodOfSpoofedKeysDoesNotLockOutNewClients() {
+		AtomicLong clock = new AtomicLong();
+		ClientBucketStore store = new ClientBucketStore(100,
+				() -> new TokenBucket(5, 1, Duration.ofSeconds(1), clock::get), clock::get);
+
+		for (int i = 0; i < 10_000; i++) {
+			store.getBucket("spoofed-" + i).tryConsume(5);
+		}
+		for (int client = 0; client < 50; client++) {
+			for (int request = 0; request < 5; request++) {
+				assertTrue(store.getBucket("client-" + client).tryConsume(1).isAllowed(), "client-" + client);
+			}
+		}
+		assertTrue(store.size() <= 100);
+	}
+
+	@Test
+	void keyRecreatedDuringASweepKeepsItsFreshBucket() {
+		AtomicLong clock = new AtomicLong();
+		AtomicReference<ClientBucketStore> storeRef = new AtomicReference<>();
+		AtomicReference<TokenBucket> recreated = new AtomicReference<>();
+		AtomicBoolean sweeping = new AtomicBoolean();
+		// The sweep reads the clock for every bucket it checks; once it has dropped "a", the
+		// client comes back before the sweep finishes
+		LongSupplier time = () -> {
+			ClientBucketStore store = storeRef.get();
+			if (sweeping.get() && store.peekBucket("a") == null && recreated.get() == null) {
+				sweeping.set(false);
+				recreated.set(store.getBucket("a"));
+			}
+			return clock.get();
+		};
+		ClientBucketStore store = new ClientBucketStore(10, () -> new TokenBucket(5, 1, Duration.ofSeconds(1), time), time);
+		storeRef.set(store);
+
+		store.getBucket("a");
+		for (int i = 0; i < 8; i++) {
+			store.getBucket("busy-" + i).tryConsume(5);
+		}
+		sweeping.set(true);
+		assertEquals(1, store.evictFullBuckets());
+		assertNotNull(recreated.get(), "the key did not come back mid-sweep");
+		recreated.get().tryConsume(1);
+		assertEquals(9, store.insertionOrderLength());
+
+		// Fill the store; the displaced buckets are the oldest busy ones, never the fresh "a"
+		store.getBucket("c");
+		for (int i = 0; i < 8; i++) {
+			store.getBucket("new-" + i);
+			assertSame(recreated.get(), store.peekBucket("a"));
+		}
+		assertEquals(10, store.size());
+		assertEquals(10, store.insertionOrderLength());
+	}
+
+	@Test
+	void heapStaysFlatUnderMillionsOfDistinctKeys() {
+		int maxEntries = 10_000;
+		AtomicLong clock = new AtomicLong();
+		ClientBucketStore store = new ClientBucketStore(maxEntries,
+				() -> new TokenBucket(20, 1, Duration.ofSeconds(1), clock::get), clock::get);
+
+		int maxObservedSize = 0;
+		int maxObservedQueue = 0;
+		long heapAfterFirstMillion = 0;
+		for (int i = 0; i < 3_000_000; i++) {
+			// Every spoofed client sends a single request, then the clock moves on; one in ten
+			// requests comes from a small set of returning clients whose buckets are recreated
+			String key = i % 10 == 0 ? "returning-" + (i % 5_000) : "10." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+			store.getBucket(key).tryConsume(1);
+			clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+			maxObservedSize = Math.max(maxObservedSize, store.size());
+			if (i % 10_000 == 0) {
+				maxObservedQueue = Math.max(maxObservedQueue, store.insertionOrderLength());
+			}
+			if (i == 1_000_000) {
+				heapAfterFirstMillion = retainedHeap();
+			}
+		}
+
+		assertTrue(maxObservedSize <= maxEntries, "store grew past its cap: " + maxObservedSize);
+		assertTrue(maxObservedQueue <= maxEntries, "insertion order grew past the cap: " + maxObservedQueue);
+		assertTrue(store.getEstimatedBytes() <= (long) maxEntries * ClientBucketStore.ESTIMATED_ENTRY_BYTES);
+		assertTrue(store.getEvictions() > 2_000_000, "full buckets were not recycled");
+		// Two million more keys would retain well over 100 MB if any of them were kept
+		long growth = retainedHeap() - heapAfterFirstMillion;
+		assertTrue(growth < 32L * 1024 * 1024, "heap grew by " + growth + " bytes");
+
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+		store.evictFullBuckets();
+		assertEquals(0, store.size());
+		assertEquals(0, store.insertionOrderLength());
+	}
+
+	private static long retainedHeap() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
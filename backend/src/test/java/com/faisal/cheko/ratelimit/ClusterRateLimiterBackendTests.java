@@ -0,0 +1,230 @@
+package com.faisal.cheko.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Several in-process nodes sharing one store. The store mirrors the lease statements of
+ * {@code RateLimitLeaseRepository} in memory, driven by the same fake clock as the nodes.
+ */
+class ClusterRateLimiterBackendTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void nodesNeverAdmitMoreThanTheSharedBucket() throws Exception {
+		AtomicLong clock = new AtomicLong();
+		InMemoryLeaseStore store = new InMemoryLeaseStore(clock);
+		ClusterRateLimiterBackend[] nodes = new ClusterRateLimiterBackend[3];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = node(store, "node-" + i, Duration.ofSeconds(1), clock);
+		}
+
+		AtomicInteger allowed = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			executor.submit(() -> {
+				for (int i = 0; i < 500; i++) {
+					ClusterRateLimiterBackend node = nodes[ThreadLocalRandom.current().nextInt(nodes.length)];
+					if (node.tryConsume("client", 1).isAllowed()) {
+						allowed.incrementAndGet();
+					}
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		// Every lease is spent before its node asks again, so the bucket is used exactly once
+		assertEquals(20, allowed.get());
+		// Four leases and one refusal per node; everything else was served locally
+		assertTrue(store.acquires.get() <= 4 + 2 * nodes.length, "store round trips " + store.acquires.get());
+	}
+
+	@Test
+	void settledLeasesReturnUnspentTokens() {
+		AtomicLong clock = new AtomicLong();
+		InMemoryLeaseStore store = new InMemoryLeaseStore(clock);
+		ClusterRateLimiterBackend first = node(store, "first", Duration.ofHours(1), clock);
+		ClusterRateLimiterBackend second = node(store, "second", Duration.ofHours(1), clock);
+
+		assertTrue(first.tryConsume("client", 1).isAllowed());
+		assertEquals(15, drain(second));
+
+		clock.addAndGet(3 * SECOND);
+		first.settle();
+		assertEquals(4, drain(node(store, "third", Duration.ofHours(1), clock)));
+	}
+
+	@Test
+	void leasesOfADeadNodeAreDroppedWithoutRefund() {
+		AtomicLong clock = new AtomicLong();
+		InMemoryLeaseStore store = new InMemoryLeaseStore(clock);
+		ClusterRateLimiterBackend dead = node(store, "dead", Duration.ofHours(1), clock);
+		ClusterRateLimiterBackend alive = node(store, "alive", Duration.ofHours(1), clock);
+
+		// The dead node may have spent all five leased tokens before it stopped
+		assertTrue(dead.tryConsume("client", 1).isAllowed());
+		assertEquals(15, drain(alive));
+		alive.settle();
+
+		clock.addAndGet(10 * SECOND);
+		alive.evictIdle();
+		assertEquals(1, store.leases.size());
+
+		// Past the grace period the lease is gone, and none of its tokens are handed out again
+		clock.addAndGet(30 * SECOND);
+		alive.evictIdle();
+		assertTrue(store.leases.isEmpty());
+		assertEquals(0, drain(node(store, "late", Duration.ofHours(1), clock)));
+	}
+
+	@Test
+	void failedReleasesAreRetriedOnTheNextSettle() {
+		AtomicLong clock = new AtomicLong();
+		InMemoryLeaseStore store = new InMemoryLeaseStore(clock);
+		ClusterRateLimiterBackend first = node(store, "first", Duration.ofHours(1), clock);
+
+		assertTrue(first.tryConsume("client", 1).isAllowed());
+		clock.addAndGet(3 * SECOND);
+		store.failReleases = true;
+		first.settle();
+		assertEquals(1, store.leases.size());
+
+		store.failReleases = false;
+		first.settle();
+		assertTrue(store.leases.isEmpty());
+		assertEquals(19, drain(node(store, "second", Duration.ofHours(1), clock)));
+
+		// A second release of the same lease credits nothing
+		store.releaseAll(List.of(new long[]{1, 4}));
+		assertEquals(0, drain(node(store, "third", Duration.ofHours(1), clock)));
+	}
+
+	@Test
+	void clientsBeyondTheTrackedLimitUseTheLocalFallback() {
+		AtomicLong clock = new AtomicLong();
+		InMemoryLeaseStore store = new InMemoryLeaseStore(clock);
+		ClusterRateLimiterBackend node = new ClusterRateLimiterBackend(store, "default", "node", 20, 1, Duration.ofHours(1),
+				5, Duration.ofSeconds(2), Duration.ofSeconds(30), 1, clock::get);
+
+		assertTrue(node.tryConsume("tracked", 1).isAllowed());
+		int acquires = store.acquires.get();
+
+		int allowed = 0;
+		while (node.tryConsume("untracked", 1).isAllowed()) {
+			allowed++;
+		}
+		assertEquals(20, allowed);
+		assertEquals(acquires, store.acquires.get());
+		assertEquals(1, store.leases.size());
+		assertEquals(21L, node.getMetrics().get("untrackedRequests"));
+	}
+
+	private static ClusterRateLimiterBackend node(InMemoryLeaseStore store, String nodeId, Duration refillPeriod,
+												  AtomicLong clock) {
+		return new ClusterRateLimiterBackend(store, "default", nodeId, 20, 1, refillPeriod,
+				5, Duration.ofSeconds(2), Duration.ofSeconds(30), 1000, clock::get);
+	}
+
+	private static int drain(ClusterRateLimiterBackend node) {
+		int allowed = 0;
+		while (node.tryConsume("client", 1).isAllowed()) {
+			allowed++;
+		}
+		return allowed;
+	}
+
+	private static final class InMemoryLeaseStore implements TokenLeaseStore {
+
+		private final AtomicLong clock;
+		private final Map<String, double[]> buckets = new HashMap<>();
+		private final Map<Long, Object[]> leases = new HashMap<>();
+		private final AtomicInteger acquires = new AtomicInteger();
+		private volatile boolean failReleases;
+		private long nextLeaseId = 1;
+
+		private InMemoryLeaseStore(AtomicLong clock) {
+			this.clock = clock;
+		}
+
+		@Override
+		public synchronized Optional<LeaseGrant> acquire(String bucketKey, String nodeId, int capacity,
+														 double refillPerSecond, int batch, int minimum, Duration ttl) {
+			acquires.incrementAndGet();
+			double[] bucket = buckets.get(bucketKey);
+			if (bucket == null) {
+				return Optional.empty();
+			}
+			long now = clock.get();
+			double available = Math.min(capacity, bucket[0] + (now - bucket[1]) / (double) SECOND * refillPerSecond);
+			if (available < minimum) {
+				return Optional.empty();
+			}
+			int granted = (int) Math.min(batch, Math.floor(available));
+			bucket[0] = available - granted;
+			bucket[1] = now;
+			long id = nextLeaseId++;
+			leases.put(id, new Object[]{bucketKey, granted, now + ttl.toNanos()});
+			return Optional.of(new LeaseGrant(id, granted, bucket[0]));
+		}
+
+		@Override
+		public synchronized boolean createBucketIfAbsent(String bucketKey, int capacity, double refillPerSecond) {
+			return buckets.putIfAbsent(bucketKey, new double[]{capacity, clock.get(), capacity}) == null;
+		}
+
+		@Override
+		public synchronized void releaseAll(List<long[]> releases) {
+			if (failReleases) {
+				throw new QueryTimeoutException("store unavailable");
+			}
+			for (long[] release : releases) {
+				Object[] lease = leases.remove(release[0]);
+				if (lease != null) {
+					refund((String) lease[0], release[1]);
+				}
+			}
+		}
+
+		@Override
+		public synchronized int reclaimExpired(Duration grace) {
+			int reclaimed = 0;
+			Iterator<Object[]> iterator = leases.values().iterator();
+			while (iterator.hasNext()) {
+				Object[] lease = iterator.next();
+				if ((long) lease[2] + grace.toNanos() < clock.get()) {
+					iterator.remove();
+					reclaimed++;
+				}
+			}
+			return reclaimed;
+		}
+
+		@Override
+		public synchronized int deleteFullBuckets() {
+			return 0;
+		}
+
+		private void refund(String bucketKey, long tokens) {
+			double[] bucket = buckets.get(bucketKey);
+			bucket[0] = Math.min(bucket[2], bucket[0] + tokens);
+		}
+	}
+}
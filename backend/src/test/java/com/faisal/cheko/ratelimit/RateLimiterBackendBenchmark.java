@@ -0,0 +1,84 @@
+package com.faisal.cheko.ratelimit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sketch backend against the exact one with the default limits: a stream of a million
+ * distinct clients, as under a spoofed-key flood, and one hot client from one thread and from
+ * four. Not a test; after {@code mvn test-compile dependency:build-classpath
+ * -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test}, run it with
+ * {@code java -cp target/test-classes:target/classes:$(cat cp.txt) com.faisal.cheko.ratelimit.RateLimiterBackendBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBackendBenchmark {
+
+    private static final int CLIENTS = 1 << 20;
+
+    @Param({"exact", "sketch"})
+    private String mode;
+
+    private RateLimiterBackend backend;
+    private String[] clients;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        backend = "sketch".equals(mode)
+                ? new SketchRateLimiterBackend(20, 1, Duration.ofSeconds(1), 65_536, 4, 20, 16)
+                : new ExactRateLimiterBackend(20, 1, Duration.ofSeconds(1), 100_000);
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10." + (i >>> 16) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean distinctClients(Cursor cursor) {
+        String client = clients[cursor.next++ & (CLIENTS - 1)];
+        return backend.tryConsume(client, 1).isAllowed();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean hotClientOneThread() {
+        return backend.tryConsume("10.0.0.1", 1).isAllowed();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean hotClientFourThreads() {
+        return backend.tryConsume("10.0.0.1", 1).isAllowed();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RateLimiterBackendBenchmark.class.getSimpleName()).build()).run();
+    }
+}
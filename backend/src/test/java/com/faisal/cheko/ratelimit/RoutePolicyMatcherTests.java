@@ -0,0 +1,96 @@
+package com.faisal.cheko.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RoutePolicyMatcherTests {
+
+	private static final RateLimitPolicy DEFAULT = policy("default", "/**", Set.of(), Integer.MAX_VALUE);
+
+	@Test
+	void literalAndSingleSegmentWildcardsMatchExactlyOneSegment() {
+		RoutePolicyMatcher matcher = new RoutePolicyMatcher(List.of(
+				policy("search", "/api/menu-items/search", Set.of(), 0),
+				policy("item", "/api/menu-items/*", Set.of(), 1),
+				policy("branch-menu", "/api/branches/{branchId}/menu", Set.of(), 2)), DEFAULT);
+
+		assertEquals("search", matcher.match("GET", "/api/menu-items/search").getName());
+		assertEquals("item", matcher.match("GET", "/api/menu-items/42").getName());
+		assertEquals("default", matcher.match("GET", "/api/menu-items").getName());
+		assertEquals("default", matcher.match("GET", "/api/menu-items/42/image").getName());
+		assertEquals("branch-menu", matcher.match("GET", "/api/branches/7/menu").getName());
+		assertEquals("default", matcher.match("GET", "/api/branches/7").getName());
+	}
+
+	@Test
+	void doubleWildcardMatchesAnyRemainderIncludingNone() {
+		RoutePolicyMatcher matcher = new RoutePolicyMatcher(List.of(policy("orders", "/api/orders/**", Set.of(), 0)), DEFAULT);
+
+		assertEquals("orders", matcher.match("GET", "/api/orders").getName());
+		assertEquals("orders", matcher.match("GET", "/api/orders/5").getName());
+		assertEquals("orders", matcher.match("GET", "/api/orders/5/items/9").getName());
+		assertEquals("default", matcher.match("GET", "/api/order-items").getName());
+	}
+
+	@Test
+	void firstDeclaredPolicyWinsOverMoreSpecificLaterOnes() {
+		RateLimitPolicy everything = policy("everything", "/api/**", Set.of(), 0);
+		RateLimitPolicy search = policy("search", "/api/menu-items/search", Set.of(), 1);
+
+		assertEquals("everything", new RoutePolicyMatcher(List.of(everything, search), DEFAULT)
+				.match("GET", "/api/menu-items/search").getName());
+
+		RateLimitPolicy searchFirst = policy("search", "/api/menu-items/search", Set.of(), 0);
+		RateLimitPolicy everythingSecond = policy("everything", "/api/**", Set.of(), 1);
+		assertEquals("search", new RoutePolicyMatcher(List.of(searchFirst, everythingSecond), DEFAULT)
+				.match("GET", "/api/menu-items/search").getName());
+	}
+
+	@Test
+	void methodsFilterPoliciesAndFallThroughToLaterOnes() {
+		RoutePolicyMatcher matcher = new RoutePolicyMatcher(List.of(
+				policy("writes", "/api/**", Set.of("post", " DELETE"), 0),
+				policy("reads", "/api/menu-items/**", Set.of(), 1)), DEFAULT);
+
+		assertEquals("writes", matcher.match("POST", "/api/menu-items").getName());
+		assertEquals("writes", matcher.match("DELETE", "/api/menu-items/3").getName());
+		assertEquals("reads", matcher.match("GET", "/api/menu-items/3").getName());
+		assertEquals("default", matcher.match("GET", "/api/branches").getName());
+	}
+
+	@Test
+	void trailingAndRepeatedSlashesAreIgnored() {
+		RoutePolicyMatcher matcher = new RoutePolicyMatcher(List.of(policy("branches", "/api/branches/", Set.of(), 0)), DEFAULT);
+
+		assertEquals("branches", matcher.match("GET", "/api/branches").getName());
+		assertEquals("branches", matcher.match("GET", "/api/branches/").getName());
+		assertEquals("branches", matcher.match("GET", "//api//branches//").getName());
+		assertEquals("default", matcher.match("GET", "/api/branches/1").getName());
+	}
+
+	@Test
+	void unmatchedRequestsUseTheDefaultPolicy() {
+		RoutePolicyMatcher matcher = new RoutePolicyMatcher(List.of(), DEFAULT);
+
+		assertEquals(DEFAULT, matcher.match("GET", "/api/anything"));
+		assertEquals(DEFAULT, matcher.match("GET", "/"));
+		assertEquals(DEFAULT, matcher.getDefaultPolicy());
+	}
+
+	@Test
+	void unsupportedPatternsAreRejected() {
+		for (String pattern : List.of("api/branches", "/api/**/menu", "/api/menu-*", "/api/{id")) {
+			assertThrows(IllegalArgumentException.class,
+					() -> new RoutePolicyMatcher(List.of(policy("bad", pattern, Set.of(), 0)), DEFAULT), pattern);
+		}
+	}
+
+	private static RateLimitPolicy policy(String name, String pattern, Set<String> methods, int order) {
+		return new RateLimitPolicy(name, pattern, methods, 1, order, null);
+	}
+}
@@ -0,0 +1,159 @@
+package com.faisal.cheko.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SketchRateLimiterBackendTests {
+
+	@Test
+	void allowsUpToCapacityInAWindowThenRejects() {
+		AtomicLong clock = new AtomicLong();
+		SketchRateLimiterBackend backend = new SketchRateLimiterBackend(5, 1, Duration.ofSeconds(1), 1024, 4, 10, 1, clock::get);
+
+		for (int i = 4; i >= 0; i--) {
+			RateLimitResult result = backend.tryConsume("client", 1);
+			assertTrue(result.isAllowed());
+			assertEquals(i, result.getRemainingTokens());
+		}
+		RateLimitResult rejected = backend.tryConsume("client", 1);
+		assertFalse(rejected.isAllowed());
+		assertTrue(rejected.getNanosToRetry() > 0);
+		assertTrue(backend.tryConsume("other", 1).isAllowed());
+
+		// Two windows later the previous window no longer weighs on the estimate
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+		assertEquals(5, backend.probe("client").getRemainingTokens());
+	}
+
+	@Test
+	void estimatesNeverUndercountAndStayWithinTheErrorBound() {
+		int width = 1024;
+		int depth = 4;
+		int capacity = 1_000_000;
+		AtomicLong clock = new AtomicLong();
+		SketchRateLimiterBackend backend = new SketchRateLimiterBackend(capacity, capacity, Duration.ofSeconds(1), width, depth, 10, 1,
+				clock::get);
+
+		Random random = new Random(3);
+		int clients = 20_000;
+		long[] spent = new long[clients];
+		long total = 0;
+		for (int i = 0; i < 200_000; i++) {
+			// Skewed towards low client numbers, as real traffic is
+			int client = (int) (clients * Math.pow(random.nextDouble(), 3));
+			int tokens = 1 + random.nextInt(3);
+			assertTrue(backend.tryConsume("client-" + client, tokens).isAllowed());
+			spent[client] += tokens;
+			total += tokens;
+		}
+
+		double bound = Math.E / width * total;
+		int outsideBound = 0;
+		for (int client = 0; client < clients; client++) {
+			long estimate = capacity - backend.probe("client-" + client).getRemainingTokens();
+			assertTrue(estimate >= spent[client], "client-" + client + " undercounted");
+			if (estimate - spent[client] > bound) {
+				outsideBound++;
+			}
+		}
+		// The bound holds for all but an e^-depth share of clients
+		assertTrue(outsideBound <= clients * Math.exp(-depth), outsideBound + " estimates exceeded the error bound");
+	}
+
+	@Test
+	void concurrentRequestsForOneHotClientNeverPassCapacity() throws Exception {
+		int capacity = 5_000;
+		int threads = 16;
+		AtomicLong clock = new AtomicLong();
+		SketchRateLimiterBackend backend = new SketchRateLimiterBackend(capacity, 1, Duration.ofSeconds(1), 1024, 4, 10, 16, clock::get);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				int allowed = 0;
+				for (int i = 0; i < 2_000; i++) {
+					if (backend.tryConsume("hot", 1).isAllowed()) {
+						allowed++;
+					}
+				}
+				return allowed;
+			}));
+		}
+		start.countDown();
+		int totalAllowed = 0;
+		for (Future<Integer> future : futures) {
+			totalAllowed += future.get(30, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertTrue(totalAllowed <= capacity, "admitted " + totalAllowed);
+		// Rejections racing at the limit may leave at most one token per thread unspent
+		assertTrue(totalAllowed >= capacity - threads, "admitted " + totalAllowed);
+		assertEquals(0, backend.probe("hot").getRemainingTokens());
+	}
+
+	@Test
+	void requestThatReadTheClockWindowsAgoIsNotJudgedOrCountedThere() {
+		long window = TimeUnit.SECONDS.toNanos(5);
+		AtomicLong clock = new AtomicLong();
+		AtomicReference<SketchRateLimiterBackend> backendRef = new AtomicReference<>();
+		AtomicBoolean stalled = new AtomicBoolean();
+		// The stalled request reads a time in window 0; before it gets to the sketch, another
+		// request in window 2 has already given window 0's slot to window 2
+		LongSupplier time = () -> {
+			if (stalled.compareAndSet(true, false)) {
+				clock.set(2 * window);
+				backendRef.get().tryConsume("other", 1);
+				return 0;
+			}
+			return clock.get();
+		};
+		SketchRateLimiterBackend backend = new SketchRateLimiterBackend(5, 1, Duration.ofSeconds(1), 1024, 4, 10, 1, time);
+		backendRef.set(backend);
+		clock.set(window);
+		assertTrue(backend.tryConsume("client", 5).isAllowed());
+
+		// Window 1's five tokens still weigh fully at the start of window 2
+		stalled.set(true);
+		assertFalse(backend.tryConsume("client", 5).isAllowed());
+		assertEquals(0, backend.probe("client").getRemainingTokens());
+		clock.addAndGet(window / 2);
+		assertEquals(2, backend.probe("client").getRemainingTokens());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void reportsTheNoisiestClient() {
+		AtomicLong clock = new AtomicLong();
+		SketchRateLimiterBackend backend = new SketchRateLimiterBackend(10, 1, Duration.ofSeconds(1), 1024, 4, 3, 4, clock::get);
+
+		for (int i = 0; i < 1_000; i++) {
+			backend.tryConsume("noisy", 1);
+			backend.tryConsume("quiet-" + i, 1);
+		}
+
+		List<Map<String, Object>> heavyHitters = (List<Map<String, Object>>) backend.getMetrics().get("heavyHitters");
+		assertEquals("noisy", heavyHitters.get(0).get("client"));
+	}
+}
@@ -0,0 +1,117 @@
+package com.faisal.cheko.ratelimit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lock-free GCRA {@link TokenBucket} against the synchronized bucket it replaced, on one
+ * shared key from one thread and from four. With a capacity of 20 nearly every request is
+ * rejected, as for a client hammering the API; with a million most are admitted. Not a test;
+ * after {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * -Dmdep.includeScope=test}, run it with
+ * {@code java -cp target/test-classes:target/classes:$(cat cp.txt) com.faisal.cheko.ratelimit.TokenBucketBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBucketBenchmark {
+
+    @Param({"20", "1000000"})
+    private int capacity;
+
+    private TokenBucket gcra;
+    private SynchronizedBucket synchronizedBucket;
+
+    @Setup
+    public void setUp() {
+        // Refilled at the full capacity per second
+        gcra = new TokenBucket(capacity, capacity, Duration.ofSeconds(1));
+        synchronizedBucket = new SynchronizedBucket(capacity, capacity, Duration.ofSeconds(1));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean gcraOneThread() {
+        return gcra.tryConsume(1).isAllowed();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean synchronizedOneThread() {
+        return synchronizedBucket.tryConsume(1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean gcraFourThreads() {
+        return gcra.tryConsume(1).isAllowed();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean synchronizedFourThreads() {
+        return synchronizedBucket.tryConsume(1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenBucketBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * The bucket as it was before the GCRA rewrite: a token count and refill timestamp behind
+     * the bucket's monitor.
+     */
+    static final class SynchronizedBucket {
+
+        private final int capacity;
+        private final int refillTokens;
+        private final long refillPeriodNanos;
+        private int tokens;
+        private long lastRefillTimestamp;
+
+        SynchronizedBucket(int capacity, int refillTokens, Duration refillPeriod) {
+            this.capacity = capacity;
+            this.refillTokens = refillTokens;
+            this.refillPeriodNanos = refillPeriod.toNanos();
+            this.tokens = capacity;
+            this.lastRefillTimestamp = System.nanoTime();
+        }
+
+        synchronized boolean tryConsume(int tokensToConsume) {
+            refill();
+            if (tokens >= tokensToConsume) {
+                tokens -= tokensToConsume;
+                return true;
+            }
+            return false;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            long refillCount = (now - lastRefillTimestamp) / refillPeriodNanos;
+            if (refillCount > 0) {
+                tokens = (int) Math.min(capacity, tokens + refillCount * refillTokens);
+                lastRefillTimestamp += refillCount * refillPeriodNanos;
+            }
+        }
+    }
+}
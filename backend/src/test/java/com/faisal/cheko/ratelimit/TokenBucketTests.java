@@ -0,0 +1,107 @@
+package com.faisal.cheko.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void allowsBurstUpToCapacityThenRejects() {
+		AtomicLong clock = new AtomicLong(42);
+		TokenBucket bucket = new TokenBucket(20, 1, Duration.ofSeconds(1), clock::get);
+
+		for (int i = 19; i >= 0; i--) {
+			RateLimitResult result = bucket.tryConsume(1);
+			assertTrue(result.isAllowed());
+			assertEquals(i, result.getRemainingTokens());
+		}
+
+		RateLimitResult rejected = bucket.tryConsume(1);
+		assertFalse(rejected.isAllowed());
+		assertEquals(0, rejected.getRemainingTokens());
+		assertEquals(SECOND, rejected.getNanosToRetry());
+		assertEquals(SECOND, rejected.getNanosToNextToken());
+		assertEquals(20 * SECOND, rejected.getNanosToFull());
+	}
+
+	@Test
+	void refillsOneTokenPerPeriodAndCapsAtCapacity() {
+		AtomicLong clock = new AtomicLong(-5 * SECOND);
+		TokenBucket bucket = new TokenBucket(5, 1, Duration.ofSeconds(1), clock::get);
+
+		assertTrue(bucket.tryConsume(5).isAllowed());
+		assertFalse(bucket.tryConsume(1).isAllowed());
+
+		clock.addAndGet(2 * SECOND);
+		assertEquals(2, bucket.probe().getRemainingTokens());
+		assertTrue(bucket.tryConsume(2).isAllowed());
+		assertFalse(bucket.tryConsume(1).isAllowed());
+
+		clock.addAndGet(60 * SECOND);
+		assertTrue(bucket.isFull());
+		assertEquals(5, bucket.probe().getRemainingTokens());
+	}
+
+	@Test
+	void rejectedRequestDoesNotConsumeTokens() {
+		AtomicLong clock = new AtomicLong();
+		TokenBucket bucket = new TokenBucket(3, 1, Duration.ofSeconds(1), clock::get);
+
+		assertTrue(bucket.tryConsume(2).isAllowed());
+		RateLimitResult rejected = bucket.tryConsume(2);
+		assertFalse(rejected.isAllowed());
+		assertEquals(1, rejected.getRemainingTokens());
+		assertEquals(SECOND, rejected.getNanosToRetry());
+		assertTrue(bucket.tryConsume(1).isAllowed());
+	}
+
+	@Test
+	void neverAdmitsMoreThanCapacityUnderContention() throws Exception {
+		int capacity = 10_000;
+		int threads = 16;
+		int attemptsPerThread = 5_000;
+		AtomicLong clock = new AtomicLong();
+		TokenBucket bucket = new TokenBucket(capacity, 1, Duration.ofSeconds(1), clock::get);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				int allowed = 0;
+				for (int i = 0; i < attemptsPerThread; i++) {
+					if (bucket.tryConsume(1).isAllowed()) {
+						allowed++;
+					}
+				}
+				return allowed;
+			}));
+		}
+		start.countDown();
+
+		int totalAllowed = 0;
+		for (Future<Integer> future : futures) {
+			totalAllowed += future.get(30, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertEquals(capacity, totalAllowed);
+		assertEquals(0, bucket.probe().getRemainingTokens());
+	}
+}
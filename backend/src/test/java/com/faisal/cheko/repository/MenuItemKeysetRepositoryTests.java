@@ -0,0 +1,54 @@
+package com.faisal.cheko.repository;
+
+import com.faisal.cheko.dto.MenuItemResponse;
+import com.faisal.cheko.util.PageCursor;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The seek queries are assembled at runtime, so startup does not validate them the way it
+ * does {@code @Query} methods. Compile every shape against the mapping instead.
+ */
+@SpringBootTest
+class MenuItemKeysetRepositoryTests {
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void everyQueryShapeCompiles() {
+		for (MenuItemSortKey sortKey : MenuItemSortKey.values()) {
+			for (int flags = 0; flags < 16; flags++) {
+				String jpql = MenuItemKeysetRepositoryImpl.buildQuery((flags & 1) != 0, (flags & 2) != 0,
+						(flags & 4) != 0, sortKey, (flags & 8) != 0, true);
+				assertDoesNotThrow(() -> entityManager.createQuery(jpql, MenuItemResponse.class), jpql);
+			}
+		}
+	}
+
+	@Test
+	void seekComparesSortKeyAndIdTogether() {
+		String jpql = MenuItemKeysetRepositoryImpl.buildQuery(false, false, false, MenuItemSortKey.PRICE, false, true);
+
+		assertTrue(jpql.contains("(mi.price, mi.id) < (:afterValue, :afterId)"), jpql);
+		assertTrue(jpql.endsWith("ORDER BY mi.price DESC, mi.id DESC"), jpql);
+	}
+
+	@Test
+	void cursorRoundTripsValuesContainingTheSeparator() {
+		PageCursor cursor = PageCursor.decode(new PageCursor("name", true, 42, "Tea | Coffee").encode());
+
+		assertEquals("name", cursor.getSort());
+		assertTrue(cursor.isAscending());
+		assertEquals(42, cursor.getId());
+		assertEquals("Tea | Coffee", cursor.getValue());
+		assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+	}
+}
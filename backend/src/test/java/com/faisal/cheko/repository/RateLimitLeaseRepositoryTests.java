@@ -0,0 +1,193 @@
+package com.faisal.cheko.repository;
+
+import com.faisal.cheko.ratelimit.ClusterRateLimiterBackend;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Several in-process cluster nodes sharing one real Postgres through the lease statements,
+ * so the SQL itself, its parameter types and its row locking are what is tested. Runs in a
+ * throwaway container, or against the server named by {@code -Dcheko.test.postgres-url}
+ * (user {@code postgres}, no password); skipped when neither is available.
+ */
+class RateLimitLeaseRepositoryTests {
+
+	private static PostgreSQLContainer<?> container;
+	private static HikariDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+	private static RateLimitLeaseRepository repository;
+
+	@BeforeAll
+	static void startDatabase() throws Exception {
+		String url = System.getProperty("cheko.test.postgres-url");
+		if (url == null) {
+			assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is not available");
+			container = new PostgreSQLContainer<>("postgres:16-alpine");
+			container.start();
+		}
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(container != null ? container.getJdbcUrl() : url);
+		dataSource.setUsername(container != null ? container.getUsername() : "postgres");
+		dataSource.setPassword(container != null ? container.getPassword() : "");
+		dataSource.setMaximumPoolSize(16);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		repository = new RateLimitLeaseRepository(jdbcTemplate);
+
+		// The rate limit tables exactly as the schema script creates them
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS restaurant CASCADE");
+		jdbcTemplate.execute("CREATE SCHEMA restaurant");
+		for (String statement : Files.readString(Path.of("../db/Schema.sql")).split(";")) {
+			if (statement.contains("restaurant.rate_limit_")) {
+				jdbcTemplate.execute(statement);
+			}
+		}
+	}
+
+	@AfterAll
+	static void stopDatabase() {
+		if (dataSource != null) {
+			dataSource.close();
+		}
+		if (container != null) {
+			container.stop();
+		}
+	}
+
+	@BeforeEach
+	void clearBuckets() {
+		jdbcTemplate.execute("TRUNCATE restaurant.rate_limit_buckets, restaurant.rate_limit_leases");
+	}
+
+	@Test
+	void nodesNeverAdmitMoreThanTheSharedBucket() throws Exception {
+		// No noticeable refill while the test runs
+		List<ClusterRateLimiterBackend> nodes = nodes(3, 20, 1, Duration.ofHours(1), Duration.ofMinutes(1));
+
+		int allowed = hammer(nodes, 8, 500, 0);
+
+		// Every lease is spent before its node asks again, so the bucket is used exactly once
+		assertEquals(20, allowed);
+		assertEquals(0.0, jdbcTemplate.queryForObject("SELECT tokens FROM restaurant.rate_limit_buckets", Double.class), 1e-3);
+	}
+
+	@Test
+	void nodesNeverAdmitMoreThanTheConfiguredRate() throws Exception {
+		List<ClusterRateLimiterBackend> nodes = nodes(3, 10, 20, Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+		long start = System.nanoTime();
+		int allowed = hammer(nodes, 8, Integer.MAX_VALUE, TimeUnit.SECONDS.toNanos(2));
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		// A full bucket plus twenty tokens a second, however the requests spread over the nodes
+		double ceiling = 10 + 20 * seconds;
+		assertTrue(allowed <= ceiling, allowed + " admitted, at most " + ceiling + " allowed");
+		assertTrue(allowed >= ceiling / 2, "refill did not reach the nodes: " + allowed + " of " + ceiling);
+
+		// Once settled and refilled, the bucket carries no information and is dropped
+		Thread.sleep(1_000);
+		for (ClusterRateLimiterBackend node : nodes) {
+			node.settle();
+		}
+		assertEquals(0, count("rate_limit_leases"));
+		nodes.get(0).evictIdle();
+		assertEquals(0, count("rate_limit_buckets"));
+	}
+
+	@Test
+	void leasesOfADeadNodeAreReclaimedWithoutRefund() throws Exception {
+		List<ClusterRateLimiterBackend> nodes = nodes(2, 20, 1, Duration.ofHours(1), Duration.ofSeconds(1));
+		ClusterRateLimiterBackend dead = nodes.get(0);
+		ClusterRateLimiterBackend alive = nodes.get(1);
+
+		// The dead node may have spent all five leased tokens before it stopped
+		assertTrue(dead.tryConsume("client", 1).isAllowed());
+		assertEquals(15, drain(alive));
+		alive.settle();
+		alive.evictIdle();
+		assertEquals(1, count("rate_limit_leases"));
+
+		// Past expiry and the grace period the lease is dropped, and none of its tokens return
+		Thread.sleep(2_500);
+		assertEquals(1, repository.reclaimExpired(Duration.ofSeconds(1)));
+		assertEquals(0, count("rate_limit_leases"));
+		assertEquals(0, drain(nodes(1, 20, 1, Duration.ofHours(1), Duration.ofSeconds(1)).get(0)));
+	}
+
+	private static List<ClusterRateLimiterBackend> nodes(int count, int capacity, int refillTokens, Duration refillPeriod,
+														 Duration leaseTtl) {
+		List<ClusterRateLimiterBackend> nodes = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			nodes.add(new ClusterRateLimiterBackend(repository, "default", "node-" + i, capacity, refillTokens, refillPeriod,
+					5, leaseTtl, Duration.ofSeconds(1), 1000));
+		}
+		return nodes;
+	}
+
+	/**
+	 * Send requests for one client from several threads to random nodes, each thread stopping
+	 * after {@code requests} requests or, when given, {@code nanos} of running.
+	 */
+	private static int hammer(List<ClusterRateLimiterBackend> nodes, int threads, int requests, long nanos) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		long deadline = System.nanoTime() + nanos;
+		List<Future<Integer>> results = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			Callable<Integer> worker = () -> {
+				int allowed = 0;
+				for (int i = 0; i < requests && (nanos == 0 || System.nanoTime() - deadline < 0); i++) {
+					ClusterRateLimiterBackend node = nodes.get(ThreadLocalRandom.current().nextInt(nodes.size()));
+					if (node.tryConsume("client", 1).isAllowed()) {
+						allowed++;
+					}
+				}
+				return allowed;
+			};
+			results.add(executor.submit(worker));
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+		int allowed = 0;
+		for (Future<Integer> result : results) {
+			allowed += result.get();
+		}
+		// A store error would have fallen back to per-node limits and made the counts meaningless
+		for (ClusterRateLimiterBackend node : nodes) {
+			assertEquals(0L, node.getMetrics().get("storeErrors"));
+		}
+		return allowed;
+	}
+
+	private static int drain(ClusterRateLimiterBackend node) {
+		int allowed = 0;
+		while (node.tryConsume("client", 1).isAllowed()) {
+			allowed++;
+		}
+		return allowed;
+	}
+
+	private static int count(String table) {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM restaurant." + table, Integer.class);
+	}
+}
@@ -0,0 +1,123 @@
+package com.faisal.cheko.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpeningScheduleTests {
+
+	private static final ZoneId RIYADH = ZoneId.of("Asia/Riyadh");
+	private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+	@Test
+	void overnightHoursRunIntoTheNextDay() {
+		// 2024-03-08 is a Friday
+		OpeningSchedule schedule = OpeningSchedule.compile(Map.of("friday", shift("13:00", "01:00")));
+
+		assertFalse(schedule.isOpenAt(at("2024-03-08T12:59"), RIYADH));
+		assertTrue(schedule.isOpenAt(at("2024-03-08T13:00"), RIYADH));
+		assertTrue(schedule.isOpenAt(at("2024-03-08T23:30"), RIYADH));
+		assertTrue(schedule.isOpenAt(at("2024-03-09T00:59"), RIYADH));
+		assertFalse(schedule.isOpenAt(at("2024-03-09T01:00"), RIYADH));
+	}
+
+	@Test
+	void sundayNightWrapsToMondayMorning() {
+		OpeningSchedule schedule = OpeningSchedule.compile(Map.of("sunday", shift("20:00", "02:00")));
+
+		assertTrue(schedule.isOpenAt(at("2024-03-10T21:00"), RIYADH));
+		assertTrue(schedule.isOpenAt(at("2024-03-11T01:59"), RIYADH));
+		assertFalse(schedule.isOpenAt(at("2024-03-11T02:00"), RIYADH));
+		assertEquals(at("2024-03-17T20:00"), schedule.nextOpeningAfter(at("2024-03-11T03:00"), RIYADH).toInstant());
+	}
+
+	@Test
+	void splitShiftsAndClosedDays() {
+		Map<String, Object> hours = new HashMap<>();
+		hours.put("Monday", List.of(shift("09:00", "12:00"), shift("16:00", "23:00")));
+		hours.put("tuesday", null);
+		OpeningSchedule schedule = OpeningSchedule.compile(hours);
+
+		assertTrue(schedule.isOpenAt(at("2024-03-11T10:00"), RIYADH));
+		assertFalse(schedule.isOpenAt(at("2024-03-11T13:00"), RIYADH));
+		assertTrue(schedule.isOpenAt(at("2024-03-11T16:00"), RIYADH));
+		assertFalse(schedule.isOpenAt(at("2024-03-12T10:00"), RIYADH));
+		assertEquals(at("2024-03-11T16:00"), schedule.nextOpeningAfter(at("2024-03-11T13:00"), RIYADH).toInstant());
+		assertEquals(at("2024-03-18T09:00"), schedule.nextOpeningAfter(at("2024-03-12T10:00"), RIYADH).toInstant());
+	}
+
+	@Test
+	void hoursAreReadInTheirOwnZoneOrTheFallback() {
+		// 16:30 in Berlin, 18:30 in Riyadh
+		Instant instant = Instant.parse("2024-03-11T15:30:00Z");
+		Map<String, Object> monday = Map.of("monday", shift("09:00", "17:00"));
+		Map<String, Object> mondayInBerlin = Map.of("monday", shift("09:00", "17:00"), "timezone", "Europe/Berlin");
+
+		assertFalse(OpeningSchedule.compile(monday).isOpenAt(instant, RIYADH));
+		assertTrue(OpeningSchedule.compile(monday).isOpenAt(instant, BERLIN));
+		assertTrue(OpeningSchedule.compile(mondayInBerlin).isOpenAt(instant, RIYADH));
+	}
+
+	@Test
+	void nextOpeningSkippedByDaylightSavingIsJustAfterTheGap() {
+		// Clocks in Berlin go from 02:00 to 03:00 on Sunday 2024-03-31
+		OpeningSchedule schedule = OpeningSchedule.compile(Map.of("sunday", shift("02:30", "04:00"), "timezone", "Europe/Berlin"));
+
+		ZonedDateTime next = schedule.nextOpeningAfter(Instant.parse("2024-03-31T00:00:00Z"), RIYADH);
+
+		assertEquals(ZonedDateTime.parse("2024-03-31T03:30+02:00[Europe/Berlin]"), next);
+	}
+
+	@Test
+	void sundayIntoMondayIsOneOpening() {
+		// Equal times mean open all day
+		OpeningSchedule always = OpeningSchedule.compile(Map.of("monday", shift("00:00", "00:00"), "tuesday", shift("00:00", "00:00"),
+				"wednesday", shift("00:00", "00:00"), "thursday", shift("00:00", "00:00"), "friday", shift("00:00", "00:00"),
+				"saturday", shift("00:00", "00:00"), "sunday", shift("00:00", "00:00")));
+		OpeningSchedule lateNight = OpeningSchedule.compile(Map.of("sunday", shift("22:00", "00:00"), "monday", shift("00:00", "02:00")));
+
+		assertTrue(always.isOpenAt(at("2024-03-13T04:00"), RIYADH));
+		assertNull(always.nextOpeningAfter(at("2024-03-13T04:00"), RIYADH));
+		assertEquals(at("2024-03-17T22:00"), lateNight.nextOpeningAfter(at("2024-03-11T03:00"), RIYADH).toInstant());
+	}
+
+	@Test
+	void malformedHoursAreRejectedOrNeverOpen() {
+		List<Map<String, Object>> malformed = List.of(
+				Map.of("funday", shift("09:00", "17:00")),
+				Map.of("monday", shift("25:00", "17:00")),
+				Map.of("monday", Map.of("open", "09:00")),
+				Map.of("monday", "09:00-17:00"),
+				Map.of("monday", shift("09:00", "17:00"), "timezone", "Mars/Olympus"));
+
+		for (Map<String, Object> hours : malformed) {
+			assertThrows(IllegalArgumentException.class, () -> OpeningSchedule.compile(hours), hours.toString());
+			OpeningSchedule lenient = OpeningSchedule.compileLeniently(hours);
+			assertSame(OpeningSchedule.EMPTY, lenient);
+			assertFalse(lenient.isOpenAt(at("2024-03-11T10:00"), RIYADH));
+			assertNull(lenient.nextOpeningAfter(at("2024-03-11T10:00"), RIYADH));
+		}
+		assertTrue(OpeningSchedule.compile(null).isEmpty());
+	}
+
+	private static Map<String, Object> shift(String open, String close) {
+		return Map.of("open", open, "close", close);
+	}
+
+	private static Instant at(String riyadhTime) {
+		return LocalDateTime.parse(riyadhTime).atZone(RIYADH).toInstant();
+	}
+}
@@ -0,0 +1,71 @@
+package com.faisal.cheko.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PrefixTrieTests {
+
+	private static final List<String> NAMES = Arrays.asList(
+			"Chicken Shawarma", "Shawarma Plate", "Chicken Burger", "Cheese Burger", "كَبْسَة دجاج", "Chocolate Cake");
+	private static final long[] ORDERS = {5, 9, 1, 7, 0, 3};
+
+	private final PrefixTrie trie = new PrefixTrie(NAMES,
+			Comparator.comparing((Integer doc) -> ORDERS[doc], Comparator.reverseOrder()).thenComparing(doc -> doc), 10);
+
+	@Test
+	void completesNamesAndWordStartsMostPopularFirst() {
+		assertArrayEquals(new int[]{1, 0}, trie.complete("sha", 10));
+		assertArrayEquals(new int[]{3, 0, 5, 2}, trie.complete("CH", 10));
+		assertArrayEquals(new int[]{3, 0}, trie.complete("ch", 2));
+		assertArrayEquals(new int[]{3, 2}, trie.complete("burger", 10));
+		assertArrayEquals(new int[]{2}, trie.complete("chicken b", 10));
+		// Arabic spelling variants fold the same way as in search
+		assertArrayEquals(new int[]{4}, trie.complete("كبسة", 10));
+		assertArrayEquals(new int[]{4}, trie.complete("دج", 10));
+	}
+
+	@Test
+	void unknownOrEmptyPrefixesCompleteNothing() {
+		assertEquals(0, trie.complete("pizza", 10).length);
+		assertEquals(0, trie.complete("chickens", 10).length);
+		assertEquals(0, trie.complete(" ", 10).length);
+	}
+
+	@Test
+	void agreesWithALinearScan() {
+		Random random = new Random(14);
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			StringBuilder name = new StringBuilder();
+			int length = 1 + random.nextInt(10);
+			for (int c = 0; c < length; c++) {
+				name.append(random.nextInt(5) == 0 ? ' ' : (char) ('a' + random.nextInt(3)));
+			}
+			names.add(name.toString());
+		}
+		Comparator<Integer> byId = Comparator.naturalOrder();
+		PrefixTrie random300 = new PrefixTrie(names, byId, 400);
+
+		for (int i = 0; i < 200; i++) {
+			String prefix = names.get(random.nextInt(names.size()));
+			prefix = prefix.substring(0, 1 + random.nextInt(prefix.length()));
+			String needle = TextNormalizer.normalize(prefix);
+			List<Integer> expected = new ArrayList<>();
+			for (int doc = 0; doc < names.size(); doc++) {
+				String name = TextNormalizer.normalize(names.get(doc));
+				if (!needle.isEmpty() && (name.startsWith(needle) || name.contains(" " + needle))) {
+					expected.add(doc);
+				}
+			}
+			assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), random300.complete(prefix, 400), prefix);
+		}
+	}
+}
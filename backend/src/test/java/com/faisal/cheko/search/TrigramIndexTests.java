@@ -0,0 +1,60 @@
+package com.faisal.cheko.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTests {
+
+	private final TrigramIndex index = new TrigramIndex(
+			Arrays.asList("Chicken Shawarma", "Shawarma Plate", "Crème Brûlée", "كَبْسَة دجاج", "Mint Lemonade", "Arabic Coffee", "Vanilla Ice Cream"),
+			Arrays.asList("Grilled chicken wrap", null, "Vanilla custard", "أرز بالبهارات", "Fresh mint", "With cardamom", null));
+
+	@Test
+	void normalizesCaseDiacriticsAndArabicSpellings() {
+		assertEquals("creme brulee", TextNormalizer.normalize("Crème  Brûlée!"));
+		// Harakat dropped, teh marbuta folds to heh
+		assertEquals("كبسه", TextNormalizer.normalize("كَبْسَة"));
+		// Hamza forms of alef fold to bare alef, tatweel and Arabic-Indic digits
+		assertEquals("ارز 12", TextNormalizer.normalize("أرـــز ١٢"));
+		assertEquals(TextNormalizer.normalize("إفطار"), TextNormalizer.normalize("افطار"));
+	}
+
+	@Test
+	void matchesSubstringsIgnoringCaseAndDiacritics() {
+		assertEquals(Arrays.asList(2), documents("BRULEE"));
+		assertEquals(Arrays.asList(3), documents("كبسه"));
+		assertEquals(Arrays.asList(3), documents("ارز"));
+		assertTrue(index.search("   ").isEmpty());
+	}
+
+	@Test
+	void ranksPrefixBeforeWordStartBeforeDescription() {
+		// "Shawarma Plate" starts with it, "Chicken Shawarma" has it as a later word
+		assertEquals(Arrays.asList(1, 0), documents("shawarma"));
+		// Name match first, then the item that only mentions it in the description
+		assertEquals(Arrays.asList(6, 2), documents("vanilla"));
+		assertEquals(Arrays.asList(4), documents("fresh"));
+	}
+
+	@Test
+	void toleratesTyposWhenNothingMatchesExactly() {
+		List<TrigramIndex.Hit> hits = index.search("shawrma");
+
+		assertFalse(hits.isEmpty());
+		assertFalse(hits.get(0).isExact());
+		assertTrue(documents("shawrma").containsAll(Arrays.asList(0, 1)));
+		assertEquals(Arrays.asList(5), documents("cofee"));
+		assertTrue(index.search("pizza").isEmpty());
+	}
+
+	private List<Integer> documents(String query) {
+		return index.search(query).stream().map(TrigramIndex.Hit::getDocument).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,136 @@
+package com.faisal.cheko.service.impl;
+
+import com.faisal.cheko.service.MenuItemService;
+import com.faisal.cheko.service.MenuSectionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Each menu read must be answered by its existence checks plus one projection query. The
+ * projections return DTOs, so mapping cannot fall back to lazy loading; any additional
+ * statement here would be a per-row query sneaking back in.
+ * <p>
+ * Statements are counted by Hibernate itself. No database is needed: the context runs on a
+ * JDBC stub whose every query returns a single row of defaults, so existence checks pass and
+ * each projection yields one item.
+ */
+@SpringBootTest(properties = {
+		"cheko.menu-snapshot.enabled=false",
+		// Keep the background loaders a fallback read requests from querying mid-test
+		"cheko.menu-snapshot.calorie-index-load-interval=PT1H"
+})
+class MenuReadQueryTests {
+
+	private static final Pageable PAGE = PageRequest.of(0, 10);
+
+	@Autowired
+	private MenuItemService menuItemService;
+
+	@Autowired
+	private MenuSectionService menuSectionService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	void branchPagesUseOneProjectionQuery() {
+		// The first read of a branch also checks that it exists; the id index remembers it
+		assertEquals(2, statements(() -> menuItemService.getMenuItemsByBranchIdPaginated(11L, PAGE, false)));
+
+		assertEquals(1, statements(() -> menuItemService.getMenuItemsByBranchIdPaginated(11L, PAGE, false)));
+		assertEquals(1, statements(() -> menuItemService.getAvailableMenuItemsByBranchIdPaginated(11L, null, PAGE, false)));
+		assertEquals(1, statements(() -> menuItemService.getAvailableMenuItemsByBranchIdPaginated(11L, "tea", PAGE, false)));
+		// Capped to the largest page, still one query
+		assertEquals(1, statements(() -> menuItemService.getMenuItemsByBranchIdPaginated(11L, PageRequest.of(3, 100_000), false)));
+	}
+
+	@Test
+	void sectionPagesUseOneProjectionQuery() {
+		// Existence of the branch and the section's owner, then the page
+		assertEquals(3, statements(() -> menuItemService.getMenuItemsByBranchIdAndBySectionIdPaginated(1L, 12L, PAGE, false)));
+
+		assertEquals(1, statements(() -> menuItemService.getMenuItemsByBranchIdAndBySectionIdPaginated(1L, 12L, PAGE, false)));
+		assertEquals(1, statements(() -> menuItemService.getMenuItemsBySectionIdPaginated(12L, PAGE)));
+		assertEquals(1, statements(() -> menuItemService.getAvailableMenuItemsByBranchIdAndBySectionIdPaginated(1L, 12L, null, PAGE, false)));
+	}
+
+	@Test
+	void totalsComeFromTheCountCacheInsteadOfACountQuery() {
+		menuItemService.getMenuItemsByBranchIdPaginated(13L, PAGE, false);
+
+		// The count is read once, then remembered
+		assertEquals(2, statements(() -> menuItemService.getAvailableMenuItemsByBranchIdPaginated(13L, "tea", PAGE, true)));
+		assertEquals(1, statements(() -> menuItemService.getAvailableMenuItemsByBranchIdPaginated(13L, "tea", PAGE, true)));
+	}
+
+	@Test
+	void sectionCountsAndCaloriesUseOneQueryEach() {
+		assertEquals(1, statements(() -> menuSectionService.getMenuSectionsByBranchIdWithCounts(14L)));
+		assertEquals(1, statements(() -> menuItemService.getSecondHighestCalorieMealPerCategory()));
+	}
+
+	private long statements(Runnable read) {
+		statistics.clear();
+		read.run();
+		return statistics.getPrepareStatementCount();
+	}
+
+	@TestConfiguration
+	static class StubDatabase {
+
+		@Bean
+		@Primary
+		DataSource stubDataSource() throws Exception {
+			DataSource dataSource = mock(DataSource.class);
+			Connection connection = mock(Connection.class, invocation ->
+					invocation.getMethod().getName().startsWith("prepare") ? statement() : RETURNS_DEFAULTS.answer(invocation));
+			when(dataSource.getConnection()).thenReturn(connection);
+			return dataSource;
+		}
+
+		private static PreparedStatement statement() {
+			return mock(PreparedStatement.class, invocation ->
+					invocation.getMethod().getName().equals("executeQuery") ? singleRow() : RETURNS_DEFAULTS.answer(invocation));
+		}
+
+		private static ResultSet singleRow() {
+			AtomicBoolean read = new AtomicBoolean();
+			return mock(ResultSet.class, invocation -> switch (invocation.getMethod().getName()) {
+				case "next" -> !read.getAndSet(true);
+				// Ids and counts alike read as 1, so the row belongs to branch 1 and exists
+				case "getLong" -> 1L;
+				case "getInt" -> 1;
+				default -> RETURNS_DEFAULTS.answer(invocation);
+			});
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.faisal.cheko.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTests {
+
+	@Test
+	void readsQuotedFieldsAndTracksRecordLines() throws IOException {
+		CsvReader reader = new CsvReader(new StringReader(
+				"a,b,c\r\n\"x, y\",\"say \"\"hi\"\"\",\r\n\n\"two\nlines\",,z\nlast"), 1000);
+
+		assertEquals(Arrays.asList("a", "b", "c"), reader.next());
+		assertEquals(1, reader.getRecordLine());
+		assertEquals(Arrays.asList("x, y", "say \"hi\"", ""), reader.next());
+		assertEquals(2, reader.getRecordLine());
+		// The blank line is skipped; the quoted line break belongs to the field
+		assertEquals(Arrays.asList("two\nlines", "", "z"), reader.next());
+		assertEquals(4, reader.getRecordLine());
+		assertEquals(Arrays.asList("last"), reader.next());
+		assertEquals(6, reader.getRecordLine());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void loneCarriageReturnsEndLines() throws IOException {
+		CsvReader blankLine = new CsvReader(new StringReader("a\r\rb"), 1000);
+		assertEquals(Arrays.asList("a"), blankLine.next());
+		assertEquals(Arrays.asList("b"), blankLine.next());
+		assertEquals(3, blankLine.getRecordLine());
+		assertNull(blankLine.next());
+
+		CsvReader classicMac = new CsvReader(new StringReader("a,b\rc,d\r\"e\rf\"\r"), 1000);
+		assertEquals(Arrays.asList("a", "b"), classicMac.next());
+		assertEquals(Arrays.asList("c", "d"), classicMac.next());
+		assertEquals(2, classicMac.getRecordLine());
+		assertEquals(Arrays.asList("e\rf"), classicMac.next());
+		assertEquals(3, classicMac.getRecordLine());
+		assertNull(classicMac.next());
+
+		CsvReader mixed = new CsvReader(new StringReader("x\r\r\ny\n\rz"), 1000);
+		assertEquals(Arrays.asList("x"), mixed.next());
+		assertEquals(Arrays.asList("y"), mixed.next());
+		assertEquals(3, mixed.getRecordLine());
+		assertEquals(Arrays.asList("z"), mixed.next());
+		assertEquals(5, mixed.getRecordLine());
+	}
+
+	@Test
+	void rejectsUnclosedQuotesAndOverlongRecords() throws IOException {
+		CsvReader unclosed = new CsvReader(new StringReader("ok\n\"never closed,\n"), 1000);
+		unclosed.next();
+		assertThrows(IOException.class, unclosed::next);
+
+		CsvReader overlong = new CsvReader(new StringReader("short\n" + "x".repeat(50)), 20);
+		overlong.next();
+		assertThrows(IOException.class, overlong::next);
+	}
+}
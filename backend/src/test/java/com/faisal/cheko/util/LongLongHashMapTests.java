@@ -0,0 +1,56 @@
+package com.faisal.cheko.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LongLongHashMapTests {
+
+	@Test
+	void agreesWithHashMapUnderRandomChanges() {
+		Random random = new Random(18);
+		LongLongHashMap map = new LongLongHashMap();
+		Map<Long, Long> expected = new HashMap<>();
+
+		for (int step = 0; step < 50_000; step++) {
+			// A small key range keeps probe chains long and removals frequent
+			long key = 1 + random.nextInt(3000);
+			int action = random.nextInt(10);
+			if (action < 5) {
+				long value = 1 + random.nextInt(20);
+				map.put(key, value);
+				expected.put(key, value);
+			} else if (action < 9) {
+				assertEquals(expected.remove(key) != null, map.remove(key), "after step " + step);
+			} else {
+				long value = 1 + random.nextInt(20);
+				int removed = (int) expected.values().stream().filter(v -> v == value).count();
+				expected.values().removeIf(v -> v == value);
+				assertEquals(removed, map.removeValue(value), "after step " + step);
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		for (long key = 1; key <= 3000; key++) {
+			assertEquals(expected.getOrDefault(key, -1L), map.get(key, -1L), "key " + key);
+		}
+	}
+
+	@Test
+	void copiesAreIndependentAndKeyZeroIsReserved() {
+		LongLongHashMap map = new LongLongHashMap();
+		map.put(7, 1);
+		LongLongHashMap copy = new LongLongHashMap(map);
+		copy.remove(7);
+
+		assertEquals(1, map.get(7, 0));
+		assertFalse(copy.containsKey(7));
+		assertFalse(map.containsKey(0));
+		assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+	}
+}
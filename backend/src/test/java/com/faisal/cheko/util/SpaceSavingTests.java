@@ -0,0 +1,77 @@
+package com.faisal.cheko.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTests {
+
+	@Test
+	void aNewItemReplacesTheSmallestCounter() {
+		SpaceSaving<String> summary = new SpaceSaving<>(3);
+		summary.offer("a", 5);
+		summary.offer("b", 2);
+		summary.offer("c", 3);
+
+		summary.offer("d", 1);
+		assertEquals(Arrays.asList("a", "c", "d"), items(summary.top(3)));
+		SpaceSaving.Entry<String> d = summary.top(3).get(2);
+		assertEquals(3, d.getCount());
+		assertEquals(2, d.getError());
+
+		// c grows past d, so d is the one the next newcomer displaces
+		summary.offer("c", 1);
+		summary.offer("e", 4);
+		assertEquals(Arrays.asList("e", "a", "c"), items(summary.top(3)));
+		assertEquals(7, summary.top(1).get(0).getCount());
+		assertEquals(3, summary.top(1).get(0).getError());
+	}
+
+	@Test
+	void boundsHoldOnASkewedWeightedStream() {
+		Random random = new Random(17);
+		int capacity = 50;
+		SpaceSaving<Integer> summary = new SpaceSaving<>(capacity);
+		Map<Integer, Long> actual = new HashMap<>();
+
+		for (int step = 0; step < 200_000; step++) {
+			// Roughly Zipfian over 5000 items, with order-line sized weights
+			int item = (int) Math.floor(Math.pow(5000, random.nextDouble()));
+			long weight = 1 + random.nextInt(3);
+			summary.offer(item, weight);
+			actual.merge(item, weight, Long::sum);
+		}
+
+		List<SpaceSaving.Entry<Integer>> tracked = summary.top(capacity);
+		assertEquals(capacity, tracked.size());
+		long sum = 0;
+		for (SpaceSaving.Entry<Integer> entry : tracked) {
+			long truth = actual.getOrDefault(entry.getItem(), 0L);
+			assertTrue(entry.getCount() >= truth, "item " + entry.getItem());
+			assertTrue(entry.getGuaranteedCount() <= truth, "item " + entry.getItem());
+			sum += entry.getCount();
+		}
+		// Every unit of weight is carried by exactly one counter
+		assertEquals(summary.getTotal(), sum);
+
+		long threshold = summary.getTotal() / capacity;
+		List<Integer> items = items(tracked);
+		actual.forEach((item, count) -> {
+			if (count > threshold) {
+				assertTrue(items.contains(item), "heavy hitter " + item);
+			}
+		});
+	}
+
+	private static <K> List<K> items(List<SpaceSaving.Entry<K>> entries) {
+		return entries.stream().map(SpaceSaving.Entry::getItem).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,31 @@
+package com.faisal.cheko.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UlidTests {
+
+	@Test
+	void encodesTimestampInTheFirstTenCharacters() {
+		// Timestamp and encoding from the ULID specification example
+		String ulid = Ulid.next(1469918176385L);
+
+		assertEquals(26, ulid.length());
+		assertEquals("01ARYZ6S41", ulid.substring(0, 10));
+		assertTrue(ulid.matches("[0-9A-HJKMNP-TV-Z]{26}"));
+	}
+
+	@Test
+	void idsFromOneThreadStrictlyIncreaseWithinAMillisecond() {
+		long now = System.currentTimeMillis() + 60_000;
+		String previous = Ulid.next(now);
+		for (int i = 0; i < 10_000; i++) {
+			String next = Ulid.next(now);
+			assertTrue(next.compareTo(previous) > 0, previous + " then " + next);
+			previous = next;
+		}
+		assertTrue(Ulid.next(now + 1).compareTo(previous) > 0);
+	}
+}
@@ -71,6 +71,46 @@ CREATE TABLE restaurant.order_items (
     price         DECIMAL(10,2) NOT NULL
 );
 
+-- Shared rate limiter state for multi-node deployments (cheko.rate-limit.mode=cluster).
+-- Nodes lease batches of tokens from a bucket and spend them locally.
+CREATE TABLE restaurant.rate_limit_buckets (
+    bucket_key        VARCHAR(320) PRIMARY KEY,
+    tokens            DOUBLE PRECISION NOT NULL,
+    capacity          INT NOT NULL,
+    refill_per_second DOUBLE PRECISION NOT NULL,
+    refilled_at       TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE restaurant.rate_limit_leases (
+    id          BIGSERIAL PRIMARY KEY,
+    bucket_key  VARCHAR(320) NOT NULL,
+    node_id     VARCHAR(255) NOT NULL,
+    tokens      INT NOT NULL,
+    expires_at  TIMESTAMPTZ NOT NULL
+);
+
+-- Nearest active branches of each customer, replaced whole by each assignment run
+CREATE TABLE restaurant.customer_branch_assignments (
+    customer_id     INT REFERENCES restaurant.customers(id) ON DELETE CASCADE,
+    rank            INT NOT NULL,
+    branch_id       INT REFERENCES restaurant.branches(id) ON DELETE CASCADE,
+    distance_meters DOUBLE PRECISION NOT NULL,
+    assigned_at     TIMESTAMPTZ DEFAULT NOW(),
+    PRIMARY KEY (customer_id, rank)
+);
+
 CREATE INDEX idx_branches_location      ON restaurant.branches USING GIST (location);
 CREATE INDEX idx_branches_opening_hours ON restaurant.branches USING GIN  (opening_hours);
 CREATE INDEX idx_customers_location     ON restaurant.customers USING GIST (location);
+-- Keyset pagination of menu items: (sort key, id) per section
+CREATE INDEX idx_menu_items_section_name  ON restaurant.menu_items (section_id, name, id);
+CREATE INDEX idx_menu_items_section_price ON restaurant.menu_items (section_id, price, id);
+CREATE INDEX idx_menu_sections_branch     ON restaurant.menu_sections (branch_id);
+-- Rebuilding the hourly and daily popular items from history
+CREATE INDEX idx_orders_created_at ON restaurant.orders (created_at);
+-- Window-function ranking of calories per section
+CREATE INDEX idx_menu_items_section_calories ON restaurant.menu_items (section_id, calories DESC) WHERE calories IS NOT NULL;
+CREATE INDEX idx_rate_limit_leases_expiry ON restaurant.rate_limit_leases (expires_at);
+CREATE INDEX idx_rate_limit_leases_bucket ON restaurant.rate_limit_leases (bucket_key);
+-- Customers assigned to a branch, for per-branch delivery zones
+CREATE INDEX idx_customer_branch_assignments_branch ON restaurant.customer_branch_assignments (branch_id);